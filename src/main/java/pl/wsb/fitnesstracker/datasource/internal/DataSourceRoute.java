@@ -0,0 +1,14 @@
+package pl.wsb.fitnesstracker.datasource.internal;
+
+/**
+ * Target of a routed connection.
+ */
+enum DataSourceRoute {
+
+    PRIMARY,
+    REPLICA;
+
+    String tagValue() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,66 @@
+package pl.wsb.fitnesstracker.datasource.internal;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records, per route, how long it takes to obtain a connection ({@value #ACQUIRE_METRIC})
+ * and how long the connection is held until it is closed ({@value #USAGE_METRIC}).
+ */
+class InstrumentedDataSource extends DelegatingDataSource {
+
+    static final String ACQUIRE_METRIC = "datasource.route.connection.acquire";
+
+    static final String USAGE_METRIC = "datasource.route.connection.usage";
+
+    private final Timer acquireTimer;
+
+    private final Timer usageTimer;
+
+    InstrumentedDataSource(DataSource target, DataSourceRoute route, MeterRegistry meterRegistry) {
+        super(target);
+        this.acquireTimer = meterRegistry.timer(ACQUIRE_METRIC, "route", route.tagValue());
+        this.usageTimer = meterRegistry.timer(USAGE_METRIC, "route", route.tagValue());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        acquireTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return track(connection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        acquireTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return track(connection);
+    }
+
+    private Connection track(Connection connection) {
+        long checkedOut = System.nanoTime();
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && closed.compareAndSet(false, true)) {
+                        usageTimer.record(System.nanoTime() - checkedOut, TimeUnit.NANOSECONDS);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
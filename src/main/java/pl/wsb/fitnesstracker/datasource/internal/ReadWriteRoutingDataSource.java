@@ -0,0 +1,18 @@
+package pl.wsb.fitnesstracker.datasource.internal;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes connections of read-only transactions to the replica and everything else to the primary.
+ * Must be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, because the read-only
+ * flag of a transaction is only published after the transaction manager has asked for its connection.
+ */
+class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        return readOnly && !ReadYourWritesContext.isPrimaryRequired() ? DataSourceRoute.REPLICA : DataSourceRoute.PRIMARY;
+    }
+}
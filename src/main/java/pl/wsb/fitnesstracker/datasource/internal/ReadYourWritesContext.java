@@ -0,0 +1,25 @@
+package pl.wsb.fitnesstracker.datasource.internal;
+
+/**
+ * Per-thread flag forcing read-only transactions onto the primary, set for requests whose client
+ * has recently written and must see its own writes.
+ */
+final class ReadYourWritesContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private ReadYourWritesContext() {
+    }
+
+    static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    static boolean isPrimaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY_REQUIRED.get());
+    }
+
+    static void clear() {
+        PRIMARY_REQUIRED.remove();
+    }
+}
@@ -0,0 +1,79 @@
+package pl.wsb.fitnesstracker.datasource.internal;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Implements read-your-writes consistency on top of the replica routing.
+ * <p>
+ * Every successful mutating request receives a {@value #CONSISTENCY_TOKEN_HEADER} response header with the time
+ * the request completed, i.e. after its transaction committed. A client sending the token back is served from the
+ * primary until the configured window after that time has passed, giving the replica time to catch up.
+ * Tokens from the future are ignored, so a client cannot pin itself to the primary by forging one.
+ * </p>
+ * <p>
+ * The body of a mutating response is buffered until the chain has finished, so that the header can still be added
+ * once the outcome is known.
+ * </p>
+ */
+@RequiredArgsConstructor
+class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String CONSISTENCY_TOKEN_HEADER = "X-Consistency-Token";
+
+    private static final Set<String> MUTATING_METHODS = Set.of(
+            HttpMethod.POST.name(), HttpMethod.PUT.name(), HttpMethod.PATCH.name(), HttpMethod.DELETE.name());
+
+    private final ReplicaDataSourceProperties replicaProperties;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (isWithinWindow(request.getHeader(CONSISTENCY_TOKEN_HEADER), System.currentTimeMillis())) {
+            ReadYourWritesContext.requirePrimary();
+        }
+        try {
+            if (MUTATING_METHODS.contains(request.getMethod())) {
+                doFilterMutation(request, response, filterChain);
+            } else {
+                filterChain.doFilter(request, response);
+            }
+        } finally {
+            ReadYourWritesContext.clear();
+        }
+    }
+
+    private void doFilterMutation(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper bufferedResponse = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, bufferedResponse);
+            if (bufferedResponse.getStatus() < HttpServletResponse.SC_BAD_REQUEST) {
+                bufferedResponse.setHeader(CONSISTENCY_TOKEN_HEADER, Long.toString(System.currentTimeMillis()));
+            }
+        } finally {
+            bufferedResponse.copyBodyToResponse();
+        }
+    }
+
+    private boolean isWithinWindow(String token, long now) {
+        if (token == null) {
+            return false;
+        }
+        try {
+            long writtenAt = Long.parseLong(token);
+            return writtenAt <= now && now - writtenAt < replicaProperties.getReadYourWritesWindow().toMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
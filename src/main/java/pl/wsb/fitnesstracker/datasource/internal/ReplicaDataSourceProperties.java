@@ -0,0 +1,49 @@
+package pl.wsb.fitnesstracker.datasource.internal;
+
+import jakarta.annotation.Nullable;
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the read replica. Read/write routing is enabled only when {@code datasource.replica.url} is set;
+ * credentials and driver default to the ones of the primary {@code spring.datasource}.
+ */
+@ConfigurationProperties(prefix = "datasource.replica")
+@Getter
+class ReplicaDataSourceProperties {
+
+    /**
+     * JDBC URL of the replica.
+     */
+    private final String url;
+
+    @Nullable
+    private final String username;
+
+    @Nullable
+    private final String password;
+
+    @Nullable
+    private final String driverClassName;
+
+    /**
+     * How long after a write the client presenting its consistency token is served from the primary.
+     * Must cover the request processing time plus the worst expected replication lag.
+     */
+    private final Duration readYourWritesWindow;
+
+    public ReplicaDataSourceProperties(String url,
+                                       @Nullable String username,
+                                       @Nullable String password,
+                                       @Nullable String driverClassName,
+                                       @DefaultValue("5s") Duration readYourWritesWindow) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.driverClassName = driverClassName;
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+}
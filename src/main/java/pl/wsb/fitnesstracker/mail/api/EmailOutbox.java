@@ -0,0 +1,18 @@
+package pl.wsb.fitnesstracker.mail.api;
+
+/**
+ * Durable queue of e-mails written in the transaction of the change that produces them.
+ * The e-mails are handed to the {@link EmailSender} after the transaction commits, and are discarded with it if it
+ * rolls back, so producers neither block on SMTP nor send e-mails about changes that never happened.
+ */
+public interface EmailOutbox {
+
+    /**
+     * Stores an e-mail to be sent once the current transaction commits.
+     *
+     * @param email information on email to be sent
+     * @throws org.springframework.transaction.IllegalTransactionStateException if no transaction is active
+     */
+    void enqueue(EmailDto email);
+
+}
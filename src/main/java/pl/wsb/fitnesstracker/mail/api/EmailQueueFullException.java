@@ -0,0 +1,17 @@
+package pl.wsb.fitnesstracker.mail.api;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown by {@link EmailSender#send(EmailDto)} when too many e-mails are waiting to be sent to accept another one.
+ * Will resolve to the {@link HttpStatus#SERVICE_UNAVAILABLE} if handled by the Spring's exception handler.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class EmailQueueFullException extends RuntimeException {
+
+    public EmailQueueFullException(String message) {
+        super(message);
+    }
+
+}
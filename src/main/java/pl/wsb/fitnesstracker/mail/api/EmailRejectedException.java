@@ -0,0 +1,13 @@
+package pl.wsb.fitnesstracker.mail.api;
+
+/**
+ * Reported by {@link EmailSender#deliver(EmailDto)} when the mail server refused an e-mail for good (5xx response),
+ * or when the e-mail cannot be turned into a message at all, so sending it again would fail the same way.
+ */
+public class EmailRejectedException extends RuntimeException {
+
+    public EmailRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
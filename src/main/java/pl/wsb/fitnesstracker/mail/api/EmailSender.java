@@ -1,5 +1,7 @@
 package pl.wsb.fitnesstracker.mail.api;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * API interface for component responsible for sending emails.
  */
@@ -7,9 +9,27 @@ public interface EmailSender {
 
     /**
      * Sends the email message to the recipient from the provided {@link EmailDto}.
+     * Implementations may send the message asynchronously, after this method has returned.
      *
      * @param email information on email to be sent
+     * @throws EmailQueueFullException if the message cannot be accepted because too many messages are waiting
      */
     void send(EmailDto email);
 
+    /**
+     * Sends the email message like {@link #send(EmailDto)} and reports when the mail server has taken it over.
+     * The default implementation suits senders that send synchronously, within {@link #send(EmailDto)}.
+     *
+     * @param email information on email to be sent
+     * @return future completed once the mail server accepted the message, or completed exceptionally once the sender
+     * gave up on it: with {@link EmailRejectedException} if the message can never be sent, with another exception if
+     * sending it later may succeed, e.g. because the server could not be reached; a message that is never sent, e.g.
+     * because the sender stopped, leaves it incomplete
+     * @throws EmailQueueFullException if the message cannot be accepted because too many messages are waiting
+     */
+    default CompletableFuture<Void> deliver(EmailDto email) {
+        send(email);
+        return CompletableFuture.completedFuture(null);
+    }
+
 }
@@ -0,0 +1,19 @@
+package pl.wsb.fitnesstracker.mail.api;
+
+/**
+ * Compiled template of the content of an e-mail, see {@link EmailTemplates}.
+ * Templates are plain text with {@code {{parameter}}} placeholders; {@code {{parameter:N}}} writes a number with
+ * {@code N} fraction digits.
+ */
+public interface EmailTemplate {
+
+    /**
+     * Renders the template.
+     *
+     * @param values values of the parameters, in the order given when the template was looked up
+     * @return the rendered text
+     * @throws IllegalArgumentException if the number of values does not match the number of parameters
+     */
+    String render(Object... values);
+
+}
@@ -0,0 +1,20 @@
+package pl.wsb.fitnesstracker.mail.api;
+
+/**
+ * Provides the e-mail content templates of the application, compiled when the application starts.
+ */
+public interface EmailTemplates {
+
+    /**
+     * Returns a template bound to the order in which its caller passes the parameter values.
+     * Templates should be looked up once, e.g. in the constructor of the caller, not for every e-mail.
+     *
+     * @param name       name of the template
+     * @param parameters names of all parameters of the template, in the order of the values passed to
+     *                   {@link EmailTemplate#render(Object...)}
+     * @return the template
+     * @throws IllegalArgumentException if there is no such template or its parameters are not the given ones
+     */
+    EmailTemplate getTemplate(String name, String... parameters);
+
+}
@@ -0,0 +1,62 @@
+package pl.wsb.fitnesstracker.mail.internal;
+
+/**
+ * Concurrency limit adjusted by additive increase, multiplicative decrease: every successful session raises the limit
+ * by one up to its maximum, every throttled one multiplies it by the backoff ratio down to a single session.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private static final int MIN_LIMIT = 1;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private double limit;
+
+    private int inFlight;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int maxLimit, double backoffRatio) {
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(MIN_LIMIT, Math.min(initialLimit, maxLimit));
+    }
+
+    /**
+     * Starts a session if fewer sessions than the limit are in flight.
+     *
+     * @return whether the session was started
+     */
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Ends a session that was started but never ran, without adjusting the limit.
+     */
+    synchronized void cancel() {
+        inFlight--;
+    }
+
+    /**
+     * Ends a session started by {@link #tryAcquire()} and adjusts the limit to its outcome.
+     *
+     * @param throttled whether the server throttled the session or did not answer in time
+     */
+    synchronized void release(boolean throttled) {
+        inFlight--;
+        limit = throttled ? Math.max(MIN_LIMIT, limit * backoffRatio) : Math.min(maxLimit, limit + 1);
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized boolean isIdle() {
+        return inFlight == 0;
+    }
+}
@@ -0,0 +1,479 @@
+package pl.wsb.fitnesstracker.mail.internal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSenderFailedException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+import pl.wsb.fitnesstracker.mail.api.EmailDto;
+import pl.wsb.fitnesstracker.mail.api.EmailQueueFullException;
+import pl.wsb.fitnesstracker.mail.api.EmailRejectedException;
+import pl.wsb.fitnesstracker.mail.api.EmailSender;
+
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link EmailSender} that queues the e-mails and sends them from a pool of worker threads, so callers never wait
+ * for an SMTP round trip.
+ * <p>
+ * The queue is bounded; when it is full the configured {@link MailProperties.OverflowPolicy} applies, so a burst
+ * either slows its producer down, loses e-mails or fails fast, instead of exhausting the memory.
+ * Each worker takes up to a batch of queued e-mails at once and sends the e-mails of each recipient domain with a
+ * single {@link JavaMailSender#send(MimeMessage...)} call, which opens one SMTP connection for them, if the
+ * {@link SmtpThrottle} of the domain allows it. Otherwise the e-mails are set aside until the domain may be tried
+ * again, and the worker goes on with the other domains instead of waiting.
+ * E-mails the server throttles (4xx response) or does not answer in time are set aside for the backoff of their domain
+ * and sent again, up to {@code mail.throttle.max-attempts} sends; other failures are logged and counted, not retried.
+ * Timeouts are only detected when {@code spring.mail.properties.mail.smtp.timeout} is set.
+ * The future returned by {@link #deliver(EmailDto)} completes with the final outcome of the e-mail; only e-mails the
+ * server refused for good (5xx response) or that cannot be created fail it with {@link EmailRejectedException}.
+ * </p>
+ * <p>
+ * Metrics: {@code mail.queue.size}, {@code mail.deferred.size} (e-mails set aside) (gauges), {@code mail.sent},
+ * {@code mail.failed}, {@code mail.dropped}, {@code mail.rejected}, {@code mail.throttled} (e-mails sent again after
+ * throttling) (counters),
+ * {@code mail.batch.duration} (time of one SMTP session) and
+ * {@code mail.delivery.latency} (time from {@link #send(EmailDto)} until the SMTP server accepted or refused the e-mail).
+ * </p>
+ * <p>
+ * Active when {@code spring.mail.host} is set, like the auto-configured {@link JavaMailSender}.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "spring.mail", name = "host")
+@Slf4j
+class AsyncEmailSender implements EmailSender {
+
+    /**
+     * How often an idle worker checks whether the sender is being stopped or a deferred e-mail is due.
+     */
+    private static final long POLL_INTERVAL_MILLIS = 500;
+
+    /**
+     * Nesting depth up to which the causes of a failure are searched for an SMTP response.
+     */
+    private static final int MAX_CAUSE_DEPTH = 10;
+
+    /**
+     * @param delivery completed with the outcome of the e-mail, {@code null} if the caller does not wait for it
+     */
+    private record QueuedEmail(EmailDto email, long enqueuedAt, int attempt, @Nullable CompletableFuture<Void> delivery) {
+
+        QueuedEmail nextAttempt() {
+            return new QueuedEmail(email, enqueuedAt, attempt + 1, delivery);
+        }
+
+        /**
+         * @param failure why the e-mail was given up on, {@code null} if the server accepted it
+         */
+        void complete(@Nullable Exception failure) {
+            if (delivery == null) {
+                return;
+            }
+            if (failure == null) {
+                delivery.complete(null);
+            } else {
+                delivery.completeExceptionally(failure);
+            }
+        }
+    }
+
+    /**
+     * E-mail set aside until its domain may be tried again.
+     *
+     * @param dueAt {@link System#nanoTime()} from which the e-mail is sent again
+     */
+    private record DeferredEmail(QueuedEmail queued, long dueAt) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    /**
+     * @param throttled whether the server throttled any e-mail of the session or did not answer in time
+     * @param retries   throttled e-mails with attempts left
+     */
+    private record SessionOutcome(boolean throttled, List<QueuedEmail> retries) {
+    }
+
+    private final JavaMailSender mailSender;
+
+    private final MailProperties properties;
+
+    private final SmtpThrottle throttle;
+
+    private final int maxAttempts;
+
+    private final BlockingQueue<QueuedEmail> queue;
+
+    /**
+     * E-mails whose domain is backing off, throttled or busy, at most as many as the queue capacity.
+     */
+    private final DelayQueue<DeferredEmail> deferred = new DelayQueue<>();
+
+    private final ExecutorService workers;
+
+    private final Counter sent;
+
+    private final Counter failed;
+
+    private final Counter dropped;
+
+    private final Counter rejected;
+
+    private final Counter throttled;
+
+    private final Timer batchDuration;
+
+    private final Timer deliveryLatency;
+
+    private volatile boolean stopping;
+
+    AsyncEmailSender(JavaMailSender mailSender,
+                     MailProperties properties,
+                     SmtpThrottle throttle,
+                     ThrottleProperties throttleProperties,
+                     MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.properties = properties;
+        this.throttle = throttle;
+        this.maxAttempts = throttleProperties.getMaxAttempts();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.sent = meterRegistry.counter("mail.sent");
+        this.failed = meterRegistry.counter("mail.failed");
+        this.dropped = meterRegistry.counter("mail.dropped");
+        this.rejected = meterRegistry.counter("mail.rejected");
+        this.throttled = meterRegistry.counter("mail.throttled");
+        this.batchDuration = meterRegistry.timer("mail.batch.duration");
+        this.deliveryLatency = meterRegistry.timer("mail.delivery.latency");
+        Gauge.builder("mail.queue.size", queue, Collection::size).register(meterRegistry);
+        Gauge.builder("mail.deferred.size", deferred, Collection::size).register(meterRegistry);
+
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(properties.getWorkers(),
+                runnable -> new Thread(runnable, "mail-sender-" + threads.incrementAndGet()));
+        for (int i = 0; i < properties.getWorkers(); i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    @Override
+    public void send(EmailDto email) {
+        enqueue(new QueuedEmail(email, System.nanoTime(), 1, null));
+    }
+
+    @Override
+    public CompletableFuture<Void> deliver(EmailDto email) {
+        CompletableFuture<Void> delivery = new CompletableFuture<>();
+        enqueue(new QueuedEmail(email, System.nanoTime(), 1, delivery));
+        return delivery;
+    }
+
+    private void enqueue(QueuedEmail queued) {
+        EmailDto email = queued.email();
+        if (stopping) {
+            throw new EmailQueueFullException("E-mail sender is stopping");
+        }
+        if (queue.offer(queued)) {
+            return;
+        }
+        switch (properties.getOverflowPolicy()) {
+            case BLOCK -> {
+                try {
+                    if (!queue.offer(queued, properties.getBlockTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                        reject(email);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    reject(email);
+                }
+            }
+            case DROP -> {
+                dropped.increment();
+                log.warn("E-mail queue is full, dropped e-mail to {}", email.toAddress());
+                queued.complete(new EmailQueueFullException("E-mail queue is full, dropped e-mail to " + email.toAddress()));
+            }
+            case REJECT -> reject(email);
+        }
+    }
+
+    /**
+     * Stops accepting e-mails and sends the queued ones for at most the shutdown timeout.
+     */
+    @PreDestroy
+    void shutdown() {
+        stopping = true;
+        workers.shutdown();
+        try {
+            if (workers.awaitTermination(properties.getShutdownTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdownNow();
+        log.warn("E-mail sender stopped with {} e-mails not sent", queue.size() + deferred.size());
+    }
+
+    private void reject(EmailDto email) {
+        rejected.increment();
+        throw new EmailQueueFullException("Too many e-mails waiting to be sent, rejected e-mail to " + email.toAddress());
+    }
+
+    private void work() {
+        List<QueuedEmail> batch = new ArrayList<>(properties.getBatchSize());
+        List<DeferredEmail> due = new ArrayList<>(properties.getBatchSize());
+        while (!stopping || !queue.isEmpty() || !deferred.isEmpty()) {
+            try {
+                deferred.drainTo(due, properties.getBatchSize());
+                due.forEach(email -> batch.add(email.queued()));
+                if (batch.isEmpty()) {
+                    QueuedEmail first = queue.poll(pollTimeoutMillis(), TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                }
+                queue.drainTo(batch, properties.getBatchSize() - batch.size());
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Unexpected failure of the e-mail sender", e);
+            } finally {
+                batch.clear();
+                due.clear();
+            }
+        }
+    }
+
+    /**
+     * @return how long an idle worker waits for a new e-mail, short enough to take the next deferred one when it is due
+     */
+    private long pollTimeoutMillis() {
+        DeferredEmail next = deferred.peek();
+        if (next == null) {
+            return POLL_INTERVAL_MILLIS;
+        }
+        return Math.max(1, Math.min(POLL_INTERVAL_MILLIS, next.getDelay(TimeUnit.MILLISECONDS)));
+    }
+
+    private void sendBatch(List<QueuedEmail> batch) {
+        Map<String, List<QueuedEmail>> byDomain = new LinkedHashMap<>();
+        for (QueuedEmail queued : batch) {
+            byDomain.computeIfAbsent(SmtpThrottle.domainOf(queued.email().toAddress()), domain -> new ArrayList<>()).add(queued);
+        }
+        for (Map.Entry<String, List<QueuedEmail>> domain : byDomain.entrySet()) {
+            sendSession(domain.getKey(), domain.getValue());
+        }
+    }
+
+    /**
+     * Sends the e-mails of one domain if the {@link SmtpThrottle} allows it now, and otherwise sets them aside until
+     * it may, so the worker moves on to the other domains.
+     */
+    private void sendSession(String domain, List<QueuedEmail> emails) {
+        List<MimeMessage> messages = new ArrayList<>(emails.size());
+        List<QueuedEmail> accepted = new ArrayList<>(emails.size());
+        for (QueuedEmail queued : emails) {
+            try {
+                messages.add(toMimeMessage(queued.email()));
+                accepted.add(queued);
+            } catch (MessagingException e) {
+                log.warn("Could not create e-mail to {}", queued.email().toAddress(), e);
+                failed.increment();
+                queued.complete(new EmailRejectedException("Could not create e-mail to " + queued.email().toAddress(), e));
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+        long wait = throttle.tryAcquire(domain, messages.size());
+        if (wait > 0) {
+            accepted.forEach(queued -> defer(queued, wait));
+            return;
+        }
+        SessionOutcome outcome = new SessionOutcome(true, List.of());
+        try {
+            outcome = sendMessages(accepted, messages);
+        } finally {
+            throttle.release(domain, outcome.throttled());
+        }
+        // set aside only now, so they wait for the backoff the release has just started
+        for (QueuedEmail retry : outcome.retries()) {
+            if (defer(retry.nextAttempt(), 0)) {
+                throttled.increment();
+            }
+        }
+        if (outcome.throttled()) {
+            log.info("Server of {} throttled the sending, concurrency limited to {}, rate to {} e-mails/s",
+                    domain, throttle.getConcurrencyLimit(domain), throttle.getRatePerSecond(domain));
+        }
+    }
+
+    /**
+     * Sends the e-mails over one SMTP connection.
+     *
+     * @return whether the server throttled any e-mail or did not answer in time, and the e-mails to send again
+     */
+    private SessionOutcome sendMessages(List<QueuedEmail> emails, List<MimeMessage> messages) {
+        long start = System.nanoTime();
+        Map<Object, Exception> failedMessages = Map.of();
+        // set when the whole session failed, e.g. the server could not be reached
+        Exception sessionFailure = null;
+        try {
+            mailSender.send(messages.toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            failedMessages = e.getFailedMessages();
+            if (failedMessages.isEmpty()) {
+                sessionFailure = e;
+            }
+        } catch (MailException e) {
+            sessionFailure = e;
+        }
+        long end = System.nanoTime();
+        batchDuration.record(end - start, TimeUnit.NANOSECONDS);
+
+        boolean sessionThrottled = false;
+        List<QueuedEmail> retries = new ArrayList<>();
+        int delivered = 0;
+        int failures = 0;
+        for (int i = 0; i < emails.size(); i++) {
+            QueuedEmail queued = emails.get(i);
+            Exception failure = sessionFailure != null ? sessionFailure : failedMessages.get(messages.get(i));
+            if (failure == null) {
+                deliveryLatency.record(end - queued.enqueuedAt(), TimeUnit.NANOSECONDS);
+                delivered++;
+                queued.complete(null);
+                continue;
+            }
+            if (isThrottled(failure)) {
+                sessionThrottled = true;
+                if (queued.attempt() < maxAttempts) {
+                    retries.add(queued);
+                    continue;
+                }
+            }
+            deliveryLatency.record(end - queued.enqueuedAt(), TimeUnit.NANOSECONDS);
+            failures++;
+            log.warn("E-mail to {} could not be sent after {} attempts", queued.email().toAddress(), queued.attempt(), failure);
+            queued.complete(isRefused(failure)
+                    ? new EmailRejectedException("Server refused e-mail to " + queued.email().toAddress(), failure)
+                    : failure);
+        }
+        sent.increment(delivered);
+        failed.increment(failures);
+        return new SessionOutcome(sessionThrottled, retries);
+    }
+
+    /**
+     * Sets an e-mail aside until its domain may be tried again; fails it if too many e-mails are already set aside.
+     *
+     * @param delayNanos how long the e-mail waits
+     * @return whether the e-mail was set aside
+     */
+    private boolean defer(QueuedEmail queued, long delayNanos) {
+        if (deferred.size() < properties.getQueueCapacity()) {
+            deferred.add(new DeferredEmail(queued, System.nanoTime() + delayNanos));
+            return true;
+        }
+        failed.increment();
+        log.warn("Too many e-mails waiting for their domain, e-mail to {} not sent", queued.email().toAddress());
+        queued.complete(new EmailQueueFullException("Too many e-mails waiting for their domain, gave up on e-mail to " + queued.email().toAddress()));
+        return false;
+    }
+
+    /**
+     * @return whether the failure is a transient (4xx) SMTP response or a timeout, worth retrying more slowly
+     */
+    private static boolean isThrottled(Throwable failure) {
+        Throwable cause = failure;
+        for (int depth = 0; cause != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (cause instanceof SocketTimeoutException) {
+                return true;
+            }
+            int returnCode = returnCode(cause);
+            if (returnCode > 0) {
+                return returnCode >= 400 && returnCode < 500;
+            }
+            // the cause of a MessagingException is its next exception
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * @return whether the failure is a permanent (5xx) SMTP response, so sending the e-mail again would fail as well;
+     * a server that could not be reached or refused the login is not
+     */
+    private static boolean isRefused(Throwable failure) {
+        Throwable cause = failure;
+        for (int depth = 0; cause != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            int returnCode = returnCode(cause);
+            if (returnCode > 0) {
+                return returnCode >= 500 && returnCode < 600;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    private static int returnCode(Throwable failure) {
+        if (failure instanceof SMTPSendFailedException e) {
+            return e.getReturnCode();
+        }
+        if (failure instanceof SMTPAddressFailedException e) {
+            return e.getReturnCode();
+        }
+        if (failure instanceof SMTPSenderFailedException e) {
+            return e.getReturnCode();
+        }
+        return -1;
+    }
+
+    private MimeMessage toMimeMessage(EmailDto email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, StandardCharsets.UTF_8.name());
+        helper.setFrom(properties.getFrom());
+        helper.setTo(email.toAddress());
+        helper.setSubject(email.subject());
+        helper.setText(email.content());
+        return message;
+    }
+}
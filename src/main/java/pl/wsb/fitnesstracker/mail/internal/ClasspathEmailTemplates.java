@@ -0,0 +1,60 @@
+package pl.wsb.fitnesstracker.mail.internal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import pl.wsb.fitnesstracker.mail.api.EmailTemplate;
+import pl.wsb.fitnesstracker.mail.api.EmailTemplates;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link EmailTemplates} read from the {@value #TEMPLATE_LOCATION} files of the classpath, named after the file
+ * without its extension. All templates are compiled when the application starts, so a broken template fails the
+ * startup instead of the first e-mail.
+ */
+@Component
+@Slf4j
+class ClasspathEmailTemplates implements EmailTemplates {
+
+    static final String TEMPLATE_LOCATION = "classpath*:mail/templates/*.txt";
+
+    private static final String TEMPLATE_EXTENSION = ".txt";
+
+    private final Map<String, CompiledEmailTemplate> templates = new HashMap<>();
+
+    ClasspathEmailTemplates(ResourceLoader resourceLoader) {
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver(resourceLoader).getResources(TEMPLATE_LOCATION)) {
+                String fileName = resource.getFilename();
+                if (fileName == null) {
+                    continue;
+                }
+                String name = fileName.substring(0, fileName.length() - TEMPLATE_EXTENSION.length());
+                CompiledEmailTemplate template = CompiledEmailTemplate.compile(name, resource.getContentAsString(StandardCharsets.UTF_8));
+                if (templates.putIfAbsent(name, template) != null) {
+                    throw new IllegalStateException("Duplicate e-mail template " + name);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read e-mail templates", e);
+        }
+        log.info("Compiled e-mail templates {}", templates.keySet());
+    }
+
+    @Override
+    public EmailTemplate getTemplate(String name, String... parameters) {
+        CompiledEmailTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown e-mail template " + name);
+        }
+        return template.bind(List.of(parameters));
+    }
+}
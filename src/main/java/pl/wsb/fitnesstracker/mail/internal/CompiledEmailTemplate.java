@@ -0,0 +1,265 @@
+package pl.wsb.fitnesstracker.mail.internal;
+
+import pl.wsb.fitnesstracker.mail.api.EmailTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Template parsed into a list of segments: literal text, or a parameter with an optional number of fraction digits.
+ * Rendering walks the segments and appends them to a per-thread buffer, so it neither parses, nor looks parameters up
+ * by name, nor goes through {@link java.util.Formatter}.
+ */
+final class CompiledEmailTemplate {
+
+    private static final String PLACEHOLDER_START = "{{";
+
+    private static final String PLACEHOLDER_END = "}}";
+
+    private static final char DECIMALS_SEPARATOR = ':';
+
+    private static final int MAX_DECIMALS = 9;
+
+    /**
+     * Buffers above this capacity are not kept for the next rendering, so one huge e-mail does not pin its buffer.
+     */
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFERS = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    /**
+     * Distance from a rounding tie, in ulps of the scaled value, within which the decimal representation decides.
+     * Covers the error of the scaling and the distance between the value and its shortest decimal representation.
+     */
+    private static final int TIE_ULPS = 4;
+
+    /**
+     * Scaled values from here on have no fraction bits left, and may not fit a long.
+     */
+    private static final double MAX_ROUNDED = 0x1p52;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L};
+
+    private final String name;
+
+    /**
+     * Literal text of every segment, {@code null} for parameter segments.
+     */
+    private final String[] literals;
+
+    /**
+     * Parameter of every segment, {@code null} for literal segments.
+     */
+    private final String[] parameters;
+
+    /**
+     * Fraction digits of every parameter segment, {@code -1} if the value is written as it is.
+     */
+    private final int[] decimals;
+
+    /**
+     * Names of the parameters, in the order of their first occurrence.
+     */
+    private final List<String> parameterNames;
+
+    private CompiledEmailTemplate(String name, String[] literals, String[] parameters, int[] decimals, List<String> parameterNames) {
+        this.name = name;
+        this.literals = literals;
+        this.parameters = parameters;
+        this.decimals = decimals;
+        this.parameterNames = parameterNames;
+    }
+
+    /**
+     * @param name   name of the template, used in error messages
+     * @param source text of the template
+     * @return the compiled template
+     * @throws IllegalArgumentException if a placeholder is not closed, is empty or has invalid fraction digits
+     */
+    static CompiledEmailTemplate compile(String name, String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> parameters = new ArrayList<>();
+        List<Integer> decimals = new ArrayList<>();
+        List<String> parameterNames = new ArrayList<>();
+        int position = 0;
+        while (position < source.length()) {
+            int start = source.indexOf(PLACEHOLDER_START, position);
+            if (start < 0) {
+                start = source.length();
+            }
+            if (start > position) {
+                literals.add(source.substring(position, start));
+                parameters.add(null);
+                decimals.add(-1);
+            }
+            if (start == source.length()) {
+                break;
+            }
+            int end = source.indexOf(PLACEHOLDER_END, start);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder in template %s at %d".formatted(name, start));
+            }
+            String placeholder = source.substring(start + PLACEHOLDER_START.length(), end).strip();
+            int separator = placeholder.indexOf(DECIMALS_SEPARATOR);
+            String parameter = separator < 0 ? placeholder : placeholder.substring(0, separator).strip();
+            if (parameter.isEmpty()) {
+                throw new IllegalArgumentException("Empty placeholder in template %s at %d".formatted(name, start));
+            }
+            literals.add(null);
+            parameters.add(parameter);
+            decimals.add(separator < 0 ? -1 : parseDecimals(name, placeholder.substring(separator + 1).strip()));
+            if (!parameterNames.contains(parameter)) {
+                parameterNames.add(parameter);
+            }
+            position = end + PLACEHOLDER_END.length();
+        }
+        return new CompiledEmailTemplate(name,
+                literals.toArray(String[]::new),
+                parameters.toArray(String[]::new),
+                decimals.stream().mapToInt(Integer::intValue).toArray(),
+                List.copyOf(parameterNames));
+    }
+
+    private static int parseDecimals(String name, String decimals) {
+        try {
+            int value = Integer.parseInt(decimals);
+            if (value >= 0 && value <= MAX_DECIMALS) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid fraction digits '%s' in template %s".formatted(decimals, name));
+    }
+
+    String getName() {
+        return name;
+    }
+
+    List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    /**
+     * Binds the parameters to the positions of the values passed to {@link EmailTemplate#render(Object...)}.
+     *
+     * @param order names of all parameters of the template, in the order of the values
+     * @return the bound template
+     * @throws IllegalArgumentException if the given parameters are not the parameters of the template
+     */
+    EmailTemplate bind(List<String> order) {
+        if (order.size() != parameterNames.size() || !order.containsAll(parameterNames)) {
+            throw new IllegalArgumentException("Template %s has parameters %s, not %s".formatted(name, parameterNames, order));
+        }
+        int[] positions = new int[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            positions[i] = parameters[i] == null ? -1 : order.indexOf(parameters[i]);
+        }
+        return new BoundTemplate(positions, order.size());
+    }
+
+    private final class BoundTemplate implements EmailTemplate {
+
+        /**
+         * Position of the value of every segment, {@code -1} for literal segments.
+         */
+        private final int[] positions;
+
+        private final int values;
+
+        private BoundTemplate(int[] positions, int values) {
+            this.positions = positions;
+            this.values = values;
+        }
+
+        @Override
+        public String render(Object... values) {
+            if (values.length != this.values) {
+                throw new IllegalArgumentException("Template %s expects %d values, got %d".formatted(name, this.values, values.length));
+            }
+            StringBuilder buffer = BUFFERS.get();
+            buffer.setLength(0);
+            for (int i = 0; i < positions.length; i++) {
+                int position = positions[i];
+                if (position < 0) {
+                    buffer.append(literals[i]);
+                } else {
+                    append(buffer, values[position], decimals[i]);
+                }
+            }
+            String rendered = buffer.toString();
+            if (buffer.capacity() > MAX_POOLED_CAPACITY) {
+                BUFFERS.remove();
+            }
+            return rendered;
+        }
+    }
+
+    private static void append(StringBuilder buffer, Object value, int decimals) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            long number = ((Number) value).longValue();
+            buffer.append(number);
+            if (decimals > 0) {
+                buffer.append('.');
+                appendZeros(buffer, decimals);
+            }
+        } else if (decimals >= 0 && (value instanceof Double || value instanceof Float)) {
+            appendFixed(buffer, ((Number) value).doubleValue(), decimals);
+        } else {
+            buffer.append(value);
+        }
+    }
+
+    /**
+     * Writes a number with a fixed number of fraction digits like {@code String.format("%.Nf")}: rounded half up on
+     * the shortest decimal representation of the value, e.g. {@code 1.005} to {@code 1.01}, although its binary value
+     * is slightly below. The scaled binary value is rounded directly unless it lies within a few ulps of a tie, where
+     * the binary and the decimal value may round differently; those values, and the ones too large for a long once
+     * scaled, go through {@link BigDecimal#valueOf(double)}, which uses the same decimal representation.
+     */
+    private static void appendFixed(StringBuilder buffer, double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            buffer.append(value);
+            return;
+        }
+        // like Formatter, negative values keep their sign even when they round to zero
+        if (Double.compare(value, 0.0) < 0) {
+            buffer.append('-');
+        }
+        double magnitude = Math.abs(value);
+        long scale = POWERS_OF_TEN[decimals];
+        double scaled = magnitude * scale;
+        if (scaled >= MAX_ROUNDED || Math.abs(scaled - Math.floor(scaled) - 0.5) <= TIE_ULPS * Math.ulp(scaled)) {
+            buffer.append(BigDecimal.valueOf(magnitude).setScale(decimals, RoundingMode.HALF_UP).toPlainString());
+            return;
+        }
+        long rounded = Math.round(scaled);
+        buffer.append(rounded / scale);
+        if (decimals > 0) {
+            buffer.append('.');
+            long fraction = rounded % scale;
+            appendZeros(buffer, decimals - digits(fraction));
+            if (fraction != 0) {
+                buffer.append(fraction);
+            }
+        }
+    }
+
+    private static int digits(long value) {
+        int digits = 0;
+        while (value > 0) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private static void appendZeros(StringBuilder buffer, int count) {
+        for (int i = 0; i < count; i++) {
+            buffer.append('0');
+        }
+    }
+}
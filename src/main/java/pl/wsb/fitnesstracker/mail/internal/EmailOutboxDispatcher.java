@@ -0,0 +1,307 @@
+package pl.wsb.fitnesstracker.mail.internal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.wsb.fitnesstracker.mail.api.EmailQueueFullException;
+import pl.wsb.fitnesstracker.mail.api.EmailRejectedException;
+import pl.wsb.fitnesstracker.mail.api.EmailSender;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Hands the e-mails of the outbox to the {@link EmailSender}, oldest first, from a thread of its own.
+ * <p>
+ * A batch is claimed in a short transaction that locks the rows with {@code SKIP LOCKED} and leases them to this node,
+ * so several nodes can dispatch at the same time without sending an e-mail twice or waiting for each other. On
+ * databases without {@code SKIP LOCKED} the claim waits for the locks instead, and the version check of the rows makes
+ * the losing claim fail and retry.
+ * The claimed e-mails are then handed to the sender outside of any transaction, and the dispatcher waits, for at most
+ * the send timeout, until the mail server has accepted them; only then are they deleted, with one statement. E-mails
+ * the server refused for good ({@link EmailRejectedException}) are deleted as well. E-mails the sender does not take
+ * because its queue is full, or gives up on for a reason that may pass, e.g. because the server could not be reached,
+ * stay in the outbox and are claimed again once their lease expires.
+ * </p>
+ * <p>
+ * E-mails still held by the sender after the send timeout, e.g. while their domain backs off, are not sent again:
+ * the drains renew their lease until the sender reports their outcome, and settle them like the e-mails of a batch.
+ * The e-mails of a node that stops between sending and deleting them are claimed again once their lease expires, so
+ * they are sent at least once.
+ * </p>
+ * <p>
+ * Metrics: {@code mail.outbox.dispatched}, {@code mail.outbox.failed} (counters) and {@code mail.outbox.batch.duration}
+ * (claim, send and delete of one batch); the throughput of every drain is logged.
+ * </p>
+ */
+@Component
+@Slf4j
+class EmailOutboxDispatcher {
+
+    /**
+     * E-mails of a batch accepted by the mail server, and those that can leave the outbox.
+     */
+    private record BatchResult(List<Long> sentIds, List<Long> finishedIds) {
+    }
+
+    private final OutboxEmailRepository outboxEmailRepository;
+
+    private final ObjectProvider<EmailSender> emailSender;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final OutboxProperties properties;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * Outcomes of the e-mails handed to the sender but not settled by the end of their batch, by outbox ID.
+     */
+    private final Map<Long, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * {@link System#nanoTime()} from which the leases of the pending e-mails are renewed, halfway through the lease.
+     */
+    private volatile long renewLeasesAt = System.nanoTime();
+
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "mail-outbox-dispatcher"));
+
+    private final Counter dispatched;
+
+    private final Counter failed;
+
+    private final Timer batchDuration;
+
+    EmailOutboxDispatcher(OutboxEmailRepository outboxEmailRepository,
+                          ObjectProvider<EmailSender> emailSender,
+                          PlatformTransactionManager transactionManager,
+                          OutboxProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.outboxEmailRepository = outboxEmailRepository;
+        this.emailSender = emailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.dispatched = meterRegistry.counter("mail.outbox.dispatched");
+        this.failed = meterRegistry.counter("mail.outbox.failed");
+        this.batchDuration = meterRegistry.timer("mail.outbox.batch.duration");
+    }
+
+    /**
+     * Drains the outbox every poll interval. A drain waits for the mail server, so it does not run on the shared
+     * scheduler thread, where it would delay every other scheduled task.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        long interval = properties.getPollInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::dispatchSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void dispatchSafely() {
+        try {
+            dispatch();
+        } catch (RuntimeException e) {
+            // an exception would cancel the periodic drain
+            log.error("Could not dispatch the e-mail outbox", e);
+        }
+    }
+
+    /**
+     * Sends batches of e-mails until the outbox is empty or the sender stops accepting them.
+     *
+     * @return number of e-mails accepted by the mail server
+     */
+    public int dispatch() {
+        EmailSender sender = emailSender.getIfAvailable();
+        if (sender == null) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        int total = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            // before the claim, so the e-mails still held by the sender are not claimed again
+            total += settlePending();
+            long batchStart = System.nanoTime();
+            // before the claim, so the wait for the mail server ends before the lease does
+            long deadline = batchStart + properties.getSendTimeout().toNanos();
+            List<OutboxEmail> claimed = claim();
+            if (claimed == null) {
+                // another node claimed some of the rows first
+                continue;
+            }
+            if (claimed.isEmpty()) {
+                break;
+            }
+            BatchResult result = send(sender, claimed, deadline);
+            batchDuration.record(System.nanoTime() - batchStart, TimeUnit.NANOSECONDS);
+            total += result.sentIds().size();
+            if (result.finishedIds().size() < claimed.size() || claimed.size() < properties.getBatchSize()) {
+                break;
+            }
+        }
+        if (total > 0) {
+            long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            log.info("Dispatched {} e-mails from the outbox in {} ms ({} e-mails/s)", total, millis, total * 1000L / millis);
+        }
+        return total;
+    }
+
+    /**
+     * @return the claimed e-mails, {@code null} if a concurrent claim of the same rows won or timed out the lock
+     */
+    @Nullable
+    private List<OutboxEmail> claim() {
+        try {
+            return transactionTemplate.execute(status -> {
+                Instant now = Instant.now();
+                List<OutboxEmail> emails = outboxEmailRepository.findClaimable(now, Limit.of(properties.getBatchSize()));
+                Instant until = now.plus(properties.getLease());
+                emails.forEach(email -> email.claim(nodeId, until));
+                return emails;
+            });
+        } catch (ConcurrencyFailureException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Hands the e-mails to the sender, waits for their outcome until the deadline and deletes the finished ones.
+     *
+     * @param deadline {@link System#nanoTime()} after which unfinished e-mails are left to a later drain
+     */
+    private BatchResult send(EmailSender sender, List<OutboxEmail> claimed, long deadline) {
+        Map<Long, CompletableFuture<Void>> deliveries = new LinkedHashMap<>();
+        for (OutboxEmail email : claimed) {
+            if (pending.containsKey(email.getId())) {
+                // its lease expired before it could be renewed, but the sender still holds it
+                continue;
+            }
+            try {
+                deliveries.put(email.getId(), sender.deliver(email.toDto()));
+            } catch (RuntimeException e) {
+                log.warn("E-mail {} of the outbox not accepted, retrying after the lease: {}", email.getId(), e.getMessage());
+                break;
+            }
+        }
+        try {
+            CompletableFuture.allOf(deliveries.values().toArray(CompletableFuture[]::new))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // the failed e-mails are settled below, the unfinished ones by a later drain
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        BatchResult result = new BatchResult(new ArrayList<>(deliveries.size()), new ArrayList<>(deliveries.size()));
+        for (Map.Entry<Long, CompletableFuture<Void>> delivery : deliveries.entrySet()) {
+            if (delivery.getValue().isDone()) {
+                settle(delivery.getKey(), delivery.getValue(), result);
+            } else {
+                log.warn("E-mail {} of the outbox not sent in time, waiting for it in the next drains", delivery.getKey());
+                pending.put(delivery.getKey(), delivery.getValue());
+            }
+        }
+        delete(result);
+        return result;
+    }
+
+    /**
+     * Deletes the pending e-mails the sender has reported the outcome of, and renews the lease of the others.
+     *
+     * @return number of pending e-mails accepted by the mail server
+     */
+    private int settlePending() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        BatchResult result = new BatchResult(new ArrayList<>(), new ArrayList<>());
+        List<Long> unfinishedIds = new ArrayList<>();
+        for (Map.Entry<Long, CompletableFuture<Void>> delivery : pending.entrySet()) {
+            if (!delivery.getValue().isDone()) {
+                unfinishedIds.add(delivery.getKey());
+            } else if (pending.remove(delivery.getKey(), delivery.getValue())) {
+                // removed first, so concurrent drains settle every e-mail once
+                settle(delivery.getKey(), delivery.getValue(), result);
+            }
+        }
+        delete(result);
+        if (!unfinishedIds.isEmpty() && System.nanoTime() - renewLeasesAt >= 0) {
+            renewLeasesAt = System.nanoTime() + properties.getLease().toNanos() / 2;
+            renewLeases(unfinishedIds);
+        }
+        return result.sentIds().size();
+    }
+
+    /**
+     * Adds an e-mail whose outcome the sender has reported to the result; an e-mail that may still be sent later
+     * is left in the outbox.
+     */
+    private void settle(Long id, CompletableFuture<Void> delivery, BatchResult result) {
+        try {
+            delivery.join();
+            result.sentIds().add(id);
+            result.finishedIds().add(id);
+        } catch (CompletionException | CancellationException e) {
+            Throwable failure = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (failure instanceof EmailRejectedException) {
+                log.warn("E-mail {} of the outbox refused, removing it: {}", id, failure.getMessage());
+                result.finishedIds().add(id);
+                failed.increment();
+            } else {
+                log.warn("E-mail {} of the outbox not sent, retrying after the lease: {}", id, failure.getMessage());
+            }
+        }
+    }
+
+    private void delete(BatchResult result) {
+        if (!result.finishedIds().isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> outboxEmailRepository.deleteAllByIdInBatch(result.finishedIds()));
+            dispatched.increment(result.sentIds().size());
+        }
+    }
+
+    /**
+     * Extends the lease of e-mails still held by the sender, as long as this node holds it.
+     */
+    private void renewLeases(List<Long> ids) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Instant until = Instant.now().plus(properties.getLease());
+                outboxEmailRepository.findAllById(ids).stream()
+                        .filter(email -> nodeId.equals(email.getClaimedBy()))
+                        .forEach(email -> email.claim(nodeId, until));
+            });
+        } catch (ConcurrencyFailureException e) {
+            renewLeasesAt = System.nanoTime();
+            log.debug("Could not renew the lease of {} e-mails of the outbox", ids.size(), e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package pl.wsb.fitnesstracker.mail.internal;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pl.wsb.fitnesstracker.mail.api.EmailDto;
+import pl.wsb.fitnesstracker.mail.api.EmailOutbox;
+
+/**
+ * {@link EmailOutbox} stored in the {@code email_outbox} table and emptied by the {@link EmailOutboxDispatcher}.
+ */
+@Service
+@RequiredArgsConstructor
+class JpaEmailOutbox implements EmailOutbox {
+
+    private final OutboxEmailRepository outboxEmailRepository;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(EmailDto email) {
+        outboxEmailRepository.save(new OutboxEmail(email));
+    }
+}
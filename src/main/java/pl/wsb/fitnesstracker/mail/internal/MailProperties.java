@@ -1,22 +1,80 @@
 package pl.wsb.fitnesstracker.mail.internal;
 
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
 import org.springframework.mail.javamail.JavaMailSender;
 import pl.wsb.fitnesstracker.mail.api.EmailSender;
 
+import java.time.Duration;
+
 /**
  * Configuration of the {@link EmailSender} (additional to the Spring mail configuration for {@link JavaMailSender} bean autoconfiguration).
  */
 @ConfigurationProperties(prefix = "mail")
 @Getter
-@RequiredArgsConstructor
 class MailProperties {
 
+    /**
+     * What {@link EmailSender#send} does when the queue of e-mails waiting to be sent is full.
+     */
+    enum OverflowPolicy {
+        /**
+         * Waits for a free slot for at most {@link #getBlockTimeout()}, then rejects the e-mail.
+         */
+        BLOCK,
+        /**
+         * Discards the e-mail, only counting it.
+         */
+        DROP,
+        /**
+         * Fails with {@link pl.wsb.fitnesstracker.mail.api.EmailQueueFullException}.
+         */
+        REJECT
+    }
+
     /**
      * Email address that the email should be sent from.
      */
     private final String from;
 
+    /**
+     * Maximum number of e-mails waiting to be sent.
+     */
+    private final int queueCapacity;
+
+    /**
+     * Number of threads sending e-mails, each with its own SMTP connection.
+     */
+    private final int workers;
+
+    /**
+     * Maximum number of e-mails a worker sends over one SMTP connection.
+     */
+    private final int batchSize;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final Duration blockTimeout;
+
+    /**
+     * How long the queued e-mails are still sent for when the application stops.
+     */
+    private final Duration shutdownTimeout;
+
+    public MailProperties(String from,
+                          @DefaultValue("10000") int queueCapacity,
+                          @DefaultValue("4") int workers,
+                          @DefaultValue("50") int batchSize,
+                          @DefaultValue("BLOCK") OverflowPolicy overflowPolicy,
+                          @DefaultValue("30s") Duration blockTimeout,
+                          @DefaultValue("10s") Duration shutdownTimeout) {
+        this.from = from;
+        this.queueCapacity = queueCapacity;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeout = blockTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+    }
 }
@@ -0,0 +1,76 @@
+package pl.wsb.fitnesstracker.mail.internal;
+
+import jakarta.annotation.Nullable;
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import pl.wsb.fitnesstracker.mail.api.EmailDto;
+
+import java.time.Instant;
+
+/**
+ * Row of the {@code email_outbox} table: an e-mail waiting to be handed to the
+ * {@link pl.wsb.fitnesstracker.mail.api.EmailSender}. Rows are deleted once sent.
+ * A dispatcher claims a row by setting its lease; the version makes a concurrent claim of the same row fail on
+ * databases that cannot skip locked rows.
+ */
+@Entity
+@Table(name = "email_outbox")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+class OutboxEmail {
+
+    /**
+     * Allocation size of the pooled {@code email_outbox_seq} sequence, which lets Hibernate batch the inserts.
+     */
+    static final int ID_ALLOCATION_SIZE = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_outbox_seq")
+    @SequenceGenerator(name = "email_outbox_seq", sequenceName = "email_outbox_seq", allocationSize = ID_ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(name = "to_address", nullable = false)
+    private String toAddress;
+
+    @Column(name = "subject", nullable = false)
+    private String subject;
+
+    @Lob
+    @Column(name = "content", nullable = false)
+    private String content;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    /**
+     * End of the claim of the dispatching node, {@code null} if the e-mail was never claimed.
+     */
+    @Nullable
+    @Column(name = "claimed_until")
+    private Instant claimedUntil;
+
+    @Nullable
+    @Column(name = "claimed_by", length = 36)
+    private String claimedBy;
+
+    @Version
+    private Long version;
+
+    OutboxEmail(EmailDto email) {
+        this.toAddress = email.toAddress();
+        this.subject = email.subject();
+        this.content = email.content();
+        this.createdAt = Instant.now();
+    }
+
+    void claim(String nodeId, Instant until) {
+        this.claimedBy = nodeId;
+        this.claimedUntil = until;
+    }
+
+    EmailDto toDto() {
+        return new EmailDto(toAddress, subject, content);
+    }
+}
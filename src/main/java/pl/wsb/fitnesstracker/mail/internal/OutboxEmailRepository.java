@@ -0,0 +1,31 @@
+package pl.wsb.fitnesstracker.mail.internal;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.LockOptions;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+    /**
+     * Locks the oldest e-mails that are not claimed by a live lease, skipping the rows locked by other dispatchers
+     * ({@code FOR UPDATE SKIP LOCKED}), so concurrent dispatchers claim disjoint batches without waiting for each other.
+     *
+     * @param now   current time; leases ending before it have expired
+     * @param limit maximum number of e-mails
+     * @return the locked e-mails, in the order they were written
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "" + LockOptions.SKIP_LOCKED))
+    @Query("SELECT e FROM OutboxEmail e WHERE e.claimedUntil IS NULL OR e.claimedUntil < :now ORDER BY e.id")
+    List<OutboxEmail> findClaimable(@Param("now") Instant now, Limit limit);
+}
@@ -0,0 +1,52 @@
+package pl.wsb.fitnesstracker.mail.internal;
+
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the e-mail outbox dispatcher.
+ */
+@ConfigurationProperties(prefix = "mail.outbox")
+@Getter
+class OutboxProperties {
+
+    /**
+     * Number of e-mails claimed at once.
+     */
+    private final int batchSize;
+
+    /**
+     * Pause between two drains of the outbox.
+     */
+    private final Duration pollInterval;
+
+    /**
+     * How long the dispatcher waits for the mail server to accept the e-mails of a batch; e-mails not accepted by then
+     * stay in the outbox.
+     */
+    private final Duration sendTimeout;
+
+    /**
+     * How long claimed e-mails are reserved for the claiming node; e-mails not sent by then are claimed again.
+     * Must exceed the send timeout, so no other node claims an e-mail the mail server may still be accepting. The lease
+     * of an e-mail still held by the sender is renewed by the drains halfway through, so it should also exceed twice
+     * the poll interval.
+     */
+    private final Duration lease;
+
+    public OutboxProperties(@DefaultValue("100") int batchSize,
+                            @DefaultValue("1s") Duration pollInterval,
+                            @DefaultValue("1m") Duration sendTimeout,
+                            @DefaultValue("2m") Duration lease) {
+        if (lease.compareTo(sendTimeout) <= 0) {
+            throw new IllegalArgumentException("The outbox lease must be longer than the send timeout");
+        }
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.sendTimeout = sendTimeout;
+        this.lease = lease;
+    }
+}
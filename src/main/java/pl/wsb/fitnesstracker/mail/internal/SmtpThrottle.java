@@ -0,0 +1,194 @@
+package pl.wsb.fitnesstracker.mail.internal;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Paces the SMTP sessions of the {@link AsyncEmailSender} per recipient domain, the unit receiving servers throttle
+ * and blocklist senders by.
+ * <p>
+ * Each domain has a {@link TokenBucket} bounding the e-mails per second, and an {@link AdaptiveConcurrencyLimit}
+ * bounding the concurrent sessions. When the domain's server answers with a 4xx code or times out, nothing is sent to
+ * it for a backoff delay, doubled with every further throttled session in a row, and both its concurrency and its
+ * rate are multiplied by the backoff ratio; they recover additively while the server accepts e-mails.
+ * A session never waits for its domain: {@link #tryAcquire(String, int)} tells the caller how long to put the e-mails
+ * aside instead, so a slow or throttling server does not hold back the e-mails of other domains.
+ * The state of a domain is dropped once it has been idle for the idle timeout.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "spring.mail", name = "host")
+class SmtpThrottle {
+
+    /**
+     * How long a caller waits before trying a domain again whose sessions are all in flight.
+     */
+    private static final long BUSY_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    /**
+     * Number of successful sessions in a row that bring a backed-off rate back from its minimum to the configured one.
+     */
+    private static final int RATE_RECOVERY_SESSIONS = 10;
+
+    /**
+     * State of one domain. The rate and backoff fields are guarded by the instance.
+     */
+    private final class DomainThrottle {
+
+        private final TokenBucket rate = new TokenBucket(properties.getRatePerSecond(), properties.getBurst(), nanoClock);
+
+        private final AdaptiveConcurrencyLimit concurrency = new AdaptiveConcurrencyLimit(
+                properties.getInitialConcurrency(), properties.getMaxConcurrency(), properties.getBackoffRatio());
+
+        private long blockedUntil;
+
+        private int throttledInRow;
+
+        private long lastUsed = nanoClock.getAsLong();
+
+        synchronized long tryAcquire(int messages, long now) {
+            lastUsed = now;
+            if (now - blockedUntil < 0) {
+                return blockedUntil - now;
+            }
+            if (!concurrency.tryAcquire()) {
+                return BUSY_RETRY_NANOS;
+            }
+            long wait = rate.tryReserve(messages);
+            if (wait > 0) {
+                concurrency.cancel();
+            }
+            return wait;
+        }
+
+        synchronized void release(boolean throttled, long now) {
+            lastUsed = now;
+            concurrency.release(throttled);
+            double ratePerSecond = rate.getRatePerSecond();
+            if (throttled) {
+                throttledInRow++;
+                blockedUntil = now + backoffNanos(throttledInRow);
+                rate.setRatePerSecond(Math.max(properties.getMinRatePerSecond(), ratePerSecond * properties.getBackoffRatio()));
+            } else {
+                throttledInRow = 0;
+                double step = (properties.getRatePerSecond() - properties.getMinRatePerSecond()) / RATE_RECOVERY_SESSIONS;
+                rate.setRatePerSecond(Math.min(properties.getRatePerSecond(), ratePerSecond + step));
+            }
+        }
+
+        synchronized boolean isIdle(long now) {
+            return concurrency.isIdle() && now - blockedUntil >= 0 && now - lastUsed > idleTimeoutNanos;
+        }
+    }
+
+    private final ThrottleProperties properties;
+
+    private final LongSupplier nanoClock;
+
+    private final long idleTimeoutNanos;
+
+    private final Map<String, DomainThrottle> domains = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastEviction;
+
+    @Autowired
+    SmtpThrottle(ThrottleProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    SmtpThrottle(ThrottleProperties properties, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.idleTimeoutNanos = properties.getIdleTimeout().toNanos();
+        this.lastEviction = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * @param address e-mail address
+     * @return the lower-cased domain of the address, the whole address if it has none
+     */
+    static String domainOf(String address) {
+        return address.substring(address.lastIndexOf('@') + 1).strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Starts a session sending the given number of e-mails to the domain, if the domain allows it now.
+     * Every started session must be followed by {@link #release(String, boolean)}.
+     *
+     * @param domain   recipient domain
+     * @param messages number of e-mails of the session
+     * @return {@code 0} if the session was started, otherwise nanoseconds after which the domain may be tried again
+     */
+    long tryAcquire(String domain, int messages) {
+        long now = nanoClock.getAsLong();
+        evictIdle(now);
+        long[] wait = new long[1];
+        // within compute, so the domain cannot be evicted between its lookup and the start of the session
+        domains.compute(domain, (key, throttle) -> {
+            DomainThrottle current = throttle != null ? throttle : new DomainThrottle();
+            wait[0] = current.tryAcquire(messages, now);
+            return current;
+        });
+        return wait[0];
+    }
+
+    /**
+     * Ends a session started by {@link #tryAcquire(String, int)}.
+     *
+     * @param domain    recipient domain
+     * @param throttled whether the server throttled any e-mail of the session or did not answer in time
+     */
+    void release(String domain, boolean throttled) {
+        // a domain with a session in flight is never evicted
+        domains.get(domain).release(throttled, nanoClock.getAsLong());
+    }
+
+    /**
+     * @return the current concurrency limit of the domain
+     */
+    int getConcurrencyLimit(String domain) {
+        return domains.computeIfAbsent(domain, key -> new DomainThrottle()).concurrency.getLimit();
+    }
+
+    /**
+     * @return the current number of e-mails per second sent to the domain
+     */
+    double getRatePerSecond(String domain) {
+        return domains.computeIfAbsent(domain, key -> new DomainThrottle()).rate.getRatePerSecond();
+    }
+
+    /**
+     * @return number of domains whose state is kept
+     */
+    int size() {
+        return domains.size();
+    }
+
+    /**
+     * Drops the domains idle for longer than the idle timeout, at most once per idle timeout.
+     */
+    private void evictIdle(long now) {
+        long last = lastEviction.get();
+        if (now - last <= idleTimeoutNanos || !lastEviction.compareAndSet(last, now)) {
+            return;
+        }
+        for (String domain : domains.keySet()) {
+            domains.computeIfPresent(domain, (key, throttle) -> throttle.isIdle(now) ? null : throttle);
+        }
+    }
+
+    private long backoffNanos(int throttledInRow) {
+        long initial = properties.getInitialBackoff().toNanos();
+        long max = properties.getMaxBackoff().toNanos();
+        int doublings = Math.min(throttledInRow - 1, Long.numberOfLeadingZeros(Math.max(1, initial)) - 1);
+        return Math.min(max, initial << doublings);
+    }
+}
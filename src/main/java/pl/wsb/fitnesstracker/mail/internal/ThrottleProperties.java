@@ -0,0 +1,88 @@
+package pl.wsb.fitnesstracker.mail.internal;
+
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the throttling of the e-mails sent to each recipient domain, see {@link SmtpThrottle}.
+ */
+@ConfigurationProperties(prefix = "mail.throttle")
+@Getter
+class ThrottleProperties {
+
+    /**
+     * Sustained number of e-mails per second sent to one domain.
+     */
+    private final double ratePerSecond;
+
+    /**
+     * Lowest number of e-mails per second the rate of a throttling domain is backed off to.
+     */
+    private final double minRatePerSecond;
+
+    /**
+     * Number of e-mails that can be sent to one domain at once after it was idle.
+     */
+    private final int burst;
+
+    /**
+     * Number of concurrent SMTP sessions to one domain before any response was seen.
+     */
+    private final int initialConcurrency;
+
+    /**
+     * Upper bound of the number of concurrent SMTP sessions to one domain.
+     */
+    private final int maxConcurrency;
+
+    /**
+     * Factor the concurrency and the rate of a domain are multiplied by when its server throttles or times out.
+     */
+    private final double backoffRatio;
+
+    /**
+     * Number of times an e-mail is sent before a throttling response is treated as a failure.
+     */
+    private final int maxAttempts;
+
+    /**
+     * How long nothing is sent to a domain after its server throttled; doubled with every further throttled session
+     * in a row.
+     */
+    private final Duration initialBackoff;
+
+    /**
+     * Upper bound of the pause after a throttled session.
+     */
+    private final Duration maxBackoff;
+
+    /**
+     * How long the state of a domain is kept after its last session.
+     */
+    private final Duration idleTimeout;
+
+    public ThrottleProperties(@DefaultValue("10") double ratePerSecond,
+                              @DefaultValue("0.1") double minRatePerSecond,
+                              @DefaultValue("20") int burst,
+                              @DefaultValue("2") int initialConcurrency,
+                              @DefaultValue("8") int maxConcurrency,
+                              @DefaultValue("0.5") double backoffRatio,
+                              @DefaultValue("5") int maxAttempts,
+                              @DefaultValue("1s") Duration initialBackoff,
+                              @DefaultValue("5m") Duration maxBackoff,
+                              @DefaultValue("30m") Duration idleTimeout) {
+        this.ratePerSecond = ratePerSecond;
+        this.minRatePerSecond = Math.min(minRatePerSecond, ratePerSecond);
+        this.burst = burst;
+        this.initialConcurrency = initialConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.backoffRatio = backoffRatio;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.idleTimeout = idleTimeout;
+    }
+}
@@ -0,0 +1,69 @@
+package pl.wsb.fitnesstracker.mail.internal;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limiter refilled continuously at an adjustable rate up to its capacity.
+ * Tokens are never waited for: a caller that cannot take them is told how long until they are refilled.
+ */
+final class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final double capacity;
+
+    private final LongSupplier nanoClock;
+
+    private double tokensPerNano;
+
+    private double tokens;
+
+    private long refilledAt;
+
+    TokenBucket(double tokensPerSecond, int capacity, LongSupplier nanoClock) {
+        this.tokensPerNano = tokensPerSecond / NANOS_PER_SECOND;
+        this.capacity = capacity;
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    /**
+     * Takes tokens from the bucket only if they are available now; a count above the capacity is taken from a full
+     * bucket, going into debt for the rest.
+     *
+     * @param count number of tokens
+     * @return {@code 0} if the tokens were taken, otherwise nanoseconds until they are available
+     */
+    synchronized long tryReserve(int count) {
+        refill();
+        double needed = Math.min(count, capacity);
+        if (tokens < needed) {
+            return nanosToRefill(needed - tokens);
+        }
+        tokens -= count;
+        return 0;
+    }
+
+    synchronized double getRatePerSecond() {
+        return tokensPerNano * NANOS_PER_SECOND;
+    }
+
+    /**
+     * Changes the refill rate; the tokens refilled so far are kept.
+     */
+    synchronized void setRatePerSecond(double tokensPerSecond) {
+        refill();
+        tokensPerNano = tokensPerSecond / NANOS_PER_SECOND;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+
+    private long nanosToRefill(double missing) {
+        return (long) Math.ceil(missing / tokensPerNano);
+    }
+}
@@ -0,0 +1,21 @@
+package pl.wsb.fitnesstracker.monitoring.api;
+
+/**
+ * Counts the SQL statements prepared by the current thread.
+ * Used to verify that an operation runs a constant number of queries, independent of the amount of data.
+ */
+public interface SqlStatementCounter {
+
+    /**
+     * Resets the counter of the current thread to zero.
+     */
+    void reset();
+
+    /**
+     * Returns the number of SQL statements prepared by the current thread since the last {@link #reset()}.
+     *
+     * @return number of statements
+     */
+    long getCount();
+
+}
@@ -0,0 +1,22 @@
+package pl.wsb.fitnesstracker.monitoring.internal;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+class MonitoringConfig {
+
+    /**
+     * Registers the statement counter as the Hibernate {@link org.hibernate.resource.jdbc.spi.StatementInspector}.
+     *
+     * @param sqlStatementCounter counter bean
+     * @return customizer of the Hibernate properties
+     */
+    @Bean
+    HibernatePropertiesCustomizer sqlStatementCounterCustomizer(ThreadLocalSqlStatementCounter sqlStatementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementCounter);
+    }
+
+}
@@ -0,0 +1,30 @@
+package pl.wsb.fitnesstracker.monitoring.internal;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+import pl.wsb.fitnesstracker.monitoring.api.SqlStatementCounter;
+
+/**
+ * {@link SqlStatementCounter} fed by Hibernate, which passes every statement it prepares through the {@link StatementInspector}.
+ */
+@Component
+class ThreadLocalSqlStatementCounter implements SqlStatementCounter, StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    @Override
+    public void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    @Override
+    public long getCount() {
+        return COUNT.get()[0];
+    }
+}
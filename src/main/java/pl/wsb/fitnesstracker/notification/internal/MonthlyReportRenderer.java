@@ -0,0 +1,46 @@
+package pl.wsb.fitnesstracker.notification.internal;
+
+import jakarta.annotation.Nullable;
+import org.springframework.stereotype.Component;
+import pl.wsb.fitnesstracker.mail.api.EmailDto;
+import pl.wsb.fitnesstracker.mail.api.EmailTemplate;
+import pl.wsb.fitnesstracker.mail.api.EmailTemplates;
+import pl.wsb.fitnesstracker.training.api.UserTrainingCount;
+import pl.wsb.fitnesstracker.user.api.User;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Renders the monthly training report e-mail of a user from the {@value #TEMPLATE} template.
+ */
+@Component
+class MonthlyReportRenderer {
+
+    static final String TEMPLATE = "monthly-report";
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("MMMM yyyy", Locale.ENGLISH);
+
+    private final EmailTemplate template;
+
+    MonthlyReportRenderer(EmailTemplates emailTemplates) {
+        this.template = emailTemplates.getTemplate(TEMPLATE,
+                "firstName", "month", "monthTrainings", "monthDistance", "totalTrainings");
+    }
+
+    /**
+     * @param user   recipient of the report
+     * @param month  reported month
+     * @param counts the user's trainings, {@code null} if the user has none
+     * @return the e-mail to send
+     */
+    EmailDto render(User user, YearMonth month, @Nullable UserTrainingCount counts) {
+        long monthTrainings = counts != null ? counts.periodTrainings() : 0;
+        double monthDistance = counts != null ? counts.periodDistance() : 0;
+        long totalTrainings = counts != null ? counts.totalTrainings() : 0;
+        String monthName = MONTH_FORMAT.format(month);
+        String content = template.render(user.getFirstName(), monthName, monthTrainings, monthDistance, totalTrainings);
+        return new EmailDto(user.getEmail(), "Your training summary for " + monthName, content);
+    }
+}
@@ -0,0 +1,80 @@
+package pl.wsb.fitnesstracker.notification.internal;
+
+import jakarta.annotation.Nullable;
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.YearMonth;
+
+/**
+ * Checkpoint of the monthly report of one month: users are reported in the order of their IDs, and the ID of the last
+ * reported user is saved after every chunk, so an interrupted run resumes after it.
+ * The version guards against two nodes advancing the same run.
+ */
+@Entity
+@Table(name = "monthly_report_runs")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+class MonthlyReportRun {
+
+    enum Status {
+        RUNNING, COMPLETED
+    }
+
+    /**
+     * Reported month, in the ISO format (e.g. 2024-04).
+     */
+    @Id
+    @Column(name = "report_month", length = 7)
+    private String month;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+
+    /**
+     * ID of the last user whose report was sent, 0 before the first chunk.
+     */
+    @Column(name = "last_user_id", nullable = false)
+    private long lastUserId;
+
+    @Column(name = "sent_reports", nullable = false)
+    private long sentReports;
+
+    @Column(name = "started_at", nullable = false)
+    private Instant startedAt;
+
+    @Nullable
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    @Version
+    private Long version;
+
+    MonthlyReportRun(YearMonth month) {
+        this.month = month.toString();
+        this.status = Status.RUNNING;
+        this.startedAt = Instant.now();
+    }
+
+    YearMonth reportMonth() {
+        return YearMonth.parse(month);
+    }
+
+    /**
+     * @param lastUserId ID of the last user of the chunk
+     * @param sent       number of reports sent for the chunk
+     */
+    void advance(long lastUserId, int sent) {
+        this.lastUserId = lastUserId;
+        this.sentReports += sent;
+    }
+
+    void complete() {
+        this.status = Status.COMPLETED;
+        this.finishedAt = Instant.now();
+    }
+}
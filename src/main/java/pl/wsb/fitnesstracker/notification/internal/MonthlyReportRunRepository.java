@@ -0,0 +1,14 @@
+package pl.wsb.fitnesstracker.notification.internal;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+interface MonthlyReportRunRepository extends JpaRepository<MonthlyReportRun, String> {
+
+    /**
+     * @param status status of the runs
+     * @return the runs with the given status
+     */
+    List<MonthlyReportRun> findByStatus(MonthlyReportRun.Status status);
+}
@@ -0,0 +1,167 @@
+package pl.wsb.fitnesstracker.notification.internal;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.wsb.fitnesstracker.exception.api.BusinessException;
+import pl.wsb.fitnesstracker.mail.api.EmailOutbox;
+import pl.wsb.fitnesstracker.training.api.TrainingProvider;
+import pl.wsb.fitnesstracker.training.api.UserTrainingCount;
+import pl.wsb.fitnesstracker.user.api.User;
+import pl.wsb.fitnesstracker.user.api.UserProvider;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends every user a monthly e-mail with the number of their trainings in the month and overall.
+ * <p>
+ * Users are read in chunks by ID with a keyset query, and the trainings of a whole chunk are counted with one grouped
+ * query over the chunk's ID range, so a run costs two queries per chunk and holds one chunk in memory, whatever the
+ * number of users. The reports of a chunk are written to the {@link EmailOutbox} in the same transaction that
+ * checkpoints the position in the {@link MonthlyReportRun}, so a run interrupted by a crash is resumed when the
+ * application starts again without any report being lost or queued twice. The e-mails are sent by the outbox
+ * dispatcher, so a run is not slowed down by SMTP.
+ * </p>
+ * <p>
+ * Runs are executed one at a time on a dedicated thread, not on the scheduler thread.
+ * </p>
+ */
+@Service
+@Slf4j
+class MonthlyReportService {
+
+    private final UserProvider userProvider;
+
+    private final TrainingProvider trainingProvider;
+
+    private final EmailOutbox emailOutbox;
+
+    private final MonthlyReportRenderer renderer;
+
+    private final MonthlyReportRunRepository runRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ZoneId zone;
+
+    private final int chunkSize;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "monthly-report"));
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    MonthlyReportService(UserProvider userProvider,
+                         TrainingProvider trainingProvider,
+                         EmailOutbox emailOutbox,
+                         MonthlyReportRenderer renderer,
+                         MonthlyReportRunRepository runRepository,
+                         PlatformTransactionManager transactionManager,
+                         ReportProperties properties) {
+        this.userProvider = userProvider;
+        this.trainingProvider = trainingProvider;
+        this.emailOutbox = emailOutbox;
+        this.renderer = renderer;
+        this.runRepository = runRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.zone = properties.getZone();
+        this.chunkSize = properties.getChunkSize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void resumeInterruptedRuns() {
+        runRepository.findByStatus(MonthlyReportRun.Status.RUNNING)
+                .forEach(run -> submit(run.reportMonth()));
+    }
+
+    @Scheduled(cron = "${notification.report.cron:0 0 6 1 * *}", zone = "${notification.report.zone:UTC}")
+    void reportPreviousMonth() {
+        submit(YearMonth.now(zone).minusMonths(1));
+    }
+
+    private void submit(YearMonth month) {
+        executor.execute(() -> {
+            try {
+                send(month);
+            } catch (RuntimeException e) {
+                log.error("Monthly report of {} failed", month, e);
+            }
+        });
+    }
+
+    /**
+     * Queues the reports of a month that have not been queued yet.
+     *
+     * @param month reported month
+     * @return the run of the month
+     * @throws BusinessException if a run is already in progress
+     */
+    MonthlyReportRun send(YearMonth month) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException("A monthly report is already being sent");
+        }
+        try {
+            return sendRun(month);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private MonthlyReportRun sendRun(YearMonth month) {
+        MonthlyReportRun run = runRepository.findById(month.toString())
+                .orElseGet(() -> runRepository.save(new MonthlyReportRun(month)));
+        if (run.getStatus() == MonthlyReportRun.Status.COMPLETED) {
+            log.info("Monthly report of {} was already sent", month);
+            return run;
+        }
+        log.info("Sending monthly report of {} after user {}", month, run.getLastUserId());
+        long start = System.nanoTime();
+        Date from = Date.from(month.atDay(1).atStartOfDay(zone).toInstant());
+        Date to = Date.from(month.plusMonths(1).atDay(1).atStartOfDay(zone).toInstant());
+        List<User> users = userProvider.getUsersAfter(run.getLastUserId(), chunkSize);
+        while (!users.isEmpty()) {
+            long firstUserId = run.getLastUserId();
+            long lastUserId = users.get(users.size() - 1).getId();
+            Map<Long, UserTrainingCount> counts = new HashMap<>();
+            for (UserTrainingCount count : trainingProvider.countTrainingsByUser(firstUserId, lastUserId, from, to)) {
+                counts.put(count.userId(), count);
+            }
+            run = checkpoint(run, month, users, counts);
+            users = userProvider.getUsersAfter(lastUserId, chunkSize);
+        }
+        run.complete();
+        run = runRepository.save(run);
+        log.info("Monthly report of {} queued for {} users in {} ms",
+                month, run.getSentReports(), (System.nanoTime() - start) / 1_000_000);
+        return run;
+    }
+
+    private MonthlyReportRun checkpoint(MonthlyReportRun run, YearMonth month, List<User> users,
+                                        Map<Long, UserTrainingCount> counts) {
+        return transactionTemplate.execute(status -> {
+            for (User user : users) {
+                emailOutbox.enqueue(renderer.render(user, month, counts.get(user.getId())));
+            }
+            run.advance(users.get(users.size() - 1).getId(), users.size());
+            // fails on a concurrent run of another node, which then owns the month, and discards the queued reports
+            return runRepository.save(run);
+        });
+    }
+}
@@ -0,0 +1,33 @@
+package pl.wsb.fitnesstracker.notification.internal;
+
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.ZoneId;
+
+/**
+ * Configuration of the monthly training reports.
+ * The schedule is set with {@code notification.report.cron} (Spring cron expression, default 06:00 on the first day
+ * of every month, in the report time zone); each run reports the month before.
+ */
+@ConfigurationProperties(prefix = "notification.report")
+@Getter
+class ReportProperties {
+
+    /**
+     * Time zone in which the months of the reports begin and end.
+     */
+    private final ZoneId zone;
+
+    /**
+     * Number of users reported between two checkpoints.
+     */
+    private final int chunkSize;
+
+    public ReportProperties(@DefaultValue("UTC") ZoneId zone,
+                            @DefaultValue("1000") int chunkSize) {
+        this.zone = zone;
+        this.chunkSize = chunkSize;
+    }
+}
@@ -0,0 +1,22 @@
+package pl.wsb.fitnesstracker.statistics.api;
+
+/**
+ * Dimension by which trainings are grouped in an analytics query.
+ */
+public enum AnalyticsDimension {
+
+    /**
+     * One group per activity type.
+     */
+    ACTIVITY_TYPE,
+
+    /**
+     * One group per calendar month of the start of the trainings.
+     */
+    MONTH,
+
+    /**
+     * One group per decade of the age of the users at the start of the trainings, e.g. {@code 30-39}.
+     */
+    AGE_COHORT
+}
@@ -0,0 +1,13 @@
+package pl.wsb.fitnesstracker.statistics.api;
+
+/**
+ * Standing of a user on a leaderboard.
+ *
+ * @param rank          position on the board, starting at 1
+ * @param userId        ID of the user
+ * @param totalDistance total distance of the user's trainings in the period
+ * @param trainings     number of the user's trainings in the period
+ */
+public record LeaderboardEntry(int rank, Long userId, double totalDistance, int trainings) {
+
+}
@@ -0,0 +1,37 @@
+package pl.wsb.fitnesstracker.statistics.api;
+
+import jakarta.annotation.Nullable;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Weekly and monthly leaderboards of the total distance per activity, kept in memory for the most recent periods.
+ */
+public interface LeaderboardProvider {
+
+    /**
+     * Retrieves the best users of a period.
+     *
+     * @param activityType type of the activity
+     * @param period       {@link RollupGranularity#WEEK} or {@link RollupGranularity#MONTH}
+     * @param day          any day of the period, or {@code null} for the current period
+     * @param limit        maximum number of entries
+     * @return entries ordered by rank, empty if the period is not tracked
+     */
+    List<LeaderboardEntry> getTop(ActivityType activityType, RollupGranularity period, @Nullable LocalDate day, int limit);
+
+    /**
+     * Retrieves the rank of a user in a period.
+     *
+     * @param activityType type of the activity
+     * @param period       {@link RollupGranularity#WEEK} or {@link RollupGranularity#MONTH}
+     * @param day          any day of the period, or {@code null} for the current period
+     * @param userId       ID of the user
+     * @return the user's entry, or {@link Optional#empty()} if the user has no trainings in a tracked period
+     */
+    Optional<LeaderboardEntry> getStanding(ActivityType activityType, RollupGranularity period, @Nullable LocalDate day, Long userId);
+
+}
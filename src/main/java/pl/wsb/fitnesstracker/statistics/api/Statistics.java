@@ -5,7 +5,11 @@ import lombok.*;
 import pl.wsb.fitnesstracker.user.api.User;
 
 @Entity
-@Table(name = "statistics")
+@Table(name = "statistics", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_statistics_user", columnNames = "user_id")
+}, indexes = {
+        @Index(name = "idx_statistics_calories", columnList = "total_calories_burned, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -29,4 +33,8 @@ public class Statistics {
     @Column(name = "total_calories_burned")
     private int totalCaloriesBurned;
 
-}
\ No newline at end of file
+    public Statistics(final User user) {
+        this.user = user;
+    }
+
+}
@@ -0,0 +1,23 @@
+package pl.wsb.fitnesstracker.statistics.api;
+
+import pl.wsb.fitnesstracker.exception.api.NotFoundException;
+
+/**
+ * Exception indicating that the {@link Statistics} were not found.
+ */
+@SuppressWarnings("squid:S110")
+public class StatisticsNotFoundException extends NotFoundException {
+
+    private StatisticsNotFoundException(String message) {
+        super(message);
+    }
+
+    public StatisticsNotFoundException(Long id) {
+        this("Statistics with ID=%s were not found".formatted(id));
+    }
+
+    public static StatisticsNotFoundException ofUser(Long userId) {
+        return new StatisticsNotFoundException("Statistics of user with ID=%s were not found".formatted(userId));
+    }
+
+}
@@ -1,5 +1,8 @@
 package pl.wsb.fitnesstracker.statistics.api;
 
+import jakarta.annotation.Nullable;
+import pl.wsb.fitnesstracker.training.api.CursorPage;
+
 import java.util.Optional;
 
 public interface StatisticsProvider {
@@ -13,4 +16,25 @@ public interface StatisticsProvider {
      */
     Optional<Statistics> getStatistics(Long statisticsId);
 
+    /**
+     * Retrieves the statistics of a user with a single-row lookup.
+     * If the user has no trainings recorded yet, then {@link Optional#empty()} will be returned.
+     *
+     * @param userId id of the user
+     * @return An {@link Optional} containing the user's Statistics, or {@link Optional#empty()} if not found
+     */
+    Optional<Statistics> getStatisticsByUserId(Long userId);
+
+    /**
+     * Retrieves a page of the statistics whose burned calories exceed the threshold, ordered by burned calories and ID.
+     * The page is read with a range scan of the {@code total_calories_burned} index, so its cost does not depend on
+     * the number of statistics or on the page depth.
+     *
+     * @param calories threshold of the burned calories, exclusive
+     * @param cursor   opaque cursor returned with the previous page, or {@code null} for the first page
+     * @param limit    maximum number of statistics on the page
+     * @return page of statistics with the cursor of the next page
+     */
+    CursorPage<Statistics> getStatisticsWithCaloriesAbove(int calories, @Nullable String cursor, int limit);
+
 }
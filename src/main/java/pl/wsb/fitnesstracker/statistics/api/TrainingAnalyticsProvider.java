@@ -0,0 +1,30 @@
+package pl.wsb.fitnesstracker.statistics.api;
+
+import jakarta.annotation.Nullable;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Ad-hoc aggregations over all trainings, answered from an in-memory columnar copy of the trainings
+ * instead of the database.
+ */
+public interface TrainingAnalyticsProvider {
+
+    /**
+     * Sums and averages a metric of the trainings matching the filters, grouped by the given dimension.
+     *
+     * @param metric       aggregated value
+     * @param groupBy      dimension of the groups
+     * @param activityType only trainings of this activity, or {@code null} for all activities
+     * @param from         only trainings started on this day or later, or {@code null} for no lower bound
+     * @param to           only trainings started on this day or earlier, or {@code null} for no upper bound
+     * @return one row per non-empty group, in the natural order of the dimension
+     */
+    List<TrainingAnalyticsRow> aggregate(TrainingMetric metric,
+                                         AnalyticsDimension groupBy,
+                                         @Nullable ActivityType activityType,
+                                         @Nullable LocalDate from,
+                                         @Nullable LocalDate to);
+}
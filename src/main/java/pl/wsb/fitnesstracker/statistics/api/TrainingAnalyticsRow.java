@@ -0,0 +1,13 @@
+package pl.wsb.fitnesstracker.statistics.api;
+
+/**
+ * Aggregated metric of one group of trainings.
+ *
+ * @param group     label of the group, e.g. {@code RUNNING}, {@code 2024-04} or {@code 30-39}
+ * @param trainings number of trainings in the group
+ * @param sum       sum of the metric over the trainings of the group
+ * @param average   average of the metric over the trainings of the group
+ */
+public record TrainingAnalyticsRow(String group, long trainings, double sum, double average) {
+
+}
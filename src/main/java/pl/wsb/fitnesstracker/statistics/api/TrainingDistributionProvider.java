@@ -0,0 +1,35 @@
+package pl.wsb.fitnesstracker.statistics.api;
+
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.util.OptionalDouble;
+
+/**
+ * Approximate distributions of training metrics per activity, answered from in-memory sketches
+ * instead of sorting the trainings.
+ */
+public interface TrainingDistributionProvider {
+
+    /**
+     * Computes the share of the trainings of an activity with a lower value of the metric,
+     * e.g. 0.83 for "your run was faster than 83% of runs".
+     *
+     * @param activityType type of the activity
+     * @param metric       measured value
+     * @param value        value to rank
+     * @return fraction between 0 and 1, or {@link OptionalDouble#empty()} if there are no trainings of the activity
+     */
+    OptionalDouble getPercentileRank(ActivityType activityType, TrainingMetric metric, double value);
+
+    /**
+     * Estimates the value of the metric below which the given share of the trainings of an activity falls.
+     *
+     * @param activityType type of the activity
+     * @param metric       measured value
+     * @param quantile     share between 0 and 1, e.g. 0.5 for the median
+     * @return the value, within the configured relative error, or {@link OptionalDouble#empty()} if there are no
+     * trainings of the activity
+     */
+    OptionalDouble getQuantile(ActivityType activityType, TrainingMetric metric, double quantile);
+
+}
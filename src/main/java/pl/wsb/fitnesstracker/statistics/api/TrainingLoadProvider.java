@@ -0,0 +1,19 @@
+package pl.wsb.fitnesstracker.statistics.api;
+
+import java.util.Optional;
+
+/**
+ * Acute and chronic training load and the current training streak of every user, maintained in memory on every
+ * training write.
+ */
+public interface TrainingLoadProvider {
+
+    /**
+     * Retrieves the rolling training load of a user.
+     *
+     * @param userId ID of the user
+     * @return the user's load, or {@link Optional#empty()} if the user has no trainings
+     */
+    Optional<TrainingLoadSummary> getTrainingLoad(Long userId);
+
+}
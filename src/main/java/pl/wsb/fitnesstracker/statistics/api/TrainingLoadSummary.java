@@ -0,0 +1,24 @@
+package pl.wsb.fitnesstracker.statistics.api;
+
+import jakarta.annotation.Nullable;
+
+import java.time.LocalDate;
+
+/**
+ * Rolling training load of a user as of today.
+ *
+ * @param userId            ID of the user
+ * @param acuteLoad         exponentially weighted daily load over the acute span, in kilocalories per day
+ * @param chronicLoad       exponentially weighted daily load over the chronic span, in kilocalories per day
+ * @param acuteChronicRatio acute load divided by chronic load, {@code null} if the chronic load is zero
+ * @param currentStreakDays number of consecutive days with a training, ending today or yesterday
+ * @param lastTrainingDay   start day of the user's latest training
+ */
+public record TrainingLoadSummary(Long userId,
+                                  double acuteLoad,
+                                  double chronicLoad,
+                                  @Nullable Double acuteChronicRatio,
+                                  int currentStreakDays,
+                                  LocalDate lastTrainingDay) {
+
+}
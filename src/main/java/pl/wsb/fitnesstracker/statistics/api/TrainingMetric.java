@@ -0,0 +1,28 @@
+package pl.wsb.fitnesstracker.statistics.api;
+
+import pl.wsb.fitnesstracker.training.api.TrainingSnapshot;
+
+/**
+ * Measured value of a training whose distribution is tracked.
+ */
+public enum TrainingMetric {
+
+    DISTANCE {
+        @Override
+        public double valueOf(TrainingSnapshot training) {
+            return training.distance();
+        }
+    },
+    AVERAGE_SPEED {
+        @Override
+        public double valueOf(TrainingSnapshot training) {
+            return training.averageSpeed();
+        }
+    };
+
+    /**
+     * @param training any training
+     * @return the value of this metric for the training
+     */
+    public abstract double valueOf(TrainingSnapshot training);
+}
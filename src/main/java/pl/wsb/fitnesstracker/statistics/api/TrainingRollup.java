@@ -0,0 +1,27 @@
+package pl.wsb.fitnesstracker.statistics.api;
+
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Totals of one user's trainings of one activity that started within one time bucket.
+ *
+ * @param userId       ID of the user
+ * @param activityType type of the activity
+ * @param granularity  size of the bucket
+ * @param bucketStart  first day of the bucket
+ * @param trainings    number of trainings
+ * @param distance     total distance
+ * @param duration     total duration
+ */
+public record TrainingRollup(Long userId,
+                             ActivityType activityType,
+                             RollupGranularity granularity,
+                             LocalDate bucketStart,
+                             int trainings,
+                             double distance,
+                             Duration duration) {
+
+}
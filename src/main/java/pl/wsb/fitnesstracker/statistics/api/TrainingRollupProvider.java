@@ -0,0 +1,25 @@
+package pl.wsb.fitnesstracker.statistics.api;
+
+import jakarta.annotation.Nullable;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface TrainingRollupProvider {
+
+    /**
+     * Retrieves the pre-aggregated totals of a user's trainings, one per bucket and activity, without reading trainings.
+     * Buckets without trainings are omitted. Daily buckets are only kept for a limited period and never returned past it, coarser ones are kept forever.
+     *
+     * @param userId       id of the user
+     * @param activityType activity to restrict the totals to, or {@code null} for all activities
+     * @param granularity  size of the buckets
+     * @param from         first day of the range; the bucket containing it is included
+     * @param to           last day of the range, inclusive
+     * @return A list of rollups ordered by bucket start and activity
+     */
+    List<TrainingRollup> getRollups(Long userId, @Nullable ActivityType activityType, RollupGranularity granularity,
+                                    LocalDate from, LocalDate to);
+
+}
@@ -0,0 +1,65 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.springframework.stereotype.Component;
+import pl.wsb.fitnesstracker.exception.api.BusinessException;
+import pl.wsb.fitnesstracker.statistics.api.TrainingDistributionProvider;
+import pl.wsb.fitnesstracker.statistics.api.TrainingMetric;
+import pl.wsb.fitnesstracker.training.api.TrainingSnapshot;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+/**
+ * One {@link QuantileSketch} per activity and metric, updated on every training write.
+ */
+@Component
+class ActivityDistributions implements TrainingAggregate, TrainingDistributionProvider {
+
+    private final Map<ActivityType, Map<TrainingMetric, QuantileSketch>> sketches = new EnumMap<>(ActivityType.class);
+
+    ActivityDistributions(DistributionProperties distributionProperties) {
+        for (ActivityType activityType : ActivityType.values()) {
+            Map<TrainingMetric, QuantileSketch> metrics = new EnumMap<>(TrainingMetric.class);
+            for (TrainingMetric metric : TrainingMetric.values()) {
+                metrics.put(metric, new QuantileSketch(distributionProperties.getRelativeAccuracy(), distributionProperties.getMaxBuckets()));
+            }
+            sketches.put(activityType, metrics);
+        }
+    }
+
+    @Override
+    public OptionalDouble getPercentileRank(ActivityType activityType, TrainingMetric metric, double value) {
+        return sketch(activityType, metric).rank(value);
+    }
+
+    @Override
+    public OptionalDouble getQuantile(ActivityType activityType, TrainingMetric metric, double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new BusinessException("Quantile must be between 0 and 1");
+        }
+        return sketch(activityType, metric).quantile(quantile);
+    }
+
+    @Override
+    public void reset() {
+        sketches.values().forEach(metrics -> metrics.values().forEach(QuantileSketch::clear));
+    }
+
+    @Override
+    public void add(TrainingSnapshot training) {
+        Map<TrainingMetric, QuantileSketch> metrics = sketches.get(training.activityType());
+        metrics.forEach((metric, sketch) -> sketch.add(metric.valueOf(training)));
+    }
+
+    @Override
+    public void remove(TrainingSnapshot training) {
+        Map<TrainingMetric, QuantileSketch> metrics = sketches.get(training.activityType());
+        metrics.forEach((metric, sketch) -> sketch.remove(metric.valueOf(training)));
+    }
+
+    private QuantileSketch sketch(ActivityType activityType, TrainingMetric metric) {
+        return sketches.get(activityType).get(metric);
+    }
+}
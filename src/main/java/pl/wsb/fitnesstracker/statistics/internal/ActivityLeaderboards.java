@@ -0,0 +1,110 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import jakarta.annotation.Nullable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import pl.wsb.fitnesstracker.exception.api.BusinessException;
+import pl.wsb.fitnesstracker.statistics.api.LeaderboardEntry;
+import pl.wsb.fitnesstracker.statistics.api.LeaderboardProvider;
+import pl.wsb.fitnesstracker.statistics.api.RollupGranularity;
+import pl.wsb.fitnesstracker.training.api.TrainingSnapshot;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link Leaderboard} per activity and week or month, updated on every training write.
+ * <p>
+ * Periods roll over without a rebuild: the board of a new period is created by its first training, and boards
+ * that fall out of the retained window are dropped at that moment. Trainings of periods outside the window are ignored.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+class ActivityLeaderboards implements TrainingAggregate, LeaderboardProvider {
+
+    static final int MAX_LIMIT = 1000;
+
+    private static final Set<RollupGranularity> PERIODS = Set.of(RollupGranularity.WEEK, RollupGranularity.MONTH);
+
+    private record BoardKey(ActivityType activityType, RollupGranularity period, LocalDate periodStart) {
+    }
+
+    private final Map<BoardKey, Leaderboard> boards = new ConcurrentHashMap<>();
+
+    private final LeaderboardProperties leaderboardProperties;
+
+    private final RollupProperties rollupProperties;
+
+    @Override
+    public List<LeaderboardEntry> getTop(ActivityType activityType, RollupGranularity period, @Nullable LocalDate day, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BusinessException("Limit must be between 1 and %d".formatted(MAX_LIMIT));
+        }
+        Leaderboard board = boards.get(keyOf(activityType, period, day));
+        return board == null ? List.of() : board.top(limit);
+    }
+
+    @Override
+    public Optional<LeaderboardEntry> getStanding(ActivityType activityType, RollupGranularity period, @Nullable LocalDate day, Long userId) {
+        Leaderboard board = boards.get(keyOf(activityType, period, day));
+        return board == null ? Optional.empty() : board.standing(userId);
+    }
+
+    @Override
+    public void reset() {
+        boards.clear();
+    }
+
+    @Override
+    public void add(TrainingSnapshot training) {
+        update(training, 1);
+    }
+
+    @Override
+    public void remove(TrainingSnapshot training) {
+        update(training, -1);
+    }
+
+    private void update(TrainingSnapshot training, int sign) {
+        if (training.userId() == null) {
+            return;
+        }
+        LocalDate day = LocalDate.ofInstant(training.startTime(), rollupProperties.getZone());
+        for (RollupGranularity period : PERIODS) {
+            BoardKey key = new BoardKey(training.activityType(), period, period.bucketStart(day));
+            LocalDate oldestRetained = oldestRetained(period);
+            if (key.periodStart().isBefore(oldestRetained)) {
+                continue;
+            }
+            Leaderboard board = boards.get(key);
+            if (board == null) {
+                if (sign < 0) {
+                    continue;
+                }
+                board = boards.computeIfAbsent(key, created -> new Leaderboard());
+                boards.keySet().removeIf(existing -> existing.period() == period && existing.periodStart().isBefore(oldestRetained));
+            }
+            board.update(training.userId(), sign * training.distance(), sign);
+        }
+    }
+
+    private LocalDate oldestRetained(RollupGranularity period) {
+        LocalDate current = period.bucketStart(LocalDate.now(rollupProperties.getZone()));
+        long older = leaderboardProperties.getRetainedPeriods() - 1L;
+        return period == RollupGranularity.WEEK ? current.minusWeeks(older) : current.minusMonths(older);
+    }
+
+    private BoardKey keyOf(ActivityType activityType, RollupGranularity period, @Nullable LocalDate day) {
+        if (!PERIODS.contains(period)) {
+            throw new BusinessException("Leaderboards are kept for weeks and months only");
+        }
+        LocalDate periodDay = day != null ? day : LocalDate.now(rollupProperties.getZone());
+        return new BoardKey(activityType, period, period.bucketStart(periodDay));
+    }
+}
@@ -0,0 +1,18 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.YearMonth;
+
+/**
+ * Platform-wide totals of one activity type in one month.
+ *
+ * @param month           month of the start of the trainings
+ * @param activityType    type of the activity
+ * @param trainings       number of trainings
+ * @param distance        total distance
+ * @param durationSeconds total duration, in seconds
+ */
+record ActivityMonthTotal(YearMonth month, ActivityType activityType, long trainings, double distance, long durationSeconds) {
+
+}
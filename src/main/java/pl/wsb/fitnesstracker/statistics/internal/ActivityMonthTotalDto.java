@@ -0,0 +1,46 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+/**
+ * Data Transfer Object representing the platform-wide totals of one activity type in one month.
+ */
+public class ActivityMonthTotalDto {
+    private final String month;
+
+    private final ActivityType activityType;
+
+    private final long trainings;
+
+    private final double distance;
+
+    private final long durationSeconds;
+
+    ActivityMonthTotalDto(String month, ActivityType activityType, long trainings, double distance, long durationSeconds) {
+        this.month = month;
+        this.activityType = activityType;
+        this.trainings = trainings;
+        this.distance = distance;
+        this.durationSeconds = durationSeconds;
+    }
+
+    public String getMonth() {
+        return month;
+    }
+
+    public ActivityType getActivityType() {
+        return activityType;
+    }
+
+    public long getTrainings() {
+        return trainings;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+}
@@ -0,0 +1,105 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Platform-wide totals per activity type and month, accumulated in primitive arrays.
+ * Instances are confined to one thread while accumulating; {@link #merge(ActivityMonthTotals)} is associative and
+ * commutative, so partial totals of disjoint partitions can be combined in any order.
+ */
+final class ActivityMonthTotals {
+
+    private static final int ACTIVITY_TYPES = ActivityType.values().length;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Slot of every (month, activity) group, keyed by {@link #keyOf(int, int)}.
+     */
+    private final LongIntHashMap slots = new LongIntHashMap();
+
+    private int size;
+
+    private int[] months = new int[INITIAL_CAPACITY];
+
+    private byte[] activityTypes = new byte[INITIAL_CAPACITY];
+
+    private long[] trainings = new long[INITIAL_CAPACITY];
+
+    private double[] distances = new double[INITIAL_CAPACITY];
+
+    private long[] durations = new long[INITIAL_CAPACITY];
+
+    /**
+     * @param month          month index, see {@link EpochDays#monthOf(int)}
+     * @param activityType   ordinal of the activity type
+     * @param trainingCount  number of trainings to add
+     * @param distance       distance to add
+     * @param durationMillis duration to add, in milliseconds
+     */
+    void add(int month, int activityType, long trainingCount, double distance, long durationMillis) {
+        long key = keyOf(month, activityType);
+        int slot = slots.get(key);
+        if (slot == LongIntHashMap.MISSING) {
+            if (size == months.length) {
+                grow();
+            }
+            slot = size++;
+            slots.put(key, slot);
+            months[slot] = month;
+            activityTypes[slot] = (byte) activityType;
+        }
+        trainings[slot] += trainingCount;
+        distances[slot] += distance;
+        durations[slot] += durationMillis;
+    }
+
+    /**
+     * Adds the totals of another partition to this one.
+     *
+     * @param other totals of a disjoint partition
+     * @return this instance
+     */
+    ActivityMonthTotals merge(ActivityMonthTotals other) {
+        for (int slot = 0; slot < other.size; slot++) {
+            add(other.months[slot], other.activityTypes[slot], other.trainings[slot], other.distances[slot], other.durations[slot]);
+        }
+        return this;
+    }
+
+    /**
+     * @return the totals ordered by month and activity type
+     */
+    List<ActivityMonthTotal> toList() {
+        List<ActivityMonthTotal> result = new ArrayList<>(size);
+        for (int slot = 0; slot < size; slot++) {
+            result.add(new ActivityMonthTotal(
+                    EpochDays.toYearMonth(months[slot]),
+                    ActivityType.values()[activityTypes[slot]],
+                    trainings[slot],
+                    distances[slot],
+                    durations[slot] / 1000));
+        }
+        result.sort(Comparator.comparing(ActivityMonthTotal::month).thenComparing(ActivityMonthTotal::activityType));
+        return result;
+    }
+
+    private static long keyOf(int month, int activityType) {
+        // month indexes of years 0 and later are non-negative, so the key is positive as the map requires
+        return (long) month * ACTIVITY_TYPES + activityType + 1;
+    }
+
+    private void grow() {
+        int capacity = months.length * 2;
+        months = Arrays.copyOf(months, capacity);
+        activityTypes = Arrays.copyOf(activityTypes, capacity);
+        trainings = Arrays.copyOf(trainings, capacity);
+        distances = Arrays.copyOf(distances, capacity);
+        durations = Arrays.copyOf(durations, capacity);
+    }
+}
@@ -0,0 +1,130 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import jakarta.annotation.Nullable;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * State of one run of a platform-wide aggregation, shared between the partitions scanning it and the clients
+ * polling it. Progress is the share of the training ID range already scanned.
+ */
+@Getter
+class AggregationJob {
+
+    enum Status {
+        RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    private final UUID id = UUID.randomUUID();
+
+    private final Instant startedAt = Instant.now();
+
+    /**
+     * Number of IDs in the scanned range, 0 if there are no trainings.
+     */
+    private final long idSpan;
+
+    private final AtomicLong scannedIds = new AtomicLong();
+
+    private final AtomicLong scannedTrainings = new AtomicLong();
+
+    private volatile boolean cancelRequested;
+
+    /**
+     * First failure of a partition, which stops the other partitions like a cancellation.
+     */
+    @Getter(AccessLevel.NONE)
+    private final AtomicReference<RuntimeException> partitionFailure = new AtomicReference<>();
+
+    private volatile Status status = Status.RUNNING;
+
+    @Nullable
+    private volatile Instant finishedAt;
+
+    @Nullable
+    private volatile List<ActivityMonthTotal> result;
+
+    @Nullable
+    private volatile String failure;
+
+    AggregationJob(long idSpan) {
+        this.idSpan = idSpan;
+    }
+
+    /**
+     * @return share of the ID range already scanned, between 0 and 1
+     */
+    double progress() {
+        if (status == Status.COMPLETED) {
+            return 1;
+        }
+        return idSpan == 0 ? 0 : Math.min(1, (double) scannedIds.get() / idSpan);
+    }
+
+    /**
+     * Records a scanned part of the ID range.
+     *
+     * @param ids       number of IDs of the range covered by the part
+     * @param trainings number of trainings found in the part
+     */
+    void advance(long ids, int trainings) {
+        scannedIds.addAndGet(ids);
+        scannedTrainings.addAndGet(trainings);
+    }
+
+    /**
+     * Asks the partitions to stop before their next chunk.
+     */
+    void cancel() {
+        cancelRequested = true;
+    }
+
+    /**
+     * Records the failure of a partition and asks the other partitions to stop before their next chunk.
+     *
+     * @param failure exception thrown by the partition
+     */
+    void failPartition(RuntimeException failure) {
+        partitionFailure.compareAndSet(null, failure);
+    }
+
+    /**
+     * @return the first failure of a partition, or {@code null} if none failed
+     */
+    @Nullable
+    RuntimeException getPartitionFailure() {
+        return partitionFailure.get();
+    }
+
+    /**
+     * @return {@code true} if the partitions should stop, because the job was cancelled or a partition failed
+     */
+    boolean isStopRequested() {
+        return cancelRequested || partitionFailure.get() != null;
+    }
+
+    void complete(List<ActivityMonthTotal> result) {
+        this.result = result;
+        finish(Status.COMPLETED);
+    }
+
+    void cancelled() {
+        finish(Status.CANCELLED);
+    }
+
+    void fail(String failure) {
+        this.failure = failure;
+        finish(Status.FAILED);
+    }
+
+    private void finish(Status status) {
+        this.finishedAt = Instant.now();
+        this.status = status;
+    }
+}
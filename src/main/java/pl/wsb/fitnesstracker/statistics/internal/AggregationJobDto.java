@@ -0,0 +1,84 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import jakarta.annotation.Nullable;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Data Transfer Object representing the state of an aggregation job; the result is present once it has completed.
+ */
+public class AggregationJobDto {
+    private final UUID id;
+
+    private final AggregationJob.Status status;
+
+    private final double progress;
+
+    private final long scannedTrainings;
+
+    private final Instant startedAt;
+
+    @Nullable
+    private final Instant finishedAt;
+
+    @Nullable
+    private final String failure;
+
+    @Nullable
+    private final List<ActivityMonthTotalDto> result;
+
+    AggregationJobDto(UUID id,
+                      AggregationJob.Status status,
+                      double progress,
+                      long scannedTrainings,
+                      Instant startedAt,
+                      @Nullable Instant finishedAt,
+                      @Nullable String failure,
+                      @Nullable List<ActivityMonthTotalDto> result) {
+        this.id = id;
+        this.status = status;
+        this.progress = progress;
+        this.scannedTrainings = scannedTrainings;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.failure = failure;
+        this.result = result;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public AggregationJob.Status getStatus() {
+        return status;
+    }
+
+    public double getProgress() {
+        return progress;
+    }
+
+    public long getScannedTrainings() {
+        return scannedTrainings;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    @Nullable
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    @Nullable
+    public String getFailure() {
+        return failure;
+    }
+
+    @Nullable
+    public List<ActivityMonthTotalDto> getResult() {
+        return result;
+    }
+}
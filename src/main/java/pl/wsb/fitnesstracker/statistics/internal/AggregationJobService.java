@@ -0,0 +1,210 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import pl.wsb.fitnesstracker.training.api.TrainingChunk;
+import pl.wsb.fitnesstracker.training.api.TrainingIdRange;
+import pl.wsb.fitnesstracker.training.api.TrainingProvider;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs platform-wide aggregations over all trainings on a dedicated fork-join pool.
+ * <p>
+ * The training ID range is split in halves until the parts are no larger than the partition size, which is derived
+ * from the parallelism. Every partition reads its trainings in column chunks and accumulates them into primitive
+ * {@link ActivityMonthTotals}; partial totals are merged while the tasks join. Partitions check for cancellation
+ * before every chunk, and a failing partition stops the others the same way. The progress of every running job is published as the
+ * {@code statistics.aggregation.progress} gauge, tagged with the job ID.
+ * </p>
+ */
+@Service
+@Slf4j
+class AggregationJobService {
+
+    private final TrainingProvider trainingProvider;
+
+    private final AggregationProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final EpochDays.DayConverter dayConverter;
+
+    private final ForkJoinPool pool;
+
+    private final Counter scannedTrainings;
+
+    private final Map<UUID, AggregationJob> jobs = new ConcurrentHashMap<>();
+
+    private final Queue<UUID> finishedJobs = new ConcurrentLinkedQueue<>();
+
+    AggregationJobService(TrainingProvider trainingProvider,
+                          AggregationProperties properties,
+                          RollupProperties rollupProperties,
+                          MeterRegistry meterRegistry) {
+        this.trainingProvider = trainingProvider;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.dayConverter = new EpochDays.DayConverter(rollupProperties.getZone());
+        this.pool = new ForkJoinPool(properties.getParallelism());
+        this.scannedTrainings = meterRegistry.counter("statistics.aggregation.trainings");
+        Gauge.builder("statistics.aggregation.jobs.running", jobs,
+                        all -> all.values().stream().filter(job -> job.getStatus() == AggregationJob.Status.RUNNING).count())
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobs.values().forEach(AggregationJob::cancel);
+        pool.shutdownNow();
+    }
+
+    /**
+     * Starts computing the number of trainings, distance and duration per activity type and month of all users.
+     *
+     * @return the started job
+     */
+    AggregationJob startMonthlyActivityTotals() {
+        Optional<TrainingIdRange> range = trainingProvider.getTrainingIdRange();
+        long afterId = range.map(TrainingIdRange::min).orElse(1L) - 1;
+        long toId = range.map(TrainingIdRange::max).orElse(afterId);
+        AggregationJob job = new AggregationJob(toId - afterId);
+        long partitions = (long) properties.getParallelism() * properties.getPartitionsPerThread();
+        long partitionSize = Math.max(1, (job.getIdSpan() + partitions - 1) / partitions);
+
+        jobs.put(job.getId(), job);
+        Gauge progress = Gauge.builder("statistics.aggregation.progress", job, AggregationJob::progress)
+                .tag("job", job.getId().toString())
+                .register(meterRegistry);
+        pool.execute(() -> {
+            try {
+                ActivityMonthTotals totals = new PartitionTask(job, afterId, toId, partitionSize).invoke();
+                job.complete(totals.toList());
+                log.info("Aggregation job {} scanned {} trainings", job.getId(), job.getScannedTrainings().get());
+            } catch (RuntimeException e) {
+                // a failed partition stops its siblings with cancellations, which must not hide the failure
+                RuntimeException failure = job.getPartitionFailure() != null ? job.getPartitionFailure() : e;
+                if (failure instanceof CancellationException) {
+                    job.cancelled();
+                    log.info("Aggregation job {} cancelled", job.getId());
+                } else {
+                    job.fail(failure.getMessage());
+                    log.error("Aggregation job {} failed", job.getId(), failure);
+                }
+            } finally {
+                meterRegistry.remove(progress);
+                retire(job);
+            }
+        });
+        return job;
+    }
+
+    Optional<AggregationJob> getJob(UUID jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Requests the cancellation of a job; a finished job is not affected.
+     *
+     * @param jobId ID of the job
+     * @return the job, or empty if it is unknown
+     */
+    Optional<AggregationJob> cancel(UUID jobId) {
+        Optional<AggregationJob> job = getJob(jobId);
+        job.ifPresent(AggregationJob::cancel);
+        return job;
+    }
+
+    /**
+     * Keeps the finished job for status queries, forgetting the oldest finished jobs beyond the retained number.
+     */
+    private void retire(AggregationJob job) {
+        finishedJobs.add(job.getId());
+        while (finishedJobs.size() > properties.getRetainedJobs()) {
+            UUID oldest = finishedJobs.poll();
+            if (oldest != null) {
+                jobs.remove(oldest);
+            }
+        }
+    }
+
+    /**
+     * Aggregates the trainings with an ID in {@code (afterId, toId]}, splitting the range while it is larger
+     * than the partition size.
+     */
+    private final class PartitionTask extends RecursiveTask<ActivityMonthTotals> {
+
+        private final AggregationJob job;
+
+        private final long afterId;
+
+        private final long toId;
+
+        private final long partitionSize;
+
+        private PartitionTask(AggregationJob job, long afterId, long toId, long partitionSize) {
+            this.job = job;
+            this.afterId = afterId;
+            this.toId = toId;
+            this.partitionSize = partitionSize;
+        }
+
+        @Override
+        protected ActivityMonthTotals compute() {
+            if (toId - afterId <= partitionSize) {
+                return scan();
+            }
+            long middle = afterId + (toId - afterId) / 2;
+            PartitionTask lower = new PartitionTask(job, afterId, middle, partitionSize);
+            lower.fork();
+            ActivityMonthTotals upper = new PartitionTask(job, middle, toId, partitionSize).compute();
+            return lower.join().merge(upper);
+        }
+
+        private ActivityMonthTotals scan() {
+            ActivityMonthTotals totals = new ActivityMonthTotals();
+            long position = afterId;
+            while (position < toId) {
+                if (job.isStopRequested()) {
+                    throw new CancellationException("Aggregation job " + job.getId() + " stopped");
+                }
+                TrainingChunk chunk;
+                try {
+                    chunk = trainingProvider.getTrainingChunk(position, toId, properties.getChunkSize());
+                    accumulate(chunk, totals);
+                } catch (RuntimeException e) {
+                    job.failPartition(e);
+                    throw e;
+                }
+                long reached = chunk.size() < properties.getChunkSize() ? toId : chunk.lastId();
+                job.advance(reached - position, chunk.size());
+                scannedTrainings.increment(chunk.size());
+                position = reached;
+            }
+            return totals;
+        }
+
+        private void accumulate(TrainingChunk chunk, ActivityMonthTotals totals) {
+            long[] startTimes = chunk.getStartTimes();
+            long[] endTimes = chunk.getEndTimes();
+            byte[] activityTypes = chunk.getActivityTypes();
+            double[] distances = chunk.getDistances();
+            for (int i = 0; i < chunk.size(); i++) {
+                int month = EpochDays.monthOf(dayConverter.epochDay(startTimes[i]));
+                totals.add(month, activityTypes[i], 1, distances[i], endTimes[i] - startTimes[i]);
+            }
+        }
+    }
+}
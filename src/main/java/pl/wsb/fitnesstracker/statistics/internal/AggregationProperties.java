@@ -0,0 +1,43 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the platform-wide aggregation jobs.
+ */
+@ConfigurationProperties(prefix = "statistics.aggregation")
+@Getter
+class AggregationProperties {
+
+    /**
+     * Number of threads of the fork-join pool, 0 for the number of available processors.
+     */
+    private final int parallelism;
+
+    /**
+     * Number of ID-range partitions per thread; more partitions balance uneven ranges better.
+     */
+    private final int partitionsPerThread;
+
+    /**
+     * Number of trainings read from the database at once by a partition.
+     */
+    private final int chunkSize;
+
+    /**
+     * Number of finished jobs kept for status queries.
+     */
+    private final int retainedJobs;
+
+    public AggregationProperties(@DefaultValue("0") int parallelism,
+                                 @DefaultValue("4") int partitionsPerThread,
+                                 @DefaultValue("5000") int chunkSize,
+                                 @DefaultValue("20") int retainedJobs) {
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.partitionsPerThread = partitionsPerThread;
+        this.chunkSize = chunkSize;
+        this.retainedJobs = retainedJobs;
+    }
+}
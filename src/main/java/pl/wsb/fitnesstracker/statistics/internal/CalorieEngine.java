@@ -0,0 +1,115 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.springframework.stereotype.Component;
+import pl.wsb.fitnesstracker.training.api.TrainingSnapshot;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+/**
+ * Estimates the energy burned during a training with the MET method:
+ * {@code kcal = MET(activity, speed) * body weight * hours * age factor}.
+ * <p>
+ * The age factor is the ratio of the Mifflin-St Jeor resting metabolic rate at the user's age to the rate at the
+ * reference age, so older users burn slightly less for the same effort. All coefficients are resolved into arrays
+ * up front and the hot path works on primitives only, as it is used both for every training write and for the bulk
+ * recompute of all trainings. Both paths share {@link #estimate(int, long, long, double, long)}, so the totals
+ * maintained on write always equal the recomputed ones.
+ * </p>
+ */
+@Component
+class CalorieEngine {
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private static final double MILLIS_PER_HOUR = 3_600_000d;
+
+    private static final double DAYS_PER_YEAR = 365.2425;
+
+    private static final int MAX_AGE = 120;
+
+    private final double bodyWeight;
+
+    private final int referenceAge;
+
+    private final double[] metBase;
+
+    private final double[] metPerSpeed;
+
+    private final double[] metMinimum;
+
+    private final double[] ageFactors;
+
+    CalorieEngine(CalorieProperties properties) {
+        this.bodyWeight = properties.getBodyWeight();
+        this.referenceAge = Math.min(Math.max(properties.getReferenceAge(), 0), MAX_AGE);
+
+        ActivityType[] activityTypes = ActivityType.values();
+        this.metBase = new double[activityTypes.length];
+        this.metPerSpeed = new double[activityTypes.length];
+        this.metMinimum = new double[activityTypes.length];
+        for (ActivityType activityType : activityTypes) {
+            CalorieProperties.Met met = properties.getMets().get(activityType);
+            metBase[activityType.ordinal()] = met.base();
+            metPerSpeed[activityType.ordinal()] = met.perSpeed();
+            metMinimum[activityType.ordinal()] = met.minimum();
+        }
+
+        double referenceRate = restingRate(properties, referenceAge);
+        this.ageFactors = new double[MAX_AGE + 1];
+        for (int age = 0; age <= MAX_AGE; age++) {
+            ageFactors[age] = Math.max(0, restingRate(properties, age) / referenceRate);
+        }
+    }
+
+    /**
+     * Mifflin-St Jeor resting metabolic rate, in kcal per day.
+     */
+    private static double restingRate(CalorieProperties properties, int age) {
+        return 10 * properties.getBodyWeight() + 6.25 * properties.getHeight() - 5 * age + 5;
+    }
+
+    /**
+     * Estimates the calories of a training. A training without a known user is estimated at the reference age.
+     *
+     * @param training the training
+     * @return burned calories, in kcal
+     */
+    int estimate(TrainingSnapshot training) {
+        int activityType = training.activityType().ordinal();
+        long start = training.startTime().toEpochMilli();
+        long end = training.endTime().toEpochMilli();
+        if (training.userBirthdate() == null) {
+            return estimateAtAge(activityType, end - start, training.averageSpeed(), referenceAge);
+        }
+        return estimate(activityType, start, end, training.averageSpeed(), training.userBirthdate().toEpochDay());
+    }
+
+    /**
+     * Estimates the calories of a training given by its columns.
+     *
+     * @param activityType  ordinal of the activity type
+     * @param startTime     start of the training, in epoch milliseconds
+     * @param endTime       end of the training, in epoch milliseconds
+     * @param averageSpeed  average speed, in km/h
+     * @param userBirthdate birthdate of the user, in epoch days
+     * @return burned calories, in kcal
+     */
+    int estimate(int activityType, long startTime, long endTime, double averageSpeed, long userBirthdate) {
+        return estimateAtAge(activityType, endTime - startTime, averageSpeed, ageAt(userBirthdate, startTime));
+    }
+
+    private int estimateAtAge(int activityType, long durationMillis, double averageSpeed, int age) {
+        if (durationMillis <= 0) {
+            return 0;
+        }
+        double met = Math.max(metMinimum[activityType], metBase[activityType] + metPerSpeed[activityType] * averageSpeed);
+        return (int) Math.round(met * bodyWeight * (durationMillis / MILLIS_PER_HOUR) * ageFactors[age]);
+    }
+
+    /**
+     * @return whole years between the birthdate and the moment, clamped to the supported range
+     */
+    private static int ageAt(long birthdate, long epochMillis) {
+        long days = Math.floorDiv(epochMillis, MILLIS_PER_DAY) - birthdate;
+        return (int) Math.min(Math.max(days / DAYS_PER_YEAR, 0), MAX_AGE);
+    }
+}
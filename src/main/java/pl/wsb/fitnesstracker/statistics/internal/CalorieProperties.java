@@ -0,0 +1,86 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import jakarta.annotation.Nullable;
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Configuration of the calorie estimates.
+ * Changing the coefficients affects new trainings only, until the totals are recomputed.
+ */
+@ConfigurationProperties(prefix = "statistics.calories")
+@Getter
+class CalorieProperties {
+
+    private static final Map<ActivityType, Met> DEFAULT_METS = new EnumMap<>(Map.of(
+            ActivityType.RUNNING, new Met(0, 1.0, 6.0),
+            ActivityType.CYCLING, new Met(0, 0.4, 3.5),
+            ActivityType.WALKING, new Met(0, 0.7, 2.0),
+            ActivityType.SWIMMING, new Met(4.0, 1.5, 4.5),
+            ActivityType.TENNIS, new Met(7.3, 0, 7.3),
+            ActivityType.TABLETENNIS, new Met(4.0, 0, 4.0)));
+
+    /**
+     * Body weight assumed for every user, in kilograms, as users do not record their weight.
+     */
+    private final double bodyWeight;
+
+    /**
+     * Height assumed for every user, in centimetres; only used by the age correction.
+     */
+    private final double height;
+
+    /**
+     * Age at which the MET values apply without correction.
+     */
+    private final int referenceAge;
+
+    /**
+     * MET values per activity type; activity types left out keep their built-in values.
+     */
+    private final Map<ActivityType, Met> mets;
+
+    /**
+     * Number of threads of the bulk recompute, 0 for the number of available processors.
+     */
+    private final int parallelism;
+
+    /**
+     * Number of trainings read from the database at once by the bulk recompute.
+     */
+    private final int chunkSize;
+
+    public CalorieProperties(@DefaultValue("70") double bodyWeight,
+                             @DefaultValue("175") double height,
+                             @DefaultValue("30") int referenceAge,
+                             @Nullable Map<ActivityType, Met> mets,
+                             @DefaultValue("0") int parallelism,
+                             @DefaultValue("10000") int chunkSize) {
+        this.bodyWeight = bodyWeight;
+        this.height = height;
+        this.referenceAge = referenceAge;
+        this.mets = new EnumMap<>(DEFAULT_METS);
+        if (mets != null) {
+            this.mets.putAll(mets);
+        }
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Metabolic equivalent of an activity as a linear function of the average speed (in km/h):
+     * {@code max(minimum, base + perSpeed * averageSpeed)}.
+     *
+     * @param base     MET at zero speed
+     * @param perSpeed MET added per km/h of average speed
+     * @param minimum  lower bound of the MET
+     */
+    record Met(double base, double perSpeed, double minimum) {
+
+    }
+}
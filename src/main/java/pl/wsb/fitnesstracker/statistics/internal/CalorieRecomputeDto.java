@@ -0,0 +1,37 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+/**
+ * Data Transfer Object representing the outcome of a bulk recompute of the burned calories.
+ */
+public class CalorieRecomputeDto {
+    private final long trainings;
+
+    private final long users;
+
+    private final long durationMillis;
+
+    private final double trainingsPerSecond;
+
+    CalorieRecomputeDto(long trainings, long users, long durationMillis, double trainingsPerSecond) {
+        this.trainings = trainings;
+        this.users = users;
+        this.durationMillis = durationMillis;
+        this.trainingsPerSecond = trainingsPerSecond;
+    }
+
+    public long getTrainings() {
+        return trainings;
+    }
+
+    public long getUsers() {
+        return users;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public double getTrainingsPerSecond() {
+        return trainingsPerSecond;
+    }
+}
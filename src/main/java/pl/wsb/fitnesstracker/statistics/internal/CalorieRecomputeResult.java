@@ -0,0 +1,21 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import java.time.Duration;
+
+/**
+ * Outcome of a bulk recompute of the burned calories.
+ *
+ * @param trainings number of scanned trainings
+ * @param users     number of users whose totals were written
+ * @param duration  time taken by the recompute
+ */
+record CalorieRecomputeResult(long trainings, long users, Duration duration) {
+
+    /**
+     * @return scanned trainings per second
+     */
+    double trainingsPerSecond() {
+        long nanos = Math.max(duration.toNanos(), 1);
+        return trainings * 1_000_000_000d / nanos;
+    }
+}
@@ -0,0 +1,203 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.wsb.fitnesstracker.exception.api.BusinessException;
+import pl.wsb.fitnesstracker.statistics.api.Statistics;
+import pl.wsb.fitnesstracker.training.api.TrainingChunk;
+import pl.wsb.fitnesstracker.training.api.TrainingProvider;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Recomputes {@link Statistics#getTotalCaloriesBurned()} of all users from their trainings, e.g. after the calorie
+ * coefficients have changed.
+ * <p>
+ * Trainings are read in column chunks ordered by user, so the trainings of a user are consecutive and the user's
+ * total is complete as soon as the scan moves past them. Memory use is therefore one chunk, whatever the number of
+ * users. The calories of a chunk are estimated in parallel on a dedicated fork-join pool, then the totals of the users
+ * completed by the chunk are written in one transaction.
+ * </p>
+ * <p>
+ * A training written while the scan passes its user may be missing from that user's total; running the recompute
+ * again corrects it. Users without statistics, which the {@link StatisticsBackfill} creates at startup, are skipped
+ * and not counted as updated.
+ * </p>
+ */
+@Service
+@Slf4j
+class CalorieRecomputeService {
+
+    /**
+     * Number of trainings below which a fork-join task estimates its range instead of splitting it.
+     */
+    private static final int SPLIT_THRESHOLD = 1024;
+
+    private final TrainingProvider trainingProvider;
+
+    private final StatisticsRepository statisticsRepository;
+
+    private final CalorieEngine calorieEngine;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int chunkSize;
+
+    private final ForkJoinPool pool;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    CalorieRecomputeService(TrainingProvider trainingProvider,
+                            StatisticsRepository statisticsRepository,
+                            CalorieEngine calorieEngine,
+                            PlatformTransactionManager transactionManager,
+                            CalorieProperties properties) {
+        this.trainingProvider = trainingProvider;
+        this.statisticsRepository = statisticsRepository;
+        this.calorieEngine = calorieEngine;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = properties.getChunkSize();
+        this.pool = new ForkJoinPool(properties.getParallelism());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Recomputes the burned calories of all users.
+     *
+     * @return numbers of scanned trainings and updated users
+     * @throws BusinessException if a recompute is already running
+     */
+    CalorieRecomputeResult recompute() {
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException("Burned calories are already being recomputed");
+        }
+        try {
+            return scan();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private CalorieRecomputeResult scan() {
+        long start = System.nanoTime();
+        long trainings = 0;
+        long users = 0;
+        long missing = 0;
+        // user whose trainings continue into the next chunk, 0 if none
+        long openUserId = 0;
+        long openCalories = 0;
+        TrainingChunk chunk = trainingProvider.getTrainingChunkByUser(0, 0, chunkSize);
+        while (true) {
+            int size = chunk.size();
+            int[] calories = new int[size];
+            pool.invoke(new EstimateTask(chunk, calories, 0, size));
+
+            long[] userIds = chunk.getUserIds();
+            long[] completedUserIds = new long[size + 1];
+            long[] completedCalories = new long[size + 1];
+            int completed = 0;
+            for (int i = 0; i < size; i++) {
+                if (userIds[i] != openUserId) {
+                    if (openUserId != 0) {
+                        completedUserIds[completed] = openUserId;
+                        completedCalories[completed++] = openCalories;
+                    }
+                    openUserId = userIds[i];
+                    openCalories = 0;
+                }
+                openCalories += calories[i];
+            }
+            boolean last = size < chunkSize;
+            if (last && openUserId != 0) {
+                completedUserIds[completed] = openUserId;
+                completedCalories[completed++] = openCalories;
+            }
+            int written = write(completedUserIds, completedCalories, completed);
+            trainings += size;
+            users += written;
+            missing += completed - written;
+            if (last) {
+                break;
+            }
+            chunk = trainingProvider.getTrainingChunkByUser(chunk.lastUserId(), chunk.lastId(), chunkSize);
+        }
+
+        CalorieRecomputeResult result = new CalorieRecomputeResult(trainings, users, Duration.ofNanos(System.nanoTime() - start));
+        log.info("Burned calories of {} users recomputed from {} trainings in {} ms ({} trainings/s)",
+                users, trainings, result.duration().toMillis(), Math.round(result.trainingsPerSecond()));
+        if (missing > 0) {
+            log.warn("{} users with trainings have no statistics, their burned calories were not written", missing);
+        }
+        return result;
+    }
+
+    /**
+     * @return number of users whose statistics were updated; users without statistics are skipped
+     */
+    private int write(long[] userIds, long[] calories, int count) {
+        if (count == 0) {
+            return 0;
+        }
+        return transactionTemplate.execute(status -> {
+            int updated = 0;
+            for (int i = 0; i < count; i++) {
+                updated += statisticsRepository.setCaloriesBurned(userIds[i], Math.toIntExact(calories[i]));
+            }
+            return updated;
+        });
+    }
+
+    /**
+     * Estimates the calories of a range of a chunk, splitting it in halves while it is larger than
+     * {@link #SPLIT_THRESHOLD}. Every task writes a disjoint range of the result array.
+     */
+    private final class EstimateTask extends RecursiveAction {
+
+        private final TrainingChunk chunk;
+
+        private final int[] calories;
+
+        private final int from;
+
+        private final int to;
+
+        private EstimateTask(TrainingChunk chunk, int[] calories, int from, int to) {
+            this.chunk = chunk;
+            this.calories = calories;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                estimate();
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new EstimateTask(chunk, calories, from, middle), new EstimateTask(chunk, calories, middle, to));
+        }
+
+        private void estimate() {
+            byte[] activityTypes = chunk.getActivityTypes();
+            long[] startTimes = chunk.getStartTimes();
+            long[] endTimes = chunk.getEndTimes();
+            double[] averageSpeeds = chunk.getAverageSpeeds();
+            long[] userBirthdates = chunk.getUserBirthdates();
+            for (int i = from; i < to; i++) {
+                calories[i] = calorieEngine.estimate(
+                        activityTypes[i], startTimes[i], endTimes[i], averageSpeeds[i], userBirthdates[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the {@link QuantileSketch}es behind the training distributions.
+ */
+@ConfigurationProperties(prefix = "statistics.distribution")
+@Getter
+class DistributionProperties {
+
+    /**
+     * Maximum relative error of the returned quantiles.
+     */
+    private final double relativeAccuracy;
+
+    /**
+     * Maximum number of buckets of one sketch, bounding its memory to 8 bytes per bucket.
+     */
+    private final int maxBuckets;
+
+    public DistributionProperties(@DefaultValue("0.01") double relativeAccuracy,
+                                  @DefaultValue("2048") int maxBuckets) {
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBuckets = maxBuckets;
+    }
+}
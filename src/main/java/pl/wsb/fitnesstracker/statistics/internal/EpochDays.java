@@ -0,0 +1,75 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+
+/**
+ * Calendar arithmetic on epoch days and epoch milliseconds with primitives only, for scan loops that must not
+ * allocate date objects per row.
+ */
+final class EpochDays {
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private EpochDays() {
+    }
+
+    /**
+     * Converts an epoch day to the number of months since year 0 ({@code year * 12 + month - 1})
+     * with the civil-from-days algorithm.
+     *
+     * @param epochDay day since 1970-01-01
+     * @return month index of the day
+     */
+    static int monthOf(int epochDay) {
+        long shifted = epochDay + 719_468L;
+        long era = (shifted >= 0 ? shifted : shifted - 146_096) / 146_097;
+        long dayOfEra = shifted - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (year * 12 + month - 1);
+    }
+
+    /**
+     * @param month month index produced by {@link #monthOf(int)}
+     * @return the month
+     */
+    static YearMonth toYearMonth(int month) {
+        return YearMonth.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1);
+    }
+
+    /**
+     * Converts epoch milliseconds to the epoch day in a time zone. Zones with a fixed offset are converted without
+     * any allocation; other zones look up the offset valid at the given instant.
+     */
+    static final class DayConverter {
+
+        private final ZoneRules rules;
+
+        private final long fixedOffsetMillis;
+
+        private final boolean fixedOffset;
+
+        DayConverter(ZoneId zone) {
+            this.rules = zone.getRules();
+            this.fixedOffset = rules.isFixedOffset();
+            this.fixedOffsetMillis = fixedOffset ? rules.getOffset(Instant.EPOCH).getTotalSeconds() * 1000L : 0;
+        }
+
+        /**
+         * @param epochMillis moment in epoch milliseconds
+         * @return day of the moment, in epoch days of the time zone
+         */
+        int epochDay(long epochMillis) {
+            long offsetMillis = fixedOffset
+                    ? fixedOffsetMillis
+                    : rules.getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds() * 1000L;
+            return Math.toIntExact(Math.floorDiv(epochMillis + offsetMillis, MILLIS_PER_DAY));
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import jakarta.annotation.Nullable;
+import pl.wsb.fitnesstracker.statistics.api.LeaderboardEntry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+
+/**
+ * Users ranked by their total distance, highest first (ties broken by user ID).
+ * <p>
+ * Standings are kept in an order-statistic treap: every node knows the size of its subtree, so updating a user,
+ * finding the rank of a user and reaching the top entries all take expected logarithmic time.
+ * </p>
+ * Thread-safe.
+ */
+class Leaderboard {
+
+    private static final class Node {
+        private final long userId;
+        private final double score;
+        private final int priority;
+        private int trainings;
+        private int size = 1;
+        @Nullable
+        private Node left;
+        @Nullable
+        private Node right;
+
+        private Node(long userId, double score, int trainings, int priority) {
+            this.userId = userId;
+            this.score = score;
+            this.trainings = trainings;
+            this.priority = priority;
+        }
+    }
+
+    private final Map<Long, Node> nodes = new HashMap<>();
+
+    private final SplittableRandom random = new SplittableRandom();
+
+    @Nullable
+    private Node root;
+
+    /**
+     * Changes the total of a user; a user left without trainings leaves the board.
+     *
+     * @param userId    ID of the user
+     * @param distance  change of the total distance
+     * @param trainings change of the number of trainings
+     */
+    synchronized void update(long userId, double distance, int trainings) {
+        Node current = nodes.remove(userId);
+        double score = distance;
+        int count = trainings;
+        if (current != null) {
+            root = delete(root, current);
+            score += current.score;
+            count += current.trainings;
+        }
+        if (count > 0) {
+            Node node = new Node(userId, score, count, random.nextInt());
+            nodes.put(userId, node);
+            root = insert(root, node);
+        }
+    }
+
+    /**
+     * @param limit maximum number of entries
+     * @return the best entries, best first
+     */
+    synchronized List<LeaderboardEntry> top(int limit) {
+        List<LeaderboardEntry> entries = new ArrayList<>(Math.min(limit, nodes.size()));
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        while ((node != null || !path.isEmpty()) && entries.size() < limit) {
+            while (node != null) {
+                path.push(node);
+                node = node.left;
+            }
+            node = path.pop();
+            entries.add(toEntry(entries.size() + 1, node));
+            node = node.right;
+        }
+        return entries;
+    }
+
+    /**
+     * @param userId ID of the user
+     * @return the entry of the user, or empty if the user is not on the board
+     */
+    synchronized Optional<LeaderboardEntry> standing(long userId) {
+        Node target = nodes.get(userId);
+        if (target == null) {
+            return Optional.empty();
+        }
+        int before = 0;
+        Node node = root;
+        while (node != null) {
+            int comparison = compare(target, node);
+            if (comparison < 0) {
+                node = node.left;
+            } else if (comparison > 0) {
+                before += size(node.left) + 1;
+                node = node.right;
+            } else {
+                before += size(node.left);
+                break;
+            }
+        }
+        return Optional.of(toEntry(before + 1, target));
+    }
+
+    private static LeaderboardEntry toEntry(int rank, Node node) {
+        return new LeaderboardEntry(rank, node.userId, node.score, node.trainings);
+    }
+
+    private static int compare(Node a, Node b) {
+        int byScore = Double.compare(b.score, a.score);
+        return byScore != 0 ? byScore : Long.compare(a.userId, b.userId);
+    }
+
+    private static int size(@Nullable Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static Node update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+        return node;
+    }
+
+    private static Node insert(@Nullable Node node, Node inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (compare(inserted, node) < 0) {
+            node.left = insert(node.left, inserted);
+            if (node.left.priority > node.priority) {
+                return rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, inserted);
+            if (node.right.priority > node.priority) {
+                return rotateLeft(node);
+            }
+        }
+        return update(node);
+    }
+
+    @Nullable
+    private static Node delete(@Nullable Node node, Node deleted) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(deleted, node);
+        if (comparison < 0) {
+            node.left = delete(node.left, deleted);
+        } else if (comparison > 0) {
+            node.right = delete(node.right, deleted);
+        } else {
+            return merge(node.left, node.right);
+        }
+        return update(node);
+    }
+
+    /**
+     * Joins two treaps whose keys are all ordered left before right.
+     */
+    @Nullable
+    private static Node merge(@Nullable Node left, @Nullable Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = update(node);
+        return update(pivot);
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = update(node);
+        return update(pivot);
+    }
+}
@@ -0,0 +1,37 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+/**
+ * Data Transfer Object representing the standing of a user on a leaderboard.
+ */
+public class LeaderboardEntryDto {
+    private final int rank;
+
+    private final Long userId;
+
+    private final double totalDistance;
+
+    private final int trainings;
+
+    LeaderboardEntryDto(int rank, Long userId, double totalDistance, int trainings) {
+        this.rank = rank;
+        this.userId = userId;
+        this.totalDistance = totalDistance;
+        this.trainings = trainings;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public double getTotalDistance() {
+        return totalDistance;
+    }
+
+    public int getTrainings() {
+        return trainings;
+    }
+}
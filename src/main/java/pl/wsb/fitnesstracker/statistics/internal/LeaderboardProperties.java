@@ -0,0 +1,22 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the in-memory {@link Leaderboard}s.
+ */
+@ConfigurationProperties(prefix = "statistics.leaderboard")
+@Getter
+class LeaderboardProperties {
+
+    /**
+     * Number of most recent weeks and months, including the current one, for which leaderboards are kept.
+     */
+    private final int retainedPeriods;
+
+    public LeaderboardProperties(@DefaultValue("3") int retainedPeriods) {
+        this.retainedPeriods = retainedPeriods;
+    }
+}
@@ -0,0 +1,37 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the rolling training loads.
+ */
+@ConfigurationProperties(prefix = "statistics.load")
+@Getter
+class LoadProperties {
+
+    /**
+     * Span, in days, of the exponentially weighted acute load.
+     */
+    private final int acuteDays;
+
+    /**
+     * Span, in days, of the exponentially weighted chronic load.
+     */
+    private final int chronicDays;
+
+    /**
+     * Number of days before a user's latest training for which training days are remembered;
+     * also the longest streak that can be reported.
+     */
+    private final int retainedDays;
+
+    public LoadProperties(@DefaultValue("7") int acuteDays,
+                          @DefaultValue("28") int chronicDays,
+                          @DefaultValue("400") int retainedDays) {
+        this.acuteDays = acuteDays;
+        this.chronicDays = chronicDays;
+        this.retainedDays = retainedDays;
+    }
+}
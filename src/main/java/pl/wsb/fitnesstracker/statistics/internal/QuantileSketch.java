@@ -0,0 +1,229 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import java.util.OptionalDouble;
+
+/**
+ * Mergeable quantile sketch with a relative-error guarantee, following the DDSketch design.
+ * <p>
+ * A positive value {@code x} is counted in the bucket {@code ceil(log(x) / log(gamma))} with
+ * {@code gamma = (1 + a) / (1 - a)}, so any quantile is returned within a relative error {@code a} of the exact one.
+ * Counts live in one primitive array of at most {@code maxBuckets} slots; when the values span more buckets,
+ * the lowest buckets are collapsed, trading accuracy of the lowest quantiles for bounded memory.
+ * Because a bucket is just a count, values can be removed as well as added, and two sketches with the same accuracy
+ * merge exactly by adding counts.
+ * </p>
+ * Thread-safe.
+ */
+class QuantileSketch {
+
+    /**
+     * Values below this are counted as zero.
+     */
+    private static final double MIN_INDEXABLE_VALUE = 1e-9;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final double relativeAccuracy;
+
+    private final double gamma;
+
+    private final double logGamma;
+
+    private final int maxBuckets;
+
+    private long[] counts = new long[0];
+
+    /**
+     * Bucket index of {@code counts[0]}.
+     */
+    private int offset;
+
+    /**
+     * Lowest bucket index, raised by collapsing; lower indexes are counted in this bucket.
+     */
+    private int minIndex = Integer.MIN_VALUE;
+
+    private long zeroCount;
+
+    private long count;
+
+    QuantileSketch(double relativeAccuracy, int maxBuckets) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1");
+        }
+        if (maxBuckets < 1) {
+            throw new IllegalArgumentException("At least one bucket is required");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.maxBuckets = maxBuckets;
+    }
+
+    synchronized void add(double value) {
+        update(value, 1);
+    }
+
+    /**
+     * Removes a value previously added; removing a value that was never added is ignored.
+     */
+    synchronized void remove(double value) {
+        update(value, -1);
+    }
+
+    synchronized void clear() {
+        counts = new long[0];
+        minIndex = Integer.MIN_VALUE;
+        zeroCount = 0;
+        count = 0;
+    }
+
+    synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Adds all values of the other sketch to this one.
+     *
+     * @param other sketch of the same relative accuracy
+     */
+    void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Only sketches of the same relative accuracy can be merged");
+        }
+        long[] otherCounts;
+        int otherOffset;
+        long otherZeroCount;
+        synchronized (other) {
+            otherCounts = other.counts.clone();
+            otherOffset = other.offset;
+            otherZeroCount = other.zeroCount;
+        }
+        synchronized (this) {
+            zeroCount += otherZeroCount;
+            count += otherZeroCount;
+            for (int i = 0; i < otherCounts.length; i++) {
+                if (otherCounts[i] != 0) {
+                    counts[position(otherOffset + i)] += otherCounts[i];
+                    count += otherCounts[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * @param quantile quantile between 0 and 1
+     * @return the approximate value at the quantile, or empty if the sketch is empty
+     */
+    synchronized OptionalDouble quantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        if (count == 0) {
+            return OptionalDouble.empty();
+        }
+        double rank = quantile * (count - 1);
+        long cumulative = zeroCount;
+        if (cumulative > rank) {
+            return OptionalDouble.of(0);
+        }
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative > rank) {
+                return OptionalDouble.of(valueOf(offset + i));
+            }
+        }
+        return OptionalDouble.of(valueOf(offset + counts.length - 1));
+    }
+
+    /**
+     * @param value any value
+     * @return approximate fraction of the values lower than the given one, or empty if the sketch is empty
+     */
+    synchronized OptionalDouble rank(double value) {
+        if (count == 0) {
+            return OptionalDouble.empty();
+        }
+        if (value < MIN_INDEXABLE_VALUE) {
+            return OptionalDouble.of(value <= 0 ? 0 : zeroCount / 2.0 / count);
+        }
+        int index = Math.max(indexOf(value), minIndex);
+        double below = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            int bucket = offset + i;
+            if (bucket < index) {
+                below += counts[i];
+            } else {
+                if (bucket == index) {
+                    below += counts[i] / 2.0;
+                }
+                break;
+            }
+        }
+        return OptionalDouble.of(below / count);
+    }
+
+    private void update(double value, long delta) {
+        if (Double.isNaN(value) || value < 0) {
+            throw new IllegalArgumentException("Only non-negative values can be counted: " + value);
+        }
+        if (value < MIN_INDEXABLE_VALUE) {
+            if (zeroCount + delta >= 0) {
+                zeroCount += delta;
+                count += delta;
+            }
+            return;
+        }
+        int position = position(indexOf(value));
+        if (counts[position] + delta >= 0) {
+            counts[position] += delta;
+            count += delta;
+        }
+    }
+
+    private int indexOf(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    private double valueOf(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    /**
+     * @return slot of the bucket in {@link #counts}, growing or collapsing the array when the bucket is not covered
+     */
+    private int position(int index) {
+        index = Math.max(index, minIndex);
+        if (counts.length == 0) {
+            counts = new long[Math.min(INITIAL_CAPACITY, maxBuckets)];
+            offset = index - counts.length / 2;
+        } else if (index < offset || index >= offset + counts.length) {
+            resize(index);
+            index = Math.max(index, minIndex);
+        }
+        return index - offset;
+    }
+
+    private void resize(int index) {
+        int low = Math.min(offset, index);
+        int high = Math.max(offset + counts.length - 1, index);
+        int span = high - low + 1;
+        if (span <= maxBuckets) {
+            int capacity = Math.min(maxBuckets, Math.max(span, counts.length * 2));
+            int newOffset = index < offset ? high - capacity + 1 : low;
+            long[] grown = new long[capacity];
+            System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+            counts = grown;
+            offset = newOffset;
+            return;
+        }
+        int newOffset = high - maxBuckets + 1;
+        long[] collapsed = new long[maxBuckets];
+        for (int i = 0; i < counts.length; i++) {
+            collapsed[Math.max(offset + i, newOffset) - newOffset] += counts[i];
+        }
+        counts = collapsed;
+        offset = newOffset;
+        minIndex = newOffset;
+    }
+}
@@ -0,0 +1,52 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import pl.wsb.fitnesstracker.statistics.api.RollupGranularity;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.LocalDate;
+
+/**
+ * Row of the {@code training_rollups} table: totals of one user's trainings of one activity within one time bucket.
+ * The unique key doubles as the index of the rollup queries.
+ */
+@Entity
+@Table(name = "training_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_training_rollups_bucket", columnNames = {"user_id", "granularity", "activity_type", "bucket_start"})
+}, indexes = {
+        @Index(name = "idx_training_rollups_granularity_start", columnList = "granularity, bucket_start")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+class RollupBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false, length = 8)
+    private RollupGranularity granularity;
+
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "activity_type", nullable = false)
+    private ActivityType activityType;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDate bucketStart;
+
+    @Column(name = "trainings", nullable = false)
+    private int trainings;
+
+    @Column(name = "distance", nullable = false)
+    private double distance;
+
+    @Column(name = "duration_seconds", nullable = false)
+    private long durationSeconds;
+}
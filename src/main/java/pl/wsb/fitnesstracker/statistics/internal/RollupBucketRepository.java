@@ -0,0 +1,88 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import jakarta.annotation.Nullable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import pl.wsb.fitnesstracker.statistics.api.RollupGranularity;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.LocalDate;
+import java.util.List;
+
+interface RollupBucketRepository extends JpaRepository<RollupBucket, Long> {
+
+    /**
+     * Finds the non-empty buckets of a user within a range, using the unique bucket key as the index.
+     *
+     * @param userId       ID of the user
+     * @param granularity  size of the buckets
+     * @param activityType activity of the buckets, or {@code null} for all activities
+     * @param from         first bucket start, inclusive
+     * @param to           last bucket start, inclusive
+     * @return buckets ordered by bucket start and activity
+     */
+    @Query("""
+            SELECT b FROM RollupBucket b
+            WHERE b.userId = :userId
+              AND b.granularity = :granularity
+              AND (:activityType IS NULL OR b.activityType = :activityType)
+              AND b.bucketStart BETWEEN :from AND :to
+              AND b.trainings > 0
+            ORDER BY b.bucketStart, b.activityType""")
+    List<RollupBucket> findBuckets(@Param("userId") Long userId,
+                                   @Param("granularity") RollupGranularity granularity,
+                                   @Nullable @Param("activityType") ActivityType activityType,
+                                   @Param("from") LocalDate from,
+                                   @Param("to") LocalDate to);
+
+    /**
+     * Adds the given deltas to a bucket in place, creating the bucket if it does not exist yet and the delta adds
+     * trainings. A single statement, so two transactions writing the first trainings of the same bucket do not race
+     * between an update finding no row and an insert.
+     *
+     * @param granularity  {@linkplain RollupGranularity#name() name} of the bucket granularity, as stored
+     * @param activityType {@linkplain ActivityType#ordinal() ordinal} of the activity, as stored
+     */
+    @Modifying
+    @Query(value = """
+            MERGE INTO training_rollups b
+            USING (SELECT CAST(:userId AS BIGINT) AS user_id, CAST(:granularity AS VARCHAR(8)) AS granularity,
+                          CAST(:activityType AS INTEGER) AS activity_type, CAST(:bucketStart AS DATE) AS bucket_start) d
+            ON b.user_id = d.user_id AND b.granularity = d.granularity
+               AND b.activity_type = d.activity_type AND b.bucket_start = d.bucket_start
+            WHEN MATCHED THEN UPDATE SET
+                trainings = b.trainings + :trainings,
+                distance = b.distance + :distance,
+                duration_seconds = b.duration_seconds + :durationSeconds
+            WHEN NOT MATCHED AND :trainings > 0 THEN INSERT
+                (user_id, granularity, activity_type, bucket_start, trainings, distance, duration_seconds)
+                VALUES (d.user_id, d.granularity, d.activity_type, d.bucket_start, :trainings, :distance, :durationSeconds)""",
+            nativeQuery = true)
+    void applyDelta(@Param("userId") Long userId,
+                    @Param("granularity") String granularity,
+                    @Param("activityType") int activityType,
+                    @Param("bucketStart") LocalDate bucketStart,
+                    @Param("trainings") int trainings,
+                    @Param("distance") double distance,
+                    @Param("durationSeconds") long durationSeconds);
+
+    /**
+     * Removes all buckets of the given granularity starting before the threshold.
+     *
+     * @return number of removed buckets
+     */
+    @Modifying
+    @Query("DELETE FROM RollupBucket b WHERE b.granularity = :granularity AND b.bucketStart < :before")
+    int deleteBucketsBefore(@Param("granularity") RollupGranularity granularity, @Param("before") LocalDate before);
+
+    /**
+     * Removes buckets left empty after their trainings were moved to other buckets or users.
+     *
+     * @return number of removed buckets
+     */
+    @Modifying
+    @Query("DELETE FROM RollupBucket b WHERE b.trainings = 0")
+    int deleteEmptyBuckets();
+}
@@ -0,0 +1,13 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import pl.wsb.fitnesstracker.statistics.api.RollupGranularity;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.LocalDate;
+
+/**
+ * Identity of a {@link RollupBucket}.
+ */
+record RollupKey(Long userId, RollupGranularity granularity, ActivityType activityType, LocalDate bucketStart) {
+
+}
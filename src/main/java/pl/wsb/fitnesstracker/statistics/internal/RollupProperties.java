@@ -0,0 +1,33 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Period;
+import java.time.ZoneId;
+
+/**
+ * Configuration of the training rollups.
+ * The compaction interval is set with {@code statistics.rollup.compaction-interval} (ISO-8601 duration, default 1 hour).
+ */
+@ConfigurationProperties(prefix = "statistics.rollup")
+@Getter
+class RollupProperties {
+
+    /**
+     * Time zone in which the start time of a training is assigned to its day, week and month.
+     */
+    private final ZoneId zone;
+
+    /**
+     * How long daily buckets are kept; older days remain available in the weekly and monthly buckets.
+     */
+    private final Period dailyRetention;
+
+    public RollupProperties(@DefaultValue("UTC") ZoneId zone,
+                            @DefaultValue("90d") Period dailyRetention) {
+        this.zone = zone;
+        this.dailyRetention = dailyRetention;
+    }
+}
@@ -0,0 +1,36 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import jakarta.annotation.Nullable;
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration of the snapshot file of the in-memory training aggregates.
+ * The checkpoint interval is set with {@code statistics.snapshot.interval} (ISO-8601 duration, default 10 minutes).
+ */
+@ConfigurationProperties(prefix = "statistics.snapshot")
+@Getter
+class SnapshotProperties {
+
+    /**
+     * Local file the trainings are checkpointed to, {@code null} to always rebuild the aggregates from the database.
+     */
+    @Nullable
+    private final Path path;
+
+    /**
+     * How far before a checkpoint the changed trainings are replayed; must exceed the longest transaction writing
+     * a training plus the clock skew between the nodes.
+     */
+    private final Duration replayOverlap;
+
+    public SnapshotProperties(@Nullable Path path,
+                              @DefaultValue("5m") Duration replayOverlap) {
+        this.path = path;
+        this.replayOverlap = replayOverlap;
+    }
+}
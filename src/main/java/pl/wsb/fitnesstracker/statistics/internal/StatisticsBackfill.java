@@ -0,0 +1,92 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.wsb.fitnesstracker.statistics.api.Statistics;
+import pl.wsb.fitnesstracker.training.api.TrainingChangedEvent;
+import pl.wsb.fitnesstracker.training.api.TrainingChunk;
+import pl.wsb.fitnesstracker.training.api.TrainingProvider;
+
+/**
+ * Rebuilds the persisted per-user {@link Statistics} and {@link RollupBucket}s from the trainings when the application
+ * is ready.
+ * <p>
+ * Both are otherwise only maintained from {@link TrainingChangedEvent}s, so trainings written without one, e.g. by the
+ * initial data loader or before the tables existed, would be missing from them, and the first change of such a
+ * training would leave wrong totals. The numbers of trainings and distances of the statistics are rebuilt with one
+ * grouped statement; the burned calories, estimated by the {@link CalorieEngine}, by a {@link CalorieRecomputeService}
+ * scan. The buckets are emptied and refilled from a scan of the trainings in chunks, bucketed in the rollup time zone
+ * by the {@link TrainingRollupService} like the changes. Like the recompute, the rebuild may miscount a training
+ * written by a request while it runs.
+ * </p>
+ */
+@Component
+@Slf4j
+class StatisticsBackfill {
+
+    private static final int ROLLUP_CHUNK_SIZE = 5000;
+
+    private final StatisticsRepository statisticsRepository;
+
+    private final CalorieRecomputeService calorieRecomputeService;
+
+    private final TrainingRollupService trainingRollupService;
+
+    private final TrainingProvider trainingProvider;
+
+    private final TransactionTemplate transactionTemplate;
+
+    StatisticsBackfill(StatisticsRepository statisticsRepository,
+                       CalorieRecomputeService calorieRecomputeService,
+                       TrainingRollupService trainingRollupService,
+                       TrainingProvider trainingProvider,
+                       PlatformTransactionManager transactionManager) {
+        this.statisticsRepository = statisticsRepository;
+        this.calorieRecomputeService = calorieRecomputeService;
+        this.trainingRollupService = trainingRollupService;
+        this.trainingProvider = trainingProvider;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void onApplicationReady() {
+        rebuild();
+        rebuildRollups();
+    }
+
+    /**
+     * Rebuilds the statistics of all users from their trainings.
+     */
+    void rebuild() {
+        long start = System.nanoTime();
+        int users = transactionTemplate.execute(status -> {
+            statisticsRepository.resetTotalsWithoutTrainings();
+            return statisticsRepository.rebuildTotals();
+        });
+        calorieRecomputeService.recompute();
+        log.info("Statistics of {} users rebuilt from their trainings in {} ms", users, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Rebuilds the rollup buckets of all users from their trainings.
+     */
+    void rebuildRollups() {
+        long start = System.nanoTime();
+        long trainings = 0;
+        trainingRollupService.deleteAllBuckets();
+        TrainingChunk chunk = trainingProvider.getTrainingChunkByUser(0, 0, ROLLUP_CHUNK_SIZE);
+        while (chunk.size() > 0) {
+            trainingRollupService.addToBuckets(chunk);
+            trainings += chunk.size();
+            if (chunk.size() < ROLLUP_CHUNK_SIZE) {
+                break;
+            }
+            chunk = trainingProvider.getTrainingChunkByUser(chunk.lastUserId(), chunk.lastId(), ROLLUP_CHUNK_SIZE);
+        }
+        log.info("Rollup buckets rebuilt from {} trainings in {} ms", trainings, (System.nanoTime() - start) / 1_000_000);
+    }
+}
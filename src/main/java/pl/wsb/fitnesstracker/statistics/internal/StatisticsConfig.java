@@ -0,0 +1,13 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties({RollupProperties.class, DistributionProperties.class, LeaderboardProperties.class,
+        CalorieProperties.class, AggregationProperties.class, LoadProperties.class, SnapshotProperties.class})
+class StatisticsConfig {
+
+}
@@ -0,0 +1,289 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import pl.wsb.fitnesstracker.exception.api.NotFoundException;
+import pl.wsb.fitnesstracker.statistics.api.AnalyticsDimension;
+import pl.wsb.fitnesstracker.statistics.api.LeaderboardProvider;
+import pl.wsb.fitnesstracker.statistics.api.RollupGranularity;
+import pl.wsb.fitnesstracker.statistics.api.Statistics;
+import pl.wsb.fitnesstracker.statistics.api.StatisticsNotFoundException;
+import pl.wsb.fitnesstracker.statistics.api.StatisticsProvider;
+import pl.wsb.fitnesstracker.statistics.api.TrainingAnalyticsProvider;
+import pl.wsb.fitnesstracker.statistics.api.TrainingDistributionProvider;
+import pl.wsb.fitnesstracker.statistics.api.TrainingLoadProvider;
+import pl.wsb.fitnesstracker.statistics.api.TrainingMetric;
+import pl.wsb.fitnesstracker.statistics.api.TrainingRollupProvider;
+import pl.wsb.fitnesstracker.training.api.CursorPage;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * REST controller exposing the statistics of users.
+ */
+@RestController
+@RequestMapping("/v1/statistics")
+@RequiredArgsConstructor
+class StatisticsController {
+
+    private final StatisticsProvider statisticsProvider;
+    private final TrainingRollupProvider trainingRollupProvider;
+    private final TrainingDistributionProvider trainingDistributionProvider;
+    private final LeaderboardProvider leaderboardProvider;
+    private final TrainingLoadProvider trainingLoadProvider;
+    private final TrainingAnalyticsProvider trainingAnalyticsProvider;
+    private final CalorieRecomputeService calorieRecomputeService;
+    private final AggregationJobService aggregationJobService;
+    private final StatisticsMapper statisticsMapper;
+
+    /**
+     * Retrieves statistics by their ID.
+     *
+     * @param statisticsId ID of the statistics
+     * @return the statistics
+     * @throws StatisticsNotFoundException if no statistics with the given ID exist
+     */
+    @GetMapping("/{statisticsId}")
+    StatisticsDto getStatistics(@PathVariable Long statisticsId) {
+        return statisticsProvider.getStatistics(statisticsId)
+                .map(statisticsMapper::toDto)
+                .orElseThrow(() -> new StatisticsNotFoundException(statisticsId));
+    }
+
+    /**
+     * Retrieves a page of the statistics whose burned calories exceed the threshold, ordered by burned calories.
+     *
+     * @param above  threshold of the burned calories, exclusive
+     * @param cursor opaque cursor from the {@value CursorPage#NEXT_CURSOR_HEADER} header of the previous page
+     * @param limit  maximum number of statistics on the page
+     * @return page of statistics
+     */
+    @GetMapping("/calories")
+    ResponseEntity<List<StatisticsDto>> getStatisticsWithCaloriesAbove(@RequestParam int above,
+                                                                       @RequestParam(required = false) String cursor,
+                                                                       @RequestParam(defaultValue = "100") int limit) {
+        CursorPage<Statistics> page = statisticsProvider.getStatisticsWithCaloriesAbove(above, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items().stream()
+                .map(statisticsMapper::toDto)
+                .toList());
+    }
+
+    /**
+     * Retrieves the totals of a user. The totals are maintained on every training write,
+     * so this is a single-row lookup regardless of the user's training history.
+     *
+     * @param userId ID of the user
+     * @return the user's statistics
+     * @throws StatisticsNotFoundException if the user has no trainings recorded
+     */
+    @GetMapping("/user/{userId}")
+    StatisticsDto getStatisticsOfUser(@PathVariable Long userId) {
+        return statisticsProvider.getStatisticsByUserId(userId)
+                .map(statisticsMapper::toDto)
+                .orElseThrow(() -> StatisticsNotFoundException.ofUser(userId));
+    }
+
+    /**
+     * Retrieves the pre-aggregated totals of a user per time bucket and activity, e.g. the distance per week
+     * for the last year, without reading the user's trainings.
+     *
+     * @param userId       ID of the user
+     * @param granularity  size of the buckets (DAY, WEEK or MONTH)
+     * @param from         first day of the range (format: yyyy-MM-dd); the bucket containing it is included
+     * @param to           last day of the range, inclusive (format: yyyy-MM-dd)
+     * @param activityType activity to restrict the totals to; all activities if omitted
+     * @return totals ordered by bucket start and activity, buckets without trainings are omitted
+     */
+    @GetMapping("/user/{userId}/rollups")
+    List<TrainingRollupDto> getRollups(@PathVariable Long userId,
+                                       @RequestParam RollupGranularity granularity,
+                                       @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+                                       @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+                                       @RequestParam(required = false) ActivityType activityType) {
+        return trainingRollupProvider.getRollups(userId, activityType, granularity, from, to).stream()
+                .map(statisticsMapper::toDto)
+                .toList();
+    }
+
+    /**
+     * Retrieves the rolling training load of a user: the 7-day acute and 28-day chronic exponentially weighted
+     * daily calories, their ratio and the current streak of consecutive training days.
+     * Served from memory in constant time.
+     *
+     * @param userId ID of the user
+     * @return the user's training load
+     * @throws NotFoundException if the user has no trainings
+     */
+    @GetMapping("/user/{userId}/load")
+    TrainingLoadDto getTrainingLoad(@PathVariable Long userId) {
+        return trainingLoadProvider.getTrainingLoad(userId)
+                .map(statisticsMapper::toDto)
+                .orElseThrow(() -> new NotFoundException("User with ID=%s has no trainings".formatted(userId)));
+    }
+
+    /**
+     * Ranks a value among the trainings of an activity, e.g. "your run was faster than 83% of runs".
+     *
+     * @param activityType type of the activity
+     * @param metric       measured value (DISTANCE or AVERAGE_SPEED)
+     * @param value        value to rank
+     * @return the value with the share of trainings below it as {@code quantile}
+     * @throws NotFoundException if there are no trainings of the activity
+     */
+    @GetMapping("/distributions/{activityType}/{metric}/rank")
+    TrainingPercentileDto getPercentileRank(@PathVariable ActivityType activityType,
+                                            @PathVariable TrainingMetric metric,
+                                            @RequestParam double value) {
+        double rank = trainingDistributionProvider.getPercentileRank(activityType, metric, value)
+                .orElseThrow(() -> noTrainingsOf(activityType));
+        return new TrainingPercentileDto(activityType, metric, value, rank);
+    }
+
+    /**
+     * Estimates a quantile of a metric among the trainings of an activity, e.g. the median distance of runs.
+     *
+     * @param activityType type of the activity
+     * @param metric       measured value (DISTANCE or AVERAGE_SPEED)
+     * @param q            share of the trainings between 0 and 1
+     * @return the estimated value at the quantile
+     * @throws NotFoundException if there are no trainings of the activity
+     */
+    @GetMapping("/distributions/{activityType}/{metric}/quantile")
+    TrainingPercentileDto getQuantile(@PathVariable ActivityType activityType,
+                                      @PathVariable TrainingMetric metric,
+                                      @RequestParam double q) {
+        double value = trainingDistributionProvider.getQuantile(activityType, metric, q)
+                .orElseThrow(() -> noTrainingsOf(activityType));
+        return new TrainingPercentileDto(activityType, metric, value, q);
+    }
+
+    /**
+     * Retrieves the users with the longest total distance of an activity in a week or month.
+     *
+     * @param activityType type of the activity
+     * @param period       WEEK or MONTH
+     * @param day          any day of the period (format: yyyy-MM-dd); the current period if omitted
+     * @param limit        maximum number of entries
+     * @return entries ordered by rank; empty for periods that are no longer kept
+     */
+    @GetMapping("/leaderboards/{activityType}/{period}")
+    List<LeaderboardEntryDto> getLeaderboard(@PathVariable ActivityType activityType,
+                                             @PathVariable RollupGranularity period,
+                                             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate day,
+                                             @RequestParam(defaultValue = "10") int limit) {
+        return leaderboardProvider.getTop(activityType, period, day, limit).stream()
+                .map(statisticsMapper::toDto)
+                .toList();
+    }
+
+    /**
+     * Retrieves the rank of a user on a leaderboard.
+     *
+     * @param activityType type of the activity
+     * @param period       WEEK or MONTH
+     * @param userId       ID of the user
+     * @param day          any day of the period (format: yyyy-MM-dd); the current period if omitted
+     * @return the user's entry
+     * @throws NotFoundException if the user has no trainings of the activity in the period
+     */
+    @GetMapping("/leaderboards/{activityType}/{period}/users/{userId}")
+    LeaderboardEntryDto getLeaderboardStanding(@PathVariable ActivityType activityType,
+                                               @PathVariable RollupGranularity period,
+                                               @PathVariable Long userId,
+                                               @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate day) {
+        return leaderboardProvider.getStanding(activityType, period, day, userId)
+                .map(statisticsMapper::toDto)
+                .orElseThrow(() -> new NotFoundException("User with ID=%s is not on the %s %s leaderboard"
+                        .formatted(userId, activityType, period)));
+    }
+
+    /**
+     * Sums and averages a metric over all trainings, grouped by activity type, month or age cohort of the users.
+     * Answered from the in-memory columnar copy of the trainings.
+     *
+     * @param metric       DISTANCE or AVERAGE_SPEED
+     * @param groupBy      ACTIVITY_TYPE, MONTH or AGE_COHORT
+     * @param activityType only trainings of this activity, all activities if omitted
+     * @param from         first day of the trainings' start (format: yyyy-MM-dd), unbounded if omitted
+     * @param to           last day of the trainings' start, inclusive (format: yyyy-MM-dd), unbounded if omitted
+     * @return one row per non-empty group
+     */
+    @GetMapping("/analytics/{metric}")
+    List<TrainingAnalyticsRowDto> getAnalytics(@PathVariable TrainingMetric metric,
+                                               @RequestParam AnalyticsDimension groupBy,
+                                               @RequestParam(required = false) ActivityType activityType,
+                                               @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+                                               @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to) {
+        return trainingAnalyticsProvider.aggregate(metric, groupBy, activityType, from, to).stream()
+                .map(statisticsMapper::toDto)
+                .toList();
+    }
+
+    /**
+     * Recomputes the burned calories of all users from their trainings, e.g. after the calorie coefficients changed.
+     * Runs synchronously and reports the throughput of the scan.
+     *
+     * @return numbers of scanned trainings and updated users
+     */
+    @PostMapping("/calories/recompute")
+    CalorieRecomputeDto recomputeCalories() {
+        return statisticsMapper.toDto(calorieRecomputeService.recompute());
+    }
+
+    /**
+     * Starts computing the number of trainings, distance and duration per activity type and month over all users.
+     * The job runs in the background; its progress and result are read with {@link #getAggregationJob(UUID)}.
+     *
+     * @return the started job
+     */
+    @PostMapping("/jobs/monthly-activity-totals")
+    ResponseEntity<AggregationJobDto> startMonthlyActivityTotals() {
+        return ResponseEntity.accepted().body(statisticsMapper.toDto(aggregationJobService.startMonthlyActivityTotals()));
+    }
+
+    /**
+     * Retrieves the progress of an aggregation job, and its result once it has completed.
+     *
+     * @param jobId ID of the job
+     * @return the job
+     * @throws NotFoundException if the job is unknown or has been forgotten
+     */
+    @GetMapping("/jobs/{jobId}")
+    AggregationJobDto getAggregationJob(@PathVariable UUID jobId) {
+        return aggregationJobService.getJob(jobId)
+                .map(statisticsMapper::toDto)
+                .orElseThrow(() -> jobNotFound(jobId));
+    }
+
+    /**
+     * Requests the cancellation of a running aggregation job. The job stops before reading its next chunk.
+     *
+     * @param jobId ID of the job
+     * @return the job
+     * @throws NotFoundException if the job is unknown or has been forgotten
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    ResponseEntity<AggregationJobDto> cancelAggregationJob(@PathVariable UUID jobId) {
+        return aggregationJobService.cancel(jobId)
+                .map(statisticsMapper::toDto)
+                .map(job -> ResponseEntity.accepted().body(job))
+                .orElseThrow(() -> jobNotFound(jobId));
+    }
+
+    private static NotFoundException jobNotFound(UUID jobId) {
+        return new NotFoundException("Aggregation job with ID=%s was not found".formatted(jobId));
+    }
+
+    private static NotFoundException noTrainingsOf(ActivityType activityType) {
+        return new NotFoundException("No trainings of activity %s were found".formatted(activityType));
+    }
+}
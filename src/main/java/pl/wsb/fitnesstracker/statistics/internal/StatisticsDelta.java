@@ -0,0 +1,46 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import lombok.Getter;
+import pl.wsb.fitnesstracker.training.api.TrainingSnapshot;
+
+/**
+ * Net change of a set of trainings (one user's totals or one rollup bucket), accumulated over the training changes
+ * of a transaction.
+ */
+@Getter
+class StatisticsDelta {
+
+    private int trainings;
+
+    private double distance;
+
+    private int calories;
+
+    private long durationSeconds;
+
+    void add(TrainingSnapshot training) {
+        trainings++;
+        distance += training.distance();
+        durationSeconds += training.duration().toSeconds();
+    }
+
+    void add(TrainingSnapshot training, int calories) {
+        add(training);
+        this.calories += calories;
+    }
+
+    void subtract(TrainingSnapshot training) {
+        trainings--;
+        distance -= training.distance();
+        durationSeconds -= training.duration().toSeconds();
+    }
+
+    void subtract(TrainingSnapshot training, int calories) {
+        subtract(training);
+        this.calories -= calories;
+    }
+
+    boolean isEmpty() {
+        return trainings == 0 && distance == 0 && calories == 0 && durationSeconds == 0;
+    }
+}
@@ -0,0 +1,44 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+/**
+ * Data Transfer Object representing the totals of a user.
+ */
+public class StatisticsDto {
+    private final Long id;
+
+    private final Long userId;
+
+    private final int totalTrainings;
+
+    private final double totalDistance;
+
+    private final int totalCaloriesBurned;
+
+    StatisticsDto(Long id, Long userId, int totalTrainings, double totalDistance, int totalCaloriesBurned) {
+        this.id = id;
+        this.userId = userId;
+        this.totalTrainings = totalTrainings;
+        this.totalDistance = totalDistance;
+        this.totalCaloriesBurned = totalCaloriesBurned;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getTotalTrainings() {
+        return totalTrainings;
+    }
+
+    public double getTotalDistance() {
+        return totalDistance;
+    }
+
+    public int getTotalCaloriesBurned() {
+        return totalCaloriesBurned;
+    }
+}
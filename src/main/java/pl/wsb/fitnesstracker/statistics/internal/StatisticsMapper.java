@@ -0,0 +1,81 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.springframework.stereotype.Component;
+import pl.wsb.fitnesstracker.statistics.api.LeaderboardEntry;
+import pl.wsb.fitnesstracker.statistics.api.Statistics;
+import pl.wsb.fitnesstracker.statistics.api.TrainingAnalyticsRow;
+import pl.wsb.fitnesstracker.statistics.api.TrainingLoadSummary;
+import pl.wsb.fitnesstracker.statistics.api.TrainingRollup;
+
+import java.util.List;
+
+@Component
+class StatisticsMapper {
+
+    StatisticsDto toDto(Statistics statistics) {
+        return new StatisticsDto(
+                statistics.getId(),
+                statistics.getUser().getId(),
+                statistics.getTotalTrainings(),
+                statistics.getTotalDistance(),
+                statistics.getTotalCaloriesBurned());
+    }
+
+    LeaderboardEntryDto toDto(LeaderboardEntry entry) {
+        return new LeaderboardEntryDto(entry.rank(), entry.userId(), entry.totalDistance(), entry.trainings());
+    }
+
+    TrainingLoadDto toDto(TrainingLoadSummary load) {
+        return new TrainingLoadDto(
+                load.userId(),
+                load.acuteLoad(),
+                load.chronicLoad(),
+                load.acuteChronicRatio(),
+                load.currentStreakDays(),
+                load.lastTrainingDay());
+    }
+
+    TrainingRollupDto toDto(TrainingRollup rollup) {
+        return new TrainingRollupDto(
+                rollup.activityType(),
+                rollup.granularity(),
+                rollup.bucketStart(),
+                rollup.trainings(),
+                rollup.distance(),
+                rollup.duration().toSeconds());
+    }
+
+    CalorieRecomputeDto toDto(CalorieRecomputeResult result) {
+        return new CalorieRecomputeDto(
+                result.trainings(),
+                result.users(),
+                result.duration().toMillis(),
+                result.trainingsPerSecond());
+    }
+
+    TrainingAnalyticsRowDto toDto(TrainingAnalyticsRow row) {
+        return new TrainingAnalyticsRowDto(row.group(), row.trainings(), row.sum(), row.average());
+    }
+
+    AggregationJobDto toDto(AggregationJob job) {
+        List<ActivityMonthTotal> result = job.getResult();
+        return new AggregationJobDto(
+                job.getId(),
+                job.getStatus(),
+                job.progress(),
+                job.getScannedTrainings().get(),
+                job.getStartedAt(),
+                job.getFinishedAt(),
+                job.getFailure(),
+                result != null ? result.stream().map(this::toDto).toList() : null);
+    }
+
+    ActivityMonthTotalDto toDto(ActivityMonthTotal total) {
+        return new ActivityMonthTotalDto(
+                total.month().toString(),
+                total.activityType(),
+                total.trainings(),
+                total.distance(),
+                total.durationSeconds());
+    }
+}
@@ -0,0 +1,118 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import pl.wsb.fitnesstracker.statistics.api.Statistics;
+
+import java.util.List;
+import java.util.Optional;
+
+interface StatisticsRepository extends JpaRepository<Statistics, Long> {
+
+    /**
+     * Finds the statistics of a user using the unique {@code user_id} index.
+     *
+     * @param userId ID of the user
+     * @return An {@link Optional} containing the statistics, or empty if the user has none yet
+     */
+    Optional<Statistics> findByUserId(Long userId);
+
+    /**
+     * Finds the statistics whose burned calories exceed the threshold with a range scan of the
+     * {@code (total_calories_burned, id)} index, fetching their users in the same query.
+     *
+     * @param calories threshold of the burned calories, exclusive
+     * @param limit    maximum number of statistics
+     * @return statistics ordered by burned calories and ID
+     */
+    @Query("""
+            SELECT s FROM Statistics s JOIN FETCH s.user
+            WHERE s.totalCaloriesBurned > :calories
+            ORDER BY s.totalCaloriesBurned, s.id""")
+    List<Statistics> findWithCaloriesAbove(@Param("calories") int calories, Limit limit);
+
+    /**
+     * Continues {@link #findWithCaloriesAbove(int, Limit)} after the given keyset position.
+     *
+     * @param calories      threshold of the burned calories, exclusive
+     * @param afterCalories burned calories of the last statistics already read
+     * @param afterId       ID of the last statistics already read
+     * @param limit         maximum number of statistics
+     * @return statistics ordered by burned calories and ID
+     */
+    @Query("""
+            SELECT s FROM Statistics s JOIN FETCH s.user
+            WHERE s.totalCaloriesBurned > :calories
+              AND (s.totalCaloriesBurned > :afterCalories OR (s.totalCaloriesBurned = :afterCalories AND s.id > :afterId))
+            ORDER BY s.totalCaloriesBurned, s.id""")
+    List<Statistics> findWithCaloriesAboveAfter(@Param("calories") int calories,
+                                                @Param("afterCalories") long afterCalories,
+                                                @Param("afterId") long afterId,
+                                                Limit limit);
+
+    /**
+     * Adds the given deltas to the totals of a user in place, so concurrent writers never lose an update, creating
+     * the row on the first training of the user. A single statement, so two transactions writing the first trainings
+     * of the same user do not race between an update finding no row and an insert.
+     *
+     * @param userId    ID of the user
+     * @param trainings change of the number of trainings
+     * @param distance  change of the total distance
+     * @param calories  change of the burned calories
+     */
+    @Modifying
+    @Query(value = """
+            MERGE INTO statistics s
+            USING (SELECT CAST(:userId AS BIGINT) AS user_id) d ON s.user_id = d.user_id
+            WHEN MATCHED THEN UPDATE SET
+                total_trainings = s.total_trainings + :trainings,
+                total_distance = s.total_distance + :distance,
+                total_calories_burned = s.total_calories_burned + :calories
+            WHEN NOT MATCHED THEN INSERT (user_id, total_trainings, total_distance, total_calories_burned)
+                VALUES (d.user_id, :trainings, :distance, :calories)""", nativeQuery = true)
+    void applyDelta(@Param("userId") Long userId,
+                    @Param("trainings") int trainings,
+                    @Param("distance") double distance,
+                    @Param("calories") int calories);
+
+    /**
+     * Sets the number of trainings and the total distance of every user with trainings from the {@code trainings}
+     * table, grouped in one statement, creating the missing rows with no burned calories.
+     *
+     * @return number of written rows
+     */
+    @Modifying
+    @Query(value = """
+            MERGE INTO statistics s
+            USING (SELECT user_id, COUNT(*) AS trainings, COALESCE(SUM(distance), 0) AS distance
+                   FROM trainings WHERE user_id IS NOT NULL GROUP BY user_id) t ON s.user_id = t.user_id
+            WHEN MATCHED THEN UPDATE SET total_trainings = t.trainings, total_distance = t.distance
+            WHEN NOT MATCHED THEN INSERT (user_id, total_trainings, total_distance, total_calories_burned)
+                VALUES (t.user_id, t.trainings, t.distance, 0)""", nativeQuery = true)
+    int rebuildTotals();
+
+    /**
+     * Zeroes the totals of the users left without trainings.
+     *
+     * @return number of updated rows
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE statistics s SET total_trainings = 0, total_distance = 0, total_calories_burned = 0
+            WHERE NOT EXISTS (SELECT 1 FROM trainings t WHERE t.user_id = s.user_id)""", nativeQuery = true)
+    int resetTotalsWithoutTrainings();
+
+    /**
+     * Replaces the burned calories of a user with a recomputed total.
+     *
+     * @param userId   ID of the user
+     * @param calories total burned calories
+     * @return number of updated rows, 0 if the user has no statistics
+     */
+    @Modifying
+    @Query("UPDATE Statistics s SET s.totalCaloriesBurned = :calories WHERE s.user.id = :userId")
+    int setCaloriesBurned(@Param("userId") Long userId, @Param("calories") int calories);
+}
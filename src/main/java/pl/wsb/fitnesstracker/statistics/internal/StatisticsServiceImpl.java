@@ -0,0 +1,81 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import jakarta.annotation.Nullable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.wsb.fitnesstracker.statistics.api.Statistics;
+import pl.wsb.fitnesstracker.statistics.api.StatisticsProvider;
+import pl.wsb.fitnesstracker.training.api.CursorPage;
+import pl.wsb.fitnesstracker.training.api.KeysetCursor;
+import pl.wsb.fitnesstracker.training.api.TrainingChangedEvent;
+import pl.wsb.fitnesstracker.training.api.TransactionScopedAccumulator;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps the per-user {@link Statistics} up to date incrementally, instead of rescanning the trainings of a user.
+ * <p>
+ * Every training change is turned into a delta (an update subtracts the old values and adds the new ones),
+ * with the burned calories estimated by the {@link CalorieEngine}.
+ * Deltas are summed per user while the writing transaction runs and applied once per user, just before that
+ * transaction commits, so the totals commit or roll back together with the trainings.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+class StatisticsServiceImpl implements StatisticsProvider {
+
+    private final StatisticsRepository statisticsRepository;
+
+    private final CalorieEngine calorieEngine;
+
+    private final TransactionScopedAccumulator<Long, StatisticsDelta> pendingDeltas =
+            new TransactionScopedAccumulator<>(StatisticsDelta::new, this::applyDelta);
+
+    @Override
+    public Optional<Statistics> getStatistics(Long statisticsId) {
+        return statisticsRepository.findById(statisticsId);
+    }
+
+    @Override
+    public Optional<Statistics> getStatisticsByUserId(Long userId) {
+        return statisticsRepository.findByUserId(userId);
+    }
+
+    @Override
+    public CursorPage<Statistics> getStatisticsWithCaloriesAbove(int calories, @Nullable String cursor, int limit) {
+        CursorPage.validateLimit(limit);
+        List<Statistics> rows;
+        if (cursor == null) {
+            rows = statisticsRepository.findWithCaloriesAbove(calories, Limit.of(limit + 1));
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = statisticsRepository.findWithCaloriesAboveAfter(calories, after.key(), after.id(), Limit.of(limit + 1));
+        }
+        return CursorPage.of(rows, limit, row -> new KeysetCursor(row.getTotalCaloriesBurned(), row.getId()).encode());
+    }
+
+    /**
+     * Runs synchronously inside the transaction of the change, which every publisher of the event opens.
+     */
+    @EventListener
+    void onTrainingChanged(TrainingChangedEvent event) {
+        if (event.previous() != null && event.previous().userId() != null) {
+            pendingDeltas.get(event.previous().userId()).subtract(event.previous(), calorieEngine.estimate(event.previous()));
+        }
+        if (event.current().userId() != null) {
+            pendingDeltas.get(event.current().userId()).add(event.current(), calorieEngine.estimate(event.current()));
+        }
+    }
+
+    private void applyDelta(Long userId, StatisticsDelta delta) {
+        if (!delta.isEmpty()) {
+            statisticsRepository.applyDelta(userId, delta.getTrainings(), delta.getDistance(), delta.getCalories());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import pl.wsb.fitnesstracker.training.api.TrainingSnapshot;
+
+/**
+ * In-memory aggregate over all trainings, maintained by {@link TrainingAggregates}.
+ * Implementations must be thread-safe: updates and reads come from different threads.
+ */
+interface TrainingAggregate {
+
+    /**
+     * Forgets all trainings, before the aggregate is rebuilt from the database.
+     */
+    void reset();
+
+    /**
+     * @param training training created, or the new state of an updated training
+     */
+    void add(TrainingSnapshot training);
+
+    /**
+     * @param training training removed, or the old state of an updated training
+     */
+    void remove(TrainingSnapshot training);
+}
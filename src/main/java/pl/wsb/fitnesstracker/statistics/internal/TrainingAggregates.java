@@ -0,0 +1,299 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import jakarta.annotation.Nullable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.wsb.fitnesstracker.training.api.TrainingChangedEvent;
+import pl.wsb.fitnesstracker.training.api.TrainingChunk;
+import pl.wsb.fitnesstracker.training.api.TrainingIdRange;
+import pl.wsb.fitnesstracker.training.api.TrainingProvider;
+import pl.wsb.fitnesstracker.training.api.TrainingSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Feeds every {@link TrainingAggregate} bean.
+ * <p>
+ * The aggregates are built when the application is ready and are then kept up to date with the committed
+ * {@link TrainingChangedEvent}s. Changes committed while a build runs are queued until it finishes. The build may or
+ * may not have read the state such a change produced, so the queued changes are not replayed: the state the build
+ * fed for each changed training, as held by the {@link TrainingColumnStore}, is replaced by the latest queued one.
+ * </p>
+ * <p>
+ * When a snapshot path is configured, the trainings held by the {@link TrainingColumnStore} are checkpointed to a
+ * {@link TrainingSnapshotFile} periodically and on shutdown. A build then reads the snapshot and replays only the
+ * trainings modified since the checkpoint instead of scanning the whole table; it falls back to the scan when the
+ * snapshot is missing or unreadable, or when the trainings it would feed do not match the IDs stored in the database,
+ * e.g. because the database was replaced. A change committed during the replay is reconciled like any change
+ * committed during a build, so the replay overlap only needs to cover transactions committed before the restore.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class TrainingAggregates {
+
+    private static final int REPLAY_CHUNK_SIZE = 5000;
+
+    private final List<TrainingAggregate> aggregates;
+
+    private final TrainingColumnStore trainingColumnStore;
+
+    private final TrainingProvider trainingProvider;
+
+    private final SnapshotProperties snapshotProperties;
+
+    private final Object lock = new Object();
+
+    /**
+     * Changes committed during a build, {@code null} when no build runs. Guarded by {@link #lock}.
+     */
+    @Nullable
+    private List<TrainingChangedEvent> pendingChanges;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void onApplicationReady() {
+        Path snapshot = snapshotProperties.getPath();
+        if (snapshot != null) {
+            restore(snapshot);
+        } else {
+            rebuild();
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    void onContextClosed() {
+        checkpoint();
+    }
+
+    /**
+     * Resets all aggregates and rebuilds them from the database.
+     */
+    public void rebuild() {
+        build(null);
+    }
+
+    /**
+     * Resets all aggregates and rebuilds them from a snapshot file and the trainings modified since it was taken,
+     * or from the database if the snapshot cannot be used.
+     *
+     * @param snapshot snapshot file
+     * @return {@code true} if the snapshot was used
+     */
+    boolean restore(Path snapshot) {
+        return build(snapshot);
+    }
+
+    /**
+     * Writes the trainings to the configured snapshot file, if any. Skipped while the aggregates are being built.
+     */
+    @Scheduled(fixedDelayString = "${statistics.snapshot.interval:PT10M}", initialDelayString = "${statistics.snapshot.interval:PT10M}")
+    public void checkpoint() {
+        Path snapshot = snapshotProperties.getPath();
+        if (snapshot != null) {
+            checkpoint(snapshot);
+        }
+    }
+
+    /**
+     * Writes the trainings to a snapshot file. Skipped while the aggregates are being built.
+     *
+     * @param snapshot snapshot file
+     */
+    void checkpoint(Path snapshot) {
+        long start = System.nanoTime();
+        Instant takenAt;
+        TrainingChunk trainings;
+        synchronized (lock) {
+            if (pendingChanges != null) {
+                return;
+            }
+            // taken before the copy: every change missing from the copy is modified after this moment
+            takenAt = Instant.now();
+            trainings = trainingColumnStore.copyTrainings();
+        }
+        try {
+            TrainingSnapshotFile.write(snapshot, takenAt, trainings);
+            log.info("Checkpointed {} trainings to {} in {} ms", trainings.size(), snapshot, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            log.warn("Could not checkpoint trainings to {}", snapshot, e);
+        }
+    }
+
+    /**
+     * @param snapshot snapshot file to build from, {@code null} to scan the database
+     * @return {@code true} if the snapshot was used
+     */
+    private boolean build(@Nullable Path snapshot) {
+        synchronized (lock) {
+            if (pendingChanges != null) {
+                throw new IllegalStateException("Training aggregates are already being rebuilt");
+            }
+            pendingChanges = new ArrayList<>();
+            aggregates.forEach(TrainingAggregate::reset);
+        }
+        long start = System.nanoTime();
+        long loaded = -1;
+        try {
+            if (snapshot != null) {
+                loaded = loadSnapshot(snapshot);
+            }
+            if (loaded >= 0) {
+                log.info("{} training aggregates restored from {} with {} trainings in {} ms",
+                        aggregates.size(), snapshot, loaded, (System.nanoTime() - start) / 1_000_000);
+                return true;
+            }
+            long scanned = scanDatabase();
+            log.info("{} training aggregates rebuilt from {} trainings in {} ms",
+                    aggregates.size(), scanned, (System.nanoTime() - start) / 1_000_000);
+            return false;
+        } finally {
+            synchronized (lock) {
+                reconcile(pendingChanges);
+                pendingChanges = null;
+            }
+        }
+    }
+
+    /**
+     * Brings every training changed during a build from the state the build fed, if any, to its latest committed state.
+     *
+     * @param changes changes committed during the build, in commit order
+     */
+    private void reconcile(List<TrainingChangedEvent> changes) {
+        Map<Long, TrainingSnapshot> latest = new LinkedHashMap<>();
+        for (TrainingChangedEvent change : changes) {
+            latest.put(change.current().id(), change.current());
+        }
+        for (TrainingSnapshot current : latest.values()) {
+            Optional<TrainingSnapshot> fed = trainingColumnStore.find(current.id());
+            for (TrainingAggregate aggregate : aggregates) {
+                fed.ifPresent(aggregate::remove);
+                aggregate.add(current);
+            }
+        }
+    }
+
+    private long scanDatabase() {
+        long[] scanned = {0};
+        trainingProvider.forEachTraining(training -> {
+            feed(TrainingSnapshot.of(training));
+            scanned[0]++;
+        });
+        return scanned[0];
+    }
+
+    /**
+     * Feeds the trainings of the snapshot, with the modified trainings read from the database in place of their
+     * checkpointed state. Nothing is fed if the snapshot cannot be used.
+     *
+     * @return number of trainings fed, -1 if the snapshot cannot be used
+     */
+    private long loadSnapshot(Path path) {
+        Optional<TrainingSnapshotFile.Checkpoint> checkpoint;
+        try {
+            checkpoint = TrainingSnapshotFile.read(path);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable training snapshot {}", path, e);
+            return -1;
+        }
+        if (checkpoint.isEmpty()) {
+            log.info("No training snapshot at {}", path);
+            return -1;
+        }
+        Instant since = checkpoint.get().takenAt().minus(snapshotProperties.getReplayOverlap());
+        List<TrainingChunk> modified = new ArrayList<>();
+        LongIntHashMap modifiedIds = new LongIntHashMap();
+        TrainingChunk chunk = trainingProvider.getTrainingChunkModifiedSince(since, 0, REPLAY_CHUNK_SIZE);
+        while (chunk.size() > 0) {
+            modified.add(chunk);
+            for (long id : chunk.getIds()) {
+                modifiedIds.put(id, 0);
+            }
+            chunk = trainingProvider.getTrainingChunkModifiedSince(since, chunk.lastId(), REPLAY_CHUNK_SIZE);
+        }
+
+        // the trainings the restore would feed must be exactly the stored ones; count, highest ID and sum of IDs
+        // together catch a replaced database or trainings deleted behind the checkpoint
+        TrainingChunk trainings = checkpoint.get().trainings();
+        long[] ids = trainings.getIds();
+        long count = modifiedIds.size();
+        long maxId = 0;
+        long idSum = 0;
+        for (TrainingChunk replayed : modified) {
+            for (long id : replayed.getIds()) {
+                maxId = Math.max(maxId, id);
+                idSum += id;
+            }
+        }
+        for (long id : ids) {
+            if (modifiedIds.get(id) == LongIntHashMap.MISSING) {
+                count++;
+                maxId = Math.max(maxId, id);
+                idSum += id;
+            }
+        }
+        long expected = trainingProvider.countTrainings();
+        long expectedMaxId = trainingProvider.getTrainingIdRange().map(TrainingIdRange::max).orElse(0L);
+        long expectedIdSum = trainingProvider.sumTrainingIds();
+        if (count != expected || maxId != expectedMaxId || idSum != expectedIdSum) {
+            log.warn("Training snapshot {} of {} is stale: it restores {} trainings up to ID {} and the database holds {} up to ID {}",
+                    path, checkpoint.get().takenAt(), count, maxId, expected, expectedMaxId);
+            return -1;
+        }
+
+        for (int i = 0; i < ids.length; i++) {
+            if (modifiedIds.get(ids[i]) == LongIntHashMap.MISSING) {
+                feed(trainings.snapshot(i));
+            }
+        }
+        for (TrainingChunk replayed : modified) {
+            for (int i = 0; i < replayed.size(); i++) {
+                feed(replayed.snapshot(i));
+            }
+        }
+        return expected;
+    }
+
+    private void feed(TrainingSnapshot snapshot) {
+        for (TrainingAggregate aggregate : aggregates) {
+            aggregate.add(snapshot);
+        }
+    }
+
+    /**
+     * @param event committed change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTrainingChanged(TrainingChangedEvent event) {
+        synchronized (lock) {
+            if (pendingChanges != null) {
+                pendingChanges.add(event);
+            } else {
+                apply(event);
+            }
+        }
+    }
+
+    private void apply(TrainingChangedEvent event) {
+        for (TrainingAggregate aggregate : aggregates) {
+            if (event.previous() != null) {
+                aggregate.remove(event.previous());
+            }
+            aggregate.add(event.current());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+/**
+ * Data Transfer Object representing the aggregated metric of one group of trainings.
+ */
+public class TrainingAnalyticsRowDto {
+    private final String group;
+
+    private final long trainings;
+
+    private final double sum;
+
+    private final double average;
+
+    TrainingAnalyticsRowDto(String group, long trainings, double sum, double average) {
+        this.group = group;
+        this.trainings = trainings;
+        this.sum = sum;
+        this.average = average;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public long getTrainings() {
+        return trainings;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getAverage() {
+        return average;
+    }
+}
@@ -0,0 +1,338 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import jakarta.annotation.Nullable;
+import org.springframework.stereotype.Component;
+import pl.wsb.fitnesstracker.exception.api.BusinessException;
+import pl.wsb.fitnesstracker.statistics.api.AnalyticsDimension;
+import pl.wsb.fitnesstracker.statistics.api.TrainingAnalyticsProvider;
+import pl.wsb.fitnesstracker.statistics.api.TrainingAnalyticsRow;
+import pl.wsb.fitnesstracker.statistics.api.TrainingMetric;
+import pl.wsb.fitnesstracker.training.api.TrainingChunk;
+import pl.wsb.fitnesstracker.training.api.TrainingSnapshot;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+
+/**
+ * Columnar copy of all trainings in primitive arrays, one array per column, for ad-hoc analytics.
+ * <p>
+ * The store is loaded by {@link TrainingAggregates} on startup and appended to on every training write; an update
+ * overwrites the row of the training and a removed row is replaced by the last one, so the rows stay dense.
+ * Scans are plain loops over the arrays that accumulate into per-group primitive arrays, without allocating anything
+ * per row. The start day and the user's birthdate are kept as epoch days, so month and age groups are computed with
+ * integer arithmetic only.
+ * </p>
+ */
+@Component
+class TrainingColumnStore implements TrainingAggregate, TrainingAnalyticsProvider {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int UNKNOWN_BIRTHDATE = Integer.MIN_VALUE;
+
+    private static final double DAYS_PER_YEAR = 365.2425;
+
+    /**
+     * Number of age cohorts; the last one includes all older users.
+     */
+    private static final int AGE_COHORTS = 10;
+
+    private static final ActivityType[] ACTIVITY_TYPES = ActivityType.values();
+
+    private final ZoneId zone;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Row of every stored training, by training ID.
+     */
+    private final LongIntHashMap rows = new LongIntHashMap();
+
+    private int size;
+
+    private long[] ids;
+
+    private long[] userIds;
+
+    private long[] startTimes;
+
+    private long[] endTimes;
+
+    /**
+     * Day of the start, in epoch days of the rollup time zone.
+     */
+    private int[] startDays;
+
+    /**
+     * Birthdate of the user in epoch days, {@link #UNKNOWN_BIRTHDATE} for trainings without a user.
+     */
+    private int[] userBirthdates;
+
+    private byte[] activityTypes;
+
+    private double[] distances;
+
+    private double[] averageSpeeds;
+
+    private int minStartDay;
+
+    private int maxStartDay;
+
+    TrainingColumnStore(RollupProperties rollupProperties) {
+        this.zone = rollupProperties.getZone();
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            rows.clear();
+            allocate(INITIAL_CAPACITY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void add(TrainingSnapshot training) {
+        lock.writeLock().lock();
+        try {
+            int row = rows.get(training.id());
+            if (row == LongIntHashMap.MISSING) {
+                if (size == ids.length) {
+                    grow();
+                }
+                row = size++;
+                rows.put(training.id(), row);
+            }
+            write(row, training);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(TrainingSnapshot training) {
+        lock.writeLock().lock();
+        try {
+            int row = rows.remove(training.id());
+            if (row == LongIntHashMap.MISSING) {
+                return;
+            }
+            int last = --size;
+            if (row != last) {
+                move(last, row);
+                rows.put(ids[row], row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param trainingId ID of the training
+     * @return the stored state of the training, or empty if it is not stored
+     */
+    Optional<TrainingSnapshot> find(long trainingId) {
+        lock.readLock().lock();
+        try {
+            int row = rows.get(trainingId);
+            if (row == LongIntHashMap.MISSING) {
+                return Optional.empty();
+            }
+            return Optional.of(new TrainingSnapshot(
+                    ids[row],
+                    userIds[row] != TrainingChunk.NO_USER ? userIds[row] : null,
+                    userBirthdates[row] != UNKNOWN_BIRTHDATE ? LocalDate.ofEpochDay(userBirthdates[row]) : null,
+                    Instant.ofEpochMilli(startTimes[row]),
+                    Instant.ofEpochMilli(endTimes[row]),
+                    ACTIVITY_TYPES[activityTypes[row]],
+                    distances[row],
+                    averageSpeeds[row]));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies all rows under the read lock, so the copy reflects the same set of training writes in every column.
+     *
+     * @return copy of all stored trainings
+     */
+    TrainingChunk copyTrainings() {
+        lock.readLock().lock();
+        try {
+            long[] birthdates = new long[size];
+            for (int i = 0; i < size; i++) {
+                birthdates[i] = userBirthdates[i] != UNKNOWN_BIRTHDATE ? userBirthdates[i] : TrainingChunk.UNKNOWN_BIRTHDATE;
+            }
+            return new TrainingChunk(
+                    Arrays.copyOf(ids, size),
+                    Arrays.copyOf(userIds, size),
+                    birthdates,
+                    Arrays.copyOf(startTimes, size),
+                    Arrays.copyOf(endTimes, size),
+                    Arrays.copyOf(activityTypes, size),
+                    Arrays.copyOf(distances, size),
+                    Arrays.copyOf(averageSpeeds, size));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<TrainingAnalyticsRow> aggregate(TrainingMetric metric,
+                                                AnalyticsDimension groupBy,
+                                                @Nullable ActivityType activityType,
+                                                @Nullable LocalDate from,
+                                                @Nullable LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BusinessException("from must not be after to");
+        }
+        int fromDay = from != null ? Math.toIntExact(from.toEpochDay()) : Integer.MIN_VALUE;
+        int toDay = to != null ? Math.toIntExact(to.toEpochDay()) : Integer.MAX_VALUE;
+        int activity = activityType != null ? activityType.ordinal() : -1;
+
+        lock.readLock().lock();
+        try {
+            double[] values = switch (metric) {
+                case DISTANCE -> distances;
+                case AVERAGE_SPEED -> averageSpeeds;
+            };
+            return switch (groupBy) {
+                case ACTIVITY_TYPE -> byActivityType(values, activity, fromDay, toDay);
+                case MONTH -> byMonth(values, activity, fromDay, toDay);
+                case AGE_COHORT -> byAgeCohort(values, activity, fromDay, toDay);
+            };
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<TrainingAnalyticsRow> byActivityType(double[] values, int activity, int fromDay, int toDay) {
+        long[] counts = new long[ACTIVITY_TYPES.length];
+        double[] sums = new double[ACTIVITY_TYPES.length];
+        for (int i = 0; i < size; i++) {
+            if ((activity < 0 || activityTypes[i] == activity) && startDays[i] >= fromDay && startDays[i] <= toDay) {
+                counts[activityTypes[i]]++;
+                sums[activityTypes[i]] += values[i];
+            }
+        }
+        return toRows(counts, sums, group -> ACTIVITY_TYPES[group].name());
+    }
+
+    private List<TrainingAnalyticsRow> byMonth(double[] values, int activity, int fromDay, int toDay) {
+        if (size == 0) {
+            return List.of();
+        }
+        int firstMonth = EpochDays.monthOf(Math.max(fromDay, minStartDay));
+        int lastMonth = EpochDays.monthOf(Math.min(toDay, maxStartDay));
+        if (firstMonth > lastMonth) {
+            return List.of();
+        }
+        long[] counts = new long[lastMonth - firstMonth + 1];
+        double[] sums = new double[counts.length];
+        for (int i = 0; i < size; i++) {
+            if ((activity < 0 || activityTypes[i] == activity) && startDays[i] >= fromDay && startDays[i] <= toDay) {
+                int group = EpochDays.monthOf(startDays[i]) - firstMonth;
+                counts[group]++;
+                sums[group] += values[i];
+            }
+        }
+        return toRows(counts, sums, group -> EpochDays.toYearMonth(firstMonth + group).toString());
+    }
+
+    private List<TrainingAnalyticsRow> byAgeCohort(double[] values, int activity, int fromDay, int toDay) {
+        long[] counts = new long[AGE_COHORTS];
+        double[] sums = new double[AGE_COHORTS];
+        for (int i = 0; i < size; i++) {
+            if ((activity < 0 || activityTypes[i] == activity) && startDays[i] >= fromDay && startDays[i] <= toDay
+                    && userBirthdates[i] != UNKNOWN_BIRTHDATE) {
+                int age = (int) ((startDays[i] - userBirthdates[i]) / DAYS_PER_YEAR);
+                int group = Math.min(Math.max(age, 0) / 10, AGE_COHORTS - 1);
+                counts[group]++;
+                sums[group] += values[i];
+            }
+        }
+        return toRows(counts, sums, group -> group < AGE_COHORTS - 1
+                ? "%d-%d".formatted(group * 10, group * 10 + 9)
+                : (group * 10) + "+");
+    }
+
+    private static List<TrainingAnalyticsRow> toRows(long[] counts, double[] sums, IntFunction<String> label) {
+        List<TrainingAnalyticsRow> result = new ArrayList<>();
+        for (int group = 0; group < counts.length; group++) {
+            if (counts[group] > 0) {
+                result.add(new TrainingAnalyticsRow(label.apply(group), counts[group], sums[group], sums[group] / counts[group]));
+            }
+        }
+        return result;
+    }
+
+    private void write(int row, TrainingSnapshot training) {
+        int startDay = Math.toIntExact(LocalDate.ofInstant(training.startTime(), zone).toEpochDay());
+        ids[row] = training.id();
+        userIds[row] = training.userId() != null ? training.userId() : 0;
+        startTimes[row] = training.startTime().toEpochMilli();
+        endTimes[row] = training.endTime().toEpochMilli();
+        startDays[row] = startDay;
+        userBirthdates[row] = training.userBirthdate() != null
+                ? Math.toIntExact(training.userBirthdate().toEpochDay())
+                : UNKNOWN_BIRTHDATE;
+        activityTypes[row] = (byte) training.activityType().ordinal();
+        distances[row] = training.distance();
+        averageSpeeds[row] = training.averageSpeed();
+        minStartDay = Math.min(minStartDay, startDay);
+        maxStartDay = Math.max(maxStartDay, startDay);
+    }
+
+    private void move(int from, int to) {
+        ids[to] = ids[from];
+        userIds[to] = userIds[from];
+        startTimes[to] = startTimes[from];
+        endTimes[to] = endTimes[from];
+        startDays[to] = startDays[from];
+        userBirthdates[to] = userBirthdates[from];
+        activityTypes[to] = activityTypes[from];
+        distances[to] = distances[from];
+        averageSpeeds[to] = averageSpeeds[from];
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        userIds = Arrays.copyOf(userIds, capacity);
+        startTimes = Arrays.copyOf(startTimes, capacity);
+        endTimes = Arrays.copyOf(endTimes, capacity);
+        startDays = Arrays.copyOf(startDays, capacity);
+        userBirthdates = Arrays.copyOf(userBirthdates, capacity);
+        activityTypes = Arrays.copyOf(activityTypes, capacity);
+        distances = Arrays.copyOf(distances, capacity);
+        averageSpeeds = Arrays.copyOf(averageSpeeds, capacity);
+    }
+
+    private void allocate(int capacity) {
+        size = 0;
+        ids = new long[capacity];
+        userIds = new long[capacity];
+        startTimes = new long[capacity];
+        endTimes = new long[capacity];
+        startDays = new int[capacity];
+        userBirthdates = new int[capacity];
+        activityTypes = new byte[capacity];
+        distances = new double[capacity];
+        averageSpeeds = new double[capacity];
+        minStartDay = Integer.MAX_VALUE;
+        maxStartDay = Integer.MIN_VALUE;
+    }
+}
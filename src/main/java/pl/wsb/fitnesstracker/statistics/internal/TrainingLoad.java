@@ -0,0 +1,159 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import java.util.Arrays;
+
+/**
+ * Rolling load and training days of one user. Not thread-safe, guarded by its owner.
+ * <p>
+ * Loads are daily exponentially weighted moving averages. They are linear in the daily loads, so a training of any
+ * day, including a back-dated one, is added or removed in O(1): its load is weighted by the decay between its day
+ * and the anchor day at which the averages are stored, and the anchor only moves forward.
+ * Training days are kept as a sorted array of days with their training counts, so the current streak is recomputed
+ * on every change and read in O(1).
+ * </p>
+ */
+final class TrainingLoad {
+
+    private static final int NO_DAY = Integer.MIN_VALUE;
+
+    private int anchorDay = NO_DAY;
+
+    private double acute;
+
+    private double chronic;
+
+    private int[] days = new int[8];
+
+    private int[] counts = new int[8];
+
+    private int dayCount;
+
+    private int streakStart = NO_DAY;
+
+    /**
+     * Adds or removes the load of a training.
+     *
+     * @param day          start day of the training, in epoch days
+     * @param load         load of the training
+     * @param sign         1 to add the training, -1 to remove it
+     * @param acuteWeight  smoothing factor of the acute load
+     * @param chronicWeight smoothing factor of the chronic load
+     * @param retainedDays number of days before the latest training day that are remembered
+     */
+    void apply(int day, double load, int sign, double acuteWeight, double chronicWeight, int retainedDays) {
+        if (anchorDay == NO_DAY) {
+            anchorDay = day;
+        } else if (day > anchorDay) {
+            acute *= Math.pow(1 - acuteWeight, day - anchorDay);
+            chronic *= Math.pow(1 - chronicWeight, day - anchorDay);
+            anchorDay = day;
+        }
+        acute += sign * acuteWeight * load * Math.pow(1 - acuteWeight, anchorDay - day);
+        chronic += sign * chronicWeight * load * Math.pow(1 - chronicWeight, anchorDay - day);
+
+        if (sign > 0) {
+            addDay(day, retainedDays);
+        } else {
+            removeDay(day);
+        }
+        streakStart = dayCount == 0 ? NO_DAY : findStreakStart();
+    }
+
+    boolean isEmpty() {
+        return dayCount == 0;
+    }
+
+    /**
+     * @param today         current day, in epoch days
+     * @param acuteWeight   smoothing factor of the acute load
+     * @return the acute load as of today
+     */
+    double acute(int today, double acuteWeight) {
+        return decayed(acute, today, acuteWeight);
+    }
+
+    /**
+     * @param today         current day, in epoch days
+     * @param chronicWeight smoothing factor of the chronic load
+     * @return the chronic load as of today
+     */
+    double chronic(int today, double chronicWeight) {
+        return decayed(chronic, today, chronicWeight);
+    }
+
+    /**
+     * @return the latest training day, in epoch days
+     */
+    int lastDay() {
+        return days[dayCount - 1];
+    }
+
+    /**
+     * @param today current day, in epoch days
+     * @return number of consecutive training days ending today or yesterday, 0 if the streak is broken
+     */
+    int streak(int today) {
+        if (dayCount == 0 || lastDay() < today - 1) {
+            return 0;
+        }
+        return lastDay() - streakStart + 1;
+    }
+
+    private double decayed(double value, int today, double weight) {
+        double current = today > anchorDay ? value * Math.pow(1 - weight, today - anchorDay) : value;
+        // removals may leave rounding residue below zero
+        return Math.max(current, 0);
+    }
+
+    private void addDay(int day, int retainedDays) {
+        int index = Arrays.binarySearch(days, 0, dayCount, day);
+        if (index >= 0) {
+            counts[index]++;
+            return;
+        }
+        if (dayCount > 0 && day < lastDay() - retainedDays) {
+            return;
+        }
+        int insertAt = -index - 1;
+        if (dayCount == days.length) {
+            days = Arrays.copyOf(days, dayCount * 2);
+            counts = Arrays.copyOf(counts, dayCount * 2);
+        }
+        System.arraycopy(days, insertAt, days, insertAt + 1, dayCount - insertAt);
+        System.arraycopy(counts, insertAt, counts, insertAt + 1, dayCount - insertAt);
+        days[insertAt] = day;
+        counts[insertAt] = 1;
+        dayCount++;
+        trimBefore(lastDay() - retainedDays);
+    }
+
+    private void removeDay(int day) {
+        int index = Arrays.binarySearch(days, 0, dayCount, day);
+        if (index < 0 || --counts[index] > 0) {
+            return;
+        }
+        System.arraycopy(days, index + 1, days, index, dayCount - index - 1);
+        System.arraycopy(counts, index + 1, counts, index, dayCount - index - 1);
+        dayCount--;
+    }
+
+    private void trimBefore(int firstRetainedDay) {
+        int first = 0;
+        while (first < dayCount && days[first] < firstRetainedDay) {
+            first++;
+        }
+        if (first > 0) {
+            System.arraycopy(days, first, days, 0, dayCount - first);
+            System.arraycopy(counts, first, counts, 0, dayCount - first);
+            dayCount -= first;
+        }
+    }
+
+    private int findStreakStart() {
+        int index = dayCount - 1;
+        while (index > 0 && days[index - 1] == days[index] - 1) {
+            index--;
+        }
+        return days[index];
+    }
+}
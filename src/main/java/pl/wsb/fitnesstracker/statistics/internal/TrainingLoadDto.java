@@ -0,0 +1,58 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import jakarta.annotation.Nullable;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object representing the rolling training load of a user.
+ */
+public class TrainingLoadDto {
+    private final Long userId;
+
+    private final double acuteLoad;
+
+    private final double chronicLoad;
+
+    @Nullable
+    private final Double acuteChronicRatio;
+
+    private final int currentStreakDays;
+
+    private final LocalDate lastTrainingDay;
+
+    TrainingLoadDto(Long userId, double acuteLoad, double chronicLoad, @Nullable Double acuteChronicRatio,
+                    int currentStreakDays, LocalDate lastTrainingDay) {
+        this.userId = userId;
+        this.acuteLoad = acuteLoad;
+        this.chronicLoad = chronicLoad;
+        this.acuteChronicRatio = acuteChronicRatio;
+        this.currentStreakDays = currentStreakDays;
+        this.lastTrainingDay = lastTrainingDay;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public double getAcuteLoad() {
+        return acuteLoad;
+    }
+
+    public double getChronicLoad() {
+        return chronicLoad;
+    }
+
+    @Nullable
+    public Double getAcuteChronicRatio() {
+        return acuteChronicRatio;
+    }
+
+    public int getCurrentStreakDays() {
+        return currentStreakDays;
+    }
+
+    public LocalDate getLastTrainingDay() {
+        return lastTrainingDay;
+    }
+}
@@ -0,0 +1,108 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import pl.wsb.fitnesstracker.statistics.api.TrainingLoadProvider;
+import pl.wsb.fitnesstracker.statistics.api.TrainingLoadSummary;
+import pl.wsb.fitnesstracker.training.api.TrainingSnapshot;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link TrainingLoad} per user with trainings, updated on every training write.
+ * <p>
+ * The load of a training is its estimated calories, so the loads agree with the calorie totals of the statistics.
+ * Trainings are attributed to the day they start in the rollup zone. Reads decay the stored averages to the current
+ * day, so the loads keep falling on days without trainings without any scheduled work.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+class TrainingLoads implements TrainingAggregate, TrainingLoadProvider {
+
+    private final Map<Long, TrainingLoad> loads = new ConcurrentHashMap<>();
+
+    private final LoadProperties loadProperties;
+
+    private final RollupProperties rollupProperties;
+
+    private final CalorieEngine calorieEngine;
+
+    @Override
+    public Optional<TrainingLoadSummary> getTrainingLoad(Long userId) {
+        TrainingLoad load = loads.get(userId);
+        if (load == null) {
+            return Optional.empty();
+        }
+        int today = (int) LocalDate.now(rollupProperties.getZone()).toEpochDay();
+        synchronized (load) {
+            if (load.isEmpty()) {
+                return Optional.empty();
+            }
+            double acute = load.acute(today, acuteWeight());
+            double chronic = load.chronic(today, chronicWeight());
+            return Optional.of(new TrainingLoadSummary(
+                    userId,
+                    acute,
+                    chronic,
+                    chronic > 0 ? acute / chronic : null,
+                    load.streak(today),
+                    LocalDate.ofEpochDay(load.lastDay())));
+        }
+    }
+
+    @Override
+    public void reset() {
+        loads.clear();
+    }
+
+    @Override
+    public void add(TrainingSnapshot training) {
+        update(training, 1);
+    }
+
+    @Override
+    public void remove(TrainingSnapshot training) {
+        update(training, -1);
+    }
+
+    private void update(TrainingSnapshot training, int sign) {
+        if (training.userId() == null) {
+            return;
+        }
+        int day = (int) LocalDate.ofInstant(training.startTime(), rollupProperties.getZone()).toEpochDay();
+        int calories = calorieEngine.estimate(training);
+        loads.compute(training.userId(), (userId, load) -> {
+            if (load == null) {
+                if (sign < 0) {
+                    return null;
+                }
+                load = new TrainingLoad();
+            }
+            synchronized (load) {
+                load.apply(day, calories, sign, acuteWeight(), chronicWeight(), loadProperties.getRetainedDays());
+                return load.isEmpty() ? null : load;
+            }
+        });
+    }
+
+    private double acuteWeight() {
+        return smoothing(loadProperties.getAcuteDays());
+    }
+
+    private double chronicWeight() {
+        return smoothing(loadProperties.getChronicDays());
+    }
+
+    /**
+     * @param days span of the average
+     * @return smoothing factor of an exponentially weighted average with the same center of mass as a simple
+     * average over the span
+     */
+    private static double smoothing(int days) {
+        return 2.0 / (days + 1);
+    }
+}
@@ -0,0 +1,41 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import pl.wsb.fitnesstracker.statistics.api.TrainingMetric;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+/**
+ * Data Transfer Object representing a point of a training distribution:
+ * the share {@code quantile} of the trainings of the activity has a lower {@code metric} than {@code value}.
+ */
+public class TrainingPercentileDto {
+    private final ActivityType activityType;
+
+    private final TrainingMetric metric;
+
+    private final double value;
+
+    private final double quantile;
+
+    TrainingPercentileDto(ActivityType activityType, TrainingMetric metric, double value, double quantile) {
+        this.activityType = activityType;
+        this.metric = metric;
+        this.value = value;
+        this.quantile = quantile;
+    }
+
+    public ActivityType getActivityType() {
+        return activityType;
+    }
+
+    public TrainingMetric getMetric() {
+        return metric;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public double getQuantile() {
+        return quantile;
+    }
+}
@@ -0,0 +1,59 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import pl.wsb.fitnesstracker.statistics.api.RollupGranularity;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object representing the totals of one rollup bucket.
+ */
+public class TrainingRollupDto {
+    private final ActivityType activityType;
+
+    private final RollupGranularity granularity;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private final LocalDate bucketStart;
+
+    private final int trainings;
+
+    private final double distance;
+
+    private final long durationSeconds;
+
+    TrainingRollupDto(ActivityType activityType, RollupGranularity granularity, LocalDate bucketStart,
+                      int trainings, double distance, long durationSeconds) {
+        this.activityType = activityType;
+        this.granularity = granularity;
+        this.bucketStart = bucketStart;
+        this.trainings = trainings;
+        this.distance = distance;
+        this.durationSeconds = durationSeconds;
+    }
+
+    public ActivityType getActivityType() {
+        return activityType;
+    }
+
+    public RollupGranularity getGranularity() {
+        return granularity;
+    }
+
+    public LocalDate getBucketStart() {
+        return bucketStart;
+    }
+
+    public int getTrainings() {
+        return trainings;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+}
@@ -0,0 +1,148 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import jakarta.annotation.Nullable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.wsb.fitnesstracker.exception.api.BusinessException;
+import pl.wsb.fitnesstracker.statistics.api.RollupGranularity;
+import pl.wsb.fitnesstracker.statistics.api.TrainingRollup;
+import pl.wsb.fitnesstracker.statistics.api.TrainingRollupProvider;
+import pl.wsb.fitnesstracker.training.api.TrainingChangedEvent;
+import pl.wsb.fitnesstracker.training.api.TrainingChunk;
+import pl.wsb.fitnesstracker.training.api.TrainingSnapshot;
+import pl.wsb.fitnesstracker.training.api.TransactionScopedAccumulator;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the {@link RollupBucket}s and answers the rollup queries from them.
+ * <p>
+ * Every training change is applied as a delta to its daily, weekly and monthly bucket in the writing transaction,
+ * summed per bucket and written just before commit, so a batch costs one statement per touched bucket.
+ * Because the coarser buckets are always up to date, compaction only has to drop daily buckets past their retention.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+class TrainingRollupService implements TrainingRollupProvider {
+
+    private final RollupBucketRepository rollupBucketRepository;
+
+    private final RollupProperties rollupProperties;
+
+    private final TransactionScopedAccumulator<RollupKey, StatisticsDelta> pendingDeltas =
+            new TransactionScopedAccumulator<>(StatisticsDelta::new, this::applyDelta);
+
+    @Override
+    public List<TrainingRollup> getRollups(Long userId, @Nullable ActivityType activityType, RollupGranularity granularity,
+                                           LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BusinessException("Range start %s is after its end %s".formatted(from, to));
+        }
+        LocalDate start = granularity.bucketStart(from);
+        if (granularity == RollupGranularity.DAY && start.isBefore(dailyRetentionThreshold())) {
+            // not maintained any more, and only dropped by the next compaction
+            start = dailyRetentionThreshold();
+        }
+        return rollupBucketRepository.findBuckets(userId, granularity, activityType, start, to)
+                .stream()
+                .map(bucket -> new TrainingRollup(bucket.getUserId(), bucket.getActivityType(), bucket.getGranularity(),
+                        bucket.getBucketStart(), bucket.getTrainings(), bucket.getDistance(),
+                        Duration.ofSeconds(bucket.getDurationSeconds())))
+                .toList();
+    }
+
+    /**
+     * Runs synchronously inside the transaction of the change, which every publisher of the event opens.
+     */
+    @EventListener
+    void onTrainingChanged(TrainingChangedEvent event) {
+        if (event.previous() != null && event.previous().userId() != null) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                pendingDeltas.get(keyOf(event.previous(), granularity)).subtract(event.previous());
+            }
+        }
+        if (event.current().userId() != null) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                pendingDeltas.get(keyOf(event.current(), granularity)).add(event.current());
+            }
+        }
+    }
+
+    /**
+     * Removes all buckets, before the {@link StatisticsBackfill} rebuilds them.
+     */
+    @Transactional
+    public void deleteAllBuckets() {
+        rollupBucketRepository.deleteAllInBatch();
+    }
+
+    /**
+     * Adds the trainings of a chunk to their buckets, with one statement per touched bucket.
+     *
+     * @param trainings trainings read from the database, e.g. by the {@link StatisticsBackfill}
+     */
+    @Transactional
+    public void addToBuckets(TrainingChunk trainings) {
+        Map<RollupKey, StatisticsDelta> deltas = new HashMap<>();
+        for (int i = 0; i < trainings.size(); i++) {
+            TrainingSnapshot training = trainings.snapshot(i);
+            if (training.userId() == null) {
+                continue;
+            }
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                deltas.computeIfAbsent(keyOf(training, granularity), key -> new StatisticsDelta()).add(training);
+            }
+        }
+        deltas.forEach(this::applyDelta);
+    }
+
+    /**
+     * Drops the daily buckets older than the configured retention, which stay covered by the weekly and monthly buckets,
+     * and the buckets left empty by updates.
+     */
+    @Scheduled(fixedDelayString = "${statistics.rollup.compaction-interval:PT1H}", initialDelayString = "${statistics.rollup.compaction-interval:PT1H}")
+    @Transactional
+    public void compact() {
+        LocalDate threshold = dailyRetentionThreshold();
+        int expired = rollupBucketRepository.deleteBucketsBefore(RollupGranularity.DAY, threshold);
+        int empty = rollupBucketRepository.deleteEmptyBuckets();
+        log.info("Rollup compaction removed {} daily buckets before {} and {} empty buckets", expired, threshold, empty);
+    }
+
+    private RollupKey keyOf(TrainingSnapshot training, RollupGranularity granularity) {
+        LocalDate day = LocalDate.ofInstant(training.startTime(), rollupProperties.getZone());
+        return new RollupKey(training.userId(), granularity, training.activityType(), granularity.bucketStart(day));
+    }
+
+    /**
+     * Writes the delta of a bucket. Daily buckets past their retention are skipped: compaction may already have
+     * dropped them, and the weekly and monthly buckets cover those days.
+     */
+    private void applyDelta(RollupKey key, StatisticsDelta delta) {
+        if (delta.isEmpty() || isExpiredDay(key)) {
+            return;
+        }
+        rollupBucketRepository.applyDelta(key.userId(), key.granularity().name(), key.activityType().ordinal(),
+                key.bucketStart(), delta.getTrainings(), delta.getDistance(), delta.getDurationSeconds());
+    }
+
+    private boolean isExpiredDay(RollupKey key) {
+        return key.granularity() == RollupGranularity.DAY && key.bucketStart().isBefore(dailyRetentionThreshold());
+    }
+
+    private LocalDate dailyRetentionThreshold() {
+        return LocalDate.now(rollupProperties.getZone()).minus(rollupProperties.getDailyRetention());
+    }
+}
@@ -0,0 +1,173 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import pl.wsb.fitnesstracker.training.api.TrainingChunk;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary checkpoint of all trainings, in the column layout of {@link TrainingChunk}.
+ * <p>
+ * The file holds a header (magic number, format version, checkpoint time, number of trainings), then every column
+ * as a contiguous run of primitives, then a CRC32C of everything before it. A file is written next to the target and
+ * moved over it atomically, so a crash during a checkpoint leaves the previous snapshot intact.
+ * </p>
+ */
+final class TrainingSnapshotFile {
+
+    /**
+     * Trainings of a snapshot together with the moment they were copied.
+     *
+     * @param takenAt   time the trainings were copied from memory
+     * @param trainings all trainings known at that time
+     */
+    record Checkpoint(Instant takenAt, TrainingChunk trainings) {
+    }
+
+    private static final int MAGIC = 0x46545353;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Magic number, format version, checkpoint time and number of trainings.
+     */
+    private static final int HEADER_BYTES = 20;
+
+    /**
+     * Five long columns, the activity type byte and two double columns.
+     */
+    private static final int TRAINING_BYTES = 57;
+
+    private static final int CHECKSUM_BYTES = 8;
+
+    private TrainingSnapshotFile() {
+    }
+
+    /**
+     * Replaces the snapshot file.
+     *
+     * @param path      target file
+     * @param takenAt   time the trainings were copied from memory
+     * @param trainings all trainings
+     * @throws IOException if the file cannot be written
+     */
+    static void write(Path path, Instant takenAt, TrainingChunk trainings) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream file = Files.newOutputStream(temporary)) {
+                CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, BUFFER_SIZE), new CRC32C());
+                DataOutputStream out = new DataOutputStream(checked);
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(takenAt.toEpochMilli());
+                out.writeInt(trainings.size());
+                writeLongs(out, trainings.getIds());
+                writeLongs(out, trainings.getUserIds());
+                writeLongs(out, trainings.getUserBirthdates());
+                writeLongs(out, trainings.getStartTimes());
+                writeLongs(out, trainings.getEndTimes());
+                out.write(trainings.getActivityTypes());
+                writeDoubles(out, trainings.getDistances());
+                writeDoubles(out, trainings.getAverageSpeeds());
+                out.writeLong(checked.getChecksum().getValue());
+                out.flush();
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Reads the snapshot file.
+     *
+     * @param path snapshot file
+     * @return the checkpoint, or {@link Optional#empty()} if there is no snapshot file
+     * @throws IOException if the file cannot be read, has an unknown format or is corrupted
+     */
+    static Optional<Checkpoint> read(Path path) throws IOException {
+        InputStream file;
+        try {
+            file = Files.newInputStream(path);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        try (file) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(file, BUFFER_SIZE), new CRC32C());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a training snapshot: " + path);
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported training snapshot version " + version);
+            }
+            Instant takenAt = Instant.ofEpochMilli(in.readLong());
+            int size = in.readInt();
+            if (size < 0 || HEADER_BYTES + (long) size * TRAINING_BYTES + CHECKSUM_BYTES != Files.size(path)) {
+                throw new IOException("Corrupted training snapshot: " + path);
+            }
+            long[] ids = readLongs(in, size);
+            long[] userIds = readLongs(in, size);
+            long[] userBirthdates = readLongs(in, size);
+            long[] startTimes = readLongs(in, size);
+            long[] endTimes = readLongs(in, size);
+            byte[] activityTypes = new byte[size];
+            in.readFully(activityTypes);
+            double[] distances = readDoubles(in, size);
+            double[] averageSpeeds = readDoubles(in, size);
+            long checksum = checked.getChecksum().getValue();
+            if (in.readLong() != checksum) {
+                throw new IOException("Corrupted training snapshot: " + path);
+            }
+            return Optional.of(new Checkpoint(takenAt, new TrainingChunk(
+                    ids, userIds, userBirthdates, startTimes, endTimes, activityTypes, distances, averageSpeeds)));
+        }
+    }
+
+    private static void writeLongs(DataOutputStream out, long[] values) throws IOException {
+        for (long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static long[] readLongs(DataInputStream in, int size) throws IOException {
+        long[] values = new long[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = in.readLong();
+        }
+        return values;
+    }
+
+    private static double[] readDoubles(DataInputStream in, int size) throws IOException {
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = in.readDouble();
+        }
+        return values;
+    }
+}
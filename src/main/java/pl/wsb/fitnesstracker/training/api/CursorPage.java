@@ -0,0 +1,66 @@
+package pl.wsb.fitnesstracker.training.api;
+
+import jakarta.annotation.Nullable;
+import pl.wsb.fitnesstracker.exception.api.BusinessException;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Single page of a keyset-paginated result.
+ * <p>
+ * Pages are fetched with one row more than requested to find out whether a next page exists, so the query cost
+ * depends only on the page size and not on the page depth; see {@link #of(List, int, Function)}.
+ * </p>
+ *
+ * @param items      elements of the current page, in seek order
+ * @param nextCursor opaque cursor pointing after the last element, or {@code null} if this is the last page
+ * @param <T>        type of the page elements
+ */
+public record CursorPage<T>(List<T> items, @Nullable String nextCursor) {
+
+    /**
+     * Response header carrying the opaque cursor of the next page, absent on the last page.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Upper bound of the page size accepted by the paginated lookups.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * @param limit requested page size
+     * @throws BusinessException if the limit is out of range
+     */
+    public static void validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BusinessException("Page limit must be between 1 and %d".formatted(MAX_PAGE_SIZE));
+        }
+    }
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code limit + 1}.
+     *
+     * @param rows     fetched rows
+     * @param limit    requested page size
+     * @param cursorOf function creating the encoded cursor pointing after a row
+     * @param <T>      type of the rows
+     * @return the page with the cursor of the next page, if any
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> page = rows.subList(0, limit);
+        return new CursorPage<>(page, cursorOf.apply(page.get(limit - 1)));
+    }
+
+    /**
+     * @return {@code true} if there are more elements after this page
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+}
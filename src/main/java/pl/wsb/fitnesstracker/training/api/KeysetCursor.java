@@ -0,0 +1,46 @@
+package pl.wsb.fitnesstracker.training.api;
+
+import pl.wsb.fitnesstracker.exception.api.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in an ordering by a numeric sort key and the ID as tie-breaker, e.g. {@code (start_time, id)}
+ * with the start time in epoch milliseconds. Clients only see the opaque, URL-safe encoded form.
+ *
+ * @param key sort key of the last element on the previous page
+ * @param id  ID of the last element on the previous page
+ */
+public record KeysetCursor(long key, long id) {
+
+    private static final String SEPARATOR = ":";
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode()}.
+     *
+     * @param cursor encoded cursor
+     * @return decoded cursor
+     * @throws BusinessException if the cursor is malformed
+     */
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(SEPARATOR);
+            if (parts.length != 2) {
+                throw new BusinessException("Invalid cursor: " + cursor);
+            }
+            return new KeysetCursor(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * @return opaque, URL-safe representation of the cursor
+     */
+    public String encode() {
+        String raw = key + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -8,21 +8,38 @@ import lombok.ToString;
 import pl.wsb.fitnesstracker.training.internal.ActivityType;
 import pl.wsb.fitnesstracker.user.api.User;
 
+import java.time.Instant;
 import java.util.Date;
 
 @Entity
-@Table(name = "trainings")
+@Table(name = "trainings", indexes = {
+        @Index(name = "idx_trainings_end_time", columnList = "end_time"),
+        @Index(name = "idx_trainings_start_time", columnList = "start_time, id"),
+        @Index(name = "idx_trainings_user_start", columnList = "user_id, start_time, id"),
+        @Index(name = "idx_trainings_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_trainings_user_activity_start", columnList = "user_id, activity_type, start_time, id"),
+        @Index(name = "idx_trainings_activity_start", columnList = "activity_type, start_time, id"),
+        @Index(name = "idx_trainings_modified_at", columnList = "modified_at")
+})
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString
 public class Training {
 
+    /**
+     * Allocation size of the pooled {@code trainings_seq} sequence; IDs are handed out from memory in blocks of this size,
+     * which also lets Hibernate batch the inserts.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trainings_seq")
+    @SequenceGenerator(name = "trainings_seq", sequenceName = "trainings_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
+    @ToString.Exclude
     private User user;
 
     @Column(name = "start_time", nullable = false)
@@ -41,6 +58,19 @@ public class Training {
     @Column(name = "average_speed")
     private double averageSpeed;
 
+    /**
+     * Optimistic-locking version, incremented by every update of the training.
+     */
+    @Version
+    private Long version;
+
+    /**
+     * Time of the last insert or update of the training, set from the clock of the writing node;
+     * lets in-memory copies of the trainings catch up with the changes made since a given moment.
+     */
+    @Column(name = "modified_at", nullable = false)
+    private Instant modifiedAt;
+
     public Training(
             final User user,
             final Date startTime,
@@ -56,6 +86,12 @@ public class Training {
         this.averageSpeed = averageSpeed;
     }
 
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.modifiedAt = Instant.now();
+    }
+
     public void setId(Long id) {
         this.id = id;
     }
@@ -0,0 +1,13 @@
+package pl.wsb.fitnesstracker.training.api;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Single element of a batch training creation request.
+ *
+ * @param training the training to create (without ID)
+ * @param userId   ID of the user who owns the training
+ */
+public record TrainingBatchItem(Training training, @Nullable Long userId) {
+
+}
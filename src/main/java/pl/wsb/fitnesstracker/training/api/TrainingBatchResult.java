@@ -0,0 +1,29 @@
+package pl.wsb.fitnesstracker.training.api;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Outcome of a single element of a batch training creation request.
+ *
+ * @param index      position of the element in the request
+ * @param trainingId ID of the created training, or {@code null} if the element was rejected
+ * @param error      reason of the rejection, or {@code null} if the training was created
+ */
+public record TrainingBatchResult(int index, @Nullable Long trainingId, @Nullable String error) {
+
+    public static TrainingBatchResult created(int index, Long trainingId) {
+        return new TrainingBatchResult(index, trainingId, null);
+    }
+
+    public static TrainingBatchResult rejected(int index, String error) {
+        return new TrainingBatchResult(index, null, error);
+    }
+
+    /**
+     * @return {@code true} if the training was created
+     */
+    public boolean isCreated() {
+        return error == null;
+    }
+
+}
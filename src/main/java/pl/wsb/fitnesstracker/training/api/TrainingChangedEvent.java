@@ -0,0 +1,21 @@
+package pl.wsb.fitnesstracker.training.api;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Application event published by the {@link TrainingService} within the transaction that creates or updates a training.
+ * Listeners that must stay consistent with the database should use a transactional event listener.
+ *
+ * @param previous state of the training before the change, or {@code null} if the training was created
+ * @param current  state of the training after the change
+ */
+public record TrainingChangedEvent(@Nullable TrainingSnapshot previous, TrainingSnapshot current) {
+
+    /**
+     * @return {@code true} if the training was created by the change
+     */
+    public boolean isCreation() {
+        return previous == null;
+    }
+
+}
@@ -0,0 +1,107 @@
+package pl.wsb.fitnesstracker.training.api;
+
+import lombok.Getter;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A chunk of trainings stored column by column in primitive arrays, for scans that process many trainings
+ * without allocating an object per training.
+ * <p>
+ * All arrays have the same length and are exposed without copying, so they must not be modified.
+ * </p>
+ */
+@Getter
+public final class TrainingChunk {
+
+    /**
+     * User ID of trainings without a user.
+     */
+    public static final long NO_USER = 0;
+
+    /**
+     * Birthdate of trainings without a user.
+     */
+    public static final long UNKNOWN_BIRTHDATE = Long.MIN_VALUE;
+
+    private static final ActivityType[] ACTIVITY_TYPES = ActivityType.values();
+
+    private final long[] ids;
+
+    /**
+     * IDs of the users, or {@link #NO_USER}.
+     */
+    private final long[] userIds;
+
+    /**
+     * Birthdates of the users, as {@link java.time.LocalDate#toEpochDay() epoch days}, or {@link #UNKNOWN_BIRTHDATE}.
+     */
+    private final long[] userBirthdates;
+
+    /**
+     * Start times, in {@link Instant#toEpochMilli() epoch milliseconds}.
+     */
+    private final long[] startTimes;
+
+    /**
+     * End times, in {@link Instant#toEpochMilli() epoch milliseconds}.
+     */
+    private final long[] endTimes;
+
+    /**
+     * Activity types, as {@link Enum#ordinal() ordinals} of {@link pl.wsb.fitnesstracker.training.internal.ActivityType}.
+     */
+    private final byte[] activityTypes;
+
+    private final double[] distances;
+
+    private final double[] averageSpeeds;
+
+    public TrainingChunk(long[] ids, long[] userIds, long[] userBirthdates, long[] startTimes, long[] endTimes,
+                         byte[] activityTypes, double[] distances, double[] averageSpeeds) {
+        this.ids = ids;
+        this.userIds = userIds;
+        this.userBirthdates = userBirthdates;
+        this.startTimes = startTimes;
+        this.endTimes = endTimes;
+        this.activityTypes = activityTypes;
+        this.distances = distances;
+        this.averageSpeeds = averageSpeeds;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return ID of the last training of the chunk, the keyset position of the next chunk
+     */
+    public long lastId() {
+        return ids[ids.length - 1];
+    }
+
+    /**
+     * @return ID of the user of the last training of the chunk, the keyset position of the next chunk
+     */
+    public long lastUserId() {
+        return userIds[userIds.length - 1];
+    }
+
+    /**
+     * @param index position of the training in the chunk
+     * @return the training at the position, as a snapshot
+     */
+    public TrainingSnapshot snapshot(int index) {
+        return new TrainingSnapshot(
+                ids[index],
+                userIds[index] != NO_USER ? userIds[index] : null,
+                userBirthdates[index] != UNKNOWN_BIRTHDATE ? LocalDate.ofEpochDay(userBirthdates[index]) : null,
+                Instant.ofEpochMilli(startTimes[index]),
+                Instant.ofEpochMilli(endTimes[index]),
+                ACTIVITY_TYPES[activityTypes[index]],
+                distances[index],
+                averageSpeeds[index]);
+    }
+}
@@ -0,0 +1,11 @@
+package pl.wsb.fitnesstracker.training.api;
+
+/**
+ * Lowest and highest ID of the stored trainings, used to partition scans over all trainings.
+ *
+ * @param min lowest training ID
+ * @param max highest training ID
+ */
+public record TrainingIdRange(long min, long max) {
+
+}
@@ -1,10 +1,13 @@
 package pl.wsb.fitnesstracker.training.api;
 
+import jakarta.annotation.Nullable;
 import pl.wsb.fitnesstracker.training.internal.ActivityType;
 
+import java.time.Instant;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Provides operations for managing Training entities.
@@ -49,4 +52,129 @@ public interface TrainingProvider {
      * @return list of trainings with end time after the specified date
      */
     List<Training> getTrainingsWithEndDateAfter(Date date);
+
+    /**
+     * Retrieves a page of all trainings, ordered by start time and ID.
+     *
+     * @param cursor opaque cursor returned with the previous page, or {@code null} for the first page
+     * @param limit  maximum number of trainings on the page
+     * @return page of trainings with the cursor of the next page
+     */
+    CursorPage<Training> getAllTrainings(@Nullable String cursor, int limit);
+
+    /**
+     * Retrieves a page of trainings of the specified user, ordered by start time and ID.
+     *
+     * @param userId ID of the user whose trainings to retrieve
+     * @param cursor opaque cursor returned with the previous page, or {@code null} for the first page
+     * @param limit  maximum number of trainings on the page
+     * @return page of trainings with the cursor of the next page
+     */
+    CursorPage<Training> getTrainingsByUserId(Long userId, @Nullable String cursor, int limit);
+
+    /**
+     * Retrieves a page of trainings matching the given activity type, ordered by start time and ID.
+     *
+     * @param activityType type of activity to filter trainings by
+     * @param cursor       opaque cursor returned with the previous page, or {@code null} for the first page
+     * @param limit        maximum number of trainings on the page
+     * @return page of trainings with the cursor of the next page
+     */
+    CursorPage<Training> getTrainingsByActivityType(ActivityType activityType, @Nullable String cursor, int limit);
+
+    /**
+     * Retrieves a page of trainings that ended after the specified date, ordered by start time and ID.
+     *
+     * @param date   the date to compare training end times to
+     * @param cursor opaque cursor returned with the previous page, or {@code null} for the first page
+     * @param limit  maximum number of trainings on the page
+     * @return page of trainings with the cursor of the next page
+     */
+    CursorPage<Training> getTrainingsWithEndDateAfter(Date date, @Nullable String cursor, int limit);
+
+    /**
+     * Passes every training, ordered by start time and ID, to the given action one at a time.
+     * Trainings are read through a database cursor and released after being processed,
+     * so memory use does not depend on the number of trainings.
+     *
+     * @param action action invoked for each training
+     */
+    void forEachTraining(Consumer<Training> action);
+
+    /**
+     * Searches trainings matching all the given criteria in a single query, ordered by start time and ID.
+     *
+     * @param criteria filters of the search
+     * @param cursor   opaque cursor returned with the previous page, or {@code null} for the first page
+     * @param limit    maximum number of trainings on the page
+     * @return page of matching trainings with the cursor of the next page
+     */
+    CursorPage<Training> searchTrainings(TrainingSearchCriteria criteria, @Nullable String cursor, int limit);
+
+    /**
+     * Reads the trainings following the given position, ordered by the ID of their user and then by their own ID,
+     * as a single chunk of columns.
+     * Starting at position {@code (0, 0)} and continuing from the {@link TrainingChunk#lastUserId() last user}
+     * and {@link TrainingChunk#lastId() last training} of every chunk visits all trainings, with the trainings of
+     * each user next to each other.
+     *
+     * @param afterUserId     ID of the user of the last training already read, 0 to start from the beginning
+     * @param afterTrainingId ID of the last training already read, 0 to start from the beginning
+     * @param limit           maximum number of trainings in the chunk
+     * @return the chunk, empty once all trainings have been read
+     */
+    TrainingChunk getTrainingChunkByUser(long afterUserId, long afterTrainingId, int limit);
+
+    /**
+     * Reads the trainings with an ID in the given range, ordered by ID, as a single chunk of columns.
+     * Continuing from the {@link TrainingChunk#lastId() last training} of every chunk visits the whole range,
+     * so disjoint ranges can be read in parallel.
+     *
+     * @param afterId ID of the last training already read, exclusive lower bound of the range
+     * @param toId    inclusive upper bound of the range
+     * @param limit   maximum number of trainings in the chunk
+     * @return the chunk, empty once the range has been read
+     */
+    TrainingChunk getTrainingChunk(long afterId, long toId, int limit);
+
+    /**
+     * Reads the trainings inserted or updated since the given time, ordered by ID, as a single chunk of columns.
+     * Continuing from the {@link TrainingChunk#lastId() last training} of every chunk visits all of them.
+     *
+     * @param since   inclusive lower bound of the modification time
+     * @param afterId ID of the last training already read, 0 to start from the beginning
+     * @param limit   maximum number of trainings in the chunk
+     * @return the chunk, empty once all modified trainings have been read
+     */
+    TrainingChunk getTrainingChunkModifiedSince(Instant since, long afterId, int limit);
+
+    /**
+     * Counts the trainings of the users with an ID in the given range, within a period and overall,
+     * with a single grouped query.
+     *
+     * @param afterUserId exclusive lower bound of the user IDs
+     * @param toUserId    inclusive upper bound of the user IDs
+     * @param from        inclusive lower bound of the start time of the period
+     * @param to          exclusive upper bound of the start time of the period
+     * @return counts of the users having at least one training, in no particular order
+     */
+    List<UserTrainingCount> countTrainingsByUser(long afterUserId, long toUserId, Date from, Date to);
+
+    /**
+     * @return number of stored trainings
+     */
+    long countTrainings();
+
+    /**
+     * @return the lowest and highest ID of the stored trainings, or {@link Optional#empty()} if there are none
+     */
+    Optional<TrainingIdRange> getTrainingIdRange();
+
+    /**
+     * Sums the IDs of the stored trainings; together with {@link #countTrainings()} it tells whether a set of IDs
+     * known elsewhere still matches the stored trainings.
+     *
+     * @return the sum of all training IDs, wrapped to 64 bits like {@code long} addition, 0 if there are none
+     */
+    long sumTrainingIds();
 }
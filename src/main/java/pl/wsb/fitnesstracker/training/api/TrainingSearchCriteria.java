@@ -0,0 +1,29 @@
+package pl.wsb.fitnesstracker.training.api;
+
+import jakarta.annotation.Nullable;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.util.Date;
+
+/**
+ * Filters of a composite training search. Every filter is optional and all given filters must match.
+ *
+ * @param userId       ID of the user owning the training
+ * @param activityType type of the activity
+ * @param startFrom    inclusive lower bound of the start time
+ * @param startTo      exclusive upper bound of the start time
+ * @param endFrom      inclusive lower bound of the end time
+ * @param endTo        exclusive upper bound of the end time
+ * @param minDistance  inclusive lower bound of the distance
+ * @param maxDistance  inclusive upper bound of the distance
+ */
+public record TrainingSearchCriteria(@Nullable Long userId,
+                                     @Nullable ActivityType activityType,
+                                     @Nullable Date startFrom,
+                                     @Nullable Date startTo,
+                                     @Nullable Date endFrom,
+                                     @Nullable Date endTo,
+                                     @Nullable Double minDistance,
+                                     @Nullable Double maxDistance) {
+
+}
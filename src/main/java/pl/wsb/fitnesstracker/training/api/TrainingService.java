@@ -1,5 +1,7 @@
 package pl.wsb.fitnesstracker.training.api;
 
+import java.util.List;
+
 public interface TrainingService extends TrainingProvider {
     /**
      * Creates a new training for the specified user.
@@ -19,4 +21,14 @@ public interface TrainingService extends TrainingProvider {
      * @return the updated Training entity
      */
     Training updateTraining(Training training, Long trainingId, Long userId);
+
+    /**
+     * Creates many trainings at once. All referenced users are validated with a single query
+     * and the valid trainings are inserted in JDBC batches. Invalid elements are rejected
+     * without affecting the remaining ones.
+     *
+     * @param items trainings to create, each with the ID of its owner
+     * @return per-element results, in the order of the request
+     */
+    List<TrainingBatchResult> createTrainings(List<TrainingBatchItem> items);
 }
@@ -0,0 +1,65 @@
+package pl.wsb.fitnesstracker.training.api;
+
+import jakarta.annotation.Nullable;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Immutable copy of the state of a {@link Training} at a given moment.
+ *
+ * @param id            ID of the training
+ * @param userId        ID of the user owning the training
+ * @param userBirthdate birthdate of the user owning the training
+ * @param startTime     start of the training
+ * @param endTime       end of the training
+ * @param activityType  type of the activity
+ * @param distance      distance covered during the training
+ * @param averageSpeed  average speed during the training
+ */
+public record TrainingSnapshot(Long id,
+                               @Nullable Long userId,
+                               @Nullable LocalDate userBirthdate,
+                               Instant startTime,
+                               Instant endTime,
+                               ActivityType activityType,
+                               double distance,
+                               double averageSpeed) {
+
+    /**
+     * Copies the current state of the training together with the birthdate of its user.
+     * The user is loaded if the relation is not initialized yet.
+     *
+     * @param training      persisted training
+     * @return snapshot of the training
+     */
+    public static TrainingSnapshot of(Training training) {
+        return new TrainingSnapshot(
+                training.getId(),
+                training.getUser() != null ? training.getUser().getId() : null,
+                training.getUser() != null ? training.getUser().getBirthdate() : null,
+                training.getStartTime().toInstant(),
+                training.getEndTime().toInstant(),
+                training.getActivityType(),
+                training.getDistance(),
+                training.getAverageSpeed());
+    }
+
+    /**
+     * @param birthdate birthdate of the user owning the training
+     * @return copy of this snapshot with the given birthdate of the user
+     */
+    public TrainingSnapshot withUserBirthdate(@Nullable LocalDate birthdate) {
+        return new TrainingSnapshot(id, userId, birthdate, startTime, endTime, activityType, distance, averageSpeed);
+    }
+
+    /**
+     * @return time elapsed between the start and the end of the training
+     */
+    public Duration duration() {
+        return Duration.between(startTime, endTime);
+    }
+
+}
@@ -0,0 +1,69 @@
+package pl.wsb.fitnesstracker.training.api;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Collects per-key values while a transaction runs and applies each of them once, just before that transaction commits.
+ * <p>
+ * Lets the synchronous listeners of {@link TrainingChangedEvent} sum all changes of a transaction (e.g. a batch
+ * of trainings) into one write per affected key, which commits or rolls back together with the trainings.
+ * The values live in a map bound to the current transaction, so an instance can be shared by all threads.
+ * </p>
+ *
+ * @param <K> key of the accumulated values, e.g. a user ID
+ * @param <V> mutable value accumulating the changes of one key
+ */
+public final class TransactionScopedAccumulator<K, V> {
+
+    private final Supplier<V> initialValue;
+
+    private final BiConsumer<K, V> apply;
+
+    /**
+     * @param initialValue creates the value of a key on its first change within a transaction
+     * @param apply        writes the accumulated value of a key; runs inside the transaction, before it commits
+     */
+    public TransactionScopedAccumulator(Supplier<V> initialValue, BiConsumer<K, V> apply) {
+        this.initialValue = initialValue;
+        this.apply = apply;
+    }
+
+    /**
+     * Returns the value accumulated for the key in the current transaction, creating it on first use.
+     *
+     * @param key key of the value
+     * @return the mutable value
+     * @throws IllegalStateException if no transaction synchronization is active
+     */
+    public V get(K key) {
+        return pending().computeIfAbsent(key, ignored -> initialValue.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<K, V> pending() {
+        Map<K, V> pending = (Map<K, V>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        Map<K, V> created = new LinkedHashMap<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                created.forEach(apply);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TransactionScopedAccumulator.this);
+            }
+        });
+        TransactionSynchronizationManager.bindResource(this, created);
+        return created;
+    }
+}
@@ -0,0 +1,13 @@
+package pl.wsb.fitnesstracker.training.api;
+
+/**
+ * Number of trainings of a user within a period and overall.
+ *
+ * @param userId          ID of the user
+ * @param periodTrainings number of trainings started within the period
+ * @param periodDistance  total distance of the trainings started within the period
+ * @param totalTrainings  number of all trainings of the user
+ */
+public record UserTrainingCount(Long userId, long periodTrainings, double periodDistance, long totalTrainings) {
+
+}
@@ -0,0 +1,31 @@
+package pl.wsb.fitnesstracker.training.internal;
+
+/**
+ * Data Transfer Object representing the outcome of a single element of a batch training creation.
+ * Exactly one of {@code id} and {@code error} is set.
+ */
+public class TrainingBatchResultDto {
+    private final int index;
+
+    private final Long id;
+
+    private final String error;
+
+    TrainingBatchResultDto(int index, Long id, String error) {
+        this.index = index;
+        this.id = id;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,38 @@
+package pl.wsb.fitnesstracker.training.internal;
+
+import lombok.Getter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the per-user {@link TrainingTimelineCache}.
+ */
+@ConfigurationProperties(prefix = "training.timeline-cache")
+@Getter
+class TrainingCacheProperties {
+
+    /**
+     * Maximum number of trainings kept in the cache across all users; least recently used timelines are evicted above it.
+     */
+    private final int maxTrainings;
+
+    /**
+     * Timelines longer than this are not cached and are always paged from the database.
+     */
+    private final int maxTrainingsPerUser;
+
+    /**
+     * Time after which a cached timeline is reloaded, bounding the staleness of the embedded user details.
+     */
+    private final Duration timeToLive;
+
+    public TrainingCacheProperties(@DefaultValue("200000") int maxTrainings,
+                                   @DefaultValue("1000") int maxTrainingsPerUser,
+                                   @DefaultValue("10m") Duration timeToLive) {
+        this.maxTrainings = maxTrainings;
+        this.maxTrainingsPerUser = maxTrainingsPerUser;
+        this.timeToLive = timeToLive;
+    }
+}
@@ -0,0 +1,26 @@
+package pl.wsb.fitnesstracker.training.internal;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Entity tag of a user's training collection. Combines the version of the collection with the version of the user,
+ * because the owner's details are embedded in every listed training.
+ */
+class TrainingCollectionTag {
+
+    private final long userVersion;
+
+    private final long collectionVersion;
+
+    TrainingCollectionTag(@Nullable Long userVersion, @Nullable Long collectionVersion) {
+        this.userVersion = userVersion != null ? userVersion : 0;
+        this.collectionVersion = collectionVersion != null ? collectionVersion : 0;
+    }
+
+    /**
+     * @return the unquoted ETag value
+     */
+    String value() {
+        return userVersion + "-" + collectionVersion;
+    }
+}
@@ -0,0 +1,28 @@
+package pl.wsb.fitnesstracker.training.internal;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Version of the whole collection of a user's trainings, incremented in the same transaction as every change
+ * of one of the trainings. Lets conditional requests for the collection be answered with a primary-key lookup.
+ * Rows are only written by {@link TrainingCollectionVersionRepository#increment(Long)}.
+ */
+@Entity
+@Table(name = "training_collection_versions")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+class TrainingCollectionVersion {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+}
@@ -0,0 +1,38 @@
+package pl.wsb.fitnesstracker.training.internal;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+interface TrainingCollectionVersionRepository extends JpaRepository<TrainingCollectionVersion, Long> {
+
+    /**
+     * Increments the collection version of the user in place, creating the row at version 1 on the first change.
+     * A single statement, so two transactions writing the first trainings of the same user do not race
+     * between an update finding no row and an insert.
+     *
+     * @param userId ID of the user
+     */
+    @Modifying
+    @Query(value = """
+            MERGE INTO training_collection_versions v
+            USING (SELECT CAST(:userId AS BIGINT) AS user_id) d ON v.user_id = d.user_id
+            WHEN MATCHED THEN UPDATE SET version = v.version + 1
+            WHEN NOT MATCHED THEN INSERT (user_id, version) VALUES (d.user_id, 1)""", nativeQuery = true)
+    void increment(@Param("userId") Long userId);
+
+    /**
+     * Reads the versions of the user and of their training collection with one primary-key lookup.
+     *
+     * @param userId ID of the user
+     * @return the tag, or empty if the user does not exist
+     */
+    @Query("""
+            SELECT new pl.wsb.fitnesstracker.training.internal.TrainingCollectionTag(u.version, v.version)
+            FROM User u LEFT JOIN TrainingCollectionVersion v ON v.userId = u.id
+            WHERE u.id = :userId""")
+    Optional<TrainingCollectionTag> findTag(@Param("userId") Long userId);
+}
@@ -0,0 +1,56 @@
+package pl.wsb.fitnesstracker.training.internal;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.wsb.fitnesstracker.training.api.TrainingChangedEvent;
+import pl.wsb.fitnesstracker.training.api.TransactionScopedAccumulator;
+
+import java.util.Optional;
+
+/**
+ * Maintains the per-user {@link TrainingCollectionVersion}s.
+ * <p>
+ * Changes are collected while the writing transaction runs and every affected user's version is incremented once,
+ * just before that transaction commits, so a batch of many trainings costs one update per user.
+ * </p>
+ */
+@Service
+class TrainingCollectionVersionService {
+
+    private final TrainingCollectionVersionRepository versionRepository;
+
+    /**
+     * Users whose trainings changed in the current transaction; the values only mark the users.
+     */
+    private final TransactionScopedAccumulator<Long, Boolean> changedUsers;
+
+    TrainingCollectionVersionService(TrainingCollectionVersionRepository versionRepository) {
+        this.versionRepository = versionRepository;
+        this.changedUsers = new TransactionScopedAccumulator<>(() -> Boolean.TRUE,
+                (userId, changed) -> versionRepository.increment(userId));
+    }
+
+    /**
+     * @param userId ID of the user
+     * @return the current tag of the user's training collection, or empty if the user does not exist
+     */
+    @Transactional(readOnly = true)
+    public Optional<TrainingCollectionTag> findTag(Long userId) {
+        return versionRepository.findTag(userId);
+    }
+
+    /**
+     * Runs synchronously inside the transaction of the change, which every publisher of the event opens.
+     * A moved training changes the collections of both its previous and its current owner.
+     */
+    @EventListener
+    void onTrainingChanged(TrainingChangedEvent event) {
+        if (event.current().userId() != null) {
+            changedUsers.get(event.current().userId());
+        }
+        if (event.previous() != null && event.previous().userId() != null) {
+            changedUsers.get(event.previous().userId());
+        }
+    }
+}
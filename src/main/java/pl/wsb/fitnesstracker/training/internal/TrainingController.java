@@ -1,15 +1,25 @@
 package pl.wsb.fitnesstracker.training.internal;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.wsb.fitnesstracker.training.api.CursorPage;
 import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.training.api.TrainingSearchCriteria;
 import pl.wsb.fitnesstracker.training.api.TrainingService;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * REST controller for managing training resources.
@@ -19,62 +29,175 @@ import java.util.List;
 @RequiredArgsConstructor
 public class TrainingController {
 
+    private static final String DEFAULT_PAGE_SIZE = "100";
+
+    private static final String SEARCH_DATE_TIME_PATTERN = "yyyy-MM-dd'T'HH:mm:ss";
+
+    private static final int NDJSON_FLUSH_INTERVAL = 100;
+
     private final TrainingService trainingService;
+    private final TrainingDtoQueryService trainingDtoQueryService;
+    private final TrainingTimelineService trainingTimelineService;
+    private final TrainingCollectionVersionService trainingCollectionVersionService;
     private final pl.wsb.fitnesstracker.training.internal.TrainingMapper trainingMapper;
+    private final ObjectMapper objectMapper;
 
     /**
-     * Retrieves all trainings.
+     * Retrieves a page of all trainings.
      *
-     * @return list of all trainings as TrainingDto objects
+     * @param cursor opaque cursor from the {@value CursorPage#NEXT_CURSOR_HEADER} header of the previous page
+     * @param limit  maximum number of trainings on the page
+     * @return page of trainings as TrainingDto objects
      */
     @GetMapping
-    List<TrainingDto> getAllTrainings() {
-        return trainingService.getAllTrainings()
-                .stream()
-                .map(trainingMapper::toDto)
-                .toList();
+    ResponseEntity<List<TrainingDto>> getAllTrainings(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        return toPageResponse(trainingDtoQueryService.getAllTrainings(cursor, limit));
     }
 
     /**
-     * Retrieves all trainings for the specified user.
+     * Exports all trainings as newline-delimited JSON, one TrainingDto per line.
+     * Trainings are read, mapped and written one at a time and the output is flushed periodically,
+     * so memory use stays constant regardless of the number of trainings.
      *
-     * @param userId ID of the user
-     * @return list of trainings for the user as TrainingDto objects
+     * @return streamed response with all trainings
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> exportAllTrainings() {
+        StreamingResponseBody body = outputStream -> {
+            int[] written = {0};
+            trainingService.forEachTraining(training -> {
+                writeLine(outputStream, trainingMapper.toDto(training));
+                if (++written[0] % NDJSON_FLUSH_INTERVAL == 0) {
+                    flush(outputStream);
+                }
+            });
+            outputStream.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private void writeLine(OutputStream outputStream, TrainingDto dto) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(dto));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush(OutputStream outputStream) {
+        try {
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Retrieves a page of trainings for the specified user.
+     * Pages are served from the per-user timeline cache whenever the timeline is cached.
+     * <p>
+     * The versions of the user and of their training collection are looked up first and sent as the {@code ETag};
+     * when the {@code If-None-Match} header matches, 304 Not Modified is returned without reading any training.
+     * </p>
+     *
+     * @param userId     ID of the user
+     * @param cursor     opaque cursor from the {@value CursorPage#NEXT_CURSOR_HEADER} header of the previous page
+     * @param limit      maximum number of trainings on the page
+     * @param webRequest current request, used to evaluate the conditional headers
+     * @return page of trainings for the user as TrainingDto objects, or 304 if unchanged
      */
     @GetMapping("/{userId}")
-    List<TrainingDto> getTrainingsByUserId(@PathVariable Long userId) {
-        return trainingService.getTrainingsByUserId(userId)
-                .stream()
-                .map(trainingMapper::toDto)
-                .toList();
+    ResponseEntity<List<TrainingDto>> getTrainingsByUserId(@PathVariable Long userId,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+                                                           WebRequest webRequest) {
+        Optional<TrainingCollectionTag> tag = trainingCollectionVersionService.findTag(userId);
+        // also writes the ETag header of the response
+        if (tag.isPresent() && webRequest.checkNotModified(tag.get().value())) {
+            return null;
+        }
+        return toPageResponse(trainingTimelineService.getTrainingsByUserId(userId, cursor, limit));
     }
 
     /**
-     * Retrieves trainings that finished after the specified date.
+     * Retrieves a page of trainings that finished after the specified date.
      *
      * @param afterTime date to filter trainings by their end time (format: yyyy-MM-dd)
-     * @return list of trainings finished after the given date as TrainingDto objects
+     * @param cursor    opaque cursor from the {@value CursorPage#NEXT_CURSOR_HEADER} header of the previous page
+     * @param limit     maximum number of trainings on the page
+     * @return page of trainings finished after the given date as TrainingDto objects
      */
     @GetMapping("/finished/{afterTime}")
-    List<TrainingDto> findTrainingsFinishedAfter(@PathVariable @DateTimeFormat(pattern = "yyyy-MM-dd") Date afterTime) {
-        return trainingService.getTrainingsWithEndDateAfter(afterTime)
-                .stream()
-                .map(trainingMapper::toDto)
-                .toList();
+    ResponseEntity<List<TrainingDto>> findTrainingsFinishedAfter(@PathVariable @DateTimeFormat(pattern = "yyyy-MM-dd") Date afterTime,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        return toPageResponse(trainingDtoQueryService.getTrainingsWithEndDateAfter(afterTime, cursor, limit));
     }
 
     /**
-     * Retrieves trainings filtered by activity type.
+     * Retrieves a page of trainings filtered by activity type.
      *
      * @param activityType type of activity (e.g., running, cycling)
-     * @return list of trainings matching the activity type as TrainingDto objects
+     * @param cursor       opaque cursor from the {@value CursorPage#NEXT_CURSOR_HEADER} header of the previous page
+     * @param limit        maximum number of trainings on the page
+     * @return page of trainings matching the activity type as TrainingDto objects
      */
     @GetMapping("/activityType")
-    List<TrainingDto> findTrainingsByActivityType(@RequestParam ActivityType activityType) {
-        return trainingService.getTrainingsByActivityType(activityType)
-                .stream()
-                .map(trainingMapper::toDto)
-                .toList();
+    ResponseEntity<List<TrainingDto>> findTrainingsByActivityType(@RequestParam ActivityType activityType,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        return toPageResponse(trainingDtoQueryService.getTrainingsByActivityType(activityType, cursor, limit));
+    }
+
+    /**
+     * Searches trainings matching all the given filters with a single indexed query.
+     * Every filter is optional; time bounds use the
+     * {@value #SEARCH_DATE_TIME_PATTERN} format (e.g. 2024-01-19T08:00:00) or a plain yyyy-MM-dd date.
+     *
+     * @param userId       ID of the user owning the training
+     * @param activityType type of activity
+     * @param startFrom    inclusive lower bound of the start time
+     * @param startTo      exclusive upper bound of the start time
+     * @param endFrom      inclusive lower bound of the end time
+     * @param endTo        exclusive upper bound of the end time
+     * @param minDistance  inclusive lower bound of the distance
+     * @param maxDistance  inclusive upper bound of the distance
+     * @param cursor       opaque cursor from the {@value CursorPage#NEXT_CURSOR_HEADER} header of the previous page
+     * @param limit        maximum number of trainings on the page
+     * @return page of matching trainings as TrainingDto objects
+     */
+    @GetMapping("/search")
+    ResponseEntity<List<TrainingDto>> searchTrainings(@RequestParam(required = false) Long userId,
+                                                      @RequestParam(required = false) ActivityType activityType,
+                                                      @RequestParam(required = false) @DateTimeFormat(pattern = SEARCH_DATE_TIME_PATTERN, fallbackPatterns = "yyyy-MM-dd") Date startFrom,
+                                                      @RequestParam(required = false) @DateTimeFormat(pattern = SEARCH_DATE_TIME_PATTERN, fallbackPatterns = "yyyy-MM-dd") Date startTo,
+                                                      @RequestParam(required = false) @DateTimeFormat(pattern = SEARCH_DATE_TIME_PATTERN, fallbackPatterns = "yyyy-MM-dd") Date endFrom,
+                                                      @RequestParam(required = false) @DateTimeFormat(pattern = SEARCH_DATE_TIME_PATTERN, fallbackPatterns = "yyyy-MM-dd") Date endTo,
+                                                      @RequestParam(required = false) Double minDistance,
+                                                      @RequestParam(required = false) Double maxDistance,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        TrainingSearchCriteria criteria = new TrainingSearchCriteria(userId, activityType, startFrom, startTo,
+                endFrom, endTo, minDistance, maxDistance);
+        return toPageResponse(trainingDtoQueryService.searchTrainings(criteria, cursor, limit));
+    }
+
+    /**
+     * Wraps a page of trainings in the response and exposes the next page cursor as a header.
+     *
+     * @param page page of trainings
+     * @return response with the trainings of the page
+     */
+    private ResponseEntity<List<TrainingDto>> toPageResponse(CursorPage<TrainingDto> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
     }
 
     /**
@@ -90,6 +213,24 @@ public class TrainingController {
         return new ResponseEntity<>(dto, HttpStatus.CREATED);
     }
 
+    /**
+     * Creates many trainings in a single request.
+     * Users are validated with one query and the trainings are inserted in JDBC batches;
+     * invalid elements are rejected without affecting the others.
+     *
+     * @param trainingDtos DTOs containing the data of the trainings to create
+     * @return ResponseEntity with the per-element results, in the order of the request
+     */
+    @PostMapping("/batch")
+    ResponseEntity<List<TrainingBatchResultDto>> createTrainings(@RequestBody List<TrainingCreateDTO> trainingDtos) {
+        List<TrainingBatchResultDto> results = trainingService.createTrainings(
+                        trainingDtos.stream().map(trainingMapper::toBatchItem).toList())
+                .stream()
+                .map(trainingMapper::toDto)
+                .toList();
+        return ResponseEntity.ok(results);
+    }
+
     /**
      * Updates an existing training entry.
      *
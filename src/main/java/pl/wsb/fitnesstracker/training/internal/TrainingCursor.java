@@ -0,0 +1,56 @@
+package pl.wsb.fitnesstracker.training.internal;
+
+import pl.wsb.fitnesstracker.exception.api.BusinessException;
+import pl.wsb.fitnesstracker.training.api.KeysetCursor;
+import pl.wsb.fitnesstracker.training.api.Training;
+
+import java.util.Date;
+
+/**
+ * Keyset position in the {@code (start_time, id)} ordering of trainings.
+ * Clients only see the opaque form encoded as a {@link KeysetCursor} keyed by the start time in epoch milliseconds.
+ *
+ * @param startTime start time of the last training on the previous page
+ * @param id        ID of the last training on the previous page
+ */
+record TrainingCursor(Date startTime, Long id) {
+
+    /**
+     * Creates a cursor pointing after the given training.
+     *
+     * @param training last training of the page
+     * @return cursor positioned after the training
+     */
+    static TrainingCursor after(Training training) {
+        return new TrainingCursor(training.getStartTime(), training.getId());
+    }
+
+    /**
+     * Creates a cursor pointing after the given training DTO.
+     *
+     * @param training last training of the page
+     * @return cursor positioned after the training
+     */
+    static TrainingCursor after(TrainingDto training) {
+        return new TrainingCursor(training.getStartTime(), training.getId());
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode()}.
+     *
+     * @param cursor encoded cursor
+     * @return decoded cursor
+     * @throws BusinessException if the cursor is malformed
+     */
+    static TrainingCursor decode(String cursor) {
+        KeysetCursor decoded = KeysetCursor.decode(cursor);
+        return new TrainingCursor(new Date(decoded.key()), decoded.id());
+    }
+
+    /**
+     * @return opaque, URL-safe representation of the cursor
+     */
+    String encode() {
+        return new KeysetCursor(startTime.getTime(), id).encode();
+    }
+}
@@ -1,7 +1,9 @@
 package pl.wsb.fitnesstracker.training.internal;
 
+import jakarta.annotation.Nullable;
 import pl.wsb.fitnesstracker.user.api.UserDto;
 
+import java.time.LocalDate;
 import java.util.Date;
 
 /**
@@ -10,6 +12,7 @@ import java.util.Date;
 public class TrainingDto {
     private final Long id;
 
+    @Nullable
     private final UserDto user;
 
     private final Date startTime;
@@ -22,7 +25,7 @@ public class TrainingDto {
 
     private final double averageSpeed;
 
-    TrainingDto(Long id, UserDto user, Date startTime, Date endTime, ActivityType activityType, double distance, double averageSpeed) {
+    TrainingDto(Long id, @Nullable UserDto user, Date startTime, Date endTime, ActivityType activityType, double distance, double averageSpeed) {
         this.id = id;
         this.user = user;
         this.startTime = startTime;
@@ -32,10 +35,23 @@ public class TrainingDto {
         this.averageSpeed = averageSpeed;
     }
 
+    /**
+     * Flat constructor used by the JPQL constructor expression of the read-only projection queries,
+     * so query results are created directly as DTOs without hydrating {@code Training} and {@code User} entities.
+     * The user columns are all {@code null} for a training without a user.
+     */
+    public TrainingDto(Long id, @Nullable Long userId, String userFirstName, String userLastName, LocalDate userBirthdate,
+                       String userEmail, Date startTime, Date endTime, ActivityType activityType, double distance,
+                       double averageSpeed) {
+        this(id, userId == null ? null : new UserDto(userId, userFirstName, userLastName, userBirthdate, userEmail),
+                startTime, endTime, activityType, distance, averageSpeed);
+    }
+
     public Long getId() {
         return id;
     }
 
+    @Nullable
     public UserDto getUser() {
         return user;
     }
@@ -0,0 +1,69 @@
+package pl.wsb.fitnesstracker.training.internal;
+
+import jakarta.annotation.Nullable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.wsb.fitnesstracker.training.api.CursorPage;
+import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.training.api.TrainingSearchCriteria;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Read-only query path of the training listing endpoints.
+ * Rows are selected straight into {@link TrainingDto} projections inside read-only transactions
+ * (no flush, no dirty-checking snapshots), instead of hydrating managed entities and copying them afterwards.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+class TrainingDtoQueryService {
+
+    private final TrainingRepository trainingRepository;
+
+    public CursorPage<TrainingDto> getAllTrainings(@Nullable String cursor, int limit) {
+        return findPage(TrainingSpecifications.all(), cursor, limit);
+    }
+
+    public CursorPage<TrainingDto> getTrainingsByUserId(Long userId, @Nullable String cursor, int limit) {
+        return findPage(TrainingSpecifications.ofUser(userId), cursor, limit);
+    }
+
+    public CursorPage<TrainingDto> getTrainingsByActivityType(ActivityType activityType, @Nullable String cursor, int limit) {
+        return findPage(TrainingSpecifications.ofActivityType(activityType), cursor, limit);
+    }
+
+    public CursorPage<TrainingDto> getTrainingsWithEndDateAfter(Date date, @Nullable String cursor, int limit) {
+        return findPage(TrainingSpecifications.endedAfter(date), cursor, limit);
+    }
+
+    public CursorPage<TrainingDto> searchTrainings(TrainingSearchCriteria criteria, @Nullable String cursor, int limit) {
+        TrainingPages.validateCriteria(criteria);
+        return findPage(TrainingSpecifications.matching(criteria), cursor, limit);
+    }
+
+    /**
+     * Loads the beginning of the user's timeline, up to {@code maxTrainings} trainings.
+     * <p>
+     * Runs in a read-write transaction, which is routed to the primary: the timeline is cached and kept current only
+     * by the changes committed after it was loaded, so a copy read from a lagging replica would stay stale until evicted.
+     * </p>
+     *
+     * @param userId       ID of the user
+     * @param maxTrainings maximum number of trainings to load
+     * @return trainings of the user sorted by start time and ID
+     */
+    @Transactional
+    public List<TrainingDto> getTimeline(Long userId, int maxTrainings) {
+        return trainingRepository.findDtos(TrainingSpecifications.ofUser(userId), maxTrainings);
+    }
+
+    private CursorPage<TrainingDto> findPage(Specification<Training> filter, @Nullable String cursor, int limit) {
+        CursorPage.validateLimit(limit);
+        List<TrainingDto> rows = trainingRepository.findDtos(TrainingPages.seek(filter, cursor), limit + 1);
+        return CursorPage.of(rows, limit, row -> TrainingCursor.after(row).encode());
+    }
+}
@@ -0,0 +1,23 @@
+package pl.wsb.fitnesstracker.training.internal;
+
+import org.springframework.data.jpa.domain.Specification;
+import pl.wsb.fitnesstracker.training.api.Training;
+
+import java.util.List;
+
+/**
+ * Repository fragment selecting trainings straight into {@link TrainingDto} projections.
+ */
+interface TrainingDtoRepository {
+
+    /**
+     * Finds trainings matching the specification, ordered by start time and ID, as DTOs.
+     * No entities are created, so nothing is registered in the persistence context.
+     *
+     * @param specification filter applied to the trainings
+     * @param limit         maximum number of rows to return
+     * @return DTOs of the matching trainings
+     */
+    List<TrainingDto> findDtos(Specification<Training> specification, int limit);
+
+}
@@ -0,0 +1,55 @@
+package pl.wsb.fitnesstracker.training.internal;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.user.api.User;
+
+import java.util.List;
+
+/**
+ * Criteria API implementation of {@link TrainingDtoRepository} based on a constructor expression.
+ * The user is outer joined, like in the entity queries, so trainings without a user are listed too.
+ */
+class TrainingDtoRepositoryImpl implements TrainingDtoRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TrainingDto> findDtos(Specification<Training> specification, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TrainingDto> query = cb.createQuery(TrainingDto.class);
+        Root<Training> root = query.from(Training.class);
+        Join<Training, User> user = root.join("user", JoinType.LEFT);
+
+        query.select(cb.construct(TrainingDto.class,
+                root.get("id"),
+                user.get("id"),
+                user.get("firstName"),
+                user.get("lastName"),
+                user.get("birthdate"),
+                user.get("email"),
+                root.get("startTime"),
+                root.get("endTime"),
+                root.get("activityType"),
+                root.get("distance"),
+                root.get("averageSpeed")));
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(root.get("startTime")), cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
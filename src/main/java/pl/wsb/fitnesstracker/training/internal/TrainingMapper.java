@@ -3,6 +3,8 @@ package pl.wsb.fitnesstracker.training.internal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.training.api.TrainingBatchItem;
+import pl.wsb.fitnesstracker.training.api.TrainingBatchResult;
 import pl.wsb.fitnesstracker.user.internal.UserMapper;
 
 /**
@@ -23,7 +25,7 @@ public class TrainingMapper {
     public TrainingDto toDto(Training training) {
         return new TrainingDto(
                 training.getId(),
-                trainingUserMapper.toDto(training.getUser()),
+                training.getUser() == null ? null : trainingUserMapper.toDto(training.getUser()),
                 training.getStartTime(),
                 training.getEndTime(),
                 training.getActivityType(),
@@ -67,4 +69,24 @@ public class TrainingMapper {
                 dto.getAverageSpeed()
         );
     }
+
+    /**
+     * Converts TrainingCreateDTO to an element of a batch creation request.
+     *
+     * @param dto TrainingCreateDTO object
+     * @return batch item with a new Training entity and the ID of its owner
+     */
+    public TrainingBatchItem toBatchItem(TrainingCreateDTO dto) {
+        return new TrainingBatchItem(toEntity(dto), dto.getUserId());
+    }
+
+    /**
+     * Converts the outcome of a batch creation element to TrainingBatchResultDto.
+     *
+     * @param result outcome of the batch element
+     * @return TrainingBatchResultDto object
+     */
+    public TrainingBatchResultDto toDto(TrainingBatchResult result) {
+        return new TrainingBatchResultDto(result.index(), result.trainingId(), result.error());
+    }
 }
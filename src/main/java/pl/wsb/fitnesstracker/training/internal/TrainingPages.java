@@ -0,0 +1,46 @@
+package pl.wsb.fitnesstracker.training.internal;
+
+import jakarta.annotation.Nullable;
+import org.springframework.data.jpa.domain.Specification;
+import pl.wsb.fitnesstracker.exception.api.BusinessException;
+import pl.wsb.fitnesstracker.training.api.CursorPage;
+import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.training.api.TrainingSearchCriteria;
+
+/**
+ * Keyset pagination helpers shared by the entity and the DTO read paths of trainings, ordered by {@code (start_time, id)}.
+ * Page sizes and the assembly of pages are handled by {@link CursorPage}.
+ */
+final class TrainingPages {
+
+    private TrainingPages() {
+    }
+
+    /**
+     * @param criteria filters of a search
+     * @throws BusinessException if a lower bound is greater than the matching upper bound
+     */
+    static void validateCriteria(TrainingSearchCriteria criteria) {
+        if (criteria.startFrom() != null && criteria.startTo() != null && criteria.startFrom().after(criteria.startTo())) {
+            throw new BusinessException("startFrom must not be after startTo");
+        }
+        if (criteria.endFrom() != null && criteria.endTo() != null && criteria.endFrom().after(criteria.endTo())) {
+            throw new BusinessException("endFrom must not be after endTo");
+        }
+        if (criteria.minDistance() != null && criteria.maxDistance() != null && criteria.minDistance() > criteria.maxDistance()) {
+            throw new BusinessException("minDistance must not be greater than maxDistance");
+        }
+    }
+
+    /**
+     * Restricts the filter to trainings positioned after the cursor.
+     *
+     * @param filter filter applied to the trainings
+     * @param cursor opaque cursor of the previous page, or {@code null} for the first page
+     * @return the seek specification
+     * @throws BusinessException if the cursor is malformed
+     */
+    static Specification<Training> seek(Specification<Training> filter, @Nullable String cursor) {
+        return cursor == null ? filter : filter.and(TrainingSpecifications.after(TrainingCursor.decode(cursor)));
+    }
+}
@@ -1,16 +1,44 @@
 package pl.wsb.fitnesstracker.training.internal;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import pl.wsb.fitnesstracker.training.api.Training;
 
+import java.time.Instant;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for Training entity.
- * Extends JpaRepository to provide CRUD operations.
+ * Extends JpaRepository to provide CRUD operations, JpaSpecificationExecutor for the keyset-paginated lookups
+ * and TrainingDtoRepository for the read-only projections.
+ * The {@link Training#getUser() user} relation is lazy, so every finder used for listing fetches it in the same query.
  */
-interface TrainingRepository extends JpaRepository<Training, Long> {
+interface TrainingRepository extends JpaRepository<Training, Long>, JpaSpecificationExecutor<Training>, TrainingDtoRepository {
+
+    /**
+     * Number of rows fetched from the database per round trip when streaming trainings.
+     */
+    int STREAM_FETCH_SIZE = 500;
+
+    /**
+     * Finds all trainings together with their users.
+     *
+     * @return list of all trainings
+     */
+    @Override
+    @EntityGraph(attributePaths = "user")
+    List<Training> findAll();
 
     /**
      * Finds all trainings for a given user ID.
@@ -18,6 +46,7 @@ interface TrainingRepository extends JpaRepository<Training, Long> {
      * @param userId the ID of the user
      * @return list of trainings for the specified user
      */
+    @EntityGraph(attributePaths = "user")
     List<Training> findByUserId(Long userId);
 
     /**
@@ -26,18 +55,139 @@ interface TrainingRepository extends JpaRepository<Training, Long> {
      * @param activityType the type of activity
      * @return list of trainings with the given activity type
      */
+    @EntityGraph(attributePaths = "user")
     List<Training> findByActivityType(ActivityType activityType);
 
     /**
      * Finds all trainings that have an end time after the specified date.
-     * Note: This method fetches all trainings and filters in memory.
+     * The filter is evaluated by the database as a range scan on the {@code end_time} index.
      *
      * @param date the date to compare the training's end time to
-     * @return list of trainings finished after the specified date
+     * @return list of trainings finished after the specified date, ordered by end time
+     */
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT t FROM Training t WHERE t.endTime > :date ORDER BY t.endTime, t.id")
+    List<Training> findByEndDateAfter(@Param("date") Date date);
+
+    /**
+     * Streams all trainings ordered by start time and ID.
+     * Rows are read through a JDBC cursor in chunks of {@link #STREAM_FETCH_SIZE}, so the caller must consume
+     * the stream inside a transaction and close it afterwards.
+     *
+     * @return stream of all trainings
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Training t LEFT JOIN FETCH t.user ORDER BY t.startTime, t.id")
+    Stream<Training> streamAll();
+
+    /**
+     * Reads the columns of the trainings following the given position in the order of user ID and training ID,
+     * seeking with the {@code (user_id, id)} index.
+     * Every row holds the training ID, user ID, user birthdate, start time, end time, activity type, distance
+     * and average speed.
+     *
+     * @param afterUserId ID of the user of the last training already read, 0 to start from the beginning
+     * @param afterId     ID of the last training already read, 0 to start from the beginning
+     * @param limit       maximum number of rows
+     * @return rows of training columns
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("""
+            SELECT t.id, t.user.id, u.birthdate, t.startTime, t.endTime, t.activityType, t.distance, t.averageSpeed
+            FROM Training t JOIN t.user u
+            WHERE t.user.id > :afterUserId OR (t.user.id = :afterUserId AND t.id > :afterId)
+            ORDER BY t.user.id, t.id""")
+    List<Object[]> findColumnsByUserAfter(@Param("afterUserId") long afterUserId,
+                                          @Param("afterId") long afterId,
+                                          Limit limit);
+
+    /**
+     * Reads the columns of the trainings with an ID in the given range, in the order of their IDs, seeking with the
+     * primary key. Columns are the same as in {@link #findColumnsByUserAfter(long, long, Limit)}; the user columns
+     * are {@code null} for trainings without a user.
+     *
+     * @param afterId ID of the last training already read, exclusive lower bound of the range
+     * @param toId    inclusive upper bound of the range
+     * @param limit   maximum number of rows
+     * @return rows of training columns
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("""
+            SELECT t.id, u.id, u.birthdate, t.startTime, t.endTime, t.activityType, t.distance, t.averageSpeed
+            FROM Training t LEFT JOIN t.user u
+            WHERE t.id > :afterId AND t.id <= :toId
+            ORDER BY t.id""")
+    List<Object[]> findColumnsInIdRange(@Param("afterId") long afterId, @Param("toId") long toId, Limit limit);
+
+    /**
+     * Reads the columns of the trainings inserted or updated since the given time, in the order of their IDs.
+     * Columns are the same as in {@link #findColumnsInIdRange(long, long, Limit)}.
+     *
+     * @param since   inclusive lower bound of the modification time
+     * @param afterId ID of the last training already read
+     * @param limit   maximum number of rows
+     * @return rows of training columns
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("""
+            SELECT t.id, u.id, u.birthdate, t.startTime, t.endTime, t.activityType, t.distance, t.averageSpeed
+            FROM Training t LEFT JOIN t.user u
+            WHERE t.modifiedAt >= :since AND t.id > :afterId
+            ORDER BY t.id""")
+    List<Object[]> findColumnsModifiedSince(@Param("since") Instant since, @Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Counts the trainings of every user in an ID range, within a period and overall, with a single grouped scan
+     * of the user index. Columns: user ID, trainings in the period, distance in the period, all trainings.
+     *
+     * @param afterUserId exclusive lower bound of the user IDs
+     * @param toUserId    inclusive upper bound of the user IDs
+     * @param from        inclusive lower bound of the start time of the period
+     * @param to          exclusive upper bound of the start time of the period
+     * @return one row per user with at least one training
+     */
+    @Query("""
+            SELECT t.user.id,
+                   SUM(CASE WHEN t.startTime >= :from AND t.startTime < :to THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN t.startTime >= :from AND t.startTime < :to THEN t.distance ELSE 0.0 END),
+                   COUNT(t)
+            FROM Training t
+            WHERE t.user.id > :afterUserId AND t.user.id <= :toUserId
+            GROUP BY t.user.id""")
+    List<Object[]> countByUserInRange(@Param("afterUserId") long afterUserId,
+                                      @Param("toUserId") long toUserId,
+                                      @Param("from") Date from,
+                                      @Param("to") Date to);
+
+    /**
+     * @return the lowest training ID, empty if there are no trainings
+     */
+    @Query("SELECT MIN(t.id) FROM Training t")
+    Optional<Long> findMinId();
+
+    /**
+     * @return the highest training ID, empty if there are no trainings
+     */
+    @Query("SELECT MAX(t.id) FROM Training t")
+    Optional<Long> findMaxId();
+
+    /**
+     * @return the sum of all training IDs, wrapped to 64 bits, 0 if there are no trainings
+     */
+    @Query("SELECT COALESCE(SUM(t.id), 0) FROM Training t")
+    Number sumIds();
+
+    /**
+     * Marks every training of the user as modified, without loading them; bypasses the entity callbacks.
+     *
+     * @param userId     ID of the user
+     * @param modifiedAt modification time to set
+     * @return number of updated trainings
      */
-    default List<Training> findByEndDateAfter(Date date) {
-        return findAll().stream()
-                .filter(training -> training.getEndTime().after(date))
-                .toList();
-    }
+    @Modifying
+    @Query("UPDATE Training t SET t.modifiedAt = :modifiedAt WHERE t.user.id = :userId")
+    int touchByUserId(@Param("userId") Long userId, @Param("modifiedAt") Instant modifiedAt);
 }
@@ -1,27 +1,70 @@
 package pl.wsb.fitnesstracker.training.internal;
 
+import jakarta.annotation.Nullable;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.wsb.fitnesstracker.exception.api.BusinessException;
+import pl.wsb.fitnesstracker.training.api.CursorPage;
 import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.training.api.TrainingBatchItem;
+import pl.wsb.fitnesstracker.training.api.TrainingBatchResult;
+import pl.wsb.fitnesstracker.training.api.TrainingChangedEvent;
+import pl.wsb.fitnesstracker.training.api.TrainingChunk;
+import pl.wsb.fitnesstracker.training.api.TrainingIdRange;
 import pl.wsb.fitnesstracker.training.api.TrainingNotFoundException;
 import pl.wsb.fitnesstracker.training.api.TrainingProvider;
+import pl.wsb.fitnesstracker.training.api.TrainingSearchCriteria;
 import pl.wsb.fitnesstracker.training.api.TrainingService;
+import pl.wsb.fitnesstracker.training.api.TrainingSnapshot;
+import pl.wsb.fitnesstracker.training.api.UserTrainingCount;
 import pl.wsb.fitnesstracker.user.api.User;
+import pl.wsb.fitnesstracker.user.api.UserBirthdateChangedEvent;
 import pl.wsb.fitnesstracker.user.api.UserProvider;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Transactional(readOnly = true)
 class TrainingServiceImpl implements TrainingProvider, TrainingService {
+
+    /**
+     * Upper bound of the number of trainings accepted by a single batch creation.
+     */
+    static final int MAX_BATCH_SIZE = 1000;
+
+    private static final Sort KEYSET_ORDER = Sort.by("startTime", "id");
+
     private final TrainingRepository trainingRepository;
 
     private final UserProvider userProvider;
 
+    private final EntityManager entityManager;
+
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * Retrieves a training by its ID.
      *
@@ -76,6 +119,160 @@ class TrainingServiceImpl implements TrainingProvider, TrainingService {
         return trainingRepository.findAll();
     }
 
+    @Override
+    public CursorPage<Training> getAllTrainings(@Nullable String cursor, int limit) {
+        return findPage(TrainingSpecifications.all(), cursor, limit);
+    }
+
+    @Override
+    public CursorPage<Training> getTrainingsByUserId(Long userId, @Nullable String cursor, int limit) {
+        return findPage(TrainingSpecifications.ofUser(userId), cursor, limit);
+    }
+
+    @Override
+    public CursorPage<Training> getTrainingsByActivityType(ActivityType activityType, @Nullable String cursor, int limit) {
+        return findPage(TrainingSpecifications.ofActivityType(activityType), cursor, limit);
+    }
+
+    @Override
+    public CursorPage<Training> getTrainingsWithEndDateAfter(Date date, @Nullable String cursor, int limit) {
+        return findPage(TrainingSpecifications.endedAfter(date), cursor, limit);
+    }
+
+    @Override
+    public CursorPage<Training> searchTrainings(TrainingSearchCriteria criteria, @Nullable String cursor, int limit) {
+        TrainingPages.validateCriteria(criteria);
+        return findPage(TrainingSpecifications.matching(criteria), cursor, limit);
+    }
+
+    /**
+     * Streams all trainings to the action. The persistence context is cleared after every fetched chunk,
+     * so processed trainings do not accumulate in memory.
+     *
+     * @param action action invoked for each training
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachTraining(Consumer<Training> action) {
+        try (Stream<Training> trainings = trainingRepository.streamAll()) {
+            Iterator<Training> iterator = trainings.iterator();
+            int processed = 0;
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                if (++processed % TrainingRepository.STREAM_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    @Override
+    public TrainingChunk getTrainingChunkByUser(long afterUserId, long afterTrainingId, int limit) {
+        return toChunk(trainingRepository.findColumnsByUserAfter(afterUserId, afterTrainingId, Limit.of(limit)));
+    }
+
+    @Override
+    public TrainingChunk getTrainingChunk(long afterId, long toId, int limit) {
+        return toChunk(trainingRepository.findColumnsInIdRange(afterId, toId, Limit.of(limit)));
+    }
+
+    @Override
+    public TrainingChunk getTrainingChunkModifiedSince(Instant since, long afterId, int limit) {
+        return toChunk(trainingRepository.findColumnsModifiedSince(since, afterId, Limit.of(limit)));
+    }
+
+    @Override
+    public List<UserTrainingCount> countTrainingsByUser(long afterUserId, long toUserId, Date from, Date to) {
+        return trainingRepository.countByUserInRange(afterUserId, toUserId, from, to).stream()
+                .map(row -> new UserTrainingCount(
+                        (Long) row[0],
+                        ((Number) row[1]).longValue(),
+                        ((Number) row[2]).doubleValue(),
+                        ((Number) row[3]).longValue()))
+                .toList();
+    }
+
+    @Override
+    public long countTrainings() {
+        return trainingRepository.count();
+    }
+
+    @Override
+    public Optional<TrainingIdRange> getTrainingIdRange() {
+        return trainingRepository.findMinId()
+                .flatMap(min -> trainingRepository.findMaxId().map(max -> new TrainingIdRange(min, max)));
+    }
+
+    @Override
+    public long sumTrainingIds() {
+        // the exact sum is wider than 64 bits; its low-order bits equal the wrapped long sum
+        return trainingRepository.sumIds().longValue();
+    }
+
+    /**
+     * Publishes a change of every training of the user from the previous birthdate to the new one, so the aggregates,
+     * calories and loads derived from the age are updated like for any other change, and marks the trainings as
+     * modified, so a restore of the training aggregates from a snapshot replays them with the new birthdate.
+     * Runs synchronously inside the transaction of the user update.
+     *
+     * @param event change of the user's birthdate
+     */
+    @EventListener
+    @Transactional
+    void onUserBirthdateChanged(UserBirthdateChangedEvent event) {
+        for (Training training : trainingRepository.findByUserId(event.userId())) {
+            TrainingSnapshot current = TrainingSnapshot.of(training);
+            eventPublisher.publishEvent(new TrainingChangedEvent(current.withUserBirthdate(event.previousBirthdate()), current));
+        }
+        trainingRepository.touchByUserId(event.userId(), Instant.now());
+    }
+
+    /**
+     * Copies rows of training columns into the primitive arrays of a chunk.
+     */
+    private static TrainingChunk toChunk(List<Object[]> rows) {
+        int size = rows.size();
+        long[] ids = new long[size];
+        long[] userIds = new long[size];
+        long[] userBirthdates = new long[size];
+        long[] startTimes = new long[size];
+        long[] endTimes = new long[size];
+        byte[] activityTypes = new byte[size];
+        double[] distances = new double[size];
+        double[] averageSpeeds = new double[size];
+        for (int i = 0; i < size; i++) {
+            Object[] row = rows.get(i);
+            ids[i] = (Long) row[0];
+            userIds[i] = row[1] != null ? (Long) row[1] : TrainingChunk.NO_USER;
+            userBirthdates[i] = row[2] != null ? ((LocalDate) row[2]).toEpochDay() : TrainingChunk.UNKNOWN_BIRTHDATE;
+            startTimes[i] = ((Date) row[3]).getTime();
+            endTimes[i] = ((Date) row[4]).getTime();
+            activityTypes[i] = (byte) ((ActivityType) row[5]).ordinal();
+            distances[i] = (Double) row[6];
+            averageSpeeds[i] = (Double) row[7];
+        }
+        return new TrainingChunk(ids, userIds, userBirthdates, startTimes, endTimes, activityTypes, distances, averageSpeeds);
+    }
+
+    /**
+     * Seeks a single page of trainings, fetching their users in the same query.
+     *
+     * @param filter filter applied to the trainings
+     * @param cursor opaque cursor of the previous page, or {@code null} for the first page
+     * @param limit  maximum number of trainings on the page
+     * @return the page with the cursor of the next page, if any
+     */
+    private CursorPage<Training> findPage(Specification<Training> filter, @Nullable String cursor, int limit) {
+        CursorPage.validateLimit(limit);
+        Specification<Training> specification = TrainingPages.seek(filter, cursor)
+                .and(TrainingSpecifications.fetchUser());
+
+        List<Training> rows = trainingRepository.findBy(specification,
+                query -> query.sortBy(KEYSET_ORDER).limit(limit + 1).all());
+
+        return CursorPage.of(rows, limit, row -> TrainingCursor.after(row).encode());
+    }
+
     private Optional<User> findUser(Long userId) {
         return userProvider.getUser(userId);
     }
@@ -104,6 +301,7 @@ class TrainingServiceImpl implements TrainingProvider, TrainingService {
      * @throws IllegalArgumentException if training already has an ID or user not found
      */
     @Override
+    @Transactional
     public Training createTraining(Training training, Long userId) {
         if (training.getId() != null) {
             throw new IllegalArgumentException("The training already has an ID in the database, creating a new training is not possible");
@@ -113,7 +311,86 @@ class TrainingServiceImpl implements TrainingProvider, TrainingService {
                 .orElseThrow(() -> new IllegalArgumentException("User with ID " + userId + " not found"));
         Training newTraining = buildTrainingWithUser(training, user);
 
-        return trainingRepository.save(newTraining);
+        Training saved = trainingRepository.save(newTraining);
+        eventPublisher.publishEvent(new TrainingChangedEvent(null, TrainingSnapshot.of(saved)));
+        return saved;
+    }
+
+    /**
+     * Creates many trainings in a single transaction.
+     * <p>
+     * All referenced users are loaded with one {@code IN} query. IDs of the valid trainings are taken from
+     * the pooled sequence when they are persisted, and the inserts are flushed in JDBC batches on commit.
+     * Elements that fail validation are reported as rejected and skipped.
+     * </p>
+     *
+     * @param items trainings to create, each with the ID of its owner
+     * @return per-element results, in the order of the request
+     * @throws BusinessException if the batch is larger than {@link #MAX_BATCH_SIZE}
+     */
+    @Override
+    @Transactional
+    public List<TrainingBatchResult> createTrainings(List<TrainingBatchItem> items) {
+        if (items.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException("Batch must not contain more than %d trainings".formatted(MAX_BATCH_SIZE));
+        }
+
+        Set<Long> userIds = items.stream()
+                .map(TrainingBatchItem::userId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, User> users = userProvider.getUsers(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<Training> accepted = new ArrayList<>(items.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(items.size());
+        TrainingBatchResult[] results = new TrainingBatchResult[items.size()];
+        for (int index = 0; index < items.size(); index++) {
+            TrainingBatchItem item = items.get(index);
+            String error = validateBatchItem(item, users);
+            if (error != null) {
+                results[index] = TrainingBatchResult.rejected(index, error);
+                continue;
+            }
+            accepted.add(buildTrainingWithUser(item.training(), users.get(item.userId())));
+            acceptedIndexes.add(index);
+        }
+
+        List<Training> saved = trainingRepository.saveAll(accepted);
+        for (int i = 0; i < saved.size(); i++) {
+            int index = acceptedIndexes.get(i);
+            results[index] = TrainingBatchResult.created(index, saved.get(i).getId());
+            eventPublisher.publishEvent(new TrainingChangedEvent(null, TrainingSnapshot.of(saved.get(i))));
+        }
+        log.info("Batch of {} trainings processed, {} created", items.size(), saved.size());
+        return List.of(results);
+    }
+
+    /**
+     * @return reason of the rejection, or {@code null} if the item is valid
+     */
+    @Nullable
+    private String validateBatchItem(TrainingBatchItem item, Map<Long, User> users) {
+        Training training = item.training();
+        if (training.getId() != null) {
+            return "The training already has an ID in the database, creating a new training is not possible";
+        }
+        if (item.userId() == null || !users.containsKey(item.userId())) {
+            return "User with ID " + item.userId() + " not found";
+        }
+        if (training.getStartTime() == null || training.getEndTime() == null) {
+            return "Start time and end time are required";
+        }
+        if (training.getEndTime().before(training.getStartTime())) {
+            return "End time must not be before start time";
+        }
+        if (training.getActivityType() == null) {
+            return "Activity type is required";
+        }
+        if (training.getDistance() < 0 || training.getAverageSpeed() < 0) {
+            return "Distance and average speed must not be negative";
+        }
+        return null;
     }
 
     private void copyTrainingFields(Training existing, Training updated) {
@@ -139,6 +416,7 @@ class TrainingServiceImpl implements TrainingProvider, TrainingService {
      * @throws IllegalArgumentException if the user does not exist
      */
     @Override
+    @Transactional
     public Training updateTraining(Training updatedTraining, Long trainingId, Long userId) {
         Training existingTraining = trainingRepository.findById(trainingId)
                 .orElseThrow(() -> new TrainingNotFoundException(trainingId));
@@ -146,9 +424,12 @@ class TrainingServiceImpl implements TrainingProvider, TrainingService {
         User user = findUser(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User with ID " + userId + " not found"));
 
+        TrainingSnapshot previous = TrainingSnapshot.of(existingTraining);
         copyTrainingFields(existingTraining, updatedTraining);
         existingTraining.setUser(user);
 
-        return trainingRepository.save(existingTraining);
+        Training saved = trainingRepository.save(existingTraining);
+        eventPublisher.publishEvent(new TrainingChangedEvent(previous, TrainingSnapshot.of(saved)));
+        return saved;
     }
 }
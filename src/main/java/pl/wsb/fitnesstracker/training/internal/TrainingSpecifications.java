@@ -0,0 +1,124 @@
+package pl.wsb.fitnesstracker.training.internal;
+
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.training.api.TrainingSearchCriteria;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Reusable query predicates for {@link Training} lookups.
+ */
+final class TrainingSpecifications {
+
+    private TrainingSpecifications() {
+    }
+
+    /**
+     * @return specification matching every training
+     */
+    static Specification<Training> all() {
+        return (root, query, cb) -> cb.conjunction();
+    }
+
+    /**
+     * Fetches the owning user in the same query, so mapping the result does not trigger a select per training.
+     * The fetch is skipped for count queries, which cannot contain fetch joins.
+     *
+     * @return specification fetching the user relation without restricting the result
+     */
+    static Specification<Training> fetchUser() {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("user", JoinType.LEFT);
+            }
+            return cb.conjunction();
+        };
+    }
+
+    /**
+     * @param userId ID of the owning user
+     * @return specification matching trainings of the user
+     */
+    static Specification<Training> ofUser(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    /**
+     * @param activityType type of the activity
+     * @return specification matching trainings of the activity type
+     */
+    static Specification<Training> ofActivityType(ActivityType activityType) {
+        return (root, query, cb) -> cb.equal(root.get("activityType"), activityType);
+    }
+
+    /**
+     * @param date exclusive lower bound of the end time
+     * @return specification matching trainings finished after the date
+     */
+    static Specification<Training> endedAfter(Date date) {
+        return (root, query, cb) -> cb.greaterThan(root.<Date>get("endTime"), date);
+    }
+
+    /**
+     * Combines all given search filters into a single predicate. Equality filters come first,
+     * so the database can use the {@code (user_id, activity_type, start_time)} family of indexes.
+     *
+     * @param criteria filters of the search
+     * @return specification matching trainings that satisfy every given filter
+     */
+    static Specification<Training> matching(TrainingSearchCriteria criteria) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (criteria.userId() != null) {
+                predicates.add(cb.equal(root.get("user").get("id"), criteria.userId()));
+            }
+            if (criteria.activityType() != null) {
+                predicates.add(cb.equal(root.get("activityType"), criteria.activityType()));
+            }
+            Path<Date> startTime = root.get("startTime");
+            if (criteria.startFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(startTime, criteria.startFrom()));
+            }
+            if (criteria.startTo() != null) {
+                predicates.add(cb.lessThan(startTime, criteria.startTo()));
+            }
+            Path<Date> endTime = root.get("endTime");
+            if (criteria.endFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(endTime, criteria.endFrom()));
+            }
+            if (criteria.endTo() != null) {
+                predicates.add(cb.lessThan(endTime, criteria.endTo()));
+            }
+            Path<Double> distance = root.get("distance");
+            if (criteria.minDistance() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(distance, criteria.minDistance()));
+            }
+            if (criteria.maxDistance() != null) {
+                predicates.add(cb.lessThanOrEqualTo(distance, criteria.maxDistance()));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Seek predicate of the keyset pagination: {@code (start_time, id) > (cursor.startTime, cursor.id)}.
+     *
+     * @param cursor position of the last element of the previous page
+     * @return specification matching trainings positioned after the cursor
+     */
+    static Specification<Training> after(TrainingCursor cursor) {
+        return (root, query, cb) -> {
+            Path<Date> startTime = root.get("startTime");
+            Path<Long> id = root.get("id");
+            return cb.or(
+                    cb.greaterThan(startTime, cursor.startTime()),
+                    cb.and(cb.equal(startTime, cursor.startTime()), cb.greaterThan(id, cursor.id())));
+        };
+    }
+}
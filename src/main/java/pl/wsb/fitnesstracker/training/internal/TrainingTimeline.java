@@ -0,0 +1,151 @@
+package pl.wsb.fitnesstracker.training.internal;
+
+import jakarta.annotation.Nullable;
+import pl.wsb.fitnesstracker.training.api.CursorPage;
+import pl.wsb.fitnesstracker.training.api.TrainingSnapshot;
+import pl.wsb.fitnesstracker.user.api.UserDto;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Immutable, {@code (start_time, id)}-sorted list of the trainings of a single user, as cached by {@link TrainingTimelineCache}.
+ * Modifications return a new timeline, so readers can slice it without locking.
+ * <p>
+ * Users with more trainings than the cache accepts are represented by an empty {@linkplain #oversized oversized}
+ * marker, so their timelines are not loaded again on every request.
+ * </p>
+ */
+final class TrainingTimeline {
+
+    @Nullable
+    private final UserDto user;
+
+    private final TrainingDto[] trainings;
+
+    private final long loadedAtNanos;
+
+    private final boolean oversized;
+
+    TrainingTimeline(@Nullable UserDto user, TrainingDto[] trainings, long loadedAtNanos) {
+        this(user, trainings, loadedAtNanos, false);
+    }
+
+    private TrainingTimeline(@Nullable UserDto user, TrainingDto[] trainings, long loadedAtNanos, boolean oversized) {
+        this.user = user;
+        this.trainings = trainings;
+        this.loadedAtNanos = loadedAtNanos;
+        this.oversized = oversized;
+    }
+
+    /**
+     * @param trainings trainings of the user sorted by start time and ID
+     * @param nowNanos  current {@link System#nanoTime()}
+     * @return the timeline
+     */
+    static TrainingTimeline of(List<TrainingDto> trainings, long nowNanos) {
+        UserDto user = trainings.isEmpty() ? null : trainings.get(0).getUser();
+        return new TrainingTimeline(user, trainings.toArray(TrainingDto[]::new), nowNanos);
+    }
+
+    /**
+     * @param nowNanos current {@link System#nanoTime()}
+     * @return marker of a timeline too long to be cached, holding no trainings
+     */
+    static TrainingTimeline oversized(long nowNanos) {
+        return new TrainingTimeline(null, new TrainingDto[0], nowNanos, true);
+    }
+
+    /**
+     * @return {@code true} if this is a marker of a timeline too long to be cached, which must be paged from the database
+     */
+    boolean isOversized() {
+        return oversized;
+    }
+
+    int size() {
+        return trainings.length;
+    }
+
+    boolean isOlderThan(long maxAgeNanos, long nowNanos) {
+        return nowNanos - loadedAtNanos > maxAgeNanos;
+    }
+
+    /**
+     * @param cursor position after which the page starts, or {@code null} for the first page
+     * @param limit  maximum number of trainings on the page
+     * @return page of the timeline
+     */
+    CursorPage<TrainingDto> slice(@Nullable TrainingCursor cursor, int limit) {
+        int from = cursor == null ? 0 : insertionPoint(cursor.startTime().getTime(), cursor.id() + 1);
+        int to = Math.min(from + limit, trainings.length);
+        List<TrainingDto> items = List.of(Arrays.copyOfRange(trainings, from, to));
+        String next = to < trainings.length ? TrainingCursor.after(trainings[to - 1]).encode() : null;
+        return new CursorPage<>(items, next);
+    }
+
+    /**
+     * Inserts the training or replaces its previous version.
+     *
+     * @return the updated timeline, or {@code null} if the timeline cannot build DTOs because it does not know the user
+     */
+    @Nullable
+    TrainingTimeline with(TrainingSnapshot training) {
+        if (user == null) {
+            return null;
+        }
+        TrainingDto[] remaining = without(training.id()).trainings;
+        TrainingDto dto = new TrainingDto(training.id(), user,
+                Date.from(training.startTime()), Date.from(training.endTime()),
+                training.activityType(), training.distance(), training.averageSpeed());
+
+        int index = insertionPoint(training.startTime().toEpochMilli(), training.id(), remaining);
+        TrainingDto[] updated = new TrainingDto[remaining.length + 1];
+        System.arraycopy(remaining, 0, updated, 0, index);
+        updated[index] = dto;
+        System.arraycopy(remaining, index, updated, index + 1, remaining.length - index);
+        return new TrainingTimeline(user, updated, loadedAtNanos);
+    }
+
+    /**
+     * @return the timeline without the training with the given ID
+     */
+    TrainingTimeline without(Long trainingId) {
+        for (int i = 0; i < trainings.length; i++) {
+            if (trainings[i].getId().equals(trainingId)) {
+                TrainingDto[] updated = new TrainingDto[trainings.length - 1];
+                System.arraycopy(trainings, 0, updated, 0, i);
+                System.arraycopy(trainings, i + 1, updated, i, trainings.length - i - 1);
+                return new TrainingTimeline(user, updated, loadedAtNanos);
+            }
+        }
+        return this;
+    }
+
+    private int insertionPoint(long startMillis, long id) {
+        return insertionPoint(startMillis, id, trainings);
+    }
+
+    /**
+     * @return index of the first training positioned at or after {@code (startMillis, id)}
+     */
+    private static int insertionPoint(long startMillis, long id, TrainingDto[] trainings) {
+        int low = 0;
+        int high = trainings.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            TrainingDto candidate = trainings[mid];
+            int comparison = Long.compare(candidate.getStartTime().getTime(), startMillis);
+            if (comparison == 0) {
+                comparison = Long.compare(candidate.getId(), id);
+            }
+            if (comparison < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
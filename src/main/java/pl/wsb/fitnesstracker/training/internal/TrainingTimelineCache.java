@@ -0,0 +1,206 @@
+package pl.wsb.fitnesstracker.training.internal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.wsb.fitnesstracker.training.api.TrainingChangedEvent;
+import pl.wsb.fitnesstracker.training.api.TrainingSnapshot;
+import pl.wsb.fitnesstracker.user.api.UserUpdatedEvent;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, least-recently-used cache of per-user training timelines.
+ * <p>
+ * Timelines are loaded on a miss and kept up to date write-through: every committed {@link TrainingChangedEvent}
+ * is applied to the cached timelines of the affected users. A timeline embeds the details of its user, so it is
+ * dropped when a {@link UserUpdatedEvent} commits. Loads racing with a write are detected with striped write stamps
+ * and are not cached, so a stale timeline can never overwrite a fresher one.
+ * </p>
+ * <p>
+ * The memory cap is expressed as the total number of cached trainings ({@link TrainingCacheProperties#getMaxTrainings()});
+ * hits, misses and evictions are exposed as {@code training.timeline.cache.*} metrics.
+ * </p>
+ */
+@Component
+@Slf4j
+class TrainingTimelineCache {
+
+    private static final int STAMP_STRIPES = 256;
+
+    private final TrainingCacheProperties properties;
+
+    private final Map<Long, TrainingTimeline> timelines = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLongArray writeStamps = new AtomicLongArray(STAMP_STRIPES);
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter evictions;
+
+    /**
+     * Number of cached trainings plus one per cached timeline, so empty timelines also count against the cap.
+     */
+    private long weight;
+
+    TrainingTimelineCache(TrainingCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.hits = meterRegistry.counter("training.timeline.cache.hits");
+        this.misses = meterRegistry.counter("training.timeline.cache.misses");
+        this.evictions = meterRegistry.counter("training.timeline.cache.evictions");
+        Gauge.builder("training.timeline.cache.users", this, TrainingTimelineCache::size).register(meterRegistry);
+        Gauge.builder("training.timeline.cache.weight", this, TrainingTimelineCache::weight).register(meterRegistry);
+    }
+
+    /**
+     * Looks the user's timeline up in the cache.
+     *
+     * @param userId ID of the user
+     * @return the timeline, possibly an {@linkplain TrainingTimeline#isOversized() oversized} marker, or empty if the
+     * timeline is not cached
+     */
+    Optional<TrainingTimeline> find(Long userId) {
+        TrainingTimeline timeline;
+        synchronized (this) {
+            timeline = timelines.get(userId);
+            if (timeline != null && timeline.isOlderThan(properties.getTimeToLive().toNanos(), System.nanoTime())) {
+                remove(userId);
+                evictions.increment();
+                timeline = null;
+            }
+        }
+        if (timeline == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(timeline);
+    }
+
+    /**
+     * Returns the write stamp of the user, to be passed to {@link #put} after the timeline is loaded from the database.
+     *
+     * @param userId ID of the user
+     * @return current write stamp
+     */
+    long writeStamp(Long userId) {
+        return writeStamps.get(stripe(userId));
+    }
+
+    /**
+     * Caches the timeline loaded from the database, unless a write affecting the user was committed since
+     * {@code writeStamp} was taken. A timeline longer than allowed is cached as an
+     * {@linkplain TrainingTimeline#oversized oversized} marker.
+     *
+     * @param userId     ID of the user
+     * @param writeStamp write stamp taken before the timeline was loaded
+     * @param trainings  trainings of the user sorted by start time and ID
+     * @return the timeline or the oversized marker, whether cached or not
+     */
+    TrainingTimeline put(Long userId, long writeStamp, List<TrainingDto> trainings) {
+        TrainingTimeline timeline = trainings.size() > properties.getMaxTrainingsPerUser()
+                ? TrainingTimeline.oversized(System.nanoTime())
+                : TrainingTimeline.of(trainings, System.nanoTime());
+        synchronized (this) {
+            if (writeStamps.get(stripe(userId)) == writeStamp) {
+                replace(userId, timeline);
+                evictOverflow();
+            }
+        }
+        return timeline;
+    }
+
+    /**
+     * Applies a committed training change to the cached timelines of the previous and the current owner.
+     * An oversized marker is kept while trainings are added to the user, and dropped when one is taken away.
+     *
+     * @param event committed change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTrainingChanged(TrainingChangedEvent event) {
+        TrainingSnapshot previous = event.previous();
+        TrainingSnapshot current = event.current();
+        synchronized (this) {
+            if (previous != null && previous.userId() != null && !Objects.equals(previous.userId(), current.userId())) {
+                writeStamps.incrementAndGet(stripe(previous.userId()));
+                TrainingTimeline timeline = timelines.get(previous.userId());
+                if (timeline != null && timeline.isOversized()) {
+                    remove(previous.userId());
+                } else if (timeline != null) {
+                    replace(previous.userId(), timeline.without(previous.id()));
+                }
+            }
+            if (current.userId() != null) {
+                writeStamps.incrementAndGet(stripe(current.userId()));
+                TrainingTimeline timeline = timelines.get(current.userId());
+                if (timeline != null && !timeline.isOversized()) {
+                    TrainingTimeline updated = timeline.with(current);
+                    if (updated == null || updated.size() > properties.getMaxTrainingsPerUser()) {
+                        remove(current.userId());
+                    } else {
+                        replace(current.userId(), updated);
+                    }
+                }
+            }
+            evictOverflow();
+        }
+    }
+
+    /**
+     * Drops the cached timeline of a user whose details changed, as its trainings embed the old ones.
+     *
+     * @param event committed update
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserUpdated(UserUpdatedEvent event) {
+        synchronized (this) {
+            writeStamps.incrementAndGet(stripe(event.userId()));
+            remove(event.userId());
+        }
+    }
+
+    synchronized int size() {
+        return timelines.size();
+    }
+
+    synchronized long weight() {
+        return weight;
+    }
+
+    private void replace(Long userId, TrainingTimeline timeline) {
+        remove(userId);
+        timelines.put(userId, timeline);
+        weight += timeline.size() + 1;
+    }
+
+    private void remove(Long userId) {
+        TrainingTimeline removed = timelines.remove(userId);
+        if (removed != null) {
+            weight -= removed.size() + 1;
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<Long, TrainingTimeline>> eldest = timelines.entrySet().iterator();
+        while (weight > properties.getMaxTrainings() && eldest.hasNext()) {
+            weight -= eldest.next().getValue().size() + 1;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static int stripe(Long userId) {
+        return Long.hashCode(userId) & (STAMP_STRIPES - 1);
+    }
+}
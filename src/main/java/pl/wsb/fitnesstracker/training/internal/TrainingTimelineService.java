@@ -0,0 +1,52 @@
+package pl.wsb.fitnesstracker.training.internal;
+
+import jakarta.annotation.Nullable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import pl.wsb.fitnesstracker.training.api.CursorPage;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Serves pages of a user's trainings from the {@link TrainingTimelineCache}, loading the whole timeline on a miss.
+ * Deliberately not transactional, so cache hits do not acquire a database connection.
+ */
+@Service
+@RequiredArgsConstructor
+class TrainingTimelineService {
+
+    private final TrainingTimelineCache timelineCache;
+
+    private final TrainingDtoQueryService trainingDtoQueryService;
+
+    private final TrainingCacheProperties cacheProperties;
+
+    /**
+     * @param userId ID of the user
+     * @param cursor opaque cursor of the previous page, or {@code null} for the first page
+     * @param limit  maximum number of trainings on the page
+     * @return page of the user's trainings ordered by start time and ID
+     */
+    public CursorPage<TrainingDto> getTrainingsByUserId(Long userId, @Nullable String cursor, int limit) {
+        CursorPage.validateLimit(limit);
+        TrainingCursor position = cursor == null ? null : TrainingCursor.decode(cursor);
+
+        Optional<TrainingTimeline> cached = timelineCache.find(userId);
+        if (cached.isPresent()) {
+            return page(cached.get(), userId, cursor, position, limit);
+        }
+
+        long writeStamp = timelineCache.writeStamp(userId);
+        List<TrainingDto> trainings = trainingDtoQueryService.getTimeline(userId, cacheProperties.getMaxTrainingsPerUser() + 1);
+        return page(timelineCache.put(userId, writeStamp, trainings), userId, cursor, position, limit);
+    }
+
+    private CursorPage<TrainingDto> page(TrainingTimeline timeline, Long userId,
+                                         @Nullable String cursor, @Nullable TrainingCursor position, int limit) {
+        if (timeline.isOversized()) {
+            return trainingDtoQueryService.getTrainingsByUserId(userId, cursor, limit);
+        }
+        return timeline.slice(position, limit);
+    }
+}
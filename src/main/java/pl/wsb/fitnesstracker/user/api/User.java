@@ -33,6 +33,13 @@ public class User {
     @Column(nullable = false, unique = true)
     private String email;
 
+    /**
+     * Optimistic-locking version, incremented by every update of the user; also serves as the user's ETag.
+     */
+    @Version
+    @Nullable
+    private Long version;
+
     public User(
             final String firstName,
             final String lastName,
@@ -0,0 +1,16 @@
+package pl.wsb.fitnesstracker.user.api;
+
+import jakarta.annotation.Nullable;
+
+import java.time.LocalDate;
+
+/**
+ * Application event published by the {@link UserService} within the transaction that changes the birthdate of a user.
+ * Listeners run synchronously, so their writes commit or roll back together with the user.
+ *
+ * @param userId            ID of the user
+ * @param previousBirthdate birthdate of the user before the change, or {@code null} if it was not set
+ */
+public record UserBirthdateChangedEvent(Long userId, @Nullable LocalDate previousBirthdate) {
+
+}
@@ -1,6 +1,7 @@
 package pl.wsb.fitnesstracker.user.api;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +16,24 @@ public interface UserProvider {
      */
     Optional<User> getUser(Long userId);
 
+    /**
+     * Retrieves all users with the given IDs using a single query.
+     * IDs that do not match any user are ignored.
+     *
+     * @param userIds ids of the users to be searched
+     * @return A list containing the located users, in no particular order
+     */
+    List<User> getUsers(Collection<Long> userIds);
+
+    /**
+     * Retrieves the current version of a user without loading the user, e.g. to answer conditional requests.
+     * The version changes whenever the user is updated.
+     *
+     * @param userId id of the user
+     * @return An {@link Optional} containing the version, or {@link Optional#empty()} if the user does not exist
+     */
+    Optional<Long> getUserVersion(Long userId);
+
     /**
      * Retrieves a user based on their email.
      * If the user with given email is not found, then {@link Optional#empty()} will be returned.
@@ -31,6 +50,16 @@ public interface UserProvider {
      */
     List<User> findAllUsers();
 
+    /**
+     * Fetches the users following the given ID, ordered by ID, seeking with the primary key.
+     * Continuing from the ID of the last user of every chunk visits all users with constant cost per chunk.
+     *
+     * @param afterId ID of the last user already read, 0 to start from the beginning
+     * @param limit   maximum number of users
+     * @return A list containing at most {@code limit} users, empty once all users have been read
+     */
+    List<User> getUsersAfter(long afterId, int limit);
+
     /**
      * Fetches a paginated list of users with optional sorting.
      * This method provides more control over the result set size and order.
@@ -0,0 +1,11 @@
+package pl.wsb.fitnesstracker.user.api;
+
+/**
+ * Application event published by the {@link UserService} within the transaction that updates a user, e.g. so copies
+ * of the user's details held elsewhere can be dropped once the update commits.
+ *
+ * @param userId ID of the user
+ */
+public record UserUpdatedEvent(Long userId) {
+
+}
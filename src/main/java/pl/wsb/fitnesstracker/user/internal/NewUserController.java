@@ -5,12 +5,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import pl.wsb.fitnesstracker.user.api.User;
 import pl.wsb.fitnesstracker.user.api.UserByEmail;
 import pl.wsb.fitnesstracker.user.api.UserDto;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Function;
 
 /**
@@ -98,12 +100,23 @@ class NewUserController {
 
     /**
      * Returns a user by their unique ID.
+     * The user's version is sent as the {@code ETag}; a request whose {@code If-None-Match} matches the current version
+     * is answered with 304 Not Modified after a single version lookup, without loading or serializing the user.
      *
-     * @param id user identifier
-     * @return UserDto if found, 404 otherwise
+     * @param id         user identifier
+     * @param webRequest current request, used to evaluate the conditional headers
+     * @return UserDto if found, 304 if unchanged, 404 otherwise
      */
     @GetMapping("/{id}")
-    public ResponseEntity<UserDto> getUserById(@PathVariable Long id) {
+    public ResponseEntity<UserDto> getUserById(@PathVariable Long id, WebRequest webRequest) {
+        Optional<Long> version = userService.getUserVersion(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        // also writes the ETag header of the response
+        if (webRequest.checkNotModified(String.valueOf(version.get()))) {
+            return null;
+        }
         return userService.getUser(id)
                 .map(userMapper::toDto)
                 .map(ResponseEntity::ok)
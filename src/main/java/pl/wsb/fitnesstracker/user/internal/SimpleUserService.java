@@ -3,15 +3,22 @@ package pl.wsb.fitnesstracker.user.internal;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import pl.wsb.fitnesstracker.user.api.User;
+import pl.wsb.fitnesstracker.user.api.UserBirthdateChangedEvent;
+import pl.wsb.fitnesstracker.user.api.UserUpdatedEvent;
 import pl.wsb.fitnesstracker.user.api.UserService;
 import pl.wsb.fitnesstracker.user.api.UserProvider;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -21,10 +28,13 @@ import java.util.Optional;
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Transactional(readOnly = true)
 public class SimpleUserService implements UserService, UserProvider {
 
     private final UserRepository userRepository;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     // UserProvider methods
 
     @Override
@@ -33,6 +43,18 @@ public class SimpleUserService implements UserService, UserProvider {
         return userRepository.findById(userId);
     }
 
+    @Override
+    public List<User> getUsers(Collection<Long> userIds) {
+        log.debug("Getting users by IDs: {}", userIds);
+        return userRepository.findAllById(userIds);
+    }
+
+    @Override
+    public Optional<Long> getUserVersion(Long userId) {
+        log.debug("Getting version of user: {}", userId);
+        return userRepository.findVersionById(userId);
+    }
+
     @Override
     public Optional<User> getUserByEmail(String email) {
         log.debug("Getting user by email: {}", email);
@@ -45,6 +67,12 @@ public class SimpleUserService implements UserService, UserProvider {
         return userRepository.findAll();
     }
 
+    @Override
+    public List<User> getUsersAfter(long afterId, int limit) {
+        log.debug("Getting {} users after ID: {}", limit, afterId);
+        return userRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
     @Override
     public List<User> findAllUsersPaginated(int page, int size, String sortBy, boolean ascending) {
         log.debug("Getting users with pagination: page={}, size={}, sortBy={}, ascending={}", 
@@ -86,6 +114,7 @@ public class SimpleUserService implements UserService, UserProvider {
     // UserService methods
 
     @Override
+    @Transactional
     public User createUser(User user) {
         log.info("Creating user: {}", user);
         
@@ -107,12 +136,14 @@ public class SimpleUserService implements UserService, UserProvider {
     }
 
     @Override
+    @Transactional
     public void removeUser(Long id) {
         log.info("Removing user with ID: {}", id);
         userRepository.deleteById(id);
     }
 
     @Override
+    @Transactional
     public Optional<User> updateUser(Long id, User user) {
         log.info("Updating user with ID: {}", id);
         
@@ -126,11 +157,21 @@ public class SimpleUserService implements UserService, UserProvider {
             // Validate email if changed
             validateEmailIfChanged(existingUser, user);
             
+            // The age groups of the user's trainings depend on the birthdate
+            LocalDate previousBirthdate = existingUser.getBirthdate();
+            boolean birthdateChanged = user.getBirthdate() != null
+                    && !Objects.equals(user.getBirthdate(), previousBirthdate);
+
             // Update fields
             updateUserFields(existingUser, user);
             
             // Save and return
-            return userRepository.save(existingUser);
+            User saved = userRepository.save(existingUser);
+            eventPublisher.publishEvent(new UserUpdatedEvent(saved.getId()));
+            if (birthdateChanged) {
+                eventPublisher.publishEvent(new UserBirthdateChangedEvent(saved.getId(), previousBirthdate));
+            }
+            return saved;
         });
     }
 
@@ -1,5 +1,6 @@
 package pl.wsb.fitnesstracker.user.internal;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -39,4 +40,22 @@ interface UserRepository extends JpaRepository<User, Long> {
      */
     @Query("SELECT u FROM User u WHERE u.birthdate < :date")
     List<User> findByBirthdateOlderThan(@Param("date") LocalDate date);
+
+    /**
+     * Finds the users with an ID greater than the given one, in the order of their IDs.
+     *
+     * @param id    The ID of the last user already read
+     * @param limit The maximum number of users
+     * @return A list of users following the given ID
+     */
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Reads only the version of a user, without loading the entity.
+     *
+     * @param id The ID of the user
+     * @return An {@link Optional} containing the version if the user exists
+     */
+    @Query("SELECT u.version FROM User u WHERE u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 }
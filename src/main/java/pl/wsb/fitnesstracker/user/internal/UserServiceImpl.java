@@ -3,6 +3,7 @@ package pl.wsb.fitnesstracker.user.internal;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
@@ -11,6 +12,7 @@ import pl.wsb.fitnesstracker.user.api.UserProvider;
 import pl.wsb.fitnesstracker.user.api.UserService;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -189,6 +191,43 @@ class UserServiceImpl implements pl.wsb.fitnesstracker.user.api.UserService, pl.
         return userRepository.findById(userId);
     }
 
+    /**
+     * Fetches all users with the given IDs in a single {@code IN} query.
+     *
+     * @param userIds The unique identifiers of the users
+     * @return A list containing the users found
+     */
+    @Override
+    public List<User> getUsers(Collection<Long> userIds) {
+        log.debug("Fetching Users with IDs: {}", userIds);
+        return userRepository.findAllById(userIds);
+    }
+
+    /**
+     * Fetches the users following the given ID, ordered by ID, seeking with the primary key.
+     *
+     * @param afterId The ID of the last user already read
+     * @param limit   The maximum number of users
+     * @return A list containing the users found
+     */
+    @Override
+    public List<User> getUsersAfter(long afterId, int limit) {
+        log.debug("Fetching {} Users after ID: {}", limit, afterId);
+        return userRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
+    /**
+     * Reads only the version of a user, without loading the entity.
+     *
+     * @param userId The unique identifier of the user
+     * @return An {@link Optional} containing the version if the user exists
+     */
+    @Override
+    public Optional<Long> getUserVersion(final Long userId) {
+        log.debug("Fetching version of User with ID: {}", userId);
+        return userRepository.findVersionById(userId);
+    }
+
     /**
      * Retrieves a user entity by their email address.
      *
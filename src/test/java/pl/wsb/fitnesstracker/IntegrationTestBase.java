@@ -5,12 +5,24 @@ import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
 import org.springframework.data.jpa.repository.JpaRepository;
+import pl.wsb.fitnesstracker.statistics.api.Statistics;
+import pl.wsb.fitnesstracker.statistics.internal.TrainingAggregatesFixture;
 import pl.wsb.fitnesstracker.training.api.Training;
 import pl.wsb.fitnesstracker.user.api.User;
 
 import java.util.List;
 
+import static java.time.LocalDate.now;
+import static java.util.UUID.randomUUID;
+
+/**
+ * Base of the tests running against the whole application. Not transactional: the data of a test is committed, so
+ * everything that happens when a transaction commits (statistics, caches, collection versions, in-memory aggregates)
+ * behaves as in production, and requests never share a persistence context with the test. Tests that need none of
+ * that may be annotated with {@code @Transactional}.
+ */
 @SpringBootTest
 @AutoConfigureMockMvc
 public abstract class IntegrationTestBase {
@@ -21,6 +33,19 @@ public abstract class IntegrationTestBase {
     @Autowired
     private JpaRepository<Training, Long> trainingRepository;
 
+    @Autowired
+    private JpaRepository<Statistics, Long> statisticsRepository;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    /**
+     * @return a new, not persisted user with random names and e-mail, born today
+     */
+    protected static User generateClient() {
+        return new User(randomUUID().toString(), randomUUID().toString(), now(), randomUUID().toString());
+    }
+
     @AfterEach
     void cleanUp() {
         cleanDatabase();
@@ -28,6 +53,7 @@ public abstract class IntegrationTestBase {
     }
 
     private void cleanDatabase() {
+        statisticsRepository.deleteAll();
         trainingRepository.deleteAll();
         userRepository.deleteAll();
     }
@@ -43,6 +69,15 @@ public abstract class IntegrationTestBase {
         return trainingRepository.save(training);
     }
 
+    /**
+     * Persists the trainings and rebuilds the in-memory training aggregates from the database, which persisting with
+     * a repository does not update.
+     */
+    protected void persistTrainingsAndRebuildAggregates(List<Training> trainings) {
+        trainings.forEach(this::persistTraining);
+        TrainingAggregatesFixture.rebuild(applicationContext);
+    }
+
     protected User existingUser(User user) {
 
         return userRepository.save(user);
@@ -0,0 +1,140 @@
+package pl.wsb.fitnesstracker.datasource.internal;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import pl.wsb.fitnesstracker.IntegrationTest;
+import pl.wsb.fitnesstracker.IntegrationTestBase;
+import pl.wsb.fitnesstracker.user.api.User;
+import pl.wsb.fitnesstracker.user.api.UserProvider;
+import pl.wsb.fitnesstracker.user.api.UserService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the application against two H2 pools of the same in-memory database, one acting as the primary
+ * and one as the replica, and checks which pool serves which work.
+ */
+@IntegrationTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1",
+        "datasource.replica.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1"
+})
+class RoutingDataSourceIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserProvider userProvider;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void shouldServeProviderReadsFromReplica() {
+        long replicaBefore = connections(DataSourceRoute.REPLICA);
+        long primaryBefore = connections(DataSourceRoute.PRIMARY);
+
+        userProvider.findAllUsers();
+
+        assertThat(connections(DataSourceRoute.REPLICA)).isEqualTo(replicaBefore + 1);
+        assertThat(connections(DataSourceRoute.PRIMARY)).isEqualTo(primaryBefore);
+    }
+
+    @Test
+    void shouldServeWritesFromPrimary() {
+        long replicaBefore = connections(DataSourceRoute.REPLICA);
+        long primaryBefore = connections(DataSourceRoute.PRIMARY);
+
+        userService.createUser(generateClient());
+
+        assertThat(connections(DataSourceRoute.PRIMARY)).isGreaterThan(primaryBefore);
+        assertThat(connections(DataSourceRoute.REPLICA)).isEqualTo(replicaBefore);
+    }
+
+    @Test
+    void shouldServeReadsFromPrimaryWithinReadYourWritesWindow() throws Exception {
+        MvcResult creation = mockMvc.perform(post("/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                "firstName": "Jan",
+                                "lastName": "Kowalski",
+                                "birthdate": "1990-01-01",
+                                "email": "jan.kowalski@example.com"
+                                }
+                                """))
+                .andExpect(status().isCreated())
+                .andExpect(header().exists(ReadYourWritesFilter.CONSISTENCY_TOKEN_HEADER))
+                .andReturn();
+        String token = creation.getResponse().getHeader(ReadYourWritesFilter.CONSISTENCY_TOKEN_HEADER);
+        long replicaBefore = connections(DataSourceRoute.REPLICA);
+
+        mockMvc.perform(get("/v1/users").header(ReadYourWritesFilter.CONSISTENCY_TOKEN_HEADER, token))
+                .andExpect(status().isOk());
+        assertThat(connections(DataSourceRoute.REPLICA)).isEqualTo(replicaBefore);
+
+        mockMvc.perform(get("/v1/users"))
+                .andExpect(status().isOk());
+        assertThat(connections(DataSourceRoute.REPLICA)).isEqualTo(replicaBefore + 1);
+    }
+
+    @Test
+    void shouldIgnoreConsistencyTokenFromTheFuture() throws Exception {
+        String forged = Long.toString(System.currentTimeMillis() + 60_000);
+        long replicaBefore = connections(DataSourceRoute.REPLICA);
+
+        mockMvc.perform(get("/v1/users").header(ReadYourWritesFilter.CONSISTENCY_TOKEN_HEADER, forged))
+                .andExpect(status().isOk());
+
+        assertThat(connections(DataSourceRoute.REPLICA)).isEqualTo(replicaBefore + 1);
+    }
+
+    @Test
+    void shouldNotIssueConsistencyToken_whenMutationFails() throws Exception {
+        mockMvc.perform(put("/v1/users/{id}", Long.MAX_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                "firstName": "Jan",
+                                "lastName": "Kowalski",
+                                "birthdate": "1990-01-01",
+                                "email": "jan.kowalski@example.com"
+                                }
+                                """))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist(ReadYourWritesFilter.CONSISTENCY_TOKEN_HEADER));
+    }
+
+    @Test
+    void shouldLoadCachedTrainingTimelineFromPrimary() throws Exception {
+        User user = userService.createUser(generateClient());
+        long primaryBefore = connections(DataSourceRoute.PRIMARY);
+
+        mockMvc.perform(get("/v1/trainings/{userId}", user.getId()))
+                .andExpect(status().isOk());
+        assertThat(connections(DataSourceRoute.PRIMARY)).isEqualTo(primaryBefore + 1);
+
+        mockMvc.perform(get("/v1/trainings/{userId}", user.getId()))
+                .andExpect(status().isOk());
+        assertThat(connections(DataSourceRoute.PRIMARY)).isEqualTo(primaryBefore + 1);
+    }
+
+    private long connections(DataSourceRoute route) {
+        return meterRegistry.timer(InstrumentedDataSource.USAGE_METRIC, "route", route.tagValue()).count();
+    }
+
+}
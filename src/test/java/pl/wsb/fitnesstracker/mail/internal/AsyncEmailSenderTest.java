@@ -0,0 +1,241 @@
+package pl.wsb.fitnesstracker.mail.internal;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import pl.wsb.fitnesstracker.mail.api.EmailDto;
+import pl.wsb.fitnesstracker.mail.api.EmailQueueFullException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class AsyncEmailSenderTest {
+
+    /**
+     * Fast enough not to slow the tests down; throttled e-mails are sent at most three times.
+     */
+    private static final ThrottleProperties THROTTLE = throttle(Duration.ofMillis(10));
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    private AsyncEmailSender sender;
+
+    @AfterEach
+    void stopSender() {
+        released.countDown();
+        if (sender != null) {
+            sender.shutdown();
+        }
+    }
+
+    @Test
+    void shouldSendQueuedEmailsInBatches() throws Exception {
+        sender = sender(greenMailSender(), properties(100, 2, MailProperties.OverflowPolicy.BLOCK));
+
+        for (int i = 0; i < 25; i++) {
+            sender.send(new EmailDto("user" + i + "@example.com", "Report " + i, "Content " + i));
+        }
+
+        assertThat(greenMail.waitForIncomingEmail(10_000, 25)).isTrue();
+        assertThat(greenMail.getReceivedMessages()).hasSize(25);
+        assertThat(greenMail.getReceivedMessages()[0].getFrom()[0].toString()).isEqualTo("tracker@example.com");
+        await().atMost(Duration.ofSeconds(5)).until(() -> meterRegistry.counter("mail.sent").count() == 25);
+        assertThat(meterRegistry.timer("mail.batch.duration").count()).isLessThan(25);
+        assertThat(meterRegistry.timer("mail.delivery.latency").count()).isEqualTo(25);
+    }
+
+    @Test
+    void shouldDropEmail_whenQueueIsFull() {
+        sender = sender(blockingSender(), properties(1, 1, MailProperties.OverflowPolicy.DROP));
+        fillQueue();
+
+        sender.send(email());
+
+        assertThat(meterRegistry.counter("mail.dropped").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectEmail_whenQueueIsFull() {
+        sender = sender(blockingSender(), properties(1, 1, MailProperties.OverflowPolicy.REJECT));
+        fillQueue();
+
+        assertThatThrownBy(() -> sender.send(email())).isInstanceOf(EmailQueueFullException.class);
+        assertThat(meterRegistry.counter("mail.rejected").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldWaitForFreeSlot_whenQueueIsFullAndPolicyIsBlock() throws Exception {
+        sender = sender(blockingSender(), properties(1, 1, MailProperties.OverflowPolicy.BLOCK));
+        fillQueue();
+
+        Thread producer = new Thread(() -> sender.send(email()));
+        producer.start();
+        producer.join(300);
+        assertThat(producer.isAlive()).isTrue();
+
+        released.countDown();
+        producer.join(5_000);
+        assertThat(producer.isAlive()).isFalse();
+        assertThat(meterRegistry.counter("mail.rejected").count()).isZero();
+    }
+
+    @Test
+    void shouldCountFailures_whenServerIsUnreachable() {
+        JavaMailSenderImpl unreachable = greenMailSender();
+        unreachable.setPort(1);
+        sender = sender(unreachable, properties(10, 1, MailProperties.OverflowPolicy.BLOCK));
+
+        sender.send(email());
+        sender.send(email());
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> meterRegistry.counter("mail.failed").count() == 2);
+        assertThat(meterRegistry.counter("mail.sent").count()).isZero();
+    }
+
+    @Test
+    void shouldRetryThrottledEmails_whenServerThrottlesDomain() throws Exception {
+        try (FakeSmtpServer server = FakeSmtpServer.start()) {
+            server.throttle("busy.example", 3);
+            sender = sender(fakeSmtpSender(server), properties(100, 2, MailProperties.OverflowPolicy.BLOCK));
+
+            for (int i = 0; i < 10; i++) {
+                sender.send(new EmailDto("user" + i + "@busy.example", "Report", "Content"));
+                sender.send(new EmailDto("user" + i + "@quiet.example", "Report", "Content"));
+            }
+
+            await().atMost(Duration.ofSeconds(10)).until(() -> meterRegistry.counter("mail.sent").count() == 20);
+            assertThat(server.getDeliveredTo()).hasSize(20).doesNotHaveDuplicates();
+            assertThat(meterRegistry.counter("mail.throttled").count()).isEqualTo(3);
+            assertThat(meterRegistry.counter("mail.failed").count()).isZero();
+        }
+    }
+
+    @Test
+    void shouldFailEmail_whenThrottledOnEveryAttempt() throws Exception {
+        try (FakeSmtpServer server = FakeSmtpServer.start()) {
+            server.throttle("busy.example", Integer.MAX_VALUE);
+            sender = sender(fakeSmtpSender(server), properties(100, 1, MailProperties.OverflowPolicy.BLOCK));
+
+            sender.send(new EmailDto("user@busy.example", "Report", "Content"));
+
+            await().atMost(Duration.ofSeconds(10)).until(() -> meterRegistry.counter("mail.failed").count() == 1);
+            assertThat(meterRegistry.counter("mail.throttled").count()).isEqualTo(THROTTLE.getMaxAttempts() - 1);
+            assertThat(server.getDeliveredTo()).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldReportOutcomeOfDelivery() throws Exception {
+        JavaMailSenderImpl unreachable = greenMailSender();
+        unreachable.setPort(1);
+        sender = sender(greenMailSender(), properties(10, 1, MailProperties.OverflowPolicy.BLOCK));
+        AsyncEmailSender failing = sender(unreachable, properties(10, 1, MailProperties.OverflowPolicy.BLOCK));
+
+        try {
+            assertThat(sender.deliver(email())).succeedsWithin(Duration.ofSeconds(10));
+            assertThat(greenMail.getReceivedMessages()).hasSize(1);
+            assertThat(failing.deliver(email())).failsWithin(Duration.ofSeconds(10));
+        } finally {
+            failing.shutdown();
+        }
+    }
+
+    @Test
+    void shouldSendOtherDomains_whileThrottledDomainBacksOff() throws Exception {
+        try (FakeSmtpServer server = FakeSmtpServer.start()) {
+            server.throttle("busy.example", 1);
+            MailProperties properties = properties(100, 1, MailProperties.OverflowPolicy.BLOCK);
+            ThrottleProperties slowBackoff = throttle(Duration.ofSeconds(3));
+            sender = new AsyncEmailSender(fakeSmtpSender(server), properties, new SmtpThrottle(slowBackoff), slowBackoff, meterRegistry);
+
+            sender.send(new EmailDto("user@busy.example", "Report", "Content"));
+            await().atMost(Duration.ofSeconds(5)).until(() -> meterRegistry.counter("mail.throttled").count() == 1);
+            for (int i = 0; i < 10; i++) {
+                sender.send(new EmailDto("user" + i + "@quiet.example", "Report", "Content"));
+            }
+
+            // the single worker does not wait for the backoff of busy.example
+            await().atMost(Duration.ofSeconds(2)).until(() -> server.getDeliveredTo().size() == 10);
+            assertThat(server.getDeliveredTo()).allMatch(recipient -> recipient.endsWith("@quiet.example"));
+            await().atMost(Duration.ofSeconds(10)).until(() -> server.getDeliveredTo().contains("user@busy.example"));
+        }
+    }
+
+    /**
+     * The single worker takes the first e-mail and blocks on it, the second one fills the queue.
+     */
+    private void fillQueue() {
+        sender.send(email());
+        await().atMost(Duration.ofSeconds(5)).until(() -> meterRegistry.get("mail.queue.size").gauge().value() == 0);
+        sender.send(email());
+    }
+
+    private static EmailDto email() {
+        return new EmailDto("user@example.com", "Report", "Content");
+    }
+
+    private AsyncEmailSender sender(JavaMailSenderImpl mailSender, MailProperties properties) {
+        return new AsyncEmailSender(mailSender, properties, new SmtpThrottle(THROTTLE), THROTTLE, meterRegistry);
+    }
+
+    private static ThrottleProperties throttle(Duration initialBackoff) {
+        return new ThrottleProperties(1_000, 1, 1_000, 2, 4, 0.5, 3, initialBackoff, initialBackoff.multipliedBy(10), Duration.ofMinutes(1));
+    }
+
+    private static MailProperties properties(int queueCapacity, int workers, MailProperties.OverflowPolicy overflowPolicy) {
+        return new MailProperties("tracker@example.com", queueCapacity, workers, 10, overflowPolicy,
+                Duration.ofSeconds(5), Duration.ofSeconds(1));
+    }
+
+    private static JavaMailSenderImpl greenMailSender() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        return mailSender;
+    }
+
+    private static JavaMailSenderImpl fakeSmtpSender(FakeSmtpServer server) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(server.getPort());
+        return mailSender;
+    }
+
+    /**
+     * Sends through GreenMail once the test releases it.
+     */
+    private JavaMailSenderImpl blockingSender() {
+        return new JavaMailSenderImpl() {
+            {
+                setHost("localhost");
+                setPort(ServerSetupTest.SMTP.getPort());
+            }
+
+            @Override
+            public void send(MimeMessage... mimeMessages) {
+                try {
+                    released.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.send(mimeMessages);
+            }
+        };
+    }
+}
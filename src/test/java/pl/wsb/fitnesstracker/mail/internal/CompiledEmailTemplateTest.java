@@ -0,0 +1,94 @@
+package pl.wsb.fitnesstracker.mail.internal;
+
+import org.junit.jupiter.api.Test;
+import pl.wsb.fitnesstracker.mail.api.EmailTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledEmailTemplateTest {
+
+    @Test
+    void shouldRenderParameters_inOrderOfBinding() {
+        CompiledEmailTemplate template = CompiledEmailTemplate.compile("greeting", "Hello {{name}}, {{count}} new {{ name }}!");
+        EmailTemplate bound = template.bind(List.of("count", "name"));
+
+        assertThat(template.getParameterNames()).containsExactly("name", "count");
+        assertThat(bound.render(3L, "Anna")).isEqualTo("Hello Anna, 3 new Anna!");
+        assertThat(bound.render(4, "Jan")).isEqualTo("Hello Jan, 4 new Jan!");
+    }
+
+    @Test
+    void shouldRenderNumbersLikeFormat_whenFractionDigitsAreGiven() {
+        EmailTemplate oneDigit = CompiledEmailTemplate.compile("distance", "{{distance:1}}").bind(List.of("distance"));
+        EmailTemplate twoDigits = CompiledEmailTemplate.compile("distance", "{{distance:2}}").bind(List.of("distance"));
+
+        // eighths are exact binary fractions, so the rounding ties are real ties
+        for (int i = -2_000; i <= 2_000; i++) {
+            double value = i / 8.0;
+            assertThat(oneDigit.render(value)).isEqualTo(String.format(Locale.ENGLISH, "%.1f", value));
+            assertThat(twoDigits.render(value)).isEqualTo(String.format(Locale.ENGLISH, "%.2f", value));
+        }
+        assertThat(oneDigit.render(7L)).isEqualTo("7.0");
+    }
+
+    @Test
+    void shouldRoundDecimalValuesLikeFormat() {
+        EmailTemplate[] templates = new EmailTemplate[10];
+        for (int decimals = 0; decimals < templates.length; decimals++) {
+            templates[decimals] = CompiledEmailTemplate.compile("value", "{{value:" + decimals + "}}").bind(List.of("value"));
+        }
+
+        // binary values just below the decimal tie
+        assertThat(templates[2].render(1.005)).isEqualTo("1.01");
+        assertThat(templates[2].render(2.675)).isEqualTo("2.68");
+        assertThat(templates[1].render(0.05)).isEqualTo("0.1");
+        assertThat(templates[1].render(-0.04)).isEqualTo("-0.0");
+        assertThat(templates[2].render(1e20)).isEqualTo("100000000000000000000.00");
+
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            int decimals = random.nextInt(templates.length);
+            double value = switch (i % 3) {
+                // decimal fractions with ties at every precision
+                case 0 -> (random.nextInt(2_000_001) - 1_000_000) / Math.pow(10, random.nextInt(10));
+                case 1 -> random.nextDouble() * Math.pow(10, random.nextInt(30) - 10);
+                default -> Double.longBitsToDouble(random.nextLong());
+            };
+            assertThat(templates[decimals].render(value))
+                    .as("%s with %d fraction digits", value, decimals)
+                    .isEqualTo(String.format(Locale.ENGLISH, "%." + decimals + "f", value));
+        }
+    }
+
+    @Test
+    void shouldKeepTextWithoutPlaceholders() {
+        EmailTemplate template = CompiledEmailTemplate.compile("plain", "No {placeholders} here").bind(List.of());
+
+        assertThat(template.render()).isEqualTo("No {placeholders} here");
+    }
+
+    @Test
+    void shouldRejectInvalidTemplates() {
+        assertThatThrownBy(() -> CompiledEmailTemplate.compile("broken", "Hello {{name"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompiledEmailTemplate.compile("broken", "Hello {{ }}"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompiledEmailTemplate.compile("broken", "{{distance:x}}"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectBinding_whenParametersDiffer() {
+        CompiledEmailTemplate template = CompiledEmailTemplate.compile("greeting", "Hello {{name}}");
+
+        assertThatThrownBy(() -> template.bind(List.of("firstName")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> template.bind(List.of("name")).render("Anna", "Kowalska"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,275 @@
+package pl.wsb.fitnesstracker.mail.internal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.wsb.fitnesstracker.IntegrationTest;
+import pl.wsb.fitnesstracker.mail.api.EmailDto;
+import pl.wsb.fitnesstracker.mail.api.EmailOutbox;
+import pl.wsb.fitnesstracker.mail.api.EmailRejectedException;
+import pl.wsb.fitnesstracker.mail.api.EmailSender;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * The scheduled dispatch is effectively disabled; the tests call the dispatcher themselves. The test has a database
+ * of its own, so the dispatchers of other cached contexts cannot claim its e-mails.
+ */
+@IntegrationTest
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:email-outbox",
+        "mail.outbox.poll-interval=PT1H",
+        "mail.outbox.batch-size=50",
+        "mail.outbox.send-timeout=PT0.2S"})
+class EmailOutboxIntegrationTest {
+
+    private static final int EMAILS = 2_000;
+
+    private static final int DISPATCHERS = 4;
+
+    @TestConfiguration
+    static class RecordingSenderConfig {
+
+        @Bean
+        @Primary
+        RecordingEmailSender recordingEmailSender() {
+            return new RecordingEmailSender();
+        }
+    }
+
+    static class RecordingEmailSender implements EmailSender {
+
+        private final List<EmailDto> sent = new CopyOnWriteArrayList<>();
+
+        /**
+         * Outcome reported for every e-mail, {@code null} to report it as accepted.
+         */
+        @Nullable
+        private volatile CompletableFuture<Void> outcome;
+
+        /**
+         * Sender the e-mails are passed on to after being recorded, {@code null} to only record them.
+         */
+        @Nullable
+        private volatile EmailSender delegate;
+
+        @Override
+        public void send(EmailDto email) {
+            sent.add(email);
+        }
+
+        @Override
+        public CompletableFuture<Void> deliver(EmailDto email) {
+            send(email);
+            EmailSender target = delegate;
+            if (target != null) {
+                return target.deliver(email);
+            }
+            CompletableFuture<Void> reported = outcome;
+            return reported != null ? reported : CompletableFuture.completedFuture(null);
+        }
+    }
+
+    @Autowired
+    private EmailOutbox emailOutbox;
+
+    @Autowired
+    private EmailOutboxDispatcher dispatcher;
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Autowired
+    private RecordingEmailSender emailSender;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        CompletableFuture<Void> outcome = emailSender.outcome;
+        if (outcome != null) {
+            // lets the dispatcher forget the e-mails it still waits for
+            outcome.cancel(false);
+            dispatcher.dispatch();
+        }
+        outboxEmailRepository.deleteAllInBatch();
+        emailSender.sent.clear();
+        emailSender.outcome = null;
+        emailSender.delegate = null;
+    }
+
+    @Test
+    void shouldSendEmail_whenTransactionCommitted() {
+        EmailDto email = new EmailDto("user@example.com", "Subject", "Content");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> emailOutbox.enqueue(email));
+
+        assertThat(dispatcher.dispatch()).isEqualTo(1);
+
+        assertThat(emailSender.sent).containsExactly(email);
+        assertThat(outboxEmailRepository.count()).isZero();
+    }
+
+    @Test
+    void shouldKeepEmail_untilServerAcceptedIt() {
+        emailSender.outcome = new CompletableFuture<>();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                emailOutbox.enqueue(new EmailDto("user@example.com", "Subject", "Content")));
+
+        assertThat(dispatcher.dispatch()).isZero();
+
+        assertThat(emailSender.sent).hasSize(1);
+        assertThat(outboxEmailRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotSendEmailAgain_whileSenderHoldsIt() {
+        CompletableFuture<Void> outcome = new CompletableFuture<>();
+        emailSender.outcome = outcome;
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                emailOutbox.enqueue(new EmailDto("user@example.com", "Subject", "Content")));
+        assertThat(dispatcher.dispatch()).isZero();
+
+        // e.g. while the domain of the e-mail backs off for longer than the lease
+        jdbcTemplate.update("UPDATE email_outbox SET claimed_until = ?", Timestamp.from(Instant.now().minusSeconds(1)));
+        assertThat(dispatcher.dispatch()).isZero();
+        assertThat(emailSender.sent).hasSize(1);
+
+        outcome.complete(null);
+        assertThat(dispatcher.dispatch()).isEqualTo(1);
+        assertThat(emailSender.sent).hasSize(1);
+        assertThat(outboxEmailRepository.count()).isZero();
+    }
+
+    @Test
+    void shouldKeepEmails_whenServerUnreachable() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AsyncEmailSender unreachable = unreachableSender(meterRegistry);
+        emailSender.delegate = unreachable;
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < 3; i++) {
+                emailOutbox.enqueue(new EmailDto("user" + i + "@example.com", "Subject", "Content"));
+            }
+        });
+
+        try {
+            assertThat(dispatcher.dispatch()).isZero();
+            await().atMost(Duration.ofSeconds(10)).until(() -> meterRegistry.counter("mail.failed").count() == 3);
+            assertThat(dispatcher.dispatch()).isZero();
+        } finally {
+            unreachable.shutdown();
+        }
+
+        assertThat(emailSender.sent).hasSize(3);
+        assertThat(outboxEmailRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldRemoveEmail_whenServerRefusedIt() {
+        emailSender.outcome = CompletableFuture.failedFuture(
+                new EmailRejectedException("Mailbox unavailable", new MailSendException("550 Mailbox unavailable")));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                emailOutbox.enqueue(new EmailDto("user@example.com", "Subject", "Content")));
+
+        assertThat(dispatcher.dispatch()).isZero();
+
+        assertThat(emailSender.sent).hasSize(1);
+        assertThat(outboxEmailRepository.count()).isZero();
+    }
+
+    @Test
+    void shouldNotSendEmail_whenTransactionRolledBack() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            emailOutbox.enqueue(new EmailDto("user@example.com", "Subject", "Content"));
+            status.setRollbackOnly();
+        });
+
+        assertThat(dispatcher.dispatch()).isZero();
+
+        assertThat(emailSender.sent).isEmpty();
+    }
+
+    @Test
+    void shouldRejectEmail_whenNoTransactionIsActive() {
+        assertThatThrownBy(() -> emailOutbox.enqueue(new EmailDto("user@example.com", "Subject", "Content")))
+                .isInstanceOf(IllegalTransactionStateException.class);
+    }
+
+    @Test
+    void shouldSendEveryEmailOnce_whenDispatchingConcurrently() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < EMAILS; i++) {
+                emailOutbox.enqueue(new EmailDto("user" + i + "@example.com", "Subject " + i, "Content " + i));
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(DISPATCHERS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < DISPATCHERS; i++) {
+                results.add(executor.submit(dispatcher::dispatch));
+            }
+            int dispatched = 0;
+            for (Future<Integer> result : results) {
+                dispatched += result.get();
+            }
+            assertThat(dispatched).isEqualTo(EMAILS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(emailSender.sent).hasSize(EMAILS);
+        assertThat(emailSender.sent).extracting(EmailDto::toAddress).doesNotHaveDuplicates();
+        assertThat(outboxEmailRepository.count()).isZero();
+    }
+
+    /**
+     * @return sender whose SMTP server refuses connections
+     */
+    private static AsyncEmailSender unreachableSender(SimpleMeterRegistry meterRegistry) throws IOException {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        try (ServerSocket socket = new ServerSocket(0)) {
+            mailSender.setPort(socket.getLocalPort());
+        }
+        MailProperties properties = new MailProperties("noreply@example.com", 10, 1, 10,
+                MailProperties.OverflowPolicy.REJECT, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        ThrottleProperties throttle = new ThrottleProperties(1_000, 1, 1_000, 2, 4, 0.5, 3,
+                Duration.ofMillis(10), Duration.ofMillis(100), Duration.ofMinutes(1));
+        return new AsyncEmailSender(mailSender, properties, new SmtpThrottle(throttle), throttle, meterRegistry);
+    }
+}
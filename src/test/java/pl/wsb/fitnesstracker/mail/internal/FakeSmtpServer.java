@@ -0,0 +1,126 @@
+package pl.wsb.fitnesstracker.mail.internal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal SMTP server on a free local port that accepts every e-mail, except that it answers
+ * {@value #THROTTLING_RESPONSE} to a given number of e-mails of a recipient domain, the way receiving servers throttle.
+ */
+class FakeSmtpServer implements AutoCloseable {
+
+    static final String THROTTLING_RESPONSE = "451 4.7.1 Too many messages, try again later";
+
+    private final ServerSocket serverSocket;
+
+    private final ExecutorService connections = Executors.newCachedThreadPool();
+
+    private final Map<String, AtomicInteger> throttledDomains = new ConcurrentHashMap<>();
+
+    private final List<String> deliveredTo = new CopyOnWriteArrayList<>();
+
+    private FakeSmtpServer() throws IOException {
+        this.serverSocket = new ServerSocket(0);
+        connections.execute(this::accept);
+    }
+
+    static FakeSmtpServer start() throws IOException {
+        return new FakeSmtpServer();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Throttles the given number of the next e-mails to the domain.
+     */
+    void throttle(String domain, int emails) {
+        throttledDomains.put(domain, new AtomicInteger(emails));
+    }
+
+    /**
+     * @return recipients of the accepted e-mails
+     */
+    List<String> getDeliveredTo() {
+        return deliveredTo;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> converse(socket));
+            } catch (IOException e) {
+                // closed
+            }
+        }
+    }
+
+    private void converse(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+            reply(out, "220 localhost fake SMTP");
+            String recipient = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase(Locale.ROOT);
+                if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                    reply(out, "250 localhost");
+                } else if (command.startsWith("MAIL FROM") || command.startsWith("RSET") || command.startsWith("NOOP")) {
+                    reply(out, "250 OK");
+                } else if (command.startsWith("RCPT TO")) {
+                    recipient = line.substring(line.indexOf('<') + 1, line.lastIndexOf('>'));
+                    reply(out, "250 OK");
+                } else if (command.startsWith("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        // the content is not checked
+                    }
+                    reply(out, endOfData(recipient));
+                } else if (command.startsWith("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    private String endOfData(String recipient) {
+        AtomicInteger throttled = throttledDomains.get(SmtpThrottle.domainOf(recipient));
+        if (throttled != null && throttled.getAndDecrement() > 0) {
+            return THROTTLING_RESPONSE;
+        }
+        deliveredTo.add(recipient);
+        return "250 OK";
+    }
+
+    private static void reply(PrintWriter out, String response) {
+        out.print(response + "\r\n");
+        out.flush();
+    }
+}
@@ -0,0 +1,152 @@
+package pl.wsb.fitnesstracker.mail.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SmtpThrottleTest {
+
+    private static final ThrottleProperties PROPERTIES = new ThrottleProperties(10, 1, 5, 2, 4, 0.5, 5,
+            Duration.ofSeconds(1), Duration.ofSeconds(3), Duration.ofMinutes(30));
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private final SmtpThrottle throttle = new SmtpThrottle(PROPERTIES, nanoTime::get);
+
+    @Test
+    void shouldAllowBurst_thenPaceAtRate() {
+        TokenBucket bucket = new TokenBucket(10, 5, nanoTime::get);
+
+        assertThat(bucket.tryReserve(5)).isZero();
+        assertThat(bucket.tryReserve(2)).isCloseTo(TimeUnit.MILLISECONDS.toNanos(200), within(1_000L));
+
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+        assertThat(bucket.tryReserve(2)).isZero();
+        assertThat(bucket.tryReserve(1)).isPositive();
+
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(bucket.tryReserve(5)).isZero();
+    }
+
+    @Test
+    void shouldTakeFullBucket_whenReservingMoreThanCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 5, nanoTime::get);
+
+        assertThat(bucket.tryReserve(8)).isZero();
+        // three tokens of debt plus the one asked for
+        assertThat(bucket.tryReserve(1)).isCloseTo(TimeUnit.MILLISECONDS.toNanos(400), within(1_000L));
+    }
+
+    @Test
+    void shouldHalveLimitOnThrottling_andGrowByOneOnSuccess() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 10, 0.5);
+
+        assertThat(limit.tryAcquire()).isTrue();
+        limit.release(true);
+        assertThat(limit.getLimit()).isEqualTo(4);
+
+        assertThat(limit.tryAcquire()).isTrue();
+        limit.release(false);
+        assertThat(limit.getLimit()).isEqualTo(5);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+            limit.release(true);
+        }
+        assertThat(limit.getLimit()).isEqualTo(1);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+            limit.release(false);
+        }
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldRefuseSession_whenLimitIsReached() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 1, 0.5);
+        assertThat(limit.tryAcquire()).isTrue();
+
+        assertThat(limit.tryAcquire()).isFalse();
+
+        limit.release(false);
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void shouldBackOffDomain_withDoublingDelay_whenThrottledInRow() {
+        assertThat(throttle.tryAcquire("example.com", 1)).isZero();
+        throttle.release("example.com", true);
+        assertThat(throttle.tryAcquire("example.com", 1)).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+        assertThat(throttle.tryAcquire("other.example", 1)).isZero();
+
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(throttle.tryAcquire("example.com", 1)).isZero();
+        throttle.release("example.com", true);
+        assertThat(throttle.tryAcquire("example.com", 1)).isEqualTo(TimeUnit.SECONDS.toNanos(2));
+
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertThat(throttle.tryAcquire("example.com", 1)).isZero();
+        throttle.release("example.com", true);
+        // capped at the maximum backoff
+        assertThat(throttle.tryAcquire("example.com", 1)).isEqualTo(TimeUnit.SECONDS.toNanos(3));
+
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertThat(throttle.tryAcquire("example.com", 1)).isZero();
+        throttle.release("example.com", false);
+        assertThat(throttle.tryAcquire("example.com", 1)).isZero();
+        throttle.release("example.com", true);
+        assertThat(throttle.tryAcquire("example.com", 1)).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void shouldDecreaseRateOnThrottling_andRecoverOnSuccess() {
+        for (double expected : new double[]{5, 2.5, 1.25, 1}) {
+            assertThat(throttle.tryAcquire("example.com", 1)).isZero();
+            throttle.release("example.com", true);
+            assertThat(throttle.getRatePerSecond("example.com")).isEqualTo(expected);
+            nanoTime.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(throttle.tryAcquire("example.com", 1)).isZero();
+            throttle.release("example.com", false);
+            nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        }
+        assertThat(throttle.getRatePerSecond("example.com")).isCloseTo(10, within(1e-9));
+    }
+
+    @Test
+    void shouldRefuseSession_untilTokensRefilled() {
+        assertThat(throttle.tryAcquire("example.com", 5)).isZero();
+        throttle.release("example.com", false);
+
+        assertThat(throttle.tryAcquire("example.com", 1)).isCloseTo(TimeUnit.MILLISECONDS.toNanos(100), within(1_000L));
+    }
+
+    @Test
+    void shouldEvictIdleDomains_afterIdleTimeout() {
+        assertThat(throttle.tryAcquire("idle.example", 1)).isZero();
+        throttle.release("idle.example", false);
+        assertThat(throttle.tryAcquire("busy.example", 1)).isZero();
+
+        nanoTime.addAndGet(TimeUnit.MINUTES.toNanos(31));
+        assertThat(throttle.tryAcquire("other.example", 1)).isZero();
+
+        // the session of busy.example is still in flight
+        assertThat(throttle.size()).isEqualTo(2);
+        throttle.release("busy.example", false);
+        throttle.release("other.example", false);
+    }
+
+    @Test
+    void shouldTakeLowerCasedDomain_fromAddress() {
+        assertThat(SmtpThrottle.domainOf("Jan.Kowalski@Example.COM")).isEqualTo("example.com");
+        assertThat(SmtpThrottle.domainOf("localhost")).isEqualTo("localhost");
+    }
+}
@@ -0,0 +1,138 @@
+package pl.wsb.fitnesstracker.notification.internal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.TestPropertySource;
+import pl.wsb.fitnesstracker.IntegrationTest;
+import pl.wsb.fitnesstracker.IntegrationTestBase;
+import pl.wsb.fitnesstracker.mail.api.EmailDto;
+import pl.wsb.fitnesstracker.mail.api.EmailSender;
+import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+import pl.wsb.fitnesstracker.user.api.User;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.time.LocalDate.now;
+import static java.util.UUID.randomUUID;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Users are reported in chunks of two, so five users take three chunks.
+ * The reports are delivered to the recording sender by the scheduled outbox dispatcher.
+ */
+@IntegrationTest
+@TestPropertySource(properties = "notification.report.chunk-size=2")
+class MonthlyReportIntegrationTest extends IntegrationTestBase {
+
+    private static final YearMonth MONTH = YearMonth.of(2024, 4);
+
+    @TestConfiguration
+    static class RecordingSenderConfig {
+
+        @Bean
+        @Primary
+        RecordingEmailSender recordingEmailSender() {
+            return new RecordingEmailSender();
+        }
+    }
+
+    static class RecordingEmailSender implements EmailSender {
+
+        private final List<EmailDto> sent = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(EmailDto email) {
+            sent.add(email);
+        }
+    }
+
+    @Autowired
+    private MonthlyReportService monthlyReportService;
+
+    @Autowired
+    private MonthlyReportRunRepository runRepository;
+
+    @Autowired
+    private RecordingEmailSender emailSender;
+
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    void persistUsers() {
+        emailSender.sent.clear();
+        runRepository.deleteAll();
+        for (int i = 0; i < 5; i++) {
+            users.add(existingUser(new User(randomUUID().toString(), randomUUID().toString(), now(), randomUUID() + "@example.com")));
+        }
+        persistTraining(training(users.get(0), "2024-04-01T10:00:00Z", 10));
+        persistTraining(training(users.get(0), "2024-04-30T10:00:00Z", 5.5));
+        persistTraining(training(users.get(0), "2024-03-31T10:00:00Z", 7));
+        persistTraining(training(users.get(3), "2024-05-01T10:00:00Z", 3));
+    }
+
+    @AfterEach
+    void deleteRuns() {
+        runRepository.deleteAll();
+    }
+
+    @Test
+    void shouldSendReportToEveryUser() {
+        MonthlyReportRun run = monthlyReportService.send(MONTH);
+
+        assertThat(run.getStatus()).isEqualTo(MonthlyReportRun.Status.COMPLETED);
+        assertThat(run.getSentReports()).isEqualTo(5);
+        await().atMost(Duration.ofSeconds(10)).until(() -> emailSender.sent.size() == 5);
+        assertThat(emailSender.sent).extracting(EmailDto::toAddress)
+                .containsExactlyElementsOf(users.stream().map(User::getEmail).toList());
+        assertThat(emailSender.sent.get(0).subject()).isEqualTo("Your training summary for April 2024");
+        assertThat(emailSender.sent.get(0).content())
+                .contains("completed 2 trainings covering 15.5 km")
+                .contains("3 trainings registered in total");
+        assertThat(emailSender.sent.get(3).content())
+                .contains("completed 0 trainings")
+                .contains("1 trainings registered in total");
+    }
+
+    @Test
+    void shouldNotSendAgain_whenMonthWasReported() {
+        monthlyReportService.send(MONTH);
+        await().atMost(Duration.ofSeconds(10)).until(() -> emailSender.sent.size() == 5);
+        emailSender.sent.clear();
+
+        monthlyReportService.send(MONTH);
+
+        await().during(Duration.ofSeconds(2)).atMost(Duration.ofSeconds(3)).until(emailSender.sent::isEmpty);
+    }
+
+    @Test
+    void shouldResumeAfterCheckpoint_whenRunWasInterrupted() {
+        MonthlyReportRun interrupted = new MonthlyReportRun(MONTH);
+        interrupted.advance(users.get(1).getId(), 2);
+        runRepository.save(interrupted);
+
+        MonthlyReportRun run = monthlyReportService.send(MONTH);
+
+        assertThat(run.getSentReports()).isEqualTo(5);
+        await().atMost(Duration.ofSeconds(10)).until(() -> emailSender.sent.size() == 3);
+        assertThat(emailSender.sent).extracting(EmailDto::toAddress)
+                .containsExactly(users.get(2).getEmail(), users.get(3).getEmail(), users.get(4).getEmail());
+    }
+
+    private static Training training(User user, String start, double distance) {
+        Instant startTime = Instant.parse(start);
+        return new Training(user, Date.from(startTime), Date.from(startTime.plusSeconds(3_600)), ActivityType.RUNNING, distance, 10);
+    }
+}
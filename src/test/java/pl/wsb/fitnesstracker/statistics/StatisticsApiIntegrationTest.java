@@ -0,0 +1,243 @@
+package pl.wsb.fitnesstracker.statistics;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import pl.wsb.fitnesstracker.IntegrationTest;
+import pl.wsb.fitnesstracker.IntegrationTestBase;
+import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+import pl.wsb.fitnesstracker.user.api.User;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@IntegrationTest
+@AutoConfigureMockMvc(addFilters = false)
+class StatisticsApiIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldSumTrainings_whenCreatingTrainings() throws Exception {
+        User user1 = existingUser(generateClient());
+        createTraining(user1, 10.5);
+        createTraining(user1, 4.5);
+
+        mockMvc.perform(get("/v1/statistics/user/{userId}", user1.getId()))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(user1.getId()))
+                .andExpect(jsonPath("$.totalTrainings").value(2))
+                .andExpect(jsonPath("$.totalDistance").value(15.0))
+                // 8.2 MET * 70 kg * 1 h, corrected for a user younger than the reference age
+                .andExpect(jsonPath("$.totalCaloriesBurned").value(2 * 626));
+    }
+
+    @Test
+    void shouldKeepTotals_whenRecomputingCalories() throws Exception {
+        User user1 = existingUser(generateClient());
+        createTraining(user1, 10.5);
+        createTraining(user1, 4.5);
+
+        mockMvc.perform(post("/v1/statistics/calories/recompute"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.trainings").value(2))
+                .andExpect(jsonPath("$.users").value(1));
+
+        mockMvc.perform(get("/v1/statistics/user/{userId}", user1.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCaloriesBurned").value(2 * 626));
+    }
+
+    @Test
+    void shouldCountOnlyUsersWithStatistics_whenRecomputingCalories() throws Exception {
+        User user1 = existingUser(generateClient());
+        User user2 = existingUser(generateClient());
+        createTraining(user1, 10.5);
+        // written without a change event, so the user has no statistics until the next startup
+        Date start = new Date();
+        persistTraining(new Training(user2, start, new Date(start.getTime() + 3_600_000), ActivityType.RUNNING, 4.5, 8.2));
+
+        mockMvc.perform(post("/v1/statistics/calories/recompute"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.trainings").value(2))
+                .andExpect(jsonPath("$.users").value(1));
+    }
+
+    @Test
+    void shouldReplaceOldValues_whenUpdatingTraining() throws Exception {
+        User user1 = existingUser(generateClient());
+        User user2 = existingUser(generateClient());
+        createTraining(user1, 10.5);
+        long trainingId = createTraining(user1, 4.5);
+
+        mockMvc.perform(put("/v1/trainings/{trainingId}", trainingId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(trainingRequest(user2, 7.0)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/v1/statistics/user/{userId}", user1.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalTrainings").value(1))
+                .andExpect(jsonPath("$.totalDistance").value(10.5));
+        mockMvc.perform(get("/v1/statistics/user/{userId}", user2.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalTrainings").value(1))
+                .andExpect(jsonPath("$.totalDistance").value(7.0));
+    }
+
+    @Test
+    void shouldPageStatisticsOrderedByCalories_whenGettingStatisticsWithCaloriesAbove() throws Exception {
+        User user1 = existingUser(generateClient());
+        User user2 = existingUser(generateClient());
+        User user3 = existingUser(generateClient());
+        createTraining(user1, 10.5);
+        for (int i = 0; i < 3; i++) {
+            createTraining(user2, 10.5);
+        }
+        for (int i = 0; i < 2; i++) {
+            createTraining(user3, 10.5);
+        }
+
+        String cursor = mockMvc.perform(get("/v1/statistics/calories").param("above", "1000").param("limit", "1"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].userId").value(user3.getId()))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/v1/statistics/calories").param("above", "1000").param("limit", "1").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].userId").value(user2.getId()))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void shouldReturnNotFound_whenUserHasNoTrainings() throws Exception {
+        User user1 = existingUser(generateClient());
+
+        mockMvc.perform(get("/v1/statistics/user/{userId}", user1.getId()))
+                .andDo(log())
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldReturnTrainingLoad_whenUserHasTrainings() throws Exception {
+        User user1 = existingUser(generateClient());
+        User user2 = existingUser(generateClient());
+        createTraining(user1, 10.5);
+
+        mockMvc.perform(get("/v1/statistics/user/{userId}/load", user1.getId()))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value(user1.getId()))
+                .andExpect(jsonPath("$.lastTrainingDay").value("2024-04-01"))
+                .andExpect(jsonPath("$.currentStreakDays").value(0));
+        mockMvc.perform(get("/v1/statistics/user/{userId}/load", user2.getId()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldReturnWeeklyRollups_whenGettingRollups() throws Exception {
+        User user1 = existingUser(generateClient());
+        createTraining(user1, 10.5);
+        createTraining(user1, 4.5);
+
+        mockMvc.perform(get("/v1/statistics/user/{userId}/rollups", user1.getId())
+                        .param("granularity", "WEEK")
+                        .param("from", "2024-03-01")
+                        .param("to", "2024-04-30")
+                        .param("activityType", "RUNNING"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].bucketStart").value("2024-04-01"))
+                .andExpect(jsonPath("$[0].trainings").value(2))
+                .andExpect(jsonPath("$[0].distance").value(15.0))
+                .andExpect(jsonPath("$[0].durationSeconds").value(7200));
+    }
+
+    @Test
+    void shouldMoveTrainingBetweenBuckets_whenUpdatingStartTime() throws Exception {
+        User user1 = existingUser(generateClient());
+        long trainingId = createTraining(user1, 10.5);
+
+        mockMvc.perform(put("/v1/trainings/{trainingId}", trainingId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(trainingRequest(user1, 10.5).replace("2024-04-01", "2024-05-01")))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/v1/statistics/user/{userId}/rollups", user1.getId())
+                        .param("granularity", "MONTH")
+                        .param("from", "2024-04-01")
+                        .param("to", "2024-05-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].bucketStart").value("2024-05-01"))
+                .andExpect(jsonPath("$[0].trainings").value(1));
+    }
+
+    @Test
+    void shouldNotWriteDailyBuckets_pastRetention() throws Exception {
+        User user1 = existingUser(generateClient());
+        long trainingId = createTraining(user1, 10.5);
+
+        mockMvc.perform(put("/v1/trainings/{trainingId}", trainingId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(trainingRequest(user1, 10.5).replace("2024-04-01", "2024-05-01")))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/v1/statistics/user/{userId}/rollups", user1.getId())
+                        .param("granularity", "DAY")
+                        .param("from", "2024-04-01")
+                        .param("to", "2024-05-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM training_rollups WHERE user_id = ? AND (granularity = 'DAY' OR trainings < 0)",
+                Long.class, user1.getId())).isZero();
+    }
+
+    private long createTraining(User user, double distance) throws Exception {
+        String response = mockMvc.perform(post("/v1/trainings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(trainingRequest(user, distance)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return ((Number) JsonPath.read(response, "$.id")).longValue();
+    }
+
+    private static String trainingRequest(User user, double distance) {
+        return """
+                {
+                    "userId": "%s",
+                    "startTime": "2024-04-01T11:00:00",
+                    "endTime": "2024-04-01T12:00:00",
+                    "activityType": "RUNNING",
+                    "distance": %s,
+                    "averageSpeed": 8.2
+                }
+                """.formatted(user.getId(), distance);
+    }
+}
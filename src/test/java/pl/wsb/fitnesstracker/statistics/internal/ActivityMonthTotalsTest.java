@@ -0,0 +1,26 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.junit.jupiter.api.Test;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActivityMonthTotalsTest {
+
+    private static final int APRIL = 2024 * 12 + 3;
+
+    @Test
+    void shouldMergePartitionsRegardlessOfOrder() {
+        ActivityMonthTotals first = new ActivityMonthTotals();
+        first.add(APRIL, ActivityType.RUNNING.ordinal(), 1, 10, 3_600_000);
+        ActivityMonthTotals second = new ActivityMonthTotals();
+        second.add(APRIL + 1, ActivityType.WALKING.ordinal(), 1, 3, 1_800_000);
+        second.add(APRIL, ActivityType.RUNNING.ordinal(), 1, 5, 1_800_000);
+
+        assertThat(first.merge(second).toList()).containsExactly(
+                new ActivityMonthTotal(YearMonth.of(2024, 4), ActivityType.RUNNING, 2, 15, 5_400),
+                new ActivityMonthTotal(YearMonth.of(2024, 5), ActivityType.WALKING, 1, 3, 1_800));
+    }
+}
@@ -0,0 +1,77 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import pl.wsb.fitnesstracker.IntegrationTest;
+import pl.wsb.fitnesstracker.IntegrationTestBase;
+import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+import pl.wsb.fitnesstracker.user.api.User;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@IntegrationTest
+@AutoConfigureMockMvc(addFilters = false)
+class AggregationJobIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void shouldComputeMonthlyTotalsPerActivity() throws Exception {
+        User user1 = existingUser(generateClient());
+        User user2 = existingUser(generateClient());
+        persistTraining(training(user1, "2024-04-01T10:00:00Z", ActivityType.RUNNING, 10));
+        persistTraining(training(user2, "2024-04-20T10:00:00Z", ActivityType.RUNNING, 5));
+        persistTraining(training(user2, "2024-05-02T10:00:00Z", ActivityType.CYCLING, 30));
+
+        String response = mockMvc.perform(post("/v1/statistics/jobs/monthly-activity-totals"))
+                .andDo(log())
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        String jobId = JsonPath.read(response, "$.id");
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                mockMvc.perform(get("/v1/statistics/jobs/{jobId}", jobId))
+                        .andExpect(jsonPath("$.status").value("COMPLETED")));
+
+        mockMvc.perform(get("/v1/statistics/jobs/{jobId}", jobId))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.progress").value(1.0))
+                .andExpect(jsonPath("$.scannedTrainings").value(3))
+                .andExpect(jsonPath("$.result.length()").value(2))
+                .andExpect(jsonPath("$.result[0].month").value("2024-04"))
+                .andExpect(jsonPath("$.result[0].activityType").value("RUNNING"))
+                .andExpect(jsonPath("$.result[0].trainings").value(2))
+                .andExpect(jsonPath("$.result[0].distance").value(15.0))
+                .andExpect(jsonPath("$.result[0].durationSeconds").value(7200))
+                .andExpect(jsonPath("$.result[1].month").value("2024-05"))
+                .andExpect(jsonPath("$.result[1].activityType").value("CYCLING"));
+    }
+
+    @Test
+    void shouldReturnNotFound_whenCancellingUnknownJob() throws Exception {
+        mockMvc.perform(delete("/v1/statistics/jobs/{jobId}", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+
+    private static Training training(User user, String start, ActivityType activityType, double distance) {
+        Instant startTime = Instant.parse(start);
+        return new Training(user, Date.from(startTime), Date.from(startTime.plusSeconds(3_600)), activityType, distance, 10);
+    }
+}
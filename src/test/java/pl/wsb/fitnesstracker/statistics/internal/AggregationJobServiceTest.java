@@ -0,0 +1,80 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import pl.wsb.fitnesstracker.training.api.TrainingChunk;
+import pl.wsb.fitnesstracker.training.api.TrainingIdRange;
+import pl.wsb.fitnesstracker.training.api.TrainingProvider;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Period;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class AggregationJobServiceTest {
+
+    private static final int CHUNK_SIZE = 10;
+
+    private static final long MAX_ID = 2_000_000;
+
+    private final AggregationJobService service = new AggregationJobService(
+            failingLowerHalf(),
+            new AggregationProperties(2, 1, CHUNK_SIZE, 20),
+            new RollupProperties(ZoneId.of("UTC"), Period.ofDays(90)),
+            new SimpleMeterRegistry());
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void shouldStopOtherPartitions_whenPartitionFails() {
+        AggregationJob job = service.startMonthlyActivityTotals();
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> job.getStatus() != AggregationJob.Status.RUNNING);
+
+        assertThat(job.getStatus()).isEqualTo(AggregationJob.Status.FAILED);
+        assertThat(job.getFailure()).isEqualTo("Chunk not readable");
+        // the upper half alone would take 100 000 chunks
+        assertThat(job.getScannedTrainings().get()).isLessThan(100_000L);
+    }
+
+    /**
+     * Provider of two partitions: reading the lower half of the ID range fails, the upper half is read slowly
+     * in full chunks.
+     */
+    private static TrainingProvider failingLowerHalf() {
+        return (TrainingProvider) Proxy.newProxyInstance(TrainingProvider.class.getClassLoader(),
+                new Class<?>[]{TrainingProvider.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getTrainingIdRange" -> Optional.of(new TrainingIdRange(1, MAX_ID));
+                    case "getTrainingChunk" -> {
+                        long afterId = (long) args[0];
+                        long toId = (long) args[1];
+                        if (toId <= MAX_ID / 2) {
+                            throw new IllegalStateException("Chunk not readable");
+                        }
+                        Thread.sleep(5);
+                        yield chunk(afterId);
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static TrainingChunk chunk(long afterId) {
+        long[] ids = LongStream.rangeClosed(afterId + 1, afterId + CHUNK_SIZE).toArray();
+        long[] times = new long[CHUNK_SIZE];
+        byte[] activityTypes = new byte[CHUNK_SIZE];
+        double[] values = new double[CHUNK_SIZE];
+        long[] unknown = new long[CHUNK_SIZE];
+        Arrays.fill(unknown, TrainingChunk.UNKNOWN_BIRTHDATE);
+        return new TrainingChunk(ids, new long[CHUNK_SIZE], unknown, times, times, activityTypes, values, values);
+    }
+}
@@ -0,0 +1,55 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.junit.jupiter.api.Test;
+import pl.wsb.fitnesstracker.training.api.TrainingSnapshot;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CalorieEngineTest {
+
+    private static final Instant START = Instant.parse("2024-04-01T10:00:00Z");
+
+    private final CalorieEngine engine = new CalorieEngine(new CalorieProperties(70, 175, 30, null, 0, 10_000));
+
+    @Test
+    void shouldApplyMetOfSpeed_atReferenceAge() {
+        int calories = engine.estimate(training(ActivityType.RUNNING, 60, 10, LocalDate.of(1994, 1, 1)));
+
+        assertThat(calories).isEqualTo(700);
+    }
+
+    @Test
+    void shouldApplyMinimumMet_whenSpeedIsLow() {
+        int calories = engine.estimate(training(ActivityType.RUNNING, 30, 2, LocalDate.of(1994, 1, 1)));
+
+        assertThat(calories).isEqualTo(210);
+    }
+
+    @Test
+    void shouldEstimateLess_forOlderUsers() {
+        int younger = engine.estimate(training(ActivityType.CYCLING, 90, 20, LocalDate.of(1994, 1, 1)));
+        int older = engine.estimate(training(ActivityType.CYCLING, 90, 20, LocalDate.of(1954, 1, 1)));
+
+        assertThat(older).isLessThan(younger);
+    }
+
+    @Test
+    void shouldEstimateSameCalories_fromColumns() {
+        TrainingSnapshot training = training(ActivityType.SWIMMING, 45, 2.5, LocalDate.of(1980, 6, 15));
+
+        int fromColumns = engine.estimate(training.activityType().ordinal(), training.startTime().toEpochMilli(),
+                training.endTime().toEpochMilli(), training.averageSpeed(), training.userBirthdate().toEpochDay());
+
+        assertThat(fromColumns).isEqualTo(engine.estimate(training));
+    }
+
+    private static TrainingSnapshot training(ActivityType activityType, int minutes, double averageSpeed, LocalDate birthdate) {
+        return new TrainingSnapshot(1L, 1L, birthdate, START, START.plus(minutes, ChronoUnit.MINUTES), activityType,
+                averageSpeed * minutes / 60, averageSpeed);
+    }
+}
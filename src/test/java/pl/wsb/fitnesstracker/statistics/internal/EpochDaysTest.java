@@ -0,0 +1,43 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EpochDaysTest {
+
+    @Test
+    void shouldConvertEpochDaysToMonths() {
+        for (LocalDate day = LocalDate.of(1899, 12, 1); day.isBefore(LocalDate.of(2101, 3, 1)); day = day.plusDays(13)) {
+            int month = EpochDays.monthOf(Math.toIntExact(day.toEpochDay()));
+
+            assertThat(month).isEqualTo(day.getYear() * 12 + day.getMonthValue() - 1);
+            assertThat(EpochDays.toYearMonth(month)).isEqualTo(YearMonth.from(day));
+        }
+    }
+
+    /**
+     * Sweeps the days around the last Sundays of March and October, when Europe/Warsaw switches between
+     * UTC+1 and UTC+2 at 02:00 and 03:00 local time.
+     */
+    @Test
+    void shouldConvertMillisToDayOfZone_acrossDaylightSavingChanges() {
+        ZoneId zone = ZoneId.of("Europe/Warsaw");
+        EpochDays.DayConverter converter = new EpochDays.DayConverter(zone);
+
+        for (LocalDate change : List.of(LocalDate.of(2024, 3, 31), LocalDate.of(2024, 10, 27))) {
+            Instant to = change.plusDays(2).atStartOfDay(zone).toInstant();
+            for (Instant moment = change.minusDays(1).atStartOfDay(zone).toInstant(); moment.isBefore(to); moment = moment.plusSeconds(600)) {
+                assertThat(converter.epochDay(moment.toEpochMilli()))
+                        .as("day of %s", moment)
+                        .isEqualTo(LocalDate.ofInstant(moment, zone).toEpochDay());
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import pl.wsb.fitnesstracker.IntegrationTest;
+import pl.wsb.fitnesstracker.IntegrationTestBase;
+import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+import pl.wsb.fitnesstracker.user.api.User;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@IntegrationTest
+@AutoConfigureMockMvc(addFilters = false)
+class LeaderboardIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private User walker;
+
+    private User runner;
+
+    @BeforeEach
+    void persistTrainingsOfThisWeek() {
+        walker = existingUser(generateClient());
+        runner = existingUser(generateClient());
+        Date start = new Date();
+        Date end = new Date(start.getTime() + 3_600_000);
+        persistTrainingsAndRebuildAggregates(List.of(
+                new Training(walker, start, end, ActivityType.RUNNING, 5, 5),
+                new Training(runner, start, end, ActivityType.RUNNING, 12, 12),
+                new Training(runner, start, end, ActivityType.RUNNING, 3, 9)));
+    }
+
+    @Test
+    void shouldReturnUsersWithLongestDistanceOfCurrentWeek() throws Exception {
+        mockMvc.perform(get("/v1/statistics/leaderboards/{activityType}/{period}", "RUNNING", "WEEK"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].rank").value(1))
+                .andExpect(jsonPath("$[0].userId").value(runner.getId()))
+                .andExpect(jsonPath("$[0].totalDistance").value(15.0))
+                .andExpect(jsonPath("$[0].trainings").value(2))
+                .andExpect(jsonPath("$[1].userId").value(walker.getId()));
+    }
+
+    @Test
+    void shouldReturnRankOfUser() throws Exception {
+        mockMvc.perform(get("/v1/statistics/leaderboards/{activityType}/{period}/users/{userId}", "RUNNING", "MONTH", walker.getId()))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rank").value(2))
+                .andExpect(jsonPath("$.totalDistance").value(5.0));
+    }
+
+    @Test
+    void shouldRejectDailyLeaderboard() throws Exception {
+        mockMvc.perform(get("/v1/statistics/leaderboards/{activityType}/{period}", "RUNNING", "DAY"))
+                .andExpect(status().isBadRequest());
+    }
+}
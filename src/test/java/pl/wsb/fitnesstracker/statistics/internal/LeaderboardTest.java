@@ -0,0 +1,60 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.junit.jupiter.api.Test;
+import pl.wsb.fitnesstracker.statistics.api.LeaderboardEntry;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeaderboardTest {
+
+    @Test
+    void shouldRankUsersByTotalDistance() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.update(1, 10, 1);
+        leaderboard.update(2, 30, 1);
+        leaderboard.update(3, 20, 1);
+        leaderboard.update(1, 25, 1);
+
+        assertThat(leaderboard.top(2)).extracting(LeaderboardEntry::userId).containsExactly(1L, 2L);
+        assertThat(leaderboard.standing(3)).hasValueSatisfying(entry -> assertThat(entry.rank()).isEqualTo(3));
+    }
+
+    @Test
+    void shouldDropUser_whenLastTrainingRemoved() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.update(1, 10, 1);
+
+        leaderboard.update(1, -10, -1);
+
+        assertThat(leaderboard.standing(1)).isEmpty();
+        assertThat(leaderboard.top(10)).isEmpty();
+    }
+
+    @Test
+    void shouldMatchSortedStandings_afterRandomUpdates() {
+        Leaderboard leaderboard = new Leaderboard();
+        Map<Long, Double> totals = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            long userId = random.nextInt(500);
+            double distance = random.nextInt(100);
+            leaderboard.update(userId, distance, 1);
+            totals.merge(userId, distance, Double::sum);
+        }
+
+        List<Long> expected = totals.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+        assertThat(leaderboard.top(expected.size())).extracting(LeaderboardEntry::userId).containsExactlyElementsOf(expected);
+        for (int rank = 1; rank <= expected.size(); rank += 37) {
+            assertThat(leaderboard.standing(expected.get(rank - 1)).orElseThrow().rank()).isEqualTo(rank);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class QuantileSketchTest {
+
+    private static final double ACCURACY = 0.01;
+
+    @Test
+    void shouldReturnQuantilesWithinRelativeAccuracy() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY, 2048);
+        for (int i = 1; i <= 10_000; i++) {
+            sketch.add(i);
+        }
+
+        assertThat(sketch.quantile(0.5).getAsDouble()).isCloseTo(5000, within(5000 * ACCURACY));
+        assertThat(sketch.quantile(0.99).getAsDouble()).isCloseTo(9900, within(9900 * ACCURACY));
+        assertThat(sketch.rank(2500).getAsDouble()).isCloseTo(0.25, within(0.01));
+    }
+
+    @Test
+    void shouldForgetRemovedValues() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY, 2048);
+        sketch.add(1);
+        sketch.add(100);
+
+        sketch.remove(100);
+
+        assertThat(sketch.getCount()).isEqualTo(1);
+        assertThat(sketch.quantile(1).getAsDouble()).isCloseTo(1, within(ACCURACY));
+    }
+
+    @Test
+    void shouldMergeSketches() {
+        QuantileSketch low = new QuantileSketch(ACCURACY, 2048);
+        QuantileSketch high = new QuantileSketch(ACCURACY, 2048);
+        for (int i = 1; i <= 100; i++) {
+            low.add(i);
+            high.add(100 + i);
+        }
+
+        low.merge(high);
+
+        assertThat(low.getCount()).isEqualTo(200);
+        assertThat(low.quantile(0.5).getAsDouble()).isCloseTo(100, within(100 * ACCURACY * 2));
+    }
+
+    @Test
+    void shouldKeepHighQuantilesAccurate_whenCollapsingLowestBuckets() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY, 64);
+        for (int i = 1; i <= 10_000; i++) {
+            sketch.add(i / 100.0);
+        }
+
+        assertThat(sketch.quantile(0.99).getAsDouble()).isCloseTo(99, within(99 * ACCURACY));
+        assertThat(sketch.getCount()).isEqualTo(10_000);
+    }
+}
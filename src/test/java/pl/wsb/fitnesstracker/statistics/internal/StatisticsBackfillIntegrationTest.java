@@ -0,0 +1,97 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.wsb.fitnesstracker.IntegrationTest;
+import pl.wsb.fitnesstracker.IntegrationTestBase;
+import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+import pl.wsb.fitnesstracker.user.api.User;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Trainings persisted with a repository publish no change events, like those of the initial data loader.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc(addFilters = false)
+class StatisticsBackfillIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StatisticsBackfill statisticsBackfill;
+
+    @Autowired
+    private StatisticsRepository statisticsRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void shouldRebuildStatistics_ofTrainingsWrittenWithoutEvents() throws Exception {
+        User user1 = existingUser(generateClient());
+        User user2 = existingUser(generateClient());
+        persistTraining(training(user1, 10.5));
+        persistTraining(training(user1, 4.5));
+        persistTraining(training(user2, 7.0));
+        // left by a change of a training the statistics never counted
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                statisticsRepository.applyDelta(user2.getId(), -1, -3.0, -626));
+
+        statisticsBackfill.rebuild();
+
+        mockMvc.perform(get("/v1/statistics/user/{userId}", user1.getId()))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalTrainings").value(2))
+                .andExpect(jsonPath("$.totalDistance").value(15.0))
+                .andExpect(jsonPath("$.totalCaloriesBurned").value(2 * 626));
+        mockMvc.perform(get("/v1/statistics/user/{userId}", user2.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalTrainings").value(1))
+                .andExpect(jsonPath("$.totalDistance").value(7.0))
+                .andExpect(jsonPath("$.totalCaloriesBurned").value(626));
+    }
+
+    @Test
+    void shouldRebuildRollups_ofTrainingsWrittenWithoutEvents() throws Exception {
+        User user1 = existingUser(generateClient());
+        persistTraining(training(user1, 10.5));
+        persistTraining(training(user1, 4.5));
+
+        // a second rebuild replaces the buckets instead of adding to them
+        statisticsBackfill.rebuildRollups();
+        statisticsBackfill.rebuildRollups();
+
+        mockMvc.perform(get("/v1/statistics/user/{userId}/rollups", user1.getId())
+                        .param("granularity", "MONTH")
+                        .param("from", LocalDate.now().minusMonths(1).toString())
+                        .param("to", LocalDate.now().plusDays(1).toString()))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].trainings").value(2))
+                .andExpect(jsonPath("$[0].distance").value(15.0))
+                .andExpect(jsonPath("$[0].durationSeconds").value(7200));
+    }
+
+    /**
+     * One hour of running at 8.2 km/h, 626 kcal for a user born today.
+     */
+    private static Training training(User user, double distance) {
+        Date start = new Date();
+        return new Training(user, start, new Date(start.getTime() + 3_600_000), ActivityType.RUNNING, distance, 8.2);
+    }
+}
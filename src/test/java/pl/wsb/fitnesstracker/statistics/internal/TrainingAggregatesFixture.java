@@ -0,0 +1,20 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.springframework.context.ApplicationContext;
+
+/**
+ * Gives tests outside of this package access to the package-private {@link TrainingAggregates}.
+ */
+public final class TrainingAggregatesFixture {
+
+    private TrainingAggregatesFixture() {
+    }
+
+    /**
+     * Rebuilds the in-memory aggregates of the context from the database, e.g. after trainings were written directly
+     * with a repository, which publishes no change events.
+     */
+    public static void rebuild(ApplicationContext applicationContext) {
+        applicationContext.getBean(TrainingAggregates.class).rebuild();
+    }
+}
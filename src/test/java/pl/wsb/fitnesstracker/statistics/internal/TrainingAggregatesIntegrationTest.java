@@ -0,0 +1,124 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import jakarta.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import pl.wsb.fitnesstracker.IntegrationTest;
+import pl.wsb.fitnesstracker.IntegrationTestBase;
+import pl.wsb.fitnesstracker.statistics.api.LeaderboardEntry;
+import pl.wsb.fitnesstracker.statistics.api.LeaderboardProvider;
+import pl.wsb.fitnesstracker.statistics.api.RollupGranularity;
+import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.training.api.TrainingChangedEvent;
+import pl.wsb.fitnesstracker.training.api.TrainingSnapshot;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+import pl.wsb.fitnesstracker.user.api.User;
+
+import java.time.Instant;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Delivers training changes while the aggregates are being built, right after the build has fed a given training.
+ */
+@IntegrationTest
+class TrainingAggregatesIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private TrainingAggregates trainingAggregates;
+
+    @Autowired
+    private LeaderboardProvider leaderboardProvider;
+
+    @Autowired
+    private ChangeDuringBuild changeDuringBuild;
+
+    @Test
+    void shouldNotCountTwice_changeAlreadyReadByBuild() {
+        User user = existingUser(generateClient());
+        Training training = persistTraining(new Training(user, new Date(), new Date(System.currentTimeMillis() + 3_600_000), ActivityType.RUNNING, 7, 7));
+        TrainingSnapshot current = TrainingSnapshot.of(training);
+        TrainingSnapshot previous = new TrainingSnapshot(current.id(), current.userId(), current.userBirthdate(),
+                current.startTime(), current.endTime(), current.activityType(), 3, 3);
+
+        changeDuringBuild.arm(current.id(), new TrainingChangedEvent(previous, current));
+        trainingAggregates.rebuild();
+
+        assertThat(standing(user)).isEqualTo(new LeaderboardEntry(1, user.getId(), 7, 1));
+    }
+
+    @Test
+    void shouldApplyChange_missedByBuild() {
+        User user = existingUser(generateClient());
+        Training training = persistTraining(new Training(user, new Date(), new Date(System.currentTimeMillis() + 3_600_000), ActivityType.RUNNING, 7, 7));
+        TrainingSnapshot seen = TrainingSnapshot.of(training);
+        // committed after the build read the trainings
+        TrainingSnapshot created = new TrainingSnapshot(seen.id() + 1_000, seen.userId(), seen.userBirthdate(),
+                Instant.now(), Instant.now().plusSeconds(3_600), ActivityType.RUNNING, 5, 5);
+
+        changeDuringBuild.arm(seen.id(), new TrainingChangedEvent(null, created));
+        trainingAggregates.rebuild();
+
+        assertThat(standing(user)).isEqualTo(new LeaderboardEntry(1, user.getId(), 12, 2));
+    }
+
+    private LeaderboardEntry standing(User user) {
+        return leaderboardProvider.getStanding(ActivityType.RUNNING, RollupGranularity.MONTH, null, user.getId()).orElseThrow();
+    }
+
+    @TestConfiguration
+    static class ChangeDuringBuildConfig {
+
+        @Bean
+        ChangeDuringBuild changeDuringBuild(ObjectProvider<TrainingAggregates> trainingAggregates) {
+            return new ChangeDuringBuild(trainingAggregates);
+        }
+    }
+
+    /**
+     * Aggregate that delivers a change once the build feeds the training it is armed with.
+     */
+    static class ChangeDuringBuild implements TrainingAggregate {
+
+        private final ObjectProvider<TrainingAggregates> trainingAggregates;
+
+        private long trainingId;
+
+        @Nullable
+        private TrainingChangedEvent change;
+
+        ChangeDuringBuild(ObjectProvider<TrainingAggregates> trainingAggregates) {
+            this.trainingAggregates = trainingAggregates;
+        }
+
+        synchronized void arm(long trainingId, TrainingChangedEvent change) {
+            this.trainingId = trainingId;
+            this.change = change;
+        }
+
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public void add(TrainingSnapshot training) {
+            TrainingChangedEvent delivered;
+            synchronized (this) {
+                if (change == null || training.id() != trainingId) {
+                    return;
+                }
+                delivered = change;
+                change = null;
+            }
+            trainingAggregates.getObject().onTrainingChanged(delivered);
+        }
+
+        @Override
+        public void remove(TrainingSnapshot training) {
+        }
+    }
+}
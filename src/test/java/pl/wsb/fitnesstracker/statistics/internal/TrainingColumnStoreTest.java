@@ -0,0 +1,68 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.junit.jupiter.api.Test;
+import pl.wsb.fitnesstracker.statistics.api.AnalyticsDimension;
+import pl.wsb.fitnesstracker.statistics.api.TrainingAnalyticsRow;
+import pl.wsb.fitnesstracker.statistics.api.TrainingMetric;
+import pl.wsb.fitnesstracker.training.api.TrainingSnapshot;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrainingColumnStoreTest {
+
+    private final TrainingColumnStore store = new TrainingColumnStore(new RollupProperties(ZoneId.of("UTC"), Period.ofDays(90)));
+
+    @Test
+    void shouldGroupByActivityType() {
+        store.add(training(1, ActivityType.RUNNING, "2024-04-01", 10));
+        store.add(training(2, ActivityType.RUNNING, "2024-04-02", 6));
+        store.add(training(3, ActivityType.CYCLING, "2024-04-03", 30));
+
+        assertThat(store.aggregate(TrainingMetric.DISTANCE, AnalyticsDimension.ACTIVITY_TYPE, null, null, null))
+                .containsExactly(
+                        new TrainingAnalyticsRow("RUNNING", 2, 16, 8),
+                        new TrainingAnalyticsRow("CYCLING", 1, 30, 30));
+    }
+
+    @Test
+    void shouldGroupByMonth_withinRange() {
+        store.add(training(1, ActivityType.RUNNING, "2023-12-31", 5));
+        store.add(training(2, ActivityType.RUNNING, "2024-01-15", 10));
+        store.add(training(3, ActivityType.RUNNING, "2024-03-01", 20));
+        store.add(training(4, ActivityType.WALKING, "2024-03-02", 3));
+
+        assertThat(store.aggregate(TrainingMetric.DISTANCE, AnalyticsDimension.MONTH, ActivityType.RUNNING,
+                LocalDate.parse("2024-01-01"), null))
+                .containsExactly(
+                        new TrainingAnalyticsRow("2024-01", 1, 10, 10),
+                        new TrainingAnalyticsRow("2024-03", 1, 20, 20));
+    }
+
+    @Test
+    void shouldReplaceAndRemoveRows() {
+        TrainingSnapshot first = training(1, ActivityType.RUNNING, "2024-04-01", 10);
+        TrainingSnapshot second = training(2, ActivityType.RUNNING, "2024-04-02", 6);
+        store.add(first);
+        store.add(second);
+
+        store.remove(first);
+        store.remove(second);
+        store.add(training(2, ActivityType.RUNNING, "2024-04-02", 8));
+
+        assertThat(store.aggregate(TrainingMetric.DISTANCE, AnalyticsDimension.AGE_COHORT, null, null, null))
+                .containsExactly(new TrainingAnalyticsRow("30-39", 1, 8, 8));
+    }
+
+    private static TrainingSnapshot training(long id, ActivityType activityType, String day, double distance) {
+        Instant start = LocalDate.parse(day).atTime(10, 0).toInstant(ZoneOffset.UTC);
+        return new TrainingSnapshot(id, 1L, LocalDate.of(1990, 1, 1), start, start.plusSeconds(3_600), activityType,
+                distance, distance);
+    }
+}
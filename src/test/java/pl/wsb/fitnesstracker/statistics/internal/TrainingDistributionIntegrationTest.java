@@ -0,0 +1,91 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import pl.wsb.fitnesstracker.IntegrationTest;
+import pl.wsb.fitnesstracker.IntegrationTestBase;
+import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+import pl.wsb.fitnesstracker.user.api.User;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@IntegrationTest
+@AutoConfigureMockMvc(addFilters = false)
+class TrainingDistributionIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private User user;
+
+    @BeforeEach
+    void persistRuns() {
+        user = existingUser(generateClient());
+        List<Training> runs = new ArrayList<>();
+        for (int distance = 1; distance <= 100; distance++) {
+            runs.add(new Training(user, new Date(0), new Date(3_600_000), ActivityType.RUNNING, distance, 10));
+        }
+        persistTrainingsAndRebuildAggregates(runs);
+    }
+
+    @Test
+    void shouldRankDistanceAmongRuns() throws Exception {
+        mockMvc.perform(get("/v1/statistics/distributions/{activityType}/{metric}/rank", "RUNNING", "DISTANCE")
+                        .param("value", "83.5"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantile", closeTo(0.83, 0.02)));
+    }
+
+    @Test
+    void shouldEstimateQuantileOfRuns() throws Exception {
+        mockMvc.perform(get("/v1/statistics/distributions/{activityType}/{metric}/quantile", "RUNNING", "DISTANCE")
+                        .param("q", "0.5"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.value", closeTo(50.5, 1.5)));
+    }
+
+    @Test
+    void shouldIncludeCreatedTraining_whenRanking() throws Exception {
+        mockMvc.perform(post("/v1/trainings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                    "userId": "%s",
+                                    "startTime": "2024-04-01T11:00:00",
+                                    "endTime": "2024-04-01T12:00:00",
+                                    "activityType": "TENNIS",
+                                    "distance": 3.0,
+                                    "averageSpeed": 4.0
+                                }
+                                """.formatted(user.getId())))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/v1/statistics/distributions/{activityType}/{metric}/rank", "TENNIS", "AVERAGE_SPEED")
+                        .param("value", "5.0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantile").value(1.0));
+    }
+
+    @Test
+    void shouldReturnNotFound_whenNoTrainingsOfActivity() throws Exception {
+        mockMvc.perform(get("/v1/statistics/distributions/{activityType}/{metric}/quantile", "SWIMMING", "DISTANCE")
+                        .param("q", "0.5"))
+                .andExpect(status().isNotFound());
+    }
+}
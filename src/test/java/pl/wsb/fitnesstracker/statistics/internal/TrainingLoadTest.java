@@ -0,0 +1,98 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TrainingLoadTest {
+
+    private static final double ACUTE = 2.0 / 8;
+
+    private static final double CHRONIC = 2.0 / 29;
+
+    private static final int RETAINED_DAYS = 400;
+
+    @Test
+    void shouldMatchInOrderLoads_whenTrainingIsBackDated() {
+        TrainingLoad inOrder = new TrainingLoad();
+        add(inOrder, 100, 500);
+        add(inOrder, 103, 300);
+        add(inOrder, 110, 700);
+        TrainingLoad backDated = new TrainingLoad();
+        add(backDated, 110, 700);
+        add(backDated, 100, 500);
+        add(backDated, 103, 300);
+
+        assertThat(backDated.acute(112, ACUTE)).isCloseTo(inOrder.acute(112, ACUTE), within(1e-9));
+        assertThat(backDated.chronic(112, CHRONIC)).isCloseTo(inOrder.chronic(112, CHRONIC), within(1e-9));
+    }
+
+    @Test
+    void shouldDecayLoads_onDaysWithoutTrainings() {
+        TrainingLoad load = new TrainingLoad();
+        add(load, 100, 800);
+
+        assertThat(load.acute(100, ACUTE)).isCloseTo(200, within(1e-9));
+        assertThat(load.acute(101, ACUTE)).isCloseTo(150, within(1e-9));
+        assertThat(load.chronic(101, CHRONIC)).isGreaterThan(load.chronic(110, CHRONIC));
+    }
+
+    @Test
+    void shouldRestoreLoads_whenTrainingRemoved() {
+        TrainingLoad load = new TrainingLoad();
+        add(load, 100, 500);
+        double acute = load.acute(105, ACUTE);
+        add(load, 98, 900);
+
+        load.apply(98, 900, -1, ACUTE, CHRONIC, RETAINED_DAYS);
+
+        assertThat(load.acute(105, ACUTE)).isCloseTo(acute, within(1e-9));
+        assertThat(load.lastDay()).isEqualTo(100);
+    }
+
+    @Test
+    void shouldCountStreak_whenBackDatedTrainingFillsGap() {
+        TrainingLoad load = new TrainingLoad();
+        add(load, 100, 500);
+        add(load, 102, 500);
+        add(load, 103, 500);
+        assertThat(load.streak(103)).isEqualTo(2);
+
+        add(load, 101, 500);
+
+        assertThat(load.streak(103)).isEqualTo(4);
+        assertThat(load.streak(104)).isEqualTo(4);
+        assertThat(load.streak(105)).isZero();
+    }
+
+    @Test
+    void shouldBreakStreak_whenOnlyTrainingOfDayRemoved() {
+        TrainingLoad load = new TrainingLoad();
+        add(load, 100, 500);
+        add(load, 101, 500);
+        add(load, 101, 200);
+        add(load, 102, 500);
+
+        load.apply(101, 200, -1, ACUTE, CHRONIC, RETAINED_DAYS);
+        assertThat(load.streak(102)).isEqualTo(3);
+
+        load.apply(101, 500, -1, ACUTE, CHRONIC, RETAINED_DAYS);
+        assertThat(load.streak(102)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldBeEmpty_whenAllTrainingsRemoved() {
+        TrainingLoad load = new TrainingLoad();
+        add(load, 100, 500);
+
+        load.apply(100, 500, -1, ACUTE, CHRONIC, RETAINED_DAYS);
+
+        assertThat(load.isEmpty()).isTrue();
+        assertThat(load.acute(100, ACUTE)).isCloseTo(0, within(1e-9));
+    }
+
+    private static void add(TrainingLoad load, int day, double calories) {
+        load.apply(day, calories, 1, ACUTE, CHRONIC, RETAINED_DAYS);
+    }
+}
@@ -0,0 +1,61 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.wsb.fitnesstracker.training.api.TrainingChunk;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TrainingSnapshotFileTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void shouldReadWrittenTrainings() throws IOException {
+        Path path = directory.resolve("trainings.snapshot");
+        Instant takenAt = Instant.parse("2024-04-01T10:15:30.123Z");
+        TrainingChunk trainings = new TrainingChunk(
+                new long[]{1, 2},
+                new long[]{7, TrainingChunk.NO_USER},
+                new long[]{9000, TrainingChunk.UNKNOWN_BIRTHDATE},
+                new long[]{1_711_965_600_000L, 1_712_052_000_000L},
+                new long[]{1_711_969_200_000L, 1_712_055_600_000L},
+                new byte[]{0, 2},
+                new double[]{10.5, 30},
+                new double[]{8.2, 25});
+
+        TrainingSnapshotFile.write(path, takenAt, trainings);
+        TrainingSnapshotFile.Checkpoint checkpoint = TrainingSnapshotFile.read(path).orElseThrow();
+
+        assertThat(checkpoint.takenAt()).isEqualTo(takenAt);
+        assertThat(checkpoint.trainings().snapshot(0)).isEqualTo(trainings.snapshot(0));
+        assertThat(checkpoint.trainings().snapshot(1)).isEqualTo(trainings.snapshot(1));
+        assertThat(checkpoint.trainings().snapshot(1).userId()).isNull();
+        assertThat(Files.size(path)).isEqualTo(20 + 2 * 57 + 8);
+    }
+
+    @Test
+    void shouldReturnEmpty_whenFileIsMissing() throws IOException {
+        assertThat(TrainingSnapshotFile.read(directory.resolve("missing.snapshot"))).isEmpty();
+    }
+
+    @Test
+    void shouldReject_whenFileIsCorrupted() throws IOException {
+        Path path = directory.resolve("trainings.snapshot");
+        TrainingSnapshotFile.write(path, Instant.now(), new TrainingChunk(
+                new long[]{1}, new long[]{7}, new long[]{9000}, new long[]{0}, new long[]{3_600_000},
+                new byte[]{0}, new double[]{10}, new double[]{10}));
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[30] ^= 1;
+        Files.write(path, bytes);
+
+        assertThatThrownBy(() -> TrainingSnapshotFile.read(path)).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,219 @@
+package pl.wsb.fitnesstracker.statistics.internal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import pl.wsb.fitnesstracker.IntegrationTest;
+import pl.wsb.fitnesstracker.IntegrationTestBase;
+import pl.wsb.fitnesstracker.statistics.api.AnalyticsDimension;
+import pl.wsb.fitnesstracker.statistics.api.LeaderboardEntry;
+import pl.wsb.fitnesstracker.statistics.api.LeaderboardProvider;
+import pl.wsb.fitnesstracker.statistics.api.RollupGranularity;
+import pl.wsb.fitnesstracker.statistics.api.TrainingAnalyticsProvider;
+import pl.wsb.fitnesstracker.statistics.api.TrainingAnalyticsRow;
+import pl.wsb.fitnesstracker.statistics.api.TrainingDistributionProvider;
+import pl.wsb.fitnesstracker.statistics.api.TrainingLoadProvider;
+import pl.wsb.fitnesstracker.statistics.api.TrainingLoadSummary;
+import pl.wsb.fitnesstracker.statistics.api.TrainingMetric;
+import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+import pl.wsb.fitnesstracker.user.api.User;
+import pl.wsb.fitnesstracker.user.api.UserService;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Random;
+
+import static java.util.UUID.randomUUID;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Restores the aggregates of a generated dataset from a snapshot; the restore and rebuild times are logged by
+ * {@link TrainingAggregates}. Replays only the trainings modified after the checkpoint. Every aggregate read by the
+ * API is compared with a rebuild; the training loads are exponential averages summed in feeding order, so they are
+ * compared with a tolerance.
+ */
+@IntegrationTest
+@TestPropertySource(properties = "statistics.snapshot.replay-overlap=0s")
+class TrainingSnapshotIntegrationTest extends IntegrationTestBase {
+
+    private static final int USERS = 200;
+
+    private static final int TRAININGS = 20_000;
+
+    private static final ActivityType[] ACTIVITY_TYPES = ActivityType.values();
+
+    @Autowired
+    private TrainingAggregates trainingAggregates;
+
+    @Autowired
+    private TrainingAnalyticsProvider trainingAnalyticsProvider;
+
+    @Autowired
+    private TrainingDistributionProvider trainingDistributionProvider;
+
+    @Autowired
+    private LeaderboardProvider leaderboardProvider;
+
+    @Autowired
+    private TrainingLoadProvider trainingLoadProvider;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JpaRepository<Training, Long> trainingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    private Path directory;
+
+    private final Random random = new Random(42);
+
+    private final List<User> users = new ArrayList<>();
+
+    private List<Training> trainings;
+
+    @BeforeEach
+    void generateDataset() {
+        for (int i = 0; i < USERS; i++) {
+            users.add(existingUser(new User(randomUUID().toString(), randomUUID().toString(),
+                    LocalDate.of(1960 + random.nextInt(45), 1, 1), randomUUID().toString())));
+        }
+        trainings = trainingRepository.saveAll(generateTrainings(TRAININGS));
+        trainingAggregates.rebuild();
+    }
+
+    @Test
+    void shouldMatchRebuild_whenRestoringSnapshotWithLaterChanges() {
+        Path snapshot = directory.resolve("trainings.snapshot");
+        trainingAggregates.checkpoint(snapshot);
+
+        List<Training> updated = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Training training = trainings.get(i * (TRAININGS / 100));
+            training.setDistance(training.getDistance() + 1);
+            updated.add(training);
+        }
+        trainingRepository.saveAll(updated);
+        trainingRepository.saveAll(generateTrainings(50));
+
+        assertThat(trainingAggregates.restore(snapshot)).isTrue();
+        assertMatchesRebuild(aggregates());
+    }
+
+    @Test
+    void shouldReplayTrainingsOfUser_whenBirthdateChangedAfterCheckpoint() {
+        Path snapshot = directory.resolve("trainings.snapshot");
+        trainingAggregates.checkpoint(snapshot);
+
+        User user = users.get(0);
+        userService.updateUser(user.getId(), new User(null, null, user.getBirthdate().minusYears(30), null));
+
+        assertThat(trainingAggregates.restore(snapshot)).isTrue();
+        assertMatchesRebuild(aggregates());
+    }
+
+    @Test
+    void shouldMatchRebuild_whenBirthdateChanged() {
+        User user = users.get(0);
+        userService.updateUser(user.getId(), new User(null, null, user.getBirthdate().minusYears(30), null));
+
+        assertMatchesRebuild(aggregates());
+    }
+
+    @Test
+    void shouldRebuildFromDatabase_whenSnapshotIsStale() {
+        Path snapshot = directory.resolve("trainings.snapshot");
+        trainingAggregates.checkpoint(snapshot);
+        trainingRepository.deleteAll(trainings.subList(0, 10));
+
+        assertThat(trainingAggregates.restore(snapshot)).isFalse();
+        assertMatchesRebuild(aggregates());
+    }
+
+    @Test
+    void shouldRebuildFromDatabase_whenTrainingsReplacedBehindSnapshot() {
+        Path snapshot = directory.resolve("trainings.snapshot");
+        trainingAggregates.checkpoint(snapshot);
+        // same number of trainings, none of them modified after the checkpoint
+        trainingRepository.deleteAll(trainings.subList(0, 10));
+        List<Training> replacements = trainingRepository.saveAll(generateTrainings(10));
+        jdbcTemplate.update("UPDATE trainings SET modified_at = ? WHERE id >= ?",
+                Timestamp.from(Instant.now().minus(Duration.ofDays(1))), replacements.get(0).getId());
+
+        assertThat(trainingAggregates.restore(snapshot)).isFalse();
+        assertMatchesRebuild(aggregates());
+    }
+
+    private void assertMatchesRebuild(Aggregates restored) {
+        trainingAggregates.rebuild();
+        assertThat(restored)
+                .usingRecursiveComparison()
+                .withEqualsForType((a, b) -> Math.abs(a - b) <= 1e-9 * Math.max(1, Math.abs(a)), Double.class)
+                .isEqualTo(aggregates());
+    }
+
+    private Aggregates aggregates() {
+        List<List<TrainingAnalyticsRow>> analytics = new ArrayList<>();
+        for (AnalyticsDimension dimension : AnalyticsDimension.values()) {
+            analytics.add(trainingAnalyticsProvider.aggregate(TrainingMetric.DISTANCE, dimension, null, null, null));
+        }
+        List<OptionalDouble> quantiles = new ArrayList<>();
+        List<List<LeaderboardEntry>> leaderboards = new ArrayList<>();
+        LocalDate previousMonth = LocalDate.now().minusMonths(1);
+        for (ActivityType activityType : ACTIVITY_TYPES) {
+            for (TrainingMetric metric : TrainingMetric.values()) {
+                for (double quantile : new double[]{0.1, 0.5, 0.9}) {
+                    quantiles.add(trainingDistributionProvider.getQuantile(activityType, metric, quantile));
+                }
+            }
+            for (RollupGranularity period : List.of(RollupGranularity.WEEK, RollupGranularity.MONTH)) {
+                leaderboards.add(leaderboardProvider.getTop(activityType, period, null, USERS));
+                leaderboards.add(leaderboardProvider.getTop(activityType, period, previousMonth, USERS));
+            }
+        }
+        List<Optional<TrainingLoadSummary>> loads = users.stream()
+                .map(user -> trainingLoadProvider.getTrainingLoad(user.getId()))
+                .toList();
+        return new Aggregates(analytics, quantiles, leaderboards, loads);
+    }
+
+    /**
+     * Trainings of the last two years, so the recent periods of the leaderboards and loads are populated.
+     * Whole distances keep the sums exact, whatever the order the trainings are added in.
+     */
+    private List<Training> generateTrainings(int count) {
+        Instant from = Instant.now().minus(Duration.ofDays(2 * 365));
+        List<Training> generated = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Instant start = from.plusSeconds(random.nextInt(2 * 365 * 24 * 3600));
+            generated.add(new Training(users.get(random.nextInt(USERS)), Date.from(start), Date.from(start.plusSeconds(3600)),
+                    ACTIVITY_TYPES[random.nextInt(ACTIVITY_TYPES.length)], 1 + random.nextInt(40), 5 + random.nextInt(20)));
+        }
+        return generated;
+    }
+
+    /**
+     * Everything the aggregates answer through the API for the generated dataset.
+     */
+    private record Aggregates(List<List<TrainingAnalyticsRow>> analytics,
+                              List<OptionalDouble> quantiles,
+                              List<List<LeaderboardEntry>> leaderboards,
+                              List<Optional<TrainingLoadSummary>> loads) {
+    }
+}
@@ -0,0 +1,82 @@
+package pl.wsb.fitnesstracker.training;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import pl.wsb.fitnesstracker.IntegrationTest;
+import pl.wsb.fitnesstracker.IntegrationTestBase;
+import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+import pl.wsb.fitnesstracker.user.api.User;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@IntegrationTest
+@AutoConfigureMockMvc(addFilters = false)
+class TrainingExportIntegrationTest extends IntegrationTestBase {
+
+    /**
+     * More than the 500 rows fetched per round trip and flushed per persistence context, so the export spans chunks.
+     */
+    private static final int TRAININGS = 1_234;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldStreamOneJsonObjectPerLine_whenExportingAllTrainings() throws Exception {
+        User user = existingUser(generateClient());
+        Instant start = Instant.parse("2024-01-01T08:00:00Z");
+        List<Training> trainings = new ArrayList<>(TRAININGS);
+        for (int i = 0; i < TRAININGS; i++) {
+            Instant trainingStart = start.plusSeconds(3_600L * i);
+            trainings.add(new Training(user, Date.from(trainingStart), Date.from(trainingStart.plusSeconds(1_800)),
+                    ActivityType.RUNNING, i, 10));
+        }
+        createAllTrainings(trainings);
+
+        MvcResult started = mockMvc.perform(get("/v1/trainings").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body).endsWith("\n");
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(TRAININGS);
+        Set<Long> ids = new HashSet<>();
+        double previousDistance = -1;
+        for (String line : lines) {
+            JsonNode training = objectMapper.readTree(line);
+            assertThat(training.isObject()).isTrue();
+            assertThat(training.get("user").get("id").asLong()).isEqualTo(user.getId());
+            // exported in start time order, which is the order of the distances
+            assertThat(training.get("distance").asDouble()).isGreaterThan(previousDistance);
+            previousDistance = training.get("distance").asDouble();
+            ids.add(training.get("id").asLong());
+        }
+        assertThat(ids).hasSize(TRAININGS);
+    }
+}
@@ -0,0 +1,113 @@
+package pl.wsb.fitnesstracker.training;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import pl.wsb.fitnesstracker.IntegrationTest;
+import pl.wsb.fitnesstracker.IntegrationTestBase;
+import pl.wsb.fitnesstracker.monitoring.api.SqlStatementCounter;
+import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.training.internal.ActivityType;
+import pl.wsb.fitnesstracker.user.api.User;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifies that the training list endpoints run a constant number of SQL statements, regardless of how many
+ * distinct users own the listed trainings.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc(addFilters = false)
+class TrainingQueryCountIntegrationTest extends IntegrationTestBase {
+
+    private static final int USERS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    private Long firstUserId;
+
+    private static Training generateTraining(User user) throws ParseException {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+        return new Training(
+                user,
+                sdf.parse("2024-01-19 08:00:00"),
+                sdf.parse("2024-01-19 09:30:00"),
+                ActivityType.RUNNING,
+                10.5,
+                8.2);
+    }
+
+    @BeforeEach
+    void persistTrainingsOfManyUsers() throws ParseException {
+        for (int i = 0; i < USERS; i++) {
+            User user = existingUser(generateClient());
+            persistTraining(generateTraining(user));
+            if (firstUserId == null) {
+                firstUserId = user.getId();
+            }
+        }
+    }
+
+    @Test
+    void shouldRunSingleQuery_whenGettingAllTrainings() throws Exception {
+        assertSingleQuery(get("/v1/trainings").contentType(MediaType.APPLICATION_JSON), USERS);
+    }
+
+    @Test
+    void shouldRunSingleQuery_whenGettingTrainingsByActivityType() throws Exception {
+        assertSingleQuery(get("/v1/trainings/activityType").param("activityType", "RUNNING").contentType(MediaType.APPLICATION_JSON), USERS);
+    }
+
+    @Test
+    void shouldRunSingleQuery_whenGettingFinishedTrainings() throws Exception {
+        assertSingleQuery(get("/v1/trainings/finished/{afterTime}", "2024-01-01").contentType(MediaType.APPLICATION_JSON), USERS);
+    }
+
+    @Test
+    void shouldRunVersionLookupAndSingleQuery_whenGettingTrainingsOfUser() throws Exception {
+        assertQueries(get("/v1/trainings/{userId}", firstUserId).contentType(MediaType.APPLICATION_JSON), 1, 2);
+    }
+
+    @Test
+    void shouldRunOnlyVersionLookup_whenTrainingsOfUserNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/v1/trainings/{userId}", firstUserId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        sqlStatementCounter.reset();
+
+        mockMvc.perform(get("/v1/trainings/{userId}", firstUserId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        assertThat(sqlStatementCounter.getCount()).isEqualTo(1);
+    }
+
+    private void assertSingleQuery(RequestBuilder request, int expectedTrainings) throws Exception {
+        assertQueries(request, expectedTrainings, 1);
+    }
+
+    private void assertQueries(RequestBuilder request, int expectedTrainings, int expectedStatements) throws Exception {
+        sqlStatementCounter.reset();
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(expectedTrainings));
+
+        assertThat(sqlStatementCounter.getCount()).isEqualTo(expectedStatements);
+    }
+}
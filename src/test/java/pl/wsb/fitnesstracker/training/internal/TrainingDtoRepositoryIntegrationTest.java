@@ -0,0 +1,65 @@
+package pl.wsb.fitnesstracker.training.internal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+import pl.wsb.fitnesstracker.IntegrationTest;
+import pl.wsb.fitnesstracker.IntegrationTestBase;
+import pl.wsb.fitnesstracker.training.api.Training;
+import pl.wsb.fitnesstracker.user.api.User;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@IntegrationTest
+@Transactional
+class TrainingDtoRepositoryIntegrationTest extends IntegrationTestBase {
+
+    @Autowired
+    private TrainingRepository trainingRepository;
+
+    @Autowired
+    private TrainingMapper trainingMapper;
+
+    @Test
+    void shouldProjectSameValuesAsEntityMapping() {
+        User user = existingUser(generateClient());
+        Training first = persistTraining(training(user, "2024-04-01T10:00:00Z", ActivityType.RUNNING, 10.5));
+        Training second = persistTraining(training(user, "2024-04-02T10:00:00Z", ActivityType.CYCLING, 42));
+
+        List<TrainingDto> dtos = trainingRepository.findDtos(TrainingSpecifications.all(), 10);
+
+        assertThat(dtos).usingRecursiveFieldByFieldElementComparator()
+                .containsExactly(trainingMapper.toDto(first), trainingMapper.toDto(second));
+    }
+
+    @Test
+    void shouldListTrainingWithoutUser() {
+        Training withoutUser = persistTraining(training(null, "2024-04-01T10:00:00Z", ActivityType.RUNNING, 5));
+
+        List<TrainingDto> dtos = trainingRepository.findDtos(TrainingSpecifications.all(), 10);
+
+        assertThat(dtos).extracting(TrainingDto::getId).containsExactly(withoutUser.getId());
+        assertThat(dtos.get(0).getUser()).isNull();
+    }
+
+    @Test
+    void shouldApplySpecificationAndLimit() {
+        User user = existingUser(generateClient());
+        persistTraining(training(user, "2024-04-01T10:00:00Z", ActivityType.RUNNING, 1));
+        Training cycling = persistTraining(training(user, "2024-04-02T10:00:00Z", ActivityType.CYCLING, 2));
+        persistTraining(training(user, "2024-04-03T10:00:00Z", ActivityType.CYCLING, 3));
+
+        List<TrainingDto> dtos = trainingRepository.findDtos(TrainingSpecifications.ofActivityType(ActivityType.CYCLING), 1);
+
+        assertThat(dtos).extracting(TrainingDto::getId).containsExactly(cycling.getId());
+    }
+
+    private static Training training(User user, String start, ActivityType activityType, double distance) {
+        Instant startTime = Instant.parse(start);
+        return new Training(user, Date.from(startTime), Date.from(startTime.plusSeconds(3_600)), activityType, distance, 10);
+    }
+}
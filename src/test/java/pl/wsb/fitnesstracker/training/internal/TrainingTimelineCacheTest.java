@@ -0,0 +1,140 @@
+package pl.wsb.fitnesstracker.training.internal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import pl.wsb.fitnesstracker.training.api.TrainingChangedEvent;
+import pl.wsb.fitnesstracker.training.api.TrainingSnapshot;
+import pl.wsb.fitnesstracker.user.api.UserDto;
+import pl.wsb.fitnesstracker.user.api.UserUpdatedEvent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrainingTimelineCacheTest {
+
+    private static final Instant START = Instant.parse("2024-04-01T10:00:00Z");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldApplyCommittedChanges_toCachedTimeline() {
+        TrainingTimelineCache cache = cache(100, 10, Duration.ofMinutes(10));
+        cache.put(1L, cache.writeStamp(1L), List.of(dto(1L, 10L, 0), dto(1L, 11L, 2)));
+
+        cache.onTrainingChanged(new TrainingChangedEvent(null, snapshot(12L, 1L, 1)));
+        assertThat(trainingIds(cache, 1L)).containsExactly(10L, 12L, 11L);
+
+        cache.onTrainingChanged(new TrainingChangedEvent(snapshot(10L, 1L, 0), snapshot(10L, 1L, 3)));
+        assertThat(trainingIds(cache, 1L)).containsExactly(12L, 11L, 10L);
+
+        cache.onTrainingChanged(new TrainingChangedEvent(snapshot(11L, 1L, 2), snapshot(11L, 2L, 2)));
+        assertThat(trainingIds(cache, 1L)).containsExactly(12L, 10L);
+        assertThat(cache.find(2L)).isEmpty();
+        assertThat(cache.weight()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldNotCacheTimeline_loadedBeforeConcurrentWrite() {
+        TrainingTimelineCache cache = cache(100, 10, Duration.ofMinutes(10));
+        long writeStamp = cache.writeStamp(1L);
+
+        cache.onTrainingChanged(new TrainingChangedEvent(null, snapshot(12L, 1L, 1)));
+        TrainingTimeline loaded = cache.put(1L, writeStamp, List.of(dto(1L, 10L, 0)));
+
+        assertThat(loaded.size()).isEqualTo(1);
+        assertThat(cache.find(1L)).isEmpty();
+
+        cache.put(1L, cache.writeStamp(1L), List.of(dto(1L, 10L, 0), dto(1L, 12L, 1)));
+        assertThat(trainingIds(cache, 1L)).containsExactly(10L, 12L);
+    }
+
+    @Test
+    void shouldDropTimeline_whenUserUpdated() {
+        TrainingTimelineCache cache = cache(100, 10, Duration.ofMinutes(10));
+        cache.put(1L, cache.writeStamp(1L), List.of(dto(1L, 10L, 0)));
+        cache.put(2L, cache.writeStamp(2L), List.of(dto(2L, 20L, 0)));
+        long writeStamp = cache.writeStamp(1L);
+
+        cache.onUserUpdated(new UserUpdatedEvent(1L));
+        // loaded with the old details of the user
+        cache.put(1L, writeStamp, List.of(dto(1L, 10L, 0)));
+
+        assertThat(cache.find(1L)).isEmpty();
+        assertThat(cache.find(2L)).isPresent();
+        assertThat(cache.weight()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedTimeline_whenWeightExceeded() {
+        TrainingTimelineCache cache = cache(6, 10, Duration.ofMinutes(10));
+        cache.put(1L, cache.writeStamp(1L), List.of(dto(1L, 10L, 0), dto(1L, 11L, 1)));
+        cache.put(2L, cache.writeStamp(2L), List.of(dto(2L, 20L, 0), dto(2L, 21L, 1)));
+        cache.find(1L);
+
+        cache.put(3L, cache.writeStamp(3L), List.of(dto(3L, 30L, 0), dto(3L, 31L, 1)));
+
+        assertThat(cache.find(2L)).isEmpty();
+        assertThat(cache.find(1L)).isPresent();
+        assertThat(cache.find(3L)).isPresent();
+        assertThat(cache.weight()).isEqualTo(6);
+        assertThat(meterRegistry.counter("training.timeline.cache.evictions").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReloadTimeline_afterTimeToLive() throws InterruptedException {
+        TrainingTimelineCache cache = cache(100, 10, Duration.ofMillis(10));
+        cache.put(1L, cache.writeStamp(1L), List.of(dto(1L, 10L, 0)));
+
+        Thread.sleep(20);
+
+        assertThat(cache.find(1L)).isEmpty();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.weight()).isZero();
+    }
+
+    @Test
+    void shouldCacheOversizedMarker_untilTrainingTakenAway() {
+        TrainingTimelineCache cache = cache(100, 2, Duration.ofMinutes(10));
+
+        TrainingTimeline loaded = cache.put(1L, cache.writeStamp(1L), List.of(dto(1L, 10L, 0), dto(1L, 11L, 1), dto(1L, 12L, 2)));
+
+        assertThat(loaded.isOversized()).isTrue();
+        assertThat(cache.find(1L)).hasValueSatisfying(timeline -> assertThat(timeline.isOversized()).isTrue());
+        assertThat(cache.weight()).isEqualTo(1);
+
+        cache.onTrainingChanged(new TrainingChangedEvent(null, snapshot(13L, 1L, 3)));
+        assertThat(cache.find(1L)).hasValueSatisfying(timeline -> assertThat(timeline.isOversized()).isTrue());
+
+        cache.onTrainingChanged(new TrainingChangedEvent(snapshot(13L, 1L, 3), snapshot(13L, 2L, 3)));
+        assertThat(cache.find(1L)).isEmpty();
+    }
+
+    private TrainingTimelineCache cache(int maxTrainings, int maxTrainingsPerUser, Duration timeToLive) {
+        return new TrainingTimelineCache(new TrainingCacheProperties(maxTrainings, maxTrainingsPerUser, timeToLive), meterRegistry);
+    }
+
+    private static List<Long> trainingIds(TrainingTimelineCache cache, Long userId) {
+        return cache.find(userId).orElseThrow().slice(null, 100).items().stream().map(TrainingDto::getId).toList();
+    }
+
+    private static TrainingDto dto(Long userId, Long id, int startHours) {
+        Instant startTime = START.plus(Duration.ofHours(startHours));
+        return new TrainingDto(id, user(userId), Date.from(startTime), Date.from(startTime.plusSeconds(1_800)),
+                ActivityType.RUNNING, 5, 10);
+    }
+
+    private static TrainingSnapshot snapshot(Long id, Long userId, int startHours) {
+        Instant startTime = START.plus(Duration.ofHours(startHours));
+        return new TrainingSnapshot(id, userId, user(userId).birthdate(), startTime, startTime.plusSeconds(1_800),
+                ActivityType.RUNNING, 5, 10);
+    }
+
+    private static UserDto user(Long userId) {
+        return new UserDto(userId, "First" + userId, "Last" + userId, LocalDate.of(1990, 1, 1), "user" + userId + "@example.com");
+    }
+}